@@ -0,0 +1,89 @@
+package io.confluent.ps.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+
+/**
+ * Entry point of {@code benchmarks.jar}: the standard JMH command line, with
+ * defaults suited to tracking per-record cost between releases.
+ *
+ * <p>Unless overridden on the command line:
+ * <ul>
+ *   <li>results are written as JSON ({@code -rf json}) to
+ *       {@code jmh-results/<version>-<timestamp>.json};</li>
+ *   <li>the {@code gc} profiler is enabled, so every result also carries
+ *       {@code gc.alloc.rate.norm} (bytes allocated per operation).</li>
+ * </ul>
+ * Both are regular JMH outputs; diff two files by benchmark name and params
+ * (e.g. with jq or the JMH Visualizer) to spot regressions.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar                      # everything
+ * java -jar benchmarks/target/benchmarks.jar RiskScoring -rff x.json
+ * java -jar benchmarks/target/benchmarks.jar -l                   # list
+ * </pre>
+ */
+public final class BenchmarkMain {
+
+    private static final String RESULTS_DIR = "jmh-results";
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        CommandLineOptions cmd;
+        try {
+            cmd = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams()
+                || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            Path dir = Files.createDirectories(Path.of(RESULTS_DIR));
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.result(dir.resolve(version() + "-" + timestamp + ".json").toString());
+        }
+        if (cmd.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+
+    /** Project version, filtered into {@code benchmarks.properties} at build time. */
+    private static String version() {
+        Properties props = new Properties();
+        try (InputStream is = BenchmarkMain.class.getClassLoader().getResourceAsStream("benchmarks.properties")) {
+            if (is != null) {
+                props.load(is);
+            }
+        } catch (IOException e) {
+            // fall through to "unknown"
+        }
+        String version = props.getProperty("version", "").trim();
+        return version.isEmpty() || version.startsWith("${") ? "unknown" : version;
+    }
+}
@@ -0,0 +1,90 @@
+package io.confluent.ps.consumer.parallel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of consumer dispatch: handling a poll batch inline on the
+ * polling thread vs. fanning it out through {@link KeyOrderedExecutor}
+ * (the {@code consumer.processing.mode=parallel} path) and waiting for it.
+ *
+ * <p>{@code workTokens} simulates handler CPU time via {@link Blackhole#consumeCPU};
+ * at 0 the result is the pure dispatch overhead, at higher values it shows
+ * where parallel dispatch starts to pay off for a given thread count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class KeyOrderedDispatchBenchmark {
+
+    /** Matches the consumer's default max.poll.records. */
+    private static final int BATCH = 500;
+    private static final int KEYS = 4096;
+
+    @Param({"4", "8"})
+    public int threads;
+
+    @Param({"0", "1000", "10000"})
+    public long workTokens;
+
+    private KeyOrderedExecutor executor;
+    private int[] keyHashes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = new KeyOrderedExecutor(threads, threads * 16, "bench-worker-");
+        keyHashes = new int[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keyHashes[i] = ("txn-" + i).hashCode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void inline() {
+        for (int n = 0; n < BATCH; n++) {
+            Blackhole.consumeCPU(workTokens);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void keyOrdered() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH);
+        long tokens = workTokens;
+        Runnable task = () -> {
+            Blackhole.consumeCPU(tokens);
+            done.countDown();
+        };
+        for (int n = 0; n < BATCH; n++) {
+            executor.execute(keyHashes[next], task);
+            next = (next + 1) & (KEYS - 1);
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,100 @@
+package io.confluent.ps.consumer.pipeline;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-payment cost of writing a poll batch through {@link JdbcPaymentSink}
+ * into in-memory H2: one insert and one commit per record (what a per-record
+ * handler ends up doing) versus one JDBC batch and one commit per poll
+ * ({@code consumer.pipeline.jdbc.bulk=true}).
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar JdbcSinkBenchmark
+ * </pre>
+ * In-memory H2 has no fsync, so the gap measured here is the statement and
+ * transaction overhead alone; against a networked database each per-record
+ * commit also costs a round trip and the gap widens accordingly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class JdbcSinkBenchmark {
+
+    /** Matches the consumer's default max.poll.records. */
+    private static final int BATCH = 500;
+
+    @Param({"true", "false"})
+    public boolean bulk;
+
+    private String url;
+    private JdbcPaymentSink<String> sink;
+    private ConsumerRecords<String, String> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        url = "jdbc:h2:mem:sink-bench-" + bulk + ";DB_CLOSE_DELAY=-1";
+        Properties props = new Properties();
+        props.setProperty("consumer.pipeline.jdbc.url", url);
+        props.setProperty("consumer.pipeline.jdbc.bulk", String.valueOf(bulk));
+        sink = new JdbcPaymentSink<>(props);
+
+        TopicPartition tp = new TopicPartition("payments", 0);
+        List<ConsumerRecord<String, String>> records = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            records.add(new ConsumerRecord<>(tp.topic(), tp.partition(), i, "txn-" + i,
+                    "{\"transaction_id\":\"txn-" + i + "\",\"card_number\":\"****-****-****-1111\","
+                            + "\"amount\":120.50,\"currency\":\"USD\",\"merchant_id\":\"MERCH-001\"}"));
+        }
+        batch = new ConsumerRecords<>(Map.of(tp, records));
+    }
+
+    /** Keeps the table from growing across iterations. */
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE payments");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sink.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void writeBatch() {
+        sink.handle(batch).join();
+    }
+}
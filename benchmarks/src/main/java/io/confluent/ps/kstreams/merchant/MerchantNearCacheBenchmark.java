@@ -0,0 +1,138 @@
+package io.confluent.ps.kstreams.merchant;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.scan.PaymentScanner;
+import io.confluent.ps.kstreams.scan.PaymentView;
+import io.confluent.ps.producer.loadgen.MerchantMix;
+import io.confluent.ps.producer.loadgen.ZipfSampler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-payment cost of resolving the merchant's reference data, straight from
+ * RocksDB (what every lookup would cost without the near cache) versus
+ * through a {@link MerchantNearCache} of {@code cacheEntries}, with merchants
+ * drawn from the same Zipf mix as the load generator ({@link MerchantMix}).
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar MerchantNearCacheBenchmark -prof gc
+ * </pre>
+ * The cached path should approach the hit ratio's share of a few
+ * nanoseconds plus the miss ratio's share of the store path, and allocate
+ * only on misses; the ratio is printed at the end of each trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class MerchantNearCacheBenchmark {
+
+    private static final int POOL_SIZE = 1 << 16;
+
+    @Param({"100000"})
+    public int merchants;
+
+    @Param({"1.0"})
+    public double zipfExponent;
+
+    @Param({"1024", "4096", "16384"})
+    public int cacheEntries;
+
+    private Path dir;
+    private Options options;
+    private RocksDB db;
+    private PaymentView[] views;
+    private PipelineMetrics metrics;
+    private MerchantNearCache cache;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, RocksDBException {
+        RocksDB.loadLibrary();
+        dir = Files.createTempDirectory("merchant-bench");
+        options = new Options().setCreateIfMissing(true);
+        db = RocksDB.open(options, dir.toString());
+        for (int rank = 0; rank < merchants; rank++) {
+            db.put(utf8(MerchantMix.merchantId(rank)), utf8(MerchantMix.referenceJson(rank)));
+        }
+        db.compactRange();
+
+        ZipfSampler sampler = new ZipfSampler(merchants, zipfExponent, 42);
+        views = new PaymentView[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            String json = "{\"transaction_id\":\"txn-" + i + "\","
+                    + "\"merchant_id\":\"" + MerchantMix.merchantId(sampler.next()) + "\","
+                    + "\"amount\":120.50}";
+            views[i] = new PaymentView();
+            PaymentScanner.scan(utf8(json), views[i]);
+        }
+
+        metrics = new PipelineMetrics();
+        cache = new MerchantNearCache(cacheEntries, () -> 0L, this::load, metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n[cacheEntries=%d] near-cache hit ratio %.3f%n", cacheEntries, metrics.merchantCacheHitRatio());
+        db.close();
+        options.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int nearCache() {
+        return cache.lookup(nextView()).riskTier();
+    }
+
+    @Benchmark
+    public int storeOnly() {
+        MerchantProfile profile = load(nextView().text(PaymentView.MERCHANT_ID));
+        return profile == null ? 0 : profile.riskTier();
+    }
+
+    private PaymentView nextView() {
+        PaymentView view = views[next];
+        next = (next + 1) & (POOL_SIZE - 1);
+        return view;
+    }
+
+    private MerchantProfile load(String merchantId) {
+        try {
+            byte[] json = db.get(utf8(merchantId));
+            return json == null ? null : MerchantProfile.parse(new String(json, StandardCharsets.UTF_8));
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("RocksDB read failed", e);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,366 @@
+package io.confluent.ps.kstreams.restore;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.query.RiskStores;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.topology.FraudDetectionTopology;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.processor.StandbyUpdateListener;
+import org.apache.kafka.streams.processor.StateRestoreListener;
+import org.apache.kafka.streams.processor.TaskId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Failover time of {@code FraudDetectionApp}'s topology against a real
+ * broker, per state size and recovery path. Not a JMH benchmark: each
+ * measurement is one restart, dominated by changelog replay and rebalancing.
+ *
+ * <p>For every size in {@code cards} (distinct cards, hence entries in the
+ * per-card stores) a fresh application id is populated by one instance, then:
+ * <ul>
+ *   <li>{@code cold} — restart with the local state wiped: full changelog restore</li>
+ *   <li>{@code warm} — restart on the checkpointed state: restores only the tail</li>
+ *   <li>{@code standby} — two instances with {@code num.standby.replicas=1};
+ *       the active one is closed and the survivor takes over from its standbys</li>
+ * </ul>
+ * Reported per scenario: wall time until the instance is RUNNING again,
+ * time spent restoring, and records restored.
+ *
+ * <p>Needs a throwaway broker: the {@code payments} topic is created if
+ * missing and only ever appended to, so a later size also replays earlier
+ * sizes' payments (the table shows the records actually restored). Time to
+ * RUNNING after {@code cold}/{@code warm} restarts includes the group
+ * waiting out the closed member's {@code session.timeout.ms}.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar io.confluent.ps.kstreams.restore.FailoverBenchmark \
+ *      bootstrap.servers=localhost:9092 cards=10000,100000,1000000 scenarios=cold,warm,standby
+ * </pre>
+ */
+public final class FailoverBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(10);
+    private static final int PARTITIONS = 6;
+
+    private final Properties base;
+    private final Path workDir;
+
+    private FailoverBenchmark(Properties base, Path workDir) {
+        this.base = base;
+        this.workDir = workDir;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties options = new Properties();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Expected key=value, got: " + arg);
+                System.exit(1);
+            }
+            options.setProperty(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        List<Integer> sizes = Arrays.stream(options.getProperty("cards", "10000,100000").split(","))
+                .map(String::trim).map(Integer::parseInt).toList();
+        List<String> scenarios = Arrays.stream(options.getProperty("scenarios", "cold,warm,standby").split(","))
+                .map(String::trim).toList();
+
+        Properties base = new Properties();
+        base.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, options.getProperty("bootstrap.servers", "localhost:9092"));
+        base.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, options.getProperty("num.stream.threads", "2"));
+        base.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG,
+                options.getProperty("processing.guarantee", StreamsConfig.AT_LEAST_ONCE));
+        base.put(StreamsConfig.REPLICATION_FACTOR_CONFIG, options.getProperty("replication.factor", "1"));
+        base.put(StreamsConfig.consumerPrefix(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG), "10000");
+        base.put(StreamsConfig.consumerPrefix(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG), "1000");
+        base.put(StreamsConfig.ACCEPTABLE_RECOVERY_LAG_CONFIG, "10000");
+        // The per-card stores are opt-in: the risk stores and the velocity windows
+        base.put(RiskStores.ENABLED_CONFIG, "true");
+        base.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "true");
+
+        Path workDir = Files.createTempDirectory("failover-bench");
+        FailoverBenchmark bench = new FailoverBenchmark(base, workDir);
+        List<String> rows = new ArrayList<>();
+        try {
+            bench.createTopics();
+            for (int cards : sizes) {
+                for (String scenario : scenarios) {
+                    rows.add(bench.run(cards, scenario));
+                }
+            }
+        } finally {
+            deleteRecursively(workDir);
+        }
+
+        System.out.printf(Locale.ROOT, "%n%-10s %-8s %12s %12s %16s%n",
+                "cards", "scenario", "running_ms", "restore_ms", "restored_records");
+        rows.forEach(System.out::println);
+    }
+
+    private String run(int cards, String scenario) throws Exception {
+        String appId = "fraud-failover-" + cards + "-" + scenario + "-" + System.currentTimeMillis();
+        Path primaryDir = workDir.resolve(appId + "-a");
+        Path secondaryDir = workDir.resolve(appId + "-b");
+        boolean standby = scenario.equals("standby");
+
+        long target = produce(cards);
+        Instance primary = new Instance(appId, primaryDir, standby ? 1 : 0);
+        Instance secondary = null;
+        Measurement measured;
+        try {
+            primary.start();
+            await("populate " + appId, () -> primary.processed() >= target);
+
+            switch (scenario) {
+                case "cold", "warm" -> {
+                    primary.close();
+                    Instance restarted = new Instance(appId, primaryDir, 0);
+                    if (scenario.equals("cold")) {
+                        restarted.streams.cleanUp();
+                    }
+                    long start = System.nanoTime();
+                    restarted.start();
+                    await(scenario + " restart", restarted::running);
+                    measured = restarted.measurement(start);
+                    restarted.close();
+                }
+                case "standby" -> {
+                    secondary = new Instance(appId, secondaryDir, 1);
+                    Instance survivor = secondary;
+                    survivor.start();
+                    await("standby catch-up", () -> survivor.running() && primary.running()
+                            && survivor.standbyPartitions.get() > 0 && survivor.standbyLag() == 0);
+                    survivor.restore.reset();
+                    long start = System.nanoTime();
+                    primary.close();
+                    await("standby takeover", () -> survivor.reachedRunningAfter(start));
+                    measured = survivor.measurement(start);
+                }
+                default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+            }
+        } finally {
+            primary.close();
+            if (secondary != null) {
+                secondary.close();
+            }
+        }
+        return String.format(Locale.ROOT, "%-10d %-8s %12d %12d %16d",
+                cards, scenario, measured.runningMs(), measured.restoreMs(), measured.restored());
+    }
+
+    /** Appends one payment per card; returns the input topic's total end offset to wait for. */
+    private long produce(int cards) throws ExecutionException, InterruptedException {
+        Properties producerProps = new Properties();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, base.get(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG));
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, "20");
+        producerProps.put(ProducerConfig.BATCH_SIZE_CONFIG, "262144");
+        long now = System.currentTimeMillis();
+        try (KafkaProducer<String, String> producer =
+                     new KafkaProducer<>(producerProps, new StringSerializer(), new StringSerializer())) {
+            for (int i = 0; i < cards; i++) {
+                String txnId = "bench-" + now + "-" + i;
+                String payment = String.format(Locale.ROOT, "{\"transaction_id\":\"%s\","
+                        + "\"card_number_masked\":\"****-****-%04d-%04d\",\"amount\":%.2f,\"currency\":\"USD\","
+                        + "\"merchant_id\":\"MERCH-%04d\",\"timestamp\":%d,\"status\":\"PENDING\","
+                        + "\"region\":\"US-EAST\"}",
+                        txnId, i / 10_000, i % 10_000, 10 + (i % 7_000), i % 1_000, now + i);
+                producer.send(new ProducerRecord<>(FraudDetectionTopology.INPUT_TOPIC, txnId, payment));
+            }
+            producer.flush();
+        }
+        try (Admin admin = admin()) {
+            Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+            for (int p = 0; p < PARTITIONS; p++) {
+                request.put(new TopicPartition(FraudDetectionTopology.INPUT_TOPIC, p), OffsetSpec.latest());
+            }
+            return admin.listOffsets(request).all().get().values().stream().mapToLong(ListOffsetsResultInfo::offset).sum();
+        }
+    }
+
+    private void createTopics() throws ExecutionException, InterruptedException {
+        short replication = Short.parseShort(base.getProperty(StreamsConfig.REPLICATION_FACTOR_CONFIG));
+        try (Admin admin = admin()) {
+            for (String topic : List.of(FraudDetectionTopology.INPUT_TOPIC,
+                    FraudDetectionTopology.FRAUD_ALERTS_TOPIC, FraudDetectionTopology.APPROVED_TOPIC)) {
+                try {
+                    admin.createTopics(List.of(new NewTopic(topic, PARTITIONS, replication))).all().get();
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof TopicExistsException)) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    private Admin admin() {
+        return Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                base.get(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG)));
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Timed out waiting for " + what);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private record Measurement(long runningMs, long restoreMs, long restored) {}
+
+    /** One KafkaStreams instance of the real topology with its own state dir. */
+    private final class Instance {
+
+        final KafkaStreams streams;
+        final PipelineMetrics metrics = new PipelineMetrics();
+        final TimedRestore restore = new TimedRestore();
+        final AtomicLong standbyPartitions = new AtomicLong();
+        final Map<TopicPartition, Long> standbyLag = new ConcurrentHashMap<>();
+        final AtomicLong runningSinceNanos = new AtomicLong(-1L);
+        private boolean closed;
+
+        Instance(String appId, Path stateDir, int standbys) {
+            Properties props = new Properties();
+            props.putAll(base);
+            props.put(StreamsConfig.APPLICATION_ID_CONFIG, appId);
+            props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+            props.put(StreamsConfig.NUM_STANDBY_REPLICAS_CONFIG, String.valueOf(standbys));
+            streams = new KafkaStreams(FraudDetectionTopology.build(props, RuleEngine.withDefaults(), metrics), props);
+            streams.setGlobalStateRestoreListener(restore);
+            streams.setStandbyUpdateListener(new StandbyUpdateListener() {
+                @Override
+                public void onUpdateStart(TopicPartition partition, String storeName, long startingOffset) {
+                    standbyPartitions.incrementAndGet();
+                }
+
+                @Override
+                public void onBatchLoaded(TopicPartition partition, String storeName, TaskId taskId,
+                                          long batchEndOffset, long batchSize, long currentEndOffset) {
+                    standbyLag.put(partition, Math.max(0L, currentEndOffset - batchEndOffset - 1));
+                }
+
+                @Override
+                public void onUpdateSuspended(TopicPartition partition, String storeName, long storeOffset,
+                                              long currentEndOffset, SuspendReason reason) {
+                    standbyPartitions.decrementAndGet();
+                    standbyLag.remove(partition);
+                }
+            });
+            streams.setStateListener((newState, oldState) -> runningSinceNanos.set(
+                    newState == KafkaStreams.State.RUNNING ? System.nanoTime() : -1L));
+        }
+
+        void start() {
+            streams.start();
+        }
+
+        boolean running() {
+            return runningSinceNanos.get() >= 0;
+        }
+
+        boolean reachedRunningAfter(long nanos) {
+            return runningSinceNanos.get() > nanos;
+        }
+
+        long processed() {
+            return metrics.flaggedCount() + metrics.approvedCount();
+        }
+
+        long standbyLag() {
+            return standbyLag.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        Measurement measurement(long startNanos) {
+            long runningAt = runningSinceNanos.get();
+            return new Measurement(
+                    runningAt < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(runningAt - startNanos),
+                    restore.elapsedMs(),
+                    restore.records.sum());
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                streams.close(Duration.ofSeconds(30));
+            }
+        }
+    }
+
+    /** First restore start to last restore end, and records restored in between. */
+    private static final class TimedRestore implements StateRestoreListener {
+
+        final LongAdder records = new LongAdder();
+        final AtomicLong firstStartNanos = new AtomicLong(-1L);
+        final AtomicLong lastEndNanos = new AtomicLong(-1L);
+
+        void reset() {
+            records.reset();
+            firstStartNanos.set(-1L);
+            lastEndNanos.set(-1L);
+        }
+
+        long elapsedMs() {
+            long start = firstStartNanos.get();
+            long end = lastEndNanos.get();
+            return start < 0 || end < start ? 0 : TimeUnit.NANOSECONDS.toMillis(end - start);
+        }
+
+        @Override
+        public void onRestoreStart(TopicPartition partition, String storeName, long startingOffset, long endingOffset) {
+            firstStartNanos.compareAndSet(-1L, System.nanoTime());
+        }
+
+        @Override
+        public void onBatchRestored(TopicPartition partition, String storeName, long batchEndOffset, long numRestored) {
+            records.add(numRestored);
+        }
+
+        @Override
+        public void onRestoreEnd(TopicPartition partition, String storeName, long totalRestored) {
+            lastEndNanos.set(System.nanoTime());
+        }
+    }
+}
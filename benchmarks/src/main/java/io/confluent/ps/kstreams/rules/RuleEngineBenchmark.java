@@ -0,0 +1,115 @@
+package io.confluent.ps.kstreams.rules;
+
+import io.confluent.ps.kstreams.scan.PaymentScanner;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of {@link CompiledRules#score} as the rule set grows.
+ *
+ * <p>Synthetic rule sets mix numeric thresholds, text equality, {@code in}
+ * lists and two-condition conjunctions in roughly equal parts; payments are
+ * pre-scanned so only rule evaluation is measured. Cost should grow linearly
+ * with {@code ruleCount} and stay allocation-free:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar RuleEngineBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class RuleEngineBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+    private static final String[] REGIONS = {"US-EAST", "US-WEST", "EU-WEST", "AP-SOUTH"};
+
+    @Param({"10", "100", "500"})
+    public int ruleCount;
+
+    private CompiledRules rules;
+    private CompiledRules defaults;
+    private PaymentView[] views;
+    private double[][] inputs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rules = RuleSetParser.parse(syntheticRules(ruleCount));
+        defaults = RuleEngine.withDefaults().current();
+
+        views = new PaymentView[POOL_SIZE];
+        inputs = new double[POOL_SIZE][NumericField.COUNT];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            double amount = (i % 7 == 0) ? 1000.0 + i * 7 : 10.0 + (i % 500) * 1.37;
+            String json = "{\"transaction_id\":\"txn-" + i + "\","
+                    + "\"card_number_masked\":\"****-****-****-" + String.format(Locale.ROOT, "%04d", i % 9999 + 1) + "\","
+                    + "\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                    + "\"currency\":\"USD\","
+                    + "\"merchant_id\":\"MERCH-" + (i % 200) + "\","
+                    + "\"timestamp\":1700000000,"
+                    + "\"status\":\"PENDING\","
+                    + "\"region\":\"" + REGIONS[i % REGIONS.length] + "\"}";
+            views[i] = new PaymentView();
+            PaymentScanner.scan(json.getBytes(StandardCharsets.UTF_8), views[i]);
+            double[] in = inputs[i];
+            in[NumericField.AMOUNT.ordinal()] = amount;
+            in[NumericField.AMOUNT_FRACTION.ordinal()] = amount - Math.floor(amount);
+            in[NumericField.CARD_COUNT_1M.ordinal()] = i % 6;
+            in[NumericField.CARD_COUNT_1H.ordinal()] = i % 40;
+            in[NumericField.CARD_AMOUNT_1H.ordinal()] = amount * (i % 12);
+            in[NumericField.MERCHANT_COUNT_1M.ordinal()] = i % 600;
+        }
+    }
+
+    @Benchmark
+    public double score() {
+        int i = next;
+        next = (i + 1) & (POOL_SIZE - 1);
+        return rules.score(views[i], inputs[i]);
+    }
+
+    /** The bundled default rule set, for comparison with the pre-DSL hard-coded scoring. */
+    @Benchmark
+    public double scoreDefaultRules() {
+        int i = next;
+        next = (i + 1) & (POOL_SIZE - 1);
+        return defaults.score(views[i], inputs[i]);
+    }
+
+    static String syntheticRules(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < count; r++) {
+            sb.append("rule-").append(r).append(": ");
+            switch (r % 4) {
+                case 0 -> sb.append("amount > ").append(500 + r * 10);
+                case 1 -> sb.append("region == ").append(REGIONS[r % REGIONS.length]);
+                case 2 -> sb.append("merchant_id in (MERCH-").append(r % 200)
+                        .append(", MERCH-").append((r + 1) % 200)
+                        .append(", MERCH-").append((r + 2) % 200).append(')');
+                default -> sb.append("card.count.1m >= ").append(2 + r % 5)
+                        .append(" && card.amount.1h > ").append(1000 + r * 5);
+            }
+            sb.append(" => 0.01\n");
+        }
+        return sb.toString();
+    }
+}
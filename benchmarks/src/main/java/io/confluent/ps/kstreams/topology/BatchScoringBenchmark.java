@@ -0,0 +1,170 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.query.RiskStores;
+import io.confluent.ps.kstreams.rules.NumericField;
+import io.confluent.ps.kstreams.scoring.BatchScorer;
+import io.confluent.ps.kstreams.scoring.BatchScoringSettings;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record scoring versus micro-batched scoring ({@code fraud.scoring.batch.*}).
+ *
+ * <p>{@code pipeline} pipes {@value #RECORDS} JSON payments through the
+ * topology (velocity off, so scoring dominates) in a {@link TopologyTestDriver}
+ * and drains both output topics; {@code maxRecords=0} is the per-record
+ * {@code enrich-risk-score} processor, other values the batching processor
+ * including its changelogged buffer. {@code scorer} isolates the
+ * {@link BatchScorer} call: {@value #RECORDS} rows scored one call per row
+ * ({@code maxRecords=0}) or {@code maxRecords} rows per call — with
+ * {@code scorerName=linear} this is where the per-column loops vectorise.
+ *
+ * <p>Both report time per payment; higher throughput is lower time:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar BatchScoringBenchmark -p scorerName=linear
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class BatchScoringBenchmark {
+
+    /** A multiple of every batch size below, so each invocation ends with an empty buffer. */
+    private static final int RECORDS = 1024;
+    private static final String[] REGIONS = {"US-EAST", "US-WEST", "EU-WEST", "AP-SOUTH"};
+
+    @Param({"0", "16", "256"})
+    public int maxRecords;
+
+    @Param({"rules", "linear"})
+    public String scorerName;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, byte[]> input;
+    private TestOutputTopic<String, byte[]> alerts;
+    private TestOutputTopic<String, byte[]> approved;
+    private String[] keys;
+    private byte[][] values;
+    private long eventTime = 1_700_000_000_000L;
+
+    private BatchScorer scorer;
+    /** {@code batches[b][feature][row]}, column-major as the processor fills them; one row each for maxRecords=0. */
+    private double[][][] batches;
+    private double[] ruleScores;
+    private double[] scores;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "batch-scoring-bench");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, Files.createTempDirectory("batch-scoring-bench").toString());
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "false");
+        props.put(RiskStores.ENABLED_CONFIG, "false");
+        props.put(BatchScoringSettings.ENABLED_CONFIG, Boolean.toString(maxRecords > 0));
+        props.put(BatchScoringSettings.MAX_RECORDS_CONFIG, Integer.toString(Math.max(1, maxRecords)));
+        props.put(BatchScoringSettings.MAX_WAIT_MS_CONFIG, "60000");
+        props.put(BatchScorer.CONFIG, scorerName);
+        props.put("fraud.scoring.linear.weight.amount", "0.0002");
+        props.put("fraud.scoring.linear.weight.amount.fraction", "-0.5");
+
+        driver = new TopologyTestDriver(FraudDetectionTopology.build(props), props);
+        input = driver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(), Serdes.ByteArray().serializer());
+        approved = driver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                Serdes.String().deserializer(), Serdes.ByteArray().deserializer());
+        alerts = driver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                Serdes.String().deserializer(), Serdes.ByteArray().deserializer());
+
+        keys = new String[RECORDS];
+        values = new byte[RECORDS][];
+        for (int i = 0; i < RECORDS; i++) {
+            double amount = (i % 7 == 0) ? 1000.0 + i * 7 : 10.0 + (i % 500) * 1.37;
+            keys[i] = "txn-" + i;
+            values[i] = ("{\"transaction_id\":\"" + keys[i] + "\","
+                    + "\"card_number_masked\":\"****-****-****-" + String.format(Locale.ROOT, "%04d", i % 300 + 1)
+                    + "\",\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                    + "\"currency\":\"USD\","
+                    + "\"merchant_id\":\"MERCH-" + (i % 50) + "\","
+                    + "\"timestamp\":" + eventTime + ","
+                    + "\"status\":\"PENDING\","
+                    + "\"region\":\"" + REGIONS[i % REGIONS.length] + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
+
+        scorer = BatchScorer.create(props);
+        Random random = new Random(42);
+        int rows = Math.max(1, maxRecords);
+        batches = new double[RECORDS / rows][NumericField.COUNT][rows];
+        for (double[][] batch : batches) {
+            for (double[] column : batch) {
+                for (int r = 0; r < rows; r++) {
+                    column[r] = random.nextDouble() * 100;
+                }
+            }
+        }
+        ruleScores = new double[RECORDS];
+        for (int r = 0; r < RECORDS; r++) {
+            ruleScores[r] = random.nextDouble();
+        }
+        scores = new double[rows];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (driver != null) {
+            driver.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void pipeline(Blackhole bh) {
+        for (int i = 0; i < RECORDS; i++) {
+            eventTime += 10;
+            input.pipeInput(keys[i], values[i], eventTime);
+        }
+        bh.consume(approved.readValuesToList());
+        bh.consume(alerts.readValuesToList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public double[] scorer() {
+        int rows = Math.max(1, maxRecords);
+        for (int b = 0; b < batches.length; b++) {
+            System.arraycopy(ruleScores, b * rows, scores, 0, rows);
+            scorer.score(batches[b], rows, scores);
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,139 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.kafka.streams.serdes.avro.SpecificAvroSerde;
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.model.PaymentStatus;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record serde cost of the payment value formats the topology can use:
+ * <ul>
+ *   <li>{@code string*} — {@code Serdes.String()}, the original JSON path</li>
+ *   <li>{@code bytes*} — {@code Serdes.ByteArray()}, the current JSON path
+ *       (the scanner reads the raw UTF-8)</li>
+ *   <li>{@code avro*} — {@link SpecificAvroSerde} against an in-memory
+ *       {@code mock://} Schema Registry, as used by {@code payment.format=avro}</li>
+ * </ul>
+ * Deserialization reads the exact bytes the matching serializer produced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class PaymentSerdeBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+    private static final String TOPIC = FraudDetectionTopology.INPUT_TOPIC;
+    private static final String[] REGIONS = {"US-EAST", "US-WEST", "EU-WEST", "AP-SOUTH"};
+
+    private Serde<String> stringSerde;
+    private Serde<byte[]> bytesSerde;
+    private Serde<Payment> avroSerde;
+
+    private String[] jsonStrings;
+    private byte[][] jsonBytes;
+    private Payment[] payments;
+    private byte[][] avroBytes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        stringSerde = Serdes.String();
+        bytesSerde = Serdes.ByteArray();
+        avroSerde = new SpecificAvroSerde<>();
+        avroSerde.configure(Map.of("schema.registry.url", "mock://payment-serde-bench"), false);
+
+        jsonStrings = new String[POOL_SIZE];
+        jsonBytes = new byte[POOL_SIZE][];
+        payments = new Payment[POOL_SIZE];
+        avroBytes = new byte[POOL_SIZE][];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            double amount = 10.0 + (i % 500) * 1.37;
+            String card = "****-****-****-" + String.format(Locale.ROOT, "%04d", i % 9999 + 1);
+            String merchant = "MERCH-00" + (i % 4 + 1);
+            String region = REGIONS[i % REGIONS.length];
+            jsonStrings[i] = "{\"transaction_id\":\"txn-" + i + "\","
+                    + "\"card_number_masked\":\"" + card + "\","
+                    + "\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                    + "\"currency\":\"USD\","
+                    + "\"merchant_id\":\"" + merchant + "\","
+                    + "\"timestamp\":1700000000000,"
+                    + "\"status\":\"PENDING\","
+                    + "\"region\":\"" + region + "\"}";
+            jsonBytes[i] = jsonStrings[i].getBytes(StandardCharsets.UTF_8);
+            payments[i] = Payment.newBuilder()
+                    .setTransactionId("txn-" + i)
+                    .setCardNumberMasked(card)
+                    .setAmount(amount)
+                    .setCurrency("USD")
+                    .setMerchantId(merchant)
+                    .setTimestamp(1_700_000_000_000L)
+                    .setStatus(PaymentStatus.PENDING)
+                    .setRegion(region)
+                    .build();
+            avroBytes[i] = avroSerde.serializer().serialize(TOPIC, payments[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        avroSerde.close();
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (i + 1) & (POOL_SIZE - 1);
+        return i;
+    }
+
+    @Benchmark
+    public byte[] stringSerialize() {
+        return stringSerde.serializer().serialize(TOPIC, jsonStrings[nextIndex()]);
+    }
+
+    @Benchmark
+    public String stringDeserialize() {
+        return stringSerde.deserializer().deserialize(TOPIC, jsonBytes[nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] bytesSerialize() {
+        return bytesSerde.serializer().serialize(TOPIC, jsonBytes[nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] bytesDeserialize() {
+        return bytesSerde.deserializer().deserialize(TOPIC, jsonBytes[nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] avroSerialize() {
+        return avroSerde.serializer().serialize(TOPIC, payments[nextIndex()]);
+    }
+
+    @Benchmark
+    public Payment avroDeserialize() {
+        return avroSerde.deserializer().deserialize(TOPIC, avroBytes[nextIndex()]);
+    }
+}
@@ -0,0 +1,192 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.model.PaymentStatus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of the {@code enrich-risk-score} + {@code fraud-check} steps.
+ *
+ * <p>{@code stringBaseline} reproduces the original String implementation
+ * (decode, {@code indexOf}/{@code split} extraction, {@code contains} region
+ * check, {@code String.format} splice, re-encode). {@code byteScanner} is the
+ * current single-pass scanner path; {@code avroCodec} is the same step for
+ * {@code payment.format=avro} on already-deserialized records. The remaining
+ * benchmarks isolate the individual helpers.
+ *
+ * <p>Run with {@code -prof gc} to compare allocation rates:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar RiskScoringBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class RiskScoringBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+
+    private byte[][] payloads;
+    private byte[][] enrichedPayloads;
+    private String[] jsonStrings;
+    private Payment[] payments;
+    private AvroPaymentCodec avroCodec;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] regions = {"US-EAST", "US-WEST", "EU-WEST", "AP-SOUTH"};
+        payloads = new byte[POOL_SIZE][];
+        enrichedPayloads = new byte[POOL_SIZE][];
+        jsonStrings = new String[POOL_SIZE];
+        payments = new Payment[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            double amount = (i % 7 == 0) ? 1000.0 + i * 7 : 10.0 + (i % 500) * 1.37;
+            String json = "{\"transaction_id\":\"txn-" + i + "\","
+                    + "\"card_number_masked\":\"****-****-****-" + String.format("%04d", i % 9999 + 1) + "\","
+                    + "\"amount\":" + String.format(java.util.Locale.ROOT, "%.2f", amount) + ","
+                    + "\"currency\":\"USD\","
+                    + "\"merchant_id\":\"MERCH-00" + (i % 4 + 1) + "\","
+                    + "\"timestamp\":1700000000,"
+                    + "\"status\":\"PENDING\","
+                    + "\"region\":\"" + regions[i % regions.length] + "\"}";
+            payloads[i] = json.getBytes(StandardCharsets.UTF_8);
+            enrichedPayloads[i] = FraudDetectionTopology.enrichWithRiskScore("txn", payloads[i]);
+            jsonStrings[i] = json;
+            payments[i] = Payment.newBuilder()
+                    .setTransactionId("txn-" + i)
+                    .setCardNumberMasked("****-****-****-" + String.format("%04d", i % 9999 + 1))
+                    .setAmount(amount)
+                    .setCurrency("USD")
+                    .setMerchantId("MERCH-00" + (i % 4 + 1))
+                    .setTimestamp(1_700_000_000_000L)
+                    .setStatus(PaymentStatus.PENDING)
+                    .setRegion(regions[i % regions.length])
+                    .build();
+        }
+
+        Properties props = new Properties();
+        props.put("schema.registry.url", "mock://risk-scoring-bench");
+        avroCodec = new AvroPaymentCodec(props, RuleEngine.withDefaults());
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (i + 1) & (POOL_SIZE - 1);
+        return i;
+    }
+
+    private byte[] nextPayload() {
+        return payloads[nextIndex()];
+    }
+
+    @Benchmark
+    public void stringBaseline(Blackhole bh) {
+        String value = new String(nextPayload(), StandardCharsets.UTF_8);
+        String enriched = StringBaseline.enrichWithRiskScore(value);
+        bh.consume(StringBaseline.isFraudulent(enriched));
+        bh.consume(enriched.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void byteScanner(Blackhole bh) {
+        byte[] enriched = FraudDetectionTopology.enrichWithRiskScore("txn", nextPayload());
+        bh.consume(FraudDetectionTopology.isFraudulent(enriched));
+        bh.consume(enriched);
+    }
+
+    @Benchmark
+    public void avroCodec(Blackhole bh) {
+        Payment enriched = FraudDetectionTopology.enrichWithRiskScore(avroCodec, "txn", payments[nextIndex()]);
+        bh.consume(FraudDetectionTopology.isFraudulent(avroCodec, enriched));
+        bh.consume(enriched);
+    }
+
+    @Benchmark
+    public byte[] enrichOnly() {
+        return FraudDetectionTopology.enrichWithRiskScore("txn", nextPayload());
+    }
+
+    @Benchmark
+    public boolean isFraudulentOnly() {
+        return FraudDetectionTopology.isFraudulent(enrichedPayloads[nextIndex()]);
+    }
+
+    /** String convenience overload: includes the UTF-8 encode of the argument. */
+    @Benchmark
+    public double extractAmount() {
+        return FraudDetectionTopology.extractAmount(jsonStrings[nextIndex()]);
+    }
+
+    /** Verbatim copy of the pre-scanner String implementation, kept as the baseline. */
+    static final class StringBaseline {
+
+        private StringBaseline() {}
+
+        static String enrichWithRiskScore(String paymentJson) {
+            double amount = extractAmount(paymentJson);
+            double riskScore = computeRiskScore(amount, paymentJson);
+            return paymentJson.substring(0, paymentJson.length() - 1)
+                    + ",\"risk_score\":" + String.format("%.2f", riskScore) + "}";
+        }
+
+        static boolean isFraudulent(String enrichedJson) {
+            int idx = enrichedJson.indexOf("\"risk_score\":");
+            if (idx < 0) return false;
+            String scoreStr = enrichedJson.substring(idx + 13).split("[,}]")[0];
+            try {
+                return Double.parseDouble(scoreStr) > 0.7;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        static double computeRiskScore(double amount, String paymentJson) {
+            double score = 0.0;
+            if (amount > 1000.00) {
+                score += 0.4;
+            }
+            if (amount > 5000.00) {
+                score += 0.3;
+            }
+            if (paymentJson.contains("\"region\":\"AP-SOUTH\"")) {
+                score += 0.2;
+            }
+            if (amount == Math.floor(amount) && amount > 500) {
+                score += 0.15;
+            }
+            return Math.min(score, 1.0);
+        }
+
+        static double extractAmount(String json) {
+            int idx = json.indexOf("\"amount\":");
+            if (idx < 0) return 0.0;
+            String amountStr = json.substring(idx + 9).split("[,}]")[0];
+            try {
+                return Double.parseDouble(amountStr);
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
+        }
+    }
+}
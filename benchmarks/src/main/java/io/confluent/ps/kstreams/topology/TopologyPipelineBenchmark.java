@@ -0,0 +1,160 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.kafka.streams.serdes.avro.SpecificAvroSerde;
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.model.PaymentStatus;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of the whole fraud detection topology in a
+ * {@link TopologyTestDriver}: source deserialization, the velocity stages
+ * (real RocksDB window stores and in-process repartitioning), scoring,
+ * branching and sink serialization.
+ *
+ * <p>Each invocation pipes {@value #BATCH} payments with event time advancing
+ * 10 ms per record and drains both output topics; scores are per record.
+ * The driver adds its own overhead (no network, but a synchronous commit path),
+ * so compare runs of this benchmark with each other, not with broker throughput.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar TopologyPipelineBenchmark -p velocity=false
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class TopologyPipelineBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final int POOL_SIZE = 1024;
+    private static final String[] REGIONS = {"US-EAST", "US-WEST", "EU-WEST", "AP-SOUTH"};
+
+    @Param({"json", "avro"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean velocity;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, Object> input;
+    private TestOutputTopic<String, Object> alerts;
+    private TestOutputTopic<String, Object> approved;
+    private Object[] values;
+    private String[] keys;
+    private long eventTime = 1_700_000_000_000L;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() throws IOException {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-bench");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, Files.createTempDirectory("fraud-bench").toString());
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, Boolean.toString(velocity));
+        props.put("payment.format", format);
+        props.put("schema.registry.url", "mock://topology-pipeline-bench");
+
+        driver = new TopologyTestDriver(FraudDetectionTopology.build(props), props);
+
+        Serde<Object> valueSerde;
+        if ("avro".equals(format)) {
+            SpecificAvroSerde<?> avro = new SpecificAvroSerde<>();
+            avro.configure(Map.of("schema.registry.url", "mock://topology-pipeline-bench"), false);
+            valueSerde = (Serde<Object>) (Serde<?>) avro;
+        } else {
+            valueSerde = (Serde<Object>) (Serde<?>) Serdes.ByteArray();
+        }
+        input = driver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(), valueSerde.serializer());
+        approved = driver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                Serdes.String().deserializer(), valueSerde.deserializer());
+        // Alerts have their own schema; reading them as raw bytes is enough to drain the topic
+        alerts = driver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                Serdes.String().deserializer(), (Deserializer<Object>) (Deserializer<?>) Serdes.ByteArray().deserializer());
+
+        keys = new String[POOL_SIZE];
+        values = new Object[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            double amount = (i % 7 == 0) ? 1000.0 + i * 7 : 10.0 + (i % 500) * 1.37;
+            String card = "****-****-****-" + String.format(Locale.ROOT, "%04d", i % 300 + 1);
+            String merchant = "MERCH-" + (i % 50);
+            String region = REGIONS[i % REGIONS.length];
+            keys[i] = "txn-" + i;
+            if ("avro".equals(format)) {
+                values[i] = Payment.newBuilder()
+                        .setTransactionId(keys[i])
+                        .setCardNumberMasked(card)
+                        .setAmount(amount)
+                        .setCurrency("USD")
+                        .setMerchantId(merchant)
+                        .setTimestamp(eventTime)
+                        .setStatus(PaymentStatus.PENDING)
+                        .setRegion(region)
+                        .build();
+            } else {
+                values[i] = ("{\"transaction_id\":\"" + keys[i] + "\","
+                        + "\"card_number_masked\":\"" + card + "\","
+                        + "\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                        + "\"currency\":\"USD\","
+                        + "\"merchant_id\":\"" + merchant + "\","
+                        + "\"timestamp\":" + eventTime + ","
+                        + "\"status\":\"PENDING\","
+                        + "\"region\":\"" + region + "\"}").getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (driver != null) {
+            driver.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void pipeline(Blackhole bh) {
+        for (int n = 0; n < BATCH; n++) {
+            int i = next;
+            next = (i + 1) & (POOL_SIZE - 1);
+            eventTime += 10;
+            input.pipeInput(keys[i], values[i], eventTime);
+        }
+        bh.consume(approved.readValuesToList());
+        bh.consume(alerts.readValuesToList());
+    }
+}
@@ -0,0 +1,131 @@
+package io.confluent.ps.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Record throughput of four threads that each log one line per record into
+ * a rolling-file-like sink, the way the per-record statements did before
+ * they were rate limited.
+ *
+ * <ul>
+ *   <li>{@code sync} — the file appender on the calling thread (the old setup)</li>
+ *   <li>{@code async} — behind a {@link DroppingAsyncAppender}: callers only
+ *       enqueue, and drop once the queue is full</li>
+ *   <li>{@code limited} — async plus a {@link LogLimiter} at 1,000 lines a
+ *       second, so nearly every record skips formatting altogether</li>
+ * </ul>
+ * {@code workTokens} is the per-record processing; with a sync appender the
+ * logging cost dominates it, with the limiter the result approaches the
+ * no-logging baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class LoggingBenchmark {
+
+    @Param({"sync", "async", "limited"})
+    public String mode;
+
+    @Param({"100"})
+    public long workTokens;
+
+    private LoggerContext context;
+    private Logger logger;
+    private LogLimiter limiter;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("logging-bench");
+        context = new LoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(dir.resolve("bench.log").toString());
+        file.setEncoder(encoder);
+        // The old setup flushed per event; behind the async appender the worker batches writes
+        file.setImmediateFlush("sync".equals(mode));
+        file.start();
+
+        Appender<ILoggingEvent> root = file;
+        if (!"sync".equals(mode)) {
+            DroppingAsyncAppender async = new DroppingAsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC_BENCH_" + mode);
+            async.setQueueSize(8192);
+            async.addAppender(file);
+            async.start();
+            root = async;
+        }
+        logger = context.getLogger("bench");
+        logger.setAdditive(false);
+        logger.addAppender(root);
+        limiter = "limited".equals(mode)
+                ? new LogLimiter("bench.limited", 1_000, TimeUnit.SECONDS.toNanos(1), System::nanoTime)
+                : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.stop();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void perRecordLog() {
+        Blackhole.consumeCPU(workTokens);
+        long suppressed = 0;
+        if (limiter != null) {
+            if (!limiter.permit()) {
+                return;
+            }
+            suppressed = limiter.drainSuppressed();
+        }
+        logger.info("Received payment: partition={} offset={} key={} ({} more since last line)",
+                3, 42L, "txn-0001", suppressed);
+    }
+
+    @Benchmark
+    public void noLogging() {
+        Blackhole.consumeCPU(workTokens);
+    }
+}
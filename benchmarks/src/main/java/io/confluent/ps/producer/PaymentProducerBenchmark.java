@@ -0,0 +1,97 @@
+package io.confluent.ps.producer;
+
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.producer.json.PaymentJsonSerializer;
+
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of building and serializing a payment in {@link PaymentProducer}:
+ * the value as built ({@code buildPaymentJson} / {@code buildPayment}) and as
+ * handed to the producer ({@code StringSerializer} / {@code KafkaAvroSerializer}
+ * against an in-memory {@code mock://} Schema Registry), plus the producer's
+ * actual JSON path: a reused payment encoded by {@link PaymentJsonSerializer}.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar PaymentProducerBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class PaymentProducerBenchmark {
+
+    private static final String TOPIC = "payments";
+
+    private StringSerializer stringSerializer;
+    private KafkaAvroSerializer avroSerializer;
+    private PaymentJsonSerializer jsonEncoder;
+    private final Payment reusable = new Payment();
+    private final StringBuilder card = new StringBuilder();
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        stringSerializer = new StringSerializer();
+        jsonEncoder = new PaymentJsonSerializer();
+        avroSerializer = new KafkaAvroSerializer();
+        avroSerializer.configure(Map.of("schema.registry.url", "mock://payment-producer-bench"), false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stringSerializer.close();
+        jsonEncoder.close();
+        avroSerializer.close();
+    }
+
+    @Benchmark
+    public String buildPaymentJson() {
+        int seq = sequence++;
+        return PaymentProducer.buildPaymentJson("txn-" + seq, seq);
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeJson() {
+        int seq = sequence++;
+        return stringSerializer.serialize(TOPIC, PaymentProducer.buildPaymentJson("txn-" + seq, seq));
+    }
+
+    @Benchmark
+    public byte[] fillAndEncodeJson() {
+        int seq = sequence++;
+        return jsonEncoder.serialize(TOPIC,
+                PaymentProducer.fillPayment(reusable, card, "txn-" + seq, seq, System.currentTimeMillis()));
+    }
+
+    @Benchmark
+    public Payment buildPaymentAvro() {
+        int seq = sequence++;
+        return PaymentProducer.buildPayment("txn-" + seq, seq);
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeAvro() {
+        int seq = sequence++;
+        return avroSerializer.serialize(TOPIC, PaymentProducer.buildPayment("txn-" + seq, seq));
+    }
+}
@@ -0,0 +1,277 @@
+package io.confluent.ps.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads Kafka configuration from properties files with environment-based overrides.
+ * Shared by the producer/consumer app and the Kafka Streams app.
+ *
+ * Resolution order:
+ *   1. Base config from classpath  (application.properties)
+ *   2. Environment overlay          (application-{env}.properties)
+ *   3. client.properties            (./client.properties or CLIENT_PROPERTIES_FILE)
+ *   4. External file override       (-Dconfig.file=/path/to/file)
+ *   5. Individual system properties (-Dkafka.bootstrap.servers=...)
+ *   6. Environment variables        (KAFKA_BOOTSTRAP_SERVERS)
+ *   7. Placeholders                 (${VAR} / ${VAR:default} from env, then system properties)
+ *
+ * The result is resolved once per environment into an immutable
+ * {@link ConfigSnapshot}, checked by {@link ConfigValidator} against the
+ * container's CPU/memory limits, logged with the source of every value, and
+ * cached: later {@link #load()} calls only copy it.
+ */
+public class ConfigLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigLoader.class);
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([A-Za-z0-9_.]+)(?::([^}]*))?}");
+
+    private static final Map<String, ConfigSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    /** Where the layers come from; {@link #system()} in production, fixed maps in tests. */
+    record Sources(Function<String, String> env, Properties systemProperties, ClassLoader classLoader) {
+        static Sources system() {
+            return new Sources(System::getenv, System.getProperties(), ConfigLoader.class.getClassLoader());
+        }
+    }
+
+    private ConfigLoader() {}
+
+    /** A mutable copy of {@link #snapshot()}. */
+    public static Properties load() {
+        return snapshot().toProperties();
+    }
+
+    /** A mutable copy of {@link #snapshot(String)}. */
+    public static Properties load(String environment) {
+        return snapshot(environment).toProperties();
+    }
+
+    /** The snapshot for {@code -Dapp.env} / {@code APP_ENV} (default {@code dev}). */
+    public static ConfigSnapshot snapshot() {
+        String env = System.getProperty("app.env",
+                System.getenv().getOrDefault("APP_ENV", "dev"));
+        return snapshot(env);
+    }
+
+    /**
+     * Loads, validates and caches the configuration of {@code environment}.
+     *
+     * @throws IllegalStateException if validation finds errors (nothing is cached then)
+     */
+    public static ConfigSnapshot snapshot(String environment) {
+        return SNAPSHOTS.computeIfAbsent(environment, env -> {
+            ConfigSnapshot snapshot = build(env, Sources.system());
+            check(snapshot, ResourceLimits.detect());
+            return snapshot;
+        });
+    }
+
+    static ConfigSnapshot build(String environment, Sources sources) {
+        Layers layers = new Layers();
+
+        // 1. Base config from classpath
+        loadFromClasspath(layers, sources, "application.properties");
+
+        // 2. Environment-specific overlay
+        loadFromClasspath(layers, sources, "application-" + environment + ".properties");
+
+        // 3. client.properties (generated for kshark)
+        loadClientProperties(layers, sources);
+
+        // 4. External file override
+        String externalFile = sources.systemProperties().getProperty("config.file");
+        if (externalFile != null) {
+            loadFromFile(layers, Path.of(externalFile));
+        }
+
+        // 5. System property overrides (dotted keys)
+        sources.systemProperties().forEach((k, v) -> {
+            String key = k.toString();
+            if (key.startsWith("kafka.")) {
+                layers.put(key.substring(6), v.toString(), "sysprop:" + key);
+            }
+        });
+
+        // 6. Environment variable overrides
+        applyEnvOverrides(layers, sources.env());
+
+        // 7. ${VAR} placeholders
+        layers.resolvePlaceholders(sources);
+
+        return new ConfigSnapshot(environment, layers.values, layers.sources);
+    }
+
+    /** Logs the effective configuration and the findings; fails on errors. */
+    static void check(ConfigSnapshot snapshot, ResourceLimits limits) {
+        log.info("Loaded configuration for environment='{}', bootstrap.servers='{}' ({} CPUs, {} MiB heap)",
+                snapshot.environment(), snapshot.get("bootstrap.servers") == null ? "<not set>"
+                        : snapshot.get("bootstrap.servers"), limits.cpus(), limits.maxHeapBytes() >> 20);
+        log.info("Effective configuration:\n{}", snapshot.report());
+
+        List<ConfigValidator.Finding> findings = ConfigValidator.validate(snapshot, limits);
+        for (ConfigValidator.Finding finding : findings) {
+            if (finding.severity() == ConfigValidator.Severity.WARN) {
+                log.warn("Config check: {} [{}]", finding, snapshot.source(finding.key()));
+            }
+        }
+        String errors = findings.stream()
+                .filter(f -> f.severity() == ConfigValidator.Severity.ERROR)
+                .map(f -> f + " [" + snapshot.source(f.key()) + "]")
+                .collect(Collectors.joining("\n  "));
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid configuration for environment '"
+                    + snapshot.environment() + "':\n  " + errors);
+        }
+    }
+
+    private static void loadFromClasspath(Layers layers, Sources sources, String resource) {
+        try (InputStream is = sources.classLoader().getResourceAsStream(resource)) {
+            if (is != null) {
+                layers.load(is, "classpath:" + resource);
+                log.debug("Loaded classpath resource: {}", resource);
+            } else {
+                log.debug("Classpath resource not found (skipped): {}", resource);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to load classpath resource: {}", resource, e);
+        }
+    }
+
+    private static void loadFromFile(Layers layers, Path path) {
+        try (InputStream is = Files.newInputStream(path)) {
+            layers.load(is, "file:" + path);
+            log.info("Loaded external config file: {}", path);
+        } catch (IOException e) {
+            log.warn("Failed to load external config file: {}", path, e);
+        }
+    }
+
+    private static void loadClientProperties(Layers layers, Sources sources) {
+        String override = sources.systemProperties().getProperty("client.properties");
+        if (override == null || override.isBlank()) {
+            override = sources.env().apply("CLIENT_PROPERTIES_FILE");
+        }
+        if (override == null || override.isBlank()) {
+            override = sources.env().apply("KAFKA_CLIENT_PROPERTIES");
+        }
+        if (override == null || override.isBlank()) {
+            override = "client.properties";
+        }
+
+        Path path = Path.of(override);
+        if (Files.exists(path)) {
+            loadFromFile(layers, path);
+        } else {
+            log.debug("client.properties not found (skipped): {}", path);
+        }
+    }
+
+    private static void applyEnvOverrides(Layers layers, Function<String, String> env) {
+        // Connection / security
+        mapEnv("KAFKA_BOOTSTRAP_SERVERS",        "bootstrap.servers",        layers, env);
+        mapEnv("KAFKA_SECURITY_PROTOCOL",        "security.protocol",        layers, env);
+        mapEnv("KAFKA_SASL_MECHANISM",           "sasl.mechanism",           layers, env);
+        mapEnv("KAFKA_SASL_JAAS_CONFIG",         "sasl.jaas.config",         layers, env);
+        mapEnv("SCHEMA_REGISTRY_URL",            "schema.registry.url",      layers, env);
+        mapEnv("SCHEMA_REGISTRY_BASIC_AUTH",     "basic.auth.credentials.source", layers, env);
+        mapEnv("SCHEMA_REGISTRY_USER_INFO",      "basic.auth.user.info",     layers, env);
+        mapEnv("SCHEMA_REGISTRY_USER_INFO",      "schema.registry.basic.auth.user.info", layers, env);
+        mapEnv("KAFKA_CLIENT_ID",                "client.id",                layers, env);
+        mapEnv("KAFKA_GROUP_ID",                 "group.id",                 layers, env);
+        mapEnv("KAFKA_CLIENT_RACK",              "client.rack",              layers, env);
+        mapEnv("PAYMENT_FORMAT",                 "payment.format",           layers, env);
+
+        // Producer
+        mapEnv("PRODUCER_PROFILE",               "producer.profile",         layers, env);
+
+        // Kafka Streams (fraud detection)
+        mapEnv("NUM_STREAM_THREADS",             "num.stream.threads",       layers, env);
+        mapEnv("NUM_STANDBY_REPLICAS",           "num.standby.replicas",     layers, env);
+        mapEnv("APPLICATION_SERVER",             "application.server",       layers, env);
+        mapEnv("FRAUD_RULES_FILE",               "fraud.rules.file",         layers, env);
+        mapEnv("FRAUD_RULES_TOPIC",              "fraud.rules.topic",        layers, env);
+        mapEnv("FRAUD_MERCHANTS_TOPIC",          "fraud.merchants.topic",    layers, env);
+        mapEnv("METRICS_HTTP_PORT",              "metrics.http.port",        layers, env);
+        mapEnv("QUERY_HTTP_PORT",                "fraud.query.http.port",    layers, env);
+    }
+
+    private static void mapEnv(String envVar, String propKey, Layers layers, Function<String, String> env) {
+        String value = env.apply(envVar);
+        if (value != null && !value.isBlank()) {
+            layers.put(propKey, value, "env:" + envVar);
+        }
+    }
+
+    /** Values in load order, each with the layer that set it last. */
+    private static final class Layers {
+
+        final Map<String, String> values = new LinkedHashMap<>();
+        final Map<String, String> sources = new LinkedHashMap<>();
+
+        void load(InputStream is, String source) throws IOException {
+            Properties props = new Properties();
+            props.load(is);
+            props.forEach((k, v) -> put(k.toString(), v.toString(), source));
+        }
+
+        void put(String key, String value, String source) {
+            values.put(key, value);
+            sources.put(key, source);
+        }
+
+        /**
+         * Replaces {@code ${VAR}} / {@code ${VAR:default}} from the environment,
+         * then system properties. Unresolvable placeholders are left in place
+         * for {@link ConfigValidator} to report.
+         */
+        void resolvePlaceholders(Sources from) {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                String value = entry.getValue();
+                if (!value.contains("${")) {
+                    continue;
+                }
+                Matcher m = PLACEHOLDER.matcher(value);
+                StringBuilder resolved = new StringBuilder(value.length());
+                StringBuilder vars = new StringBuilder();
+                while (m.find()) {
+                    String name = m.group(1);
+                    String replacement = from.env().apply(name);
+                    String origin = "env:";
+                    if (replacement == null) {
+                        replacement = from.systemProperties().getProperty(name);
+                        origin = "sysprop:";
+                    }
+                    if (replacement == null && m.group(2) != null) {
+                        replacement = m.group(2);
+                        origin = "default:";
+                    }
+                    if (replacement == null) {
+                        replacement = m.group();
+                    } else {
+                        vars.append(" + ").append(origin).append(name);
+                    }
+                    m.appendReplacement(resolved, Matcher.quoteReplacement(replacement));
+                }
+                m.appendTail(resolved);
+                entry.setValue(resolved.toString());
+                sources.merge(entry.getKey(), vars.toString(), String::concat);
+            }
+        }
+    }
+}
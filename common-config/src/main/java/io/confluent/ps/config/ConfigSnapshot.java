@@ -0,0 +1,79 @@
+package io.confluent.ps.config;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Effective configuration of one environment, built once by
+ * {@link ConfigLoader}: every key with its final value (placeholders
+ * resolved) and the layer it came from, e.g.
+ * {@code classpath:application-prod.properties + env:KAFKA_BOOTSTRAP_SERVERS}.
+ *
+ * <p>Immutable and shared; callers that add client defaults take a copy via
+ * {@link #toProperties()}.
+ */
+public final class ConfigSnapshot {
+
+    private static final String MASK = "******";
+
+    private final String environment;
+    private final Map<String, String> values;
+    private final Map<String, String> sources;
+
+    ConfigSnapshot(String environment, Map<String, String> values, Map<String, String> sources) {
+        this.environment = environment;
+        this.values = Collections.unmodifiableMap(new TreeMap<>(values));
+        this.sources = Collections.unmodifiableMap(new TreeMap<>(sources));
+    }
+
+    public String environment() {
+        return environment;
+    }
+
+    /** The effective value, or {@code null} if the key is not configured. */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    /** Where the effective value came from, or {@code null} if the key is not configured. */
+    public String source(String key) {
+        return sources.get(key);
+    }
+
+    public Set<String> keys() {
+        return values.keySet();
+    }
+
+    Map<String, String> values() {
+        return values;
+    }
+
+    /** A fresh, mutable copy for building client configs. */
+    public Properties toProperties() {
+        Properties props = new Properties();
+        props.putAll(values);
+        return props;
+    }
+
+    /** One {@code key = value  [source]} line per key, sorted, secrets masked. */
+    public String report() {
+        StringBuilder out = new StringBuilder(values.size() * 80);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String key = entry.getKey();
+            out.append("  ").append(key).append(" = ")
+                    .append(isSecret(key) ? MASK : entry.getValue())
+                    .append("  [").append(sources.get(key)).append("]\n");
+        }
+        return out.toString();
+    }
+
+    static boolean isSecret(String key) {
+        String k = key.toLowerCase(Locale.ROOT);
+        return k.contains("password") || k.contains("secret") || k.contains("jaas")
+                || k.contains("user.info") || k.contains("api.key");
+    }
+}
@@ -0,0 +1,128 @@
+package io.confluent.ps.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Startup checks of the performance-critical keys against the resources the
+ * pod actually has ({@link ResourceLimits}). Catches the configurations that
+ * otherwise only show up in throughput graphs: more busy threads than CPUs,
+ * on-heap buffers that crowd the heap, off-heap budgets the container limit
+ * cannot hold, and placeholders nobody resolved.
+ *
+ * <p>{@link Severity#ERROR} findings make {@link ConfigLoader} refuse to
+ * start; {@link Severity#WARN} findings are logged.
+ */
+public final class ConfigValidator {
+
+    public enum Severity { WARN, ERROR }
+
+    public record Finding(Severity severity, String key, String message) {
+        @Override
+        public String toString() {
+            return severity + " " + key + ": " + message;
+        }
+    }
+
+    /** Keys that must be non-negative integers when set. */
+    private static final List<String> NUMERIC_KEYS = List.of(
+            "num.stream.threads", "num.standby.replicas", "fraud.autoscale.max.threads",
+            "statestore.cache.max.bytes", "cache.max.bytes.buffering", "rocksdb.memory.budget.bytes",
+            "linger.ms", "batch.size", "buffer.memory", "max.poll.records",
+            "consumer.parallel.workers", "loadgen.threads");
+
+    /** Keys that size pools of mostly busy threads. */
+    private static final List<String> THREAD_KEYS = List.of(
+            "num.stream.threads", "fraud.autoscale.max.threads", "consumer.parallel.workers", "loadgen.threads");
+
+    /** Keys that size on-heap buffers. */
+    private static final List<String> HEAP_BUFFER_KEYS = List.of(
+            "buffer.memory", "statestore.cache.max.bytes", "cache.max.bytes.buffering");
+
+    static final long MAX_LINGER_MS = 1_000;
+    static final double MAX_HEAP_BUFFER_FRACTION = 0.25;
+    static final double MEMORY_HEADROOM_FRACTION = 0.9;
+
+    private ConfigValidator() {}
+
+    public static List<Finding> validate(ConfigSnapshot snapshot, ResourceLimits limits) {
+        return validate(snapshot.values(), limits);
+    }
+
+    static List<Finding> validate(Map<String, String> config, ResourceLimits limits) {
+        List<Finding> findings = new ArrayList<>();
+
+        config.forEach((key, value) -> {
+            if (value.contains("${")) {
+                findings.add(new Finding(Severity.ERROR, key,
+                        "unresolved placeholder '" + value + "' (environment variable not set)"));
+            }
+        });
+
+        for (String key : NUMERIC_KEYS) {
+            String value = config.get(key);
+            if (value != null && !value.contains("${") && parse(value) < 0) {
+                findings.add(new Finding(Severity.ERROR, key, "'" + value + "' is not a non-negative integer"));
+            }
+        }
+
+        for (String key : THREAD_KEYS) {
+            long threads = parse(config.get(key));
+            if (threads > limits.cpus()) {
+                findings.add(new Finding(Severity.WARN, key, String.format(Locale.ROOT,
+                        "%d threads on %d CPUs; they will time-slice instead of adding throughput",
+                        threads, limits.cpus())));
+            }
+        }
+
+        long linger = parse(config.get("linger.ms"));
+        if (linger > MAX_LINGER_MS) {
+            findings.add(new Finding(Severity.WARN, "linger.ms", String.format(Locale.ROOT,
+                    "%d ms adds up to that much latency to every send", linger)));
+        }
+
+        for (String key : HEAP_BUFFER_KEYS) {
+            long bytes = parse(config.get(key));
+            if (bytes > limits.maxHeapBytes() * MAX_HEAP_BUFFER_FRACTION) {
+                findings.add(new Finding(Severity.WARN, key, String.format(Locale.ROOT,
+                        "%s is more than %.0f%% of the %s heap", mib(bytes), MAX_HEAP_BUFFER_FRACTION * 100,
+                        mib(limits.maxHeapBytes()))));
+            }
+        }
+
+        long offHeap = parse(config.get("rocksdb.memory.budget.bytes"));
+        boolean shared = !"false".equalsIgnoreCase(config.getOrDefault("rocksdb.memory.shared", "true").trim());
+        if (shared && offHeap > 0 && limits.containerMemoryBytes() > 0) {
+            long needed = limits.maxHeapBytes() + offHeap;
+            String message = String.format(Locale.ROOT, "heap %s + RocksDB budget %s = %s against a %s memory limit",
+                    mib(limits.maxHeapBytes()), mib(offHeap), mib(needed), mib(limits.containerMemoryBytes()));
+            if (needed > limits.containerMemoryBytes()) {
+                findings.add(new Finding(Severity.ERROR, "rocksdb.memory.budget.bytes",
+                        message + "; the container would be OOM-killed"));
+            } else if (needed > limits.containerMemoryBytes() * MEMORY_HEADROOM_FRACTION) {
+                findings.add(new Finding(Severity.WARN, "rocksdb.memory.budget.bytes",
+                        message + "; little headroom for metaspace, threads and direct buffers"));
+            }
+        }
+        return findings;
+    }
+
+    /** Non-negative value, or -1 if absent or not a non-negative integer. */
+    private static long parse(String value) {
+        if (value == null) {
+            return -1L;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed < 0 ? -1L : parsed;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static String mib(long bytes) {
+        return (bytes >> 20) + " MiB";
+    }
+}
@@ -0,0 +1,30 @@
+package io.confluent.ps.config;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Wire format of the payment pipeline topics.
+ *
+ * <p>Selected with {@code payment.format} (env {@code PAYMENT_FORMAT}):
+ * <ul>
+ *   <li>{@code json} — UTF-8 JSON documents (default, human-readable)</li>
+ *   <li>{@code avro} — binary Avro {@code Payment}/{@code FraudAlert} records via Schema Registry</li>
+ * </ul>
+ */
+public enum PaymentFormat {
+    JSON,
+    AVRO;
+
+    public static final String CONFIG = "payment.format";
+
+    public static PaymentFormat from(Properties props) {
+        String value = props.getProperty(CONFIG, "json").trim();
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unsupported " + CONFIG + "='" + value + "' (expected json or avro)", e);
+        }
+    }
+}
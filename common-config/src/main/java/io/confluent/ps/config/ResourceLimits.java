@@ -0,0 +1,26 @@
+package io.confluent.ps.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * CPU and memory this JVM may use. Inside a container the JDK reports the
+ * cgroup limits, not the node's: {@code availableProcessors} follows the CPU
+ * limit and the total memory size the memory limit.
+ *
+ * @param cpus                 processors available to the JVM
+ * @param maxHeapBytes         {@code -Xmx} (or the container-derived default)
+ * @param containerMemoryBytes memory limit of the container/host, -1 if unknown
+ */
+public record ResourceLimits(int cpus, long maxHeapBytes, long containerMemoryBytes) {
+
+    public static ResourceLimits detect() {
+        Runtime runtime = Runtime.getRuntime();
+        long memory = -1L;
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            memory = sunOs.getTotalMemorySize();
+        }
+        return new ResourceLimits(runtime.availableProcessors(), runtime.maxMemory(), memory);
+    }
+}
@@ -0,0 +1,81 @@
+package io.confluent.ps.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback {@link AsyncAppender} that never blocks the logging thread and
+ * counts what it drops.
+ *
+ * <p>Events go into a bounded queue ({@code queueSize}) drained by one
+ * worker into the attached appender. When fewer than
+ * {@code discardingThreshold} slots are free (default a fifth of the queue),
+ * events below ERROR are dropped; that headroom is kept for errors, which are
+ * only dropped when the queue is completely full. Either way the stream,
+ * consumer or producer thread returns immediately instead of waiting on a
+ * slow console or disk. Drops are counted per appender name and exported
+ * ({@link LogDrops}).
+ *
+ * <pre>
+ * &lt;appender name="ASYNC_FILE" class="io.confluent.ps.logging.DroppingAsyncAppender"&gt;
+ *     &lt;queueSize&gt;8192&lt;/queueSize&gt;
+ *     &lt;appender-ref ref="FILE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class DroppingAsyncAppender extends AsyncAppender {
+
+    private static final Map<String, LongAdder> DROPPED = new ConcurrentHashMap<>();
+
+    private LongAdder dropped = new LongAdder();
+
+    public DroppingAsyncAppender() {
+        setNeverBlock(true);
+        // Caller data means a stack walk per event on the logging thread
+        setIncludeCallerData(false);
+    }
+
+    @Override
+    public void start() {
+        dropped = DROPPED.computeIfAbsent(String.valueOf(getName()), name -> new LongAdder());
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (getRemainingCapacity() == 0) {
+            // offer() on a full queue would drop it silently
+            dropped.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    /** Called by the base class only when the queue is below the discarding threshold. */
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        if (event.getLevel().toInt() >= Level.ERROR_INT) {
+            return false;
+        }
+        dropped.increment();
+        return true;
+    }
+
+    /** Events this appender dropped since start. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** Dropped events per appender name, sorted by name. */
+    public static Map<String, Long> droppedByAppender() {
+        Map<String, Long> counts = new TreeMap<>();
+        DROPPED.forEach((name, count) -> counts.put(name, count.sum()));
+        return counts;
+    }
+}
@@ -0,0 +1,72 @@
+package io.confluent.ps.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Log events that never reached an appender: suppressed by a
+ * {@link LogLimiter} site, or dropped by a full
+ * {@link DroppingAsyncAppender} queue.
+ *
+ * <p>The kstreams app exports both on its Prometheus endpoint; apps without
+ * one call {@link #registerMBean()} to publish them over JMX. A steadily
+ * rising dropped count means the appenders cannot keep up with the log
+ * volume — the records were still processed, only their log lines are lost.
+ */
+public final class LogDrops implements LogDropsMXBean {
+
+    public static final String OBJECT_NAME = "io.confluent.ps:type=logging";
+
+    private static final Logger log = LoggerFactory.getLogger(LogDrops.class);
+
+    private LogDrops() {}
+
+    /** Registers the MBean on the platform server; repeated calls are no-ops. */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new LogDrops(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Producer and consumer may share a JVM
+        } catch (JMException e) {
+            log.warn("Could not register {}: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    public static long suppressedTotal() {
+        return sum(LogLimiter.suppressedBySite());
+    }
+
+    public static long droppedTotal() {
+        return sum(DroppingAsyncAppender.droppedByAppender());
+    }
+
+    @Override
+    public Map<String, Long> getSuppressedBySite() {
+        return LogLimiter.suppressedBySite();
+    }
+
+    @Override
+    public Map<String, Long> getDroppedByAppender() {
+        return DroppingAsyncAppender.droppedByAppender();
+    }
+
+    @Override
+    public long getSuppressedTotal() {
+        return suppressedTotal();
+    }
+
+    @Override
+    public long getDroppedTotal() {
+        return droppedTotal();
+    }
+
+    private static long sum(Map<String, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,15 @@
+package io.confluent.ps.logging;
+
+import java.util.Map;
+
+/** JMX view of {@link LogDrops}: {@code io.confluent.ps:type=logging}. */
+public interface LogDropsMXBean {
+
+    Map<String, Long> getSuppressedBySite();
+
+    Map<String, Long> getDroppedByAppender();
+
+    long getSuppressedTotal();
+
+    long getDroppedTotal();
+}
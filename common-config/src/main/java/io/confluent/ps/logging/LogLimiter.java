@@ -0,0 +1,99 @@
+package io.confluent.ps.logging;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limit for one log statement on a per-record path: at most
+ * {@code permits} events per second, the rest are counted and skipped.
+ *
+ * <pre>
+ * private static final LogLimiter HIGH_RISK = LogLimiter.perSecond("kstreams.high-risk", 10);
+ * ...
+ * if (HIGH_RISK.permit()) {
+ *     log.warn("HIGH RISK txn_id={} ... ({} similar suppressed)", key, ..., HIGH_RISK.drainSuppressed());
+ * }
+ * </pre>
+ * The check is lock-free and allocation-free, and the arguments are only
+ * built for permitted events, so a skipped statement costs a clock read, a
+ * volatile read and two counter increments however high the record rate.
+ * Suppressed counts per site are exported as metrics ({@link LogDrops}).
+ */
+public final class LogLimiter {
+
+    private static final Map<String, LogLimiter> SITES = new ConcurrentHashMap<>();
+
+    private final String site;
+    private final int permits;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    /** Window index in the high 32 bits, permits used in it in the low 32. */
+    private final AtomicLong state = new AtomicLong(-1L << 32);
+    private final AtomicLong pending = new AtomicLong();
+    private final LongAdder suppressed = new LongAdder();
+
+    LogLimiter(String site, int permits, long windowNanos, LongSupplier nanoClock) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Log limit for " + site + " must be positive: " + permits);
+        }
+        this.site = site;
+        this.permits = permits;
+        this.windowNanos = windowNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /** The limiter of {@code site}, created on first use; every caller of a site shares its budget. */
+    public static LogLimiter perSecond(String site, int permits) {
+        return SITES.computeIfAbsent(site,
+                s -> new LogLimiter(s, permits, TimeUnit.SECONDS.toNanos(1), System::nanoTime));
+    }
+
+    /** Whether the caller may log now; if not, the event is counted as suppressed. */
+    public boolean permit() {
+        long current = Math.floorDiv(nanoClock.getAsLong(), windowNanos) & 0xFFFF_FFFFL;
+        while (true) {
+            long seen = state.get();
+            long next;
+            if (seen >>> 32 != current) {
+                next = current << 32 | 1;
+            } else if ((int) seen < permits) {
+                next = seen + 1;
+            } else {
+                // Over budget: no write to the shared state, only the counters
+                pending.incrementAndGet();
+                suppressed.increment();
+                return false;
+            }
+            if (state.compareAndSet(seen, next)) {
+                return true;
+            }
+        }
+    }
+
+    /** Events suppressed since the previous call, for the next permitted message. */
+    public long drainSuppressed() {
+        return pending.getAndSet(0);
+    }
+
+    /** Events suppressed since start. */
+    public long suppressed() {
+        return suppressed.sum();
+    }
+
+    public String site() {
+        return site;
+    }
+
+    /** Suppressed events per site, sorted by site. */
+    public static Map<String, Long> suppressedBySite() {
+        Map<String, Long> counts = new TreeMap<>();
+        SITES.forEach((site, limiter) -> counts.put(site, limiter.suppressed()));
+        return counts;
+    }
+}
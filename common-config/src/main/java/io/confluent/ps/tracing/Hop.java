@@ -0,0 +1,32 @@
+package io.confluent.ps.tracing;
+
+/**
+ * The legs of a payment's way through the system, between the times in
+ * {@link TraceHeaders}. Together they show whether producer batching, the
+ * topology (including its repartition topics and commit interval) or
+ * consumer lag dominates the end-to-end latency.
+ */
+public enum Hop {
+
+    /** Creation to broker acknowledgement: producer batching (linger.ms) and the broker write. */
+    PRODUCE("produce"),
+    /** Creation to the topology reading it: the produce hop plus the topology's consumer lag. */
+    INGEST("ingest"),
+    /** Topology input to output, repartition round trips included. */
+    TOPOLOGY("topology"),
+    /** Topology output to the consumer: commit interval (read_committed) and consumer lag. */
+    DELIVERY("delivery"),
+    /** Creation to the consumer. */
+    END_TO_END("end_to_end");
+
+    private final String label;
+
+    Hop(String label) {
+        this.label = label;
+    }
+
+    /** Name in logs and metric names. */
+    public String label() {
+        return label;
+    }
+}
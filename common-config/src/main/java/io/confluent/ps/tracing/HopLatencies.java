@@ -0,0 +1,109 @@
+package io.confluent.ps.tracing;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+/**
+ * Latency distributions per {@link Hop}, in microseconds, written by the
+ * record threads and read by whoever reports them.
+ *
+ * <p>Recording goes through HdrHistogram {@link Recorder}s, so it is
+ * wait-free and never blocks on a report. HdrHistograms are mergeable:
+ * {@link #encode} turns one into a compact string that any instance (or
+ * HdrHistogram's own tooling) can {@link #decode} and {@link Histogram#add add}
+ * to its own, which gives the distribution of a whole consumer group rather
+ * than an average of per-instance percentiles.
+ */
+public final class HopLatencies {
+
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+
+    private final Map<Hop, Recorder> recorders = new EnumMap<>(Hop.class);
+    private final Map<Hop, Histogram> intervals = new EnumMap<>(Hop.class);
+    private final Map<Hop, Histogram> totals = new EnumMap<>(Hop.class);
+
+    public HopLatencies() {
+        for (Hop hop : Hop.values()) {
+            recorders.put(hop, new Recorder(3));
+            totals.put(hop, new Histogram(3));
+        }
+    }
+
+    /** Records {@code micros}; negative values (clock skew between hosts) count as zero. */
+    public void record(Hop hop, long micros) {
+        recorders.get(hop).recordValue(Math.max(0L, micros));
+    }
+
+    /** Records {@code toMicros - fromMicros} unless {@code fromMicros} is missing (negative). */
+    public void recordBetween(Hop hop, long fromMicros, long toMicros) {
+        if (fromMicros >= 0) {
+            record(hop, toMicros - fromMicros);
+        }
+    }
+
+    /**
+     * One entry per hop recorded since the previous report — count and
+     * percentiles of that interval — or an empty string if nothing was.
+     * The interval is then folded into the running {@link #total}.
+     */
+    public synchronized String report() {
+        StringBuilder out = new StringBuilder();
+        for (Hop hop : Hop.values()) {
+            Histogram interval = roll(hop);
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            if (out.length() > 0) {
+                out.append("; ");
+            }
+            out.append(hop.label()).append(": n=").append(interval.getTotalCount());
+            for (double p : PERCENTILES) {
+                out.append(" p").append(p == Math.rint(p) ? Long.toString((long) p) : Double.toString(p))
+                        .append('=').append(millis(interval.getValueAtPercentile(p)));
+            }
+            out.append(" max=").append(millis(interval.getMaxValue()));
+        }
+        return out.toString();
+    }
+
+    /** Everything recorded for {@code hop} up to the last {@link #report}, as a copy. */
+    public synchronized Histogram total(Hop hop) {
+        return totals.get(hop).copy();
+    }
+
+    /** {@code histogram}, compressed and Base64-encoded. */
+    public static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    /** The histogram {@link #encode} produced {@code encoded} from. */
+    public static Histogram decode(String encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(
+                    ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not an encoded latency histogram: " + e.getMessage(), e);
+        }
+    }
+
+    private Histogram roll(Hop hop) {
+        Histogram interval = recorders.get(hop).getIntervalHistogram(intervals.get(hop));
+        intervals.put(hop, interval);
+        totals.get(hop).add(interval);
+        return interval;
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.3fms", micros / 1_000.0);
+    }
+}
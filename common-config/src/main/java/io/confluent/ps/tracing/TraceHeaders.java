@@ -0,0 +1,78 @@
+package io.confluent.ps.tracing;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Record headers that trace a payment from the producer through the fraud
+ * detection topology to the consumer. Times are epoch microseconds as decimal
+ * text, so every hop can be measured between any two processes; clock skew
+ * between hosts shows up in the hop that crosses them.
+ *
+ * <pre>
+ * trace.id              16 hex digits, set by the producer
+ * trace.created.us      when the producer created the payment
+ * trace.streams.in.us   when the topology read it from the payments topic
+ * trace.streams.out.us  when the topology wrote it (or its alert) out
+ * </pre>
+ * Kafka Streams carries headers through stateless steps, repartition topics
+ * and suppressed windows, so an output record keeps the headers of the
+ * payment it came from (for a windowed alert: the last payment of the window).
+ */
+public final class TraceHeaders {
+
+    public static final String TRACE_ID = "trace.id";
+    public static final String CREATED_US = "trace.created.us";
+    public static final String STREAMS_IN_US = "trace.streams.in.us";
+    public static final String STREAMS_OUT_US = "trace.streams.out.us";
+
+    private TraceHeaders() {}
+
+    /** Wall clock in epoch microseconds (the platform clock's resolution permitting). */
+    public static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    /** A random 64-bit id as 16 hex digits; cheaper than a UUID on the send path. */
+    public static String newTraceId() {
+        String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /** Stamps a new payment: its trace id and creation time. */
+    public static Headers stamp(Headers headers, String traceId, long createdMicros) {
+        headers.add(TRACE_ID, traceId.getBytes(StandardCharsets.UTF_8));
+        headers.add(CREATED_US, Long.toString(createdMicros).getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    /** Sets {@code key} to {@code micros}, replacing an earlier value. */
+    public static void put(Headers headers, String key, long micros) {
+        headers.remove(key);
+        headers.add(key, Long.toString(micros).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The time in {@code key}, or -1 if the record does not carry it (or not as a number). */
+    public static long micros(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        if (header == null || header.value() == null) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /** The trace id, or {@code null} for an untraced record. */
+    public static String traceId(Headers headers) {
+        Header header = headers.lastHeader(TRACE_ID);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
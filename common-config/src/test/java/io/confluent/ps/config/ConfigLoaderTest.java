@@ -0,0 +1,106 @@
+package io.confluent.ps.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigLoaderTest {
+
+    private static final ResourceLimits LIMITS = new ResourceLimits(4, 1L << 30, 2L << 30);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void layers_shouldApplyInOrderAndRecordTheirSource() throws IOException {
+        write("application.properties", "num.stream.threads=1\nlinger.ms=5\ncompression.type=lz4\n");
+        write("application-prod.properties", "num.stream.threads=4\nlinger.ms=10\n");
+        Path external = write("external.properties", "linger.ms=20\n");
+
+        Properties sys = new Properties();
+        sys.setProperty("config.file", external.toString());
+        sys.setProperty("kafka.compression.type", "zstd");
+        sys.setProperty("client.properties", dir.resolve("missing.properties").toString());
+
+        ConfigSnapshot snapshot = ConfigLoader.build("prod",
+                sources(Map.of("KAFKA_CLIENT_ID", "fraud-1", "KAFKA_GROUP_ID", "fraud-group"), sys));
+
+        assertEquals("4", snapshot.get("num.stream.threads"));
+        assertEquals("classpath:application-prod.properties", snapshot.source("num.stream.threads"));
+        assertEquals("20", snapshot.get("linger.ms"));
+        assertEquals("file:" + external, snapshot.source("linger.ms"));
+        assertEquals("zstd", snapshot.get("compression.type"));
+        assertEquals("sysprop:kafka.compression.type", snapshot.source("compression.type"));
+        assertEquals("fraud-1", snapshot.get("client.id"));
+        assertEquals("env:KAFKA_GROUP_ID", snapshot.source("group.id"));
+    }
+
+    @Test
+    void placeholders_shouldResolveFromEnvSystemPropertiesOrDefault() throws IOException {
+        write("application-prod.properties", "bootstrap.servers=${BROKER_HOST}:9092\n"
+                + "schema.registry.url=https://${SR_HOST}:${SR_PORT:443}\n"
+                + "sasl.jaas.config=${KAFKA_SASL_JAAS_CONFIG}\n");
+        Properties sys = new Properties();
+        sys.setProperty("SR_HOST", "sr.internal");
+
+        ConfigSnapshot snapshot = ConfigLoader.build("prod", sources(Map.of(
+                "BROKER_HOST", "broker",
+                "KAFKA_SASL_JAAS_CONFIG", "org.apache.kafka.common.security.plain.PlainLoginModule required;"), sys));
+
+        assertEquals("broker:9092", snapshot.get("bootstrap.servers"));
+        assertEquals("classpath:application-prod.properties + env:BROKER_HOST",
+                snapshot.source("bootstrap.servers"));
+        assertEquals("https://sr.internal:443", snapshot.get("schema.registry.url"));
+        assertEquals("classpath:application-prod.properties + sysprop:SR_HOST + default:SR_PORT",
+                snapshot.source("schema.registry.url"));
+        assertTrue(snapshot.report().contains("  sasl.jaas.config = ******  [env:KAFKA_SASL_JAAS_CONFIG]\n"),
+                snapshot.report());
+    }
+
+    @Test
+    void unresolvedPlaceholder_shouldFailTheCheck() throws IOException {
+        write("application-prod.properties", "bootstrap.servers=${KAFKA_BOOTSTRAP_SERVERS}\n");
+        ConfigSnapshot snapshot = ConfigLoader.build("prod", sources(Map.of(), new Properties()));
+
+        assertEquals("${KAFKA_BOOTSTRAP_SERVERS}", snapshot.get("bootstrap.servers"));
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> ConfigLoader.check(snapshot, LIMITS));
+        assertTrue(e.getMessage().contains("bootstrap.servers: unresolved placeholder"), e.getMessage());
+        assertTrue(e.getMessage().contains("[classpath:application-prod.properties]"), e.getMessage());
+    }
+
+    @Test
+    void toProperties_shouldReturnIndependentCopies() throws IOException {
+        write("application.properties", "linger.ms=5\n");
+        ConfigSnapshot snapshot = ConfigLoader.build("dev", sources(Map.of(), new Properties()));
+
+        Properties copy = snapshot.toProperties();
+        copy.setProperty("linger.ms", "50");
+        copy.setProperty("acks", "all");
+
+        assertEquals("5", snapshot.get("linger.ms"));
+        assertNull(snapshot.get("acks"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.keys().remove("linger.ms"));
+    }
+
+    private ConfigLoader.Sources sources(Map<String, String> env, Properties sys) throws IOException {
+        if (!sys.containsKey("client.properties")) {
+            sys.setProperty("client.properties", dir.resolve("missing.properties").toString());
+        }
+        ClassLoader classpath = new URLClassLoader(new URL[] {dir.toUri().toURL()}, null);
+        return new ConfigLoader.Sources(env::get, sys, classpath);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+}
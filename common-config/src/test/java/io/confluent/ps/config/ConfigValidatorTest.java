@@ -0,0 +1,80 @@
+package io.confluent.ps.config;
+
+import io.confluent.ps.config.ConfigValidator.Finding;
+import io.confluent.ps.config.ConfigValidator.Severity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigValidatorTest {
+
+    private static final long MIB = 1L << 20;
+
+    /** 2 CPUs, 1 GiB heap, 2 GiB container limit. */
+    private static final ResourceLimits POD = new ResourceLimits(2, 1024 * MIB, 2048 * MIB);
+
+    @Test
+    void saneConfig_shouldPass() {
+        assertEquals(List.of(), ConfigValidator.validate(Map.of(
+                "num.stream.threads", "2",
+                "linger.ms", "5",
+                "buffer.memory", String.valueOf(64 * MIB),
+                "statestore.cache.max.bytes", String.valueOf(128 * MIB),
+                "rocksdb.memory.budget.bytes", String.valueOf(512 * MIB)), POD));
+    }
+
+    @Test
+    void moreThreadsThanCpus_shouldWarn() {
+        List<Finding> findings = ConfigValidator.validate(Map.of("num.stream.threads", "4"), POD);
+        assertEquals(1, findings.size());
+        assertEquals(Severity.WARN, findings.get(0).severity());
+        assertEquals("num.stream.threads", findings.get(0).key());
+        assertTrue(findings.get(0).message().contains("4 threads on 2 CPUs"));
+    }
+
+    @Test
+    void longLingerAndLargeOnHeapBuffers_shouldWarn() {
+        List<Finding> findings = ConfigValidator.validate(Map.of(
+                "linger.ms", "5000",
+                "buffer.memory", String.valueOf(512 * MIB),
+                "statestore.cache.max.bytes", String.valueOf(300 * MIB)), POD);
+        assertEquals(List.of("buffer.memory", "linger.ms", "statestore.cache.max.bytes"),
+                findings.stream().map(Finding::key).sorted().toList());
+        assertTrue(findings.stream().allMatch(f -> f.severity() == Severity.WARN));
+    }
+
+    @Test
+    void offHeapBudgetBeyondContainerLimit_shouldFail() {
+        Finding oom = ConfigValidator.validate(
+                Map.of("rocksdb.memory.budget.bytes", String.valueOf(1536 * MIB)), POD).get(0);
+        assertEquals(Severity.ERROR, oom.severity());
+        assertTrue(oom.message().contains("heap 1024 MiB + RocksDB budget 1536 MiB = 2560 MiB against a 2048 MiB"),
+                oom.message());
+
+        Finding tight = ConfigValidator.validate(
+                Map.of("rocksdb.memory.budget.bytes", String.valueOf(900 * MIB)), POD).get(0);
+        assertEquals(Severity.WARN, tight.severity());
+
+        assertEquals(List.of(), ConfigValidator.validate(Map.of(
+                "rocksdb.memory.shared", "false",
+                "rocksdb.memory.budget.bytes", String.valueOf(1536 * MIB)), POD), "Budget unused when not shared");
+        assertEquals(List.of(), ConfigValidator.validate(
+                Map.of("rocksdb.memory.budget.bytes", String.valueOf(1536 * MIB)),
+                new ResourceLimits(2, 1024 * MIB, -1)), "Unknown limit");
+    }
+
+    @Test
+    void malformedNumbersAndPlaceholders_shouldFail() {
+        List<Finding> findings = ConfigValidator.validate(Map.of(
+                "num.stream.threads", "four",
+                "linger.ms", "-1",
+                "bootstrap.servers", "${KAFKA_BOOTSTRAP_SERVERS}"), POD);
+        assertEquals(List.of("bootstrap.servers", "linger.ms", "num.stream.threads"),
+                findings.stream().map(Finding::key).sorted().toList());
+        assertTrue(findings.stream().allMatch(f -> f.severity() == Severity.ERROR));
+    }
+}
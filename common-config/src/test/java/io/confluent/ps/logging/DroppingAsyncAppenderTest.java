@@ -0,0 +1,87 @@
+package io.confluent.ps.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DroppingAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final StalledAppender stalled = new StalledAppender();
+    private final DroppingAsyncAppender async = new DroppingAsyncAppender();
+    private Logger logger;
+
+    @BeforeEach
+    void setup() {
+        // A bare context has no MDC adapter, and logback fails every append without one
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        stalled.setContext(context);
+        stalled.start();
+
+        async.setContext(context);
+        async.setName("ASYNC_TEST");
+        async.setQueueSize(10);
+        async.addAppender(stalled);
+        async.start();
+
+        logger = context.getLogger("test");
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(async);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalled.release.countDown();
+        context.stop();
+    }
+
+    @Test
+    void fullQueue_shouldDropAndCountInsteadOfBlocking() {
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            logger.info("event {}", i);
+        }
+        logger.error("must survive");
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "Logging must not wait for the stalled appender");
+
+        stalled.release.countDown();
+        async.stop();
+
+        assertTrue(async.dropped() > 900, "dropped=" + async.dropped());
+        assertEquals(1_001, stalled.received.size() + async.dropped(), "Every event is delivered or counted");
+        assertEquals("must survive", stalled.received.get(stalled.received.size() - 1).getFormattedMessage(),
+                "ERROR uses the headroom the discarding threshold keeps free");
+        assertEquals(async.dropped(), DroppingAsyncAppender.droppedByAppender().get("ASYNC_TEST"));
+    }
+
+    /** Blocks the async worker until released, like a console nobody reads. */
+    private static final class StalledAppender extends AppenderBase<ILoggingEvent> {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<ILoggingEvent> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.confluent.ps.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(5 * SECOND);
+    private final LogLimiter limiter = new LogLimiter("test.site", 3, SECOND, now::get);
+
+    @Test
+    void permitsUpToTheLimitPerWindow_andCountsTheRest() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.permit());
+        }
+        for (int i = 0; i < 5; i++) {
+            assertFalse(limiter.permit());
+        }
+        assertEquals(5, limiter.suppressed());
+
+        now.addAndGet(SECOND);
+        assertTrue(limiter.permit(), "A new window starts with a full budget");
+        assertEquals(5, limiter.drainSuppressed());
+        assertEquals(0, limiter.drainSuppressed());
+        assertEquals(5, limiter.suppressed(), "The total is not reset by draining");
+    }
+
+    @Test
+    void windowsAreAlignedToTheClock_notToTheFirstEvent() {
+        now.set(5 * SECOND + SECOND - 1);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.permit());
+        }
+        assertFalse(limiter.permit());
+
+        now.incrementAndGet();
+        assertTrue(limiter.permit());
+    }
+
+    @Test
+    void perSecond_sharesOneLimiterPerSite() {
+        LogLimiter a = LogLimiter.perSecond("test.shared", 1);
+        assertSame(a, LogLimiter.perSecond("test.shared", 100));
+        assertNotSame(a, LogLimiter.perSecond("test.other", 1));
+
+        a.permit();
+        a.permit();
+        assertTrue(LogLimiter.suppressedBySite().get("test.shared") >= 1);
+        assertThrows(IllegalArgumentException.class, () -> LogLimiter.perSecond("test.invalid", 0));
+    }
+
+    @Test
+    void concurrentCallers_shouldNotExceedTheBudgetWithinAWindow() throws InterruptedException {
+        LogLimiter shared = new LogLimiter("test.concurrent", 10, SECOND, now::get);
+        AtomicLong permitted = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (shared.permit()) {
+                        permitted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(10, permitted.get());
+        assertEquals(40_000 - 10, shared.suppressed());
+    }
+}
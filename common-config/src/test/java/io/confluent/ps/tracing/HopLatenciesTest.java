@@ -0,0 +1,74 @@
+package io.confluent.ps.tracing;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HopLatenciesTest {
+
+    @Test
+    void headers_shouldRoundTripTraceIdAndTimes() {
+        Headers headers = TraceHeaders.stamp(new RecordHeaders(), "00000000000000ff", 1_700_000_000_123_456L);
+        assertEquals("00000000000000ff", TraceHeaders.traceId(headers));
+        assertEquals(1_700_000_000_123_456L, TraceHeaders.micros(headers, TraceHeaders.CREATED_US));
+        assertEquals(-1L, TraceHeaders.micros(headers, TraceHeaders.STREAMS_IN_US), "Not stamped yet");
+
+        TraceHeaders.put(headers, TraceHeaders.STREAMS_IN_US, 5L);
+        TraceHeaders.put(headers, TraceHeaders.STREAMS_IN_US, 7L);
+        assertEquals(7L, TraceHeaders.micros(headers, TraceHeaders.STREAMS_IN_US), "Replaced, not appended");
+
+        headers.add(TraceHeaders.STREAMS_OUT_US, "soon".getBytes(StandardCharsets.UTF_8));
+        assertEquals(-1L, TraceHeaders.micros(headers, TraceHeaders.STREAMS_OUT_US));
+        assertNull(TraceHeaders.traceId(new RecordHeaders()));
+
+        String id = TraceHeaders.newTraceId();
+        assertTrue(id.matches("[0-9a-f]{16}"), id);
+        assertTrue(Math.abs(TraceHeaders.nowMicros() / 1_000 - System.currentTimeMillis()) < 1_000);
+    }
+
+    @Test
+    void report_shouldCoverTheIntervalAndFoldItIntoTheTotal() {
+        HopLatencies latencies = new HopLatencies();
+        for (long micros = 1_000; micros <= 100_000; micros += 1_000) {
+            latencies.record(Hop.END_TO_END, micros);
+        }
+        latencies.recordBetween(Hop.DELIVERY, -1L, 50L);
+        latencies.recordBetween(Hop.INGEST, 100L, 40L);
+
+        String report = latencies.report();
+        assertTrue(report.startsWith("ingest: n=1"), report);
+        assertTrue(report.contains("end_to_end: n=100 p50=50.0"), report);
+        assertTrue(report.contains("max=100.0"), report);
+        assertFalse(report.contains("delivery"), "A missing start time is not recorded");
+        assertEquals(0, latencies.total(Hop.INGEST).getMaxValue(), "Clock skew counts as zero");
+
+        assertEquals("", latencies.report(), "Nothing new since the last report");
+        assertEquals(100, latencies.total(Hop.END_TO_END).getTotalCount());
+    }
+
+    @Test
+    void encodedHistograms_shouldMergeAcrossInstances() {
+        HopLatencies first = new HopLatencies();
+        HopLatencies second = new HopLatencies();
+        for (int i = 0; i < 99; i++) {
+            first.record(Hop.END_TO_END, 2_000);
+        }
+        second.record(Hop.END_TO_END, 900_000);
+        first.report();
+        second.report();
+
+        Histogram merged = HopLatencies.decode(HopLatencies.encode(first.total(Hop.END_TO_END)));
+        merged.add(HopLatencies.decode(HopLatencies.encode(second.total(Hop.END_TO_END))));
+        assertEquals(100, merged.getTotalCount());
+        assertTrue(merged.getValueAtPercentile(99.0) < 3_000);
+        assertTrue(merged.getMaxValue() >= 899_000, "The other instance's outlier is kept");
+
+        assertThrows(IllegalArgumentException.class, () -> HopLatencies.decode("not a histogram"));
+    }
+}
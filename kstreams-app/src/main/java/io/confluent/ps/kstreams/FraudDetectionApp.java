@@ -1,7 +1,25 @@
 package io.confluent.ps.kstreams;
 
+import io.confluent.ps.config.ConfigLoader;
+import io.confluent.ps.kstreams.errors.DeadLetterPublisher;
+import io.confluent.ps.kstreams.errors.DeadLetterSettings;
+import io.confluent.ps.kstreams.errors.ThreadReplacementBudget;
+import io.confluent.ps.kstreams.metrics.LocalStateInventory;
+import io.confluent.ps.kstreams.metrics.MetricsHttpServer;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.metrics.RestoreProgress;
+import io.confluent.ps.kstreams.query.RiskQueryServer;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.rules.RuleFileWatcher;
+import io.confluent.ps.kstreams.scaling.ThreadAutoscaler;
+import io.confluent.ps.kstreams.topology.FastLaneSettings;
+import io.confluent.ps.kstreams.topology.FastLaneTopology;
 import io.confluent.ps.kstreams.topology.FraudDetectionTopology;
 
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.streams.KafkaStreams;
 import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.Topology;
@@ -10,23 +28,35 @@ import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Kafka Streams application for real-time payment fraud detection.
  *
  * Reads from the 'payments' topic, evaluates risk rules, and writes
- * flagged transactions to the 'fraud-alerts' topic.
+ * flagged transactions to the 'fraud-alerts' topic. The latest risk and
+ * alert history per card and merchant are queryable over HTTP
+ * ({@link RiskQueryServer}).
  *
  * Designed for Kubernetes deployment with graceful shutdown support.
+ * Failover is kept short by standby replicas (num.standby.replicas, spread
+ * across zones when client.rack is set) and by reusing checkpointed local
+ * state; restore progress and ETA are on /health/restore. Stream threads
+ * follow the load between configured bounds ({@link ThreadAutoscaler}).
+ * With {@code fraud.fastlane.enabled=true} a second, stateless instance with
+ * its own threads produces the alerts of obvious fraud ({@link FastLaneTopology}).
+ * A record that cannot be deserialized, processed or produced, or is not a
+ * valid payment, is skipped to the dead-letter topic instead of stopping its
+ * stream thread ({@link DeadLetterSettings}).
  *
  * Usage:
  *   java -Dapp.env=dev  -jar kstreams-app.jar
@@ -38,11 +68,30 @@ public class FraudDetectionApp {
 
     public static void main(String[] args) {
         Properties props = loadConfig();
-        Topology topology = FraudDetectionTopology.build(props);
+
+        // Rules: bundled defaults, replaced from fraud.rules.file / fraud.rules.topic at runtime
+        RuleEngine rules = RuleEngine.withDefaults();
+        RuleFileWatcher ruleWatcher = RuleFileWatcher.start(props, rules);
+        PipelineMetrics metrics = new PipelineMetrics();
+        // Poison records go to the dead-letter topic; before both instances copy the config
+        DeadLetterSettings.install(props, metrics);
+        Topology topology = FraudDetectionTopology.build(props, rules, metrics);
 
         log.info("Topology:\n{}", topology.describe());
 
+        // What a restart will have to restore: checkpointed local state vs changelog ends
+        RestoreProgress restoreProgress = new RestoreProgress(props);
+        LocalStateInventory localState = checkLocalState(props);
+        restoreProgress.expect(localState);
+
         KafkaStreams streams = new KafkaStreams(topology, props);
+        KafkaStreams fastLane = createFastLane(props, rules, metrics);
+        streams.setGlobalStateRestoreListener(restoreProgress);
+        streams.setStandbyUpdateListener(restoreProgress);
+        // Probes + Prometheus scrape; health follows the state listener below
+        MetricsHttpServer metricsServer = MetricsHttpServer.start(props, streams::metrics, metrics, restoreProgress);
+        // Interactive Queries; answers 503 until the instance owns its partitions
+        RiskQueryServer queryServer = RiskQueryServer.start(props, streams);
         ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "kstreams-heartbeat");
             t.setDaemon(true);
@@ -54,12 +103,18 @@ public class FraudDetectionApp {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Shutdown signal received — closing KafkaStreams");
             streams.close();
+            if (fastLane != null) {
+                fastLane.close();
+            }
             latch.countDown();
         }));
 
         // State listener for health checks
         streams.setStateListener((newState, oldState) -> {
             log.info("State transition: {} -> {}", oldState, newState);
+            if (metricsServer != null) {
+                metricsServer.onStateChange(newState);
+            }
             if (newState == KafkaStreams.State.ERROR) {
                 log.error("KafkaStreams entered ERROR state — shutting down");
                 streams.close();
@@ -67,18 +122,40 @@ public class FraudDetectionApp {
             }
         });
 
-        // Uncaught exception handler
-        streams.setUncaughtExceptionHandler(ex -> {
-            log.error("Uncaught exception in stream thread", ex);
-            return StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse.SHUTDOWN_APPLICATION;
-        });
+        // Record-level failures are dead-lettered before they get here; what is left gets a
+        // few fresh threads, and shuts the application down if it keeps failing (a replaced
+        // thread resumes at the same offset)
+        streams.setUncaughtExceptionHandler(ThreadReplacementBudget.from(props, "main",
+                StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse.SHUTDOWN_APPLICATION));
+
+        // The fast lane's threads are replaced within the same budget; if it fails anyway, so does the instance
+        if (fastLane != null) {
+            fastLane.setStateListener((newState, oldState) -> {
+                log.info("Fast lane state transition: {} -> {}", oldState, newState);
+                if (newState == KafkaStreams.State.ERROR) {
+                    log.error("Fast lane entered ERROR state — shutting down");
+                    latch.countDown();
+                }
+            });
+            fastLane.setUncaughtExceptionHandler(ThreadReplacementBudget.from(props, "fast lane",
+                    StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse.SHUTDOWN_APPLICATION));
+        }
 
+        ThreadAutoscaler autoscaler = null;
         try {
             streams.start();
+            if (fastLane != null) {
+                fastLane.start();
+            }
             log.info("FraudDetectionApp started");
+            // Follows lag/CPU within fraud.autoscale.min/max.threads
+            autoscaler = ThreadAutoscaler.start(props, streams, metrics);
             heartbeat.scheduleAtFixedRate(() -> {
-                log.info("Processor heartbeat — state={}, app.id={}",
-                        streams.state(), props.getProperty(StreamsConfig.APPLICATION_ID_CONFIG));
+                log.info("Processor heartbeat — state={}, app.id={}, flagged={} (fast lane {}), approved={}, "
+                                + "errors={}, {}",
+                        streams.state(), props.getProperty(StreamsConfig.APPLICATION_ID_CONFIG),
+                        metrics.flaggedCount(), metrics.fastLaneAlertCount(), metrics.approvedCount(),
+                        metrics.errorCount(), restoreProgress.summary());
             }, 10, 30, TimeUnit.SECONDS);
             latch.await();
         } catch (InterruptedException e) {
@@ -86,88 +163,111 @@ public class FraudDetectionApp {
             log.warn("Main thread interrupted");
         } finally {
             heartbeat.shutdownNow();
+            if (autoscaler != null) {
+                autoscaler.close();
+            }
+            if (ruleWatcher != null) {
+                ruleWatcher.close();
+            }
+            if (queryServer != null) {
+                queryServer.close();
+            }
             streams.close();
+            if (fastLane != null) {
+                fastLane.close();
+            }
+            DeadLetterPublisher.closeShared();
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
             log.info("FraudDetectionApp stopped");
         }
     }
 
+    /**
+     * Shared {@link ConfigLoader} snapshot (layers, env overrides, placeholders,
+     * startup checks) plus the Streams-specific defaults.
+     */
     private static Properties loadConfig() {
-        String env = System.getProperty("app.env",
-                System.getenv().getOrDefault("APP_ENV", "dev"));
-        Properties props = new Properties();
-
-        loadFromClasspath(props, "application.properties");
-        loadFromClasspath(props, "application-" + env + ".properties");
-
-        loadClientProperties(props);
-
-        String externalFile = System.getProperty("config.file");
-        if (externalFile != null) {
-            try (InputStream is = Files.newInputStream(Path.of(externalFile))) {
-                props.load(is);
-                log.info("Loaded external config: {}", externalFile);
-            } catch (IOException e) {
-                log.warn("Failed to load external config: {}", externalFile, e);
-            }
-        }
-
-        // Environment variable overrides
-        mapEnv("KAFKA_BOOTSTRAP_SERVERS",    "bootstrap.servers",    props);
-        mapEnv("KAFKA_SECURITY_PROTOCOL",    "security.protocol",    props);
-        mapEnv("KAFKA_SASL_MECHANISM",       "sasl.mechanism",       props);
-        mapEnv("KAFKA_SASL_JAAS_CONFIG",     "sasl.jaas.config",     props);
-        mapEnv("SCHEMA_REGISTRY_URL",        "schema.registry.url",  props);
-        mapEnv("SCHEMA_REGISTRY_USER_INFO",  "schema.registry.basic.auth.user.info", props);
+        Properties props = ConfigLoader.load();
 
         // Ensure required Streams config
         props.putIfAbsent(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-app");
         props.putIfAbsent(StreamsConfig.NUM_STREAM_THREADS_CONFIG, "1");
+        applyRackAwareness(props);
 
-        log.info("Loaded KStreams config for env='{}', app.id='{}'",
-                env, props.getProperty(StreamsConfig.APPLICATION_ID_CONFIG));
+        log.info("Loaded KStreams config, app.id='{}'", props.getProperty(StreamsConfig.APPLICATION_ID_CONFIG));
         return props;
     }
 
-    private static void loadClientProperties(Properties props) {
-        String override = System.getProperty("client.properties");
-        if (override == null || override.isBlank()) {
-            override = System.getenv("CLIENT_PROPERTIES_FILE");
-        }
-        if (override == null || override.isBlank()) {
-            override = System.getenv("KAFKA_CLIENT_PROPERTIES");
-        }
-        if (override == null || override.isBlank()) {
-            override = "client.properties";
+    /**
+     * The fast-lane instance, under its own application id and thread count,
+     * or {@code null} when {@code fraud.fastlane.enabled} is false.
+     */
+    private static KafkaStreams createFastLane(Properties props, RuleEngine rules, PipelineMetrics metrics) {
+        FastLaneSettings settings = FastLaneSettings.from(props);
+        if (!settings.enabled()) {
+            return null;
         }
+        Properties fastProps = settings.streamsConfig(props);
+        Topology topology = FastLaneTopology.build(fastProps, rules, metrics);
+        log.info("Fast lane: {} -> {} with {} thread(s), app.id='{}'\n{}", settings.topic(),
+                FraudDetectionTopology.FRAUD_ALERTS_TOPIC, settings.threads(),
+                fastProps.getProperty(StreamsConfig.APPLICATION_ID_CONFIG), topology.describe());
+        return new KafkaStreams(topology, fastProps);
+    }
 
-        Path path = Path.of(override);
-        if (!Files.exists(path)) {
-            log.debug("client.properties not found (skipped): {}", path);
+    /**
+     * With {@code client.rack} (the pod's zone) set, tags the instance with it
+     * and lets the assignor place standbys in other zones and prefer tasks
+     * whose partitions' leaders are in its own zone. Explicit settings win.
+     */
+    private static void applyRackAwareness(Properties props) {
+        String rack = props.getProperty("client.rack");
+        if (rack == null || rack.isBlank()) {
             return;
         }
-
-        try (InputStream is = Files.newInputStream(path)) {
-            props.load(is);
-            log.info("Loaded client.properties: {}", path);
-        } catch (IOException e) {
-            log.warn("Failed to load client.properties: {}", path, e);
-        }
+        props.putIfAbsent(StreamsConfig.CLIENT_TAG_PREFIX + "zone", rack);
+        props.putIfAbsent(StreamsConfig.RACK_AWARE_ASSIGNMENT_TAGS_CONFIG, "zone");
+        props.putIfAbsent(StreamsConfig.RACK_AWARE_ASSIGNMENT_STRATEGY_CONFIG,
+                StreamsConfig.RACK_AWARE_ASSIGNMENT_STRATEGY_MIN_TRAFFIC);
+        log.info("Rack-aware assignment enabled: zone={}", rack);
     }
 
-    private static void loadFromClasspath(Properties props, String resource) {
-        try (InputStream is = FraudDetectionApp.class.getClassLoader().getResourceAsStream(resource)) {
-            if (is != null) {
-                props.load(is);
+    /**
+     * Scans the local state directory and, when it holds checkpoints, asks
+     * the brokers how far the checkpointed changelogs have moved since. Best
+     * effort: on any failure the backlog stays unknown and startup proceeds.
+     */
+    private static LocalStateInventory checkLocalState(Properties props) {
+        LocalStateInventory local = LocalStateInventory.scan(props);
+        if (local.warm()) {
+            Map<String, Object> adminConfig = new StreamsConfig(props).getAdminConfigs("fraud-restore-check");
+            try (Admin admin = Admin.create(adminConfig)) {
+                local = local.withEndOffsets(partitions -> endOffsets(admin, partitions));
+            } catch (RuntimeException e) {
+                log.warn("Cannot read changelog end offsets; restore backlog unknown", e);
             }
-        } catch (IOException e) {
-            log.warn("Failed to load: {}", resource, e);
         }
+        log.info("Local state before start: {} ({})", local.summary(),
+                local.warm() ? "warm restart" : "cold start, full changelog restore");
+        return local;
     }
 
-    private static void mapEnv(String envVar, String propKey, Properties props) {
-        String value = System.getenv(envVar);
-        if (value != null && !value.isBlank()) {
-            props.setProperty(propKey, value);
+    private static Map<TopicPartition, Long> endOffsets(Admin admin, Set<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+        partitions.forEach(tp -> request.put(tp, OffsetSpec.latest()));
+        Map<TopicPartition, Long> ends = new HashMap<>();
+        try {
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> result =
+                    admin.listOffsets(request).all().get(10, TimeUnit.SECONDS);
+            result.forEach((tp, info) -> ends.put(tp, info.offset()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted reading changelog end offsets", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Cannot list offsets of " + partitions.size() + " changelog partitions", e);
         }
+        return ends;
     }
 }
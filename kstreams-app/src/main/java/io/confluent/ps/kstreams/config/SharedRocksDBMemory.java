@@ -0,0 +1,88 @@
+package io.confluent.ps.kstreams.config;
+
+import org.rocksdb.Cache;
+import org.rocksdb.LRUCache;
+import org.rocksdb.WriteBufferManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One block cache and one {@link WriteBufferManager} shared by every RocksDB
+ * instance in the JVM, so total native memory is fixed by the budget instead
+ * of growing with the number of stores, segments and stream threads.
+ *
+ * <p>Memtables are charged against the same cache, so the budget covers both
+ * reads and writes. Index and filter blocks go to the cache's high-priority
+ * pool and are evicted last.
+ *
+ * <p>Reference counted: the first {@link #acquire} creates the resources, the
+ * last {@link #release} closes them. A later acquire with a different budget
+ * keeps the existing one (all stores of a Streams instance share one config).
+ */
+final class SharedRocksDBMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedRocksDBMemory.class);
+
+    private static SharedRocksDBMemory instance;
+    private static int references;
+
+    private final long budgetBytes;
+    private final Cache cache;
+    private final WriteBufferManager writeBufferManager;
+
+    private SharedRocksDBMemory(long budgetBytes, double writeBufferRatio,
+                                double highPriorityRatio, boolean strictCapacity) {
+        this.budgetBytes = budgetBytes;
+        // -1 shard bits = let RocksDB choose from the capacity
+        this.cache = new LRUCache(budgetBytes, -1, strictCapacity, highPriorityRatio);
+        this.writeBufferManager = new WriteBufferManager((long) (budgetBytes * writeBufferRatio), cache);
+    }
+
+    static synchronized SharedRocksDBMemory acquire(long budgetBytes, double writeBufferRatio,
+                                                    double highPriorityRatio, boolean strictCapacity) {
+        if (instance == null) {
+            instance = new SharedRocksDBMemory(budgetBytes, writeBufferRatio, highPriorityRatio, strictCapacity);
+            log.info("Created shared RocksDB memory: budget={}MB, memtables<={}%, highPriority={}%, strict={}",
+                    budgetBytes / (1024 * 1024), Math.round(writeBufferRatio * 100),
+                    Math.round(highPriorityRatio * 100), strictCapacity);
+        } else if (instance.budgetBytes != budgetBytes) {
+            log.warn("Shared RocksDB memory already sized at {} bytes — ignoring requested {} bytes",
+                    instance.budgetBytes, budgetBytes);
+        }
+        references++;
+        return instance;
+    }
+
+    static synchronized void release(SharedRocksDBMemory memory) {
+        if (memory != instance || references == 0) {
+            return;
+        }
+        if (--references == 0) {
+            instance.writeBufferManager.close();
+            instance.cache.close();
+            instance = null;
+            log.info("Closed shared RocksDB memory (last store closed)");
+        }
+    }
+
+    static synchronized int references() {
+        return references;
+    }
+
+    /** Current (or pinned) usage of the shared cache in bytes, or -1 if none is open. */
+    static synchronized long usage(boolean pinned) {
+        if (instance == null) {
+            return -1L;
+        }
+        return pinned ? instance.cache.getPinnedUsage() : instance.cache.getUsage();
+    }
+
+    Cache cache() {
+        return cache;
+    }
+
+    WriteBufferManager writeBufferManager() {
+        return writeBufferManager;
+    }
+}
@@ -3,6 +3,7 @@ package io.confluent.ps.kstreams.config;
 import org.apache.kafka.streams.state.RocksDBConfigSetter;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.CompressionType;
+import org.rocksdb.IndexType;
 import org.rocksdb.LRUCache;
 import org.rocksdb.Options;
 
@@ -26,6 +27,30 @@ import java.util.Map;
  * 128 MB (block cache) + 192 MB (3 write buffers × 64 MB) = 320 MB of native memory.
  * Ensure your container memory limit accounts for this on top of JVM heap.
  *
+ * <p><strong>Velocity window stores</strong> ({@code velocity-*}) are segmented:
+ * every live segment (about three per store and task with one-hour retention)
+ * is its own RocksDB instance, and whole segments are dropped on expiry. They
+ * get a small profile instead — 8 MB block cache + 2 × 8 MB write buffers
+ * = 24 MB per segment — and dynamic level sizing, so compaction keeps space
+ * amplification low for the rewrite-the-newest-bucket pattern.
+ *
+ * <p><strong>Shared memory mode</strong> ({@code rocksdb.memory.shared=true}):
+ * per-store sizes multiply with stores × segments × tasks and eventually exceed
+ * the container limit. In shared mode every store in the JVM uses one block
+ * cache and one {@link org.rocksdb.WriteBufferManager} (see {@link SharedRocksDBMemory}),
+ * so native memory is bounded by a single budget no matter how many stores exist:
+ * <pre>
+ * rocksdb.memory.shared=true
+ * rocksdb.memory.budget.bytes=536870912        # total: block cache incl. memtables
+ * rocksdb.memory.write.buffer.ratio=0.5        # share of the budget memtables may use
+ * rocksdb.memory.high.priority.ratio=0.1       # pool for index/filter blocks, evicted last
+ * rocksdb.memory.strict.capacity=true          # reads/writes fail instead of overshooting
+ * </pre>
+ * With a strict limit, a budget that is too small surfaces as "Insert failed
+ * due to LRU cache being full" errors rather than an OOM kill — size the
+ * budget for the working set. Per-store write buffer sizes still apply as
+ * upper bounds; indexes are two-level so only their top level is pinned.
+ *
  * <p>Register via:
  * <pre>
  * rocksdb.config.setter=io.confluent.ps.kstreams.config.TunedRocksDBConfig
@@ -44,7 +69,23 @@ public class TunedRocksDBConfig implements RocksDBConfigSetter {
     private static final int MAX_BACKGROUND_JOBS = 4;
     private static final long MAX_BYTES_FOR_LEVEL_BASE = 256 * 1024 * 1024L; // 256 MB
 
+    /** Segment names of window stores are {@code <store>.<segmentId>}. */
+    private static final String VELOCITY_STORE_PREFIX = "velocity-";
+    private static final long VELOCITY_BLOCK_CACHE_SIZE = 8 * 1024 * 1024L;        // 8 MB
+    private static final long VELOCITY_WRITE_BUFFER_SIZE = 8 * 1024 * 1024L;       // 8 MB
+    private static final int VELOCITY_MAX_WRITE_BUFFER_NUMBER = 2;
+    private static final long VELOCITY_MAX_BYTES_FOR_LEVEL_BASE = 32 * 1024 * 1024L; // 32 MB
+
+    public static final String SHARED_MEMORY_CONFIG = "rocksdb.memory.shared";
+    public static final String MEMORY_BUDGET_CONFIG = "rocksdb.memory.budget.bytes";
+    public static final String WRITE_BUFFER_RATIO_CONFIG = "rocksdb.memory.write.buffer.ratio";
+    public static final String HIGH_PRIORITY_RATIO_CONFIG = "rocksdb.memory.high.priority.ratio";
+    public static final String STRICT_CAPACITY_CONFIG = "rocksdb.memory.strict.capacity";
+
+    private static final long DEFAULT_MEMORY_BUDGET = 512 * 1024 * 1024L; // 512 MB
+
     private org.rocksdb.Cache cache;
+    private SharedRocksDBMemory shared;
 
     @Override
     public void setConfig(String storeName, Options options,
@@ -52,39 +93,84 @@ public class TunedRocksDBConfig implements RocksDBConfigSetter {
 
         log.info("Applying tuned RocksDB config for store '{}'", storeName);
 
+        boolean velocity = storeName.startsWith(VELOCITY_STORE_PREFIX);
+        long blockCacheSize = velocity ? VELOCITY_BLOCK_CACHE_SIZE : BLOCK_CACHE_SIZE;
+        long writeBufferSize = velocity ? VELOCITY_WRITE_BUFFER_SIZE : WRITE_BUFFER_SIZE;
+        int maxWriteBufferNumber = velocity ? VELOCITY_MAX_WRITE_BUFFER_NUMBER : MAX_WRITE_BUFFER_NUMBER;
+
         // Block-based table configuration
         BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
-        cache = new LRUCache(BLOCK_CACHE_SIZE);
-        tableConfig.setBlockCache(cache);
         tableConfig.setBlockSize(BLOCK_SIZE);
         tableConfig.setCacheIndexAndFilterBlocks(true);
         tableConfig.setPinL0FilterAndIndexBlocksInCache(true);
 
+        boolean sharedMemory = Boolean.parseBoolean(config(configs, SHARED_MEMORY_CONFIG, "false"));
+        if (sharedMemory) {
+            shared = SharedRocksDBMemory.acquire(
+                    Long.parseLong(config(configs, MEMORY_BUDGET_CONFIG, String.valueOf(DEFAULT_MEMORY_BUDGET))),
+                    Double.parseDouble(config(configs, WRITE_BUFFER_RATIO_CONFIG, "0.5")),
+                    Double.parseDouble(config(configs, HIGH_PRIORITY_RATIO_CONFIG, "0.1")),
+                    Boolean.parseBoolean(config(configs, STRICT_CAPACITY_CONFIG, "true")));
+            tableConfig.setBlockCache(shared.cache());
+            tableConfig.setCacheIndexAndFilterBlocksWithHighPriority(true);
+            tableConfig.setIndexType(IndexType.kTwoLevelIndexSearch);
+            tableConfig.setPinTopLevelIndexAndFilter(true);
+            options.setWriteBufferManager(shared.writeBufferManager());
+        } else {
+            cache = new LRUCache(blockCacheSize);
+            tableConfig.setBlockCache(cache);
+        }
+
         // Write buffer configuration
-        options.setWriteBufferSize(WRITE_BUFFER_SIZE);
-        options.setMaxWriteBufferNumber(MAX_WRITE_BUFFER_NUMBER);
+        options.setWriteBufferSize(writeBufferSize);
+        options.setMaxWriteBufferNumber(maxWriteBufferNumber);
         options.setMinWriteBufferNumberToMerge(1);
 
         // Compaction
         options.setMaxBackgroundJobs(MAX_BACKGROUND_JOBS);
-        options.setMaxBytesForLevelBase(MAX_BYTES_FOR_LEVEL_BASE);
+        if (velocity) {
+            options.setLevelCompactionDynamicLevelBytes(true);
+            options.setMaxBytesForLevelBase(VELOCITY_MAX_BYTES_FOR_LEVEL_BASE);
+        } else {
+            options.setMaxBytesForLevelBase(MAX_BYTES_FOR_LEVEL_BASE);
+        }
 
         // Compression
         options.setCompressionType(CompressionType.LZ4_COMPRESSION);
 
         options.setTableFormatConfig(tableConfig);
 
-        log.info("RocksDB config for '{}': cache={}MB, writeBuffer={}MB×{}, compression=LZ4",
+        log.info("RocksDB config for '{}': cache={}, writeBuffer={}MB×{}, compression=LZ4",
                 storeName,
-                BLOCK_CACHE_SIZE / (1024 * 1024),
-                WRITE_BUFFER_SIZE / (1024 * 1024),
-                MAX_WRITE_BUFFER_NUMBER);
+                sharedMemory ? "shared" : blockCacheSize / (1024 * 1024) + "MB",
+                writeBufferSize / (1024 * 1024),
+                maxWriteBufferNumber);
     }
 
     @Override
     public void close(String storeName, Options options) {
+        if (shared != null) {
+            SharedRocksDBMemory.release(shared);
+            shared = null;
+        }
         if (cache != null) {
             cache.close();
+            cache = null;
         }
     }
+
+    /** Bytes used in the shared block cache, memtables included; -1 unless shared mode is active. */
+    public static long sharedCacheUsage() {
+        return SharedRocksDBMemory.usage(false);
+    }
+
+    /** Bytes pinned in the shared block cache (in-use blocks, pinned index tops); -1 unless shared. */
+    public static long sharedCachePinnedUsage() {
+        return SharedRocksDBMemory.usage(true);
+    }
+
+    private static String config(Map<String, Object> configs, String key, String defaultValue) {
+        Object value = configs.get(key);
+        return value == null ? defaultValue : value.toString().trim();
+    }
 }
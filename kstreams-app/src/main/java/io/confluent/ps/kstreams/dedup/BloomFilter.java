@@ -0,0 +1,93 @@
+package io.confluent.ps.kstreams.dedup;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size Bloom filter over strings: {@code mightContain} is never
+ * {@code false} for an added string, and {@code true} for a string never
+ * added with roughly the configured probability once {@code expected}
+ * strings are in.
+ *
+ * <p>One 64-bit hash per lookup, computed straight from the {@code char}s
+ * (no encoding, no allocation); the {@code k} bit positions are derived from
+ * it by double hashing. Not thread-safe — one instance per stream task.
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final long[] words;
+    private final long bits;
+    private final int hashes;
+
+    private BloomFilter(long bits, int hashes) {
+        this.words = new long[(int) ((bits + 63) >>> 6)];
+        this.bits = (long) words.length << 6;
+        this.hashes = hashes;
+    }
+
+    /** Optimal size for {@code expected} entries at false-positive probability {@code fpp}. */
+    static BloomFilter create(long expected, double fpp) {
+        long bits = (long) Math.ceil(-expected * Math.log(fpp) / (LN2 * LN2));
+        if (bits > (long) Integer.MAX_VALUE << 6) {
+            throw new IllegalArgumentException("Bloom filter for " + expected + " ids at fpp " + fpp + " is too large");
+        }
+        int hashes = Math.max(1, (int) Math.round((double) bits / expected * LN2));
+        return new BloomFilter(Math.max(64, bits), hashes);
+    }
+
+    void add(CharSequence value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(CharSequence value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    long bits() {
+        return bits;
+    }
+
+    /** FNV-1a over the chars, finished with the murmur3 mixer. */
+    private static long hash(CharSequence value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,133 @@
+package io.confluent.ps.kstreams.dedup;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Drops payments whose transaction id (the record key) was already seen
+ * within {@code fraud.dedup.window.ms} of event time, so an upstream retry is
+ * scored — and alerted on — once.
+ *
+ * <p>Seen ids live in a RocksDB window store ({@link #STORE}) keyed by id,
+ * retained for one window; the input must be partitioned by transaction id,
+ * as the {@code payments} topic is. In front of it sits an in-memory
+ * {@link WindowedBloomFilter}: a new id — the common case — is usually ruled
+ * out by the filter and costs a store write but no store read. Only when the
+ * filter says "maybe" is the store consulted; if the store has no entry, that
+ * was a false positive, counted in {@link PipelineMetrics}.
+ *
+ * <p>The filter is derived state: on (re)initialisation it is rebuilt from
+ * the store, which the changelog restores. Under {@code exactly_once_v2}
+ * the store and the output commit together, so a payment is never dropped
+ * because of a store write whose output was lost.
+ */
+public final class DedupProcessor<V> implements FixedKeyProcessor<String, V, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(DedupProcessor.class);
+
+    public static final String STORE = "dedup-transaction-ids";
+
+    private final DedupSettings settings;
+    private final PipelineMetrics metrics;
+
+    private FixedKeyProcessorContext<String, V> context;
+    private WindowStore<String, Long> seen;
+    private WindowedBloomFilter filter;
+
+    public DedupProcessor(DedupSettings settings, PipelineMetrics metrics) {
+        this.settings = settings;
+        this.metrics = metrics;
+    }
+
+    /** One entry per id, kept for one window; the window size only bounds {@code fetch} ranges. */
+    public static StoreBuilder<WindowStore<String, Long>> storeBuilder(DedupSettings settings) {
+        Duration window = Duration.ofMillis(settings.windowMs());
+        return Stores.windowStoreBuilder(
+                Stores.persistentWindowStore(STORE, window, window, false),
+                Serdes.String(), Serdes.Long());
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+        this.seen = context.getStateStore(STORE);
+        if (!settings.bloomEnabled()) {
+            return;
+        }
+        filter = new WindowedBloomFilter(settings.windowMs(), settings.expectedIds(), settings.bloomFpp());
+        long restored = 0;
+        try (KeyValueIterator<Windowed<String>, Long> it = seen.all()) {
+            while (it.hasNext()) {
+                KeyValue<Windowed<String>, Long> entry = it.next();
+                filter.restore(entry.key.key(), entry.key.window().start());
+                restored++;
+            }
+        }
+        metrics.addDedupFilterBytes(filter.sizeInBytes());
+        log.info("Dedup filter for task {}: {}, {} ids restored from {}",
+                context.taskId(), filter, restored, STORE);
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        String id = record.key();
+        if (id == null) {
+            context.forward(record);
+            return;
+        }
+        long timestamp = record.timestamp();
+        if (filter == null) {
+            if (seenWithinWindow(id, timestamp)) {
+                metrics.recordDedup(true);
+                return;
+            }
+        } else if (filter.mightContain(id)) {
+            boolean duplicate = seenWithinWindow(id, timestamp);
+            metrics.recordBloomLookup(true, duplicate);
+            if (duplicate) {
+                metrics.recordDedup(true);
+                return;
+            }
+        } else {
+            metrics.recordBloomLookup(false, false);
+        }
+
+        seen.put(id, timestamp, timestamp);
+        if (filter != null) {
+            filter.add(id, timestamp);
+        }
+        metrics.recordDedup(false);
+        context.forward(record);
+    }
+
+    /** Either direction: a retry may carry an earlier timestamp than the copy that arrived first. */
+    private boolean seenWithinWindow(String id, long timestamp) {
+        try (WindowStoreIterator<Long> it = seen.fetch(id, Math.max(0L, timestamp - settings.windowMs()),
+                timestamp + settings.windowMs())) {
+            return it.hasNext();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (filter != null) {
+            metrics.addDedupFilterBytes(-filter.sizeInBytes());
+        }
+    }
+}
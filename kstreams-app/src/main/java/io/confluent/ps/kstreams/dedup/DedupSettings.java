@@ -0,0 +1,50 @@
+package io.confluent.ps.kstreams.dedup;
+
+import java.util.Properties;
+
+/**
+ * Deduplication of retried payments ({@code fraud.dedup.*}).
+ *
+ * <pre>
+ * fraud.dedup.enabled=false
+ * fraud.dedup.window.ms=3600000        a transaction id seen within this much event time is a duplicate
+ * fraud.dedup.expected.ids=1000000     distinct payments per window and input partition (sizes the Bloom filter)
+ * fraud.dedup.bloom.enabled=true       in-memory filter in front of the store
+ * fraud.dedup.bloom.fpp=0.01           target false-positive probability at expected.ids
+ * </pre>
+ * The filter only saves store reads; correctness never depends on it. If
+ * more ids arrive than expected, the false-positive rate (and the number of
+ * store reads) rises, which {@code fraud_dedup_bloom_false_positive_ratio} shows.
+ * Size {@code expected.ids} as peak payments per second times the window in
+ * seconds, divided by the input partitions.
+ */
+public record DedupSettings(boolean enabled, long windowMs, long expectedIds, boolean bloomEnabled, double bloomFpp) {
+
+    public static final String PREFIX = "fraud.dedup.";
+    public static final String ENABLED_CONFIG = PREFIX + "enabled";
+    public static final String WINDOW_MS_CONFIG = PREFIX + "window.ms";
+    public static final String EXPECTED_IDS_CONFIG = PREFIX + "expected.ids";
+    public static final String BLOOM_ENABLED_CONFIG = PREFIX + "bloom.enabled";
+    public static final String BLOOM_FPP_CONFIG = PREFIX + "bloom.fpp";
+
+    public DedupSettings {
+        if (windowMs < 1) {
+            throw new IllegalArgumentException(WINDOW_MS_CONFIG + " must be positive: " + windowMs);
+        }
+        if (expectedIds < 1) {
+            throw new IllegalArgumentException(EXPECTED_IDS_CONFIG + " must be positive: " + expectedIds);
+        }
+        if (!(bloomFpp > 0.0 && bloomFpp < 1.0)) {
+            throw new IllegalArgumentException(BLOOM_FPP_CONFIG + " must be between 0 and 1: " + bloomFpp);
+        }
+    }
+
+    public static DedupSettings from(Properties props) {
+        return new DedupSettings(
+                Boolean.parseBoolean(props.getProperty(ENABLED_CONFIG, "false").trim()),
+                Long.parseLong(props.getProperty(WINDOW_MS_CONFIG, "3600000").trim()),
+                Long.parseLong(props.getProperty(EXPECTED_IDS_CONFIG, "1000000").trim()),
+                Boolean.parseBoolean(props.getProperty(BLOOM_ENABLED_CONFIG, "true").trim()),
+                Double.parseDouble(props.getProperty(BLOOM_FPP_CONFIG, "0.01").trim()));
+    }
+}
@@ -0,0 +1,65 @@
+package io.confluent.ps.kstreams.dedup;
+
+/**
+ * Bloom filter that forgets, for a sliding window of event time.
+ *
+ * <p>A Bloom filter cannot delete, so ids go into the current of two
+ * generations, each covering {@code windowMs} of event time. When a record
+ * opens the next window the older generation is cleared and becomes the
+ * current one. Lookups check both, so an id is remembered for at least one
+ * and at most two windows after it was added — never shorter than the
+ * store it fronts keeps it.
+ */
+final class WindowedBloomFilter {
+
+    private final long windowMs;
+    private BloomFilter current;
+    private BloomFilter previous;
+    private long currentStart = Long.MIN_VALUE;
+
+    WindowedBloomFilter(long windowMs, long expectedPerWindow, double fpp) {
+        this.windowMs = windowMs;
+        this.current = BloomFilter.create(expectedPerWindow, fpp);
+        this.previous = BloomFilter.create(expectedPerWindow, fpp);
+    }
+
+    boolean mightContain(CharSequence id) {
+        return current.mightContain(id) || previous.mightContain(id);
+    }
+
+    /** Adds {@code id} seen at {@code timestamp}, first rotating if it opens a new window. */
+    void add(CharSequence id, long timestamp) {
+        if (currentStart == Long.MIN_VALUE) {
+            currentStart = timestamp;
+        } else if (timestamp - currentStart >= windowMs) {
+            BloomFilter expired = previous;
+            expired.clear();
+            if (timestamp - currentStart >= 2 * windowMs) {
+                // Skipped a whole window: nothing in the current generation is recent either
+                current.clear();
+            }
+            previous = current;
+            current = expired;
+            currentStart = timestamp;
+        }
+        current.add(id);
+    }
+
+    /**
+     * Re-adds an id from the store after a restart; entries come in key
+     * order, so no rotation — the window starts at the newest of them.
+     */
+    void restore(CharSequence id, long timestamp) {
+        current.add(id);
+        currentStart = Math.max(currentStart, timestamp);
+    }
+
+    long sizeInBytes() {
+        return current.sizeInBytes() + previous.sizeInBytes();
+    }
+
+    @Override
+    public String toString() {
+        return "2 x " + current.bits() + " bits, " + current.hashes() + " hashes";
+    }
+}
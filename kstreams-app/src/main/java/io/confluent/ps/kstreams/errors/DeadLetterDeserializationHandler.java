@@ -0,0 +1,23 @@
+package io.confluent.ps.kstreams.errors;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics.ErrorStage;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.streams.errors.DeserializationExceptionHandler;
+import org.apache.kafka.streams.errors.ErrorHandlerContext;
+
+/**
+ * Skips an input record its serde cannot read, once its raw bytes are in the
+ * dead-letter topic. Only if that write fails does the stream thread fail —
+ * skipping then would lose the record without a trace.
+ */
+public class DeadLetterDeserializationHandler extends DeadLetterHandler implements DeserializationExceptionHandler {
+
+    @Override
+    public DeserializationHandlerResponse handle(ErrorHandlerContext context, ConsumerRecord<byte[], byte[]> record,
+                                                 Exception exception) {
+        boolean skipped = deadLetter(ErrorStage.DESERIALIZATION, record.topic(), record.partition(), record.offset(),
+                context.processorNodeId(), record.headers(), record.key(), record.value(), exception, true);
+        return skipped ? DeserializationHandlerResponse.CONTINUE : DeserializationHandlerResponse.FAIL;
+    }
+}
@@ -0,0 +1,115 @@
+package io.confluent.ps.kstreams.errors;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics.ErrorStage;
+import io.confluent.ps.logging.LogLimiter;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * What the three Streams exception handlers share: log (rate-limited), count
+ * and write a failed record to the dead-letter topic with the
+ * {@link DeadLetterHeaders}.
+ */
+abstract class DeadLetterHandler implements Configurable {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterHandler.class);
+
+    /** A burst of poison records must not turn into a burst of stack traces. */
+    private static final LogLimiter FAILED_LOG = LogLimiter.perSecond("kstreams.dead-letter", 10);
+
+    private DeadLetterSettings settings;
+    private PipelineMetrics metrics;
+    private DeadLetterPublisher publisher;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        DeadLetterSettings settings = DeadLetterSettings.from(configs);
+        Object metrics = configs.get(DeadLetterSettings.METRICS_CONFIG);
+        configure(settings,
+                metrics instanceof PipelineMetrics pipelineMetrics ? pipelineMetrics : new PipelineMetrics(),
+                settings.enabled() ? DeadLetterPublisher.shared(configs) : null);
+    }
+
+    /** @param publisher {@code null} without a dead-letter topic */
+    void configure(DeadLetterSettings settings, PipelineMetrics metrics, DeadLetterPublisher publisher) {
+        this.settings = settings;
+        this.metrics = metrics;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Logs and counts a failed record and, with a dead-letter topic, writes it there.
+     *
+     * @param topic     input topic, or {@code null} when the failure has no input record
+     * @param headers   the record's headers; copied, never modified
+     * @param await     whether to wait (up to {@code fraud.errors.dlq.timeout.ms}) for the write,
+     *                  rather than only hand it to the producer
+     * @return whether the record may be skipped: the dead letter was written (or sent,
+     *         without {@code await}), or there is no dead-letter topic
+     */
+    boolean deadLetter(ErrorStage stage, String topic, int partition, long offset, String processor,
+                       Headers headers, byte[] key, byte[] value, Exception error, boolean await) {
+        if (FAILED_LOG.permit()) {
+            log.warn("Skipping record at {} {}-{}@{} ({}): {} ({} more suppressed)",
+                    stage.label(), topic, partition, offset, processor,
+                    DeadLetterHeaders.reason(error), FAILED_LOG.drainSuppressed(), error);
+        }
+        if (publisher == null) {
+            metrics.recordError(stage, false);
+            return true;
+        }
+
+        Headers dlqHeaders = new RecordHeaders(headers == null ? new Header[0] : headers.toArray());
+        DeadLetterHeaders.add(dlqHeaders, stage.label(), DeadLetterHeaders.reason(error),
+                topic, partition, offset, processor);
+        ProducerRecord<byte[], byte[]> dlq = new ProducerRecord<>(settings.topic(), null, key, value, dlqHeaders);
+        Future<RecordMetadata> sent;
+        try {
+            sent = publisher.send(dlq);
+        } catch (RuntimeException e) {
+            log.error("Could not send to dead-letter topic {}", settings.topic(), e);
+            metrics.recordError(stage, false);
+            return false;
+        }
+        if (!await) {
+            metrics.recordError(stage, true);
+            return true;
+        }
+        try {
+            sent.get(settings.timeoutMs(), TimeUnit.MILLISECONDS);
+            metrics.recordError(stage, true);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Could not write to dead-letter topic {} within {} ms", settings.topic(), settings.timeoutMs(),
+                    e instanceof ExecutionException ? e.getCause() : e);
+        }
+        metrics.recordError(stage, false);
+        return false;
+    }
+
+    /** Record keys and values as dead-letter bytes: raw bytes as they are, anything else as text. */
+    static byte[] toBytes(Object data) {
+        if (data == null || data instanceof byte[]) {
+            return (byte[]) data;
+        }
+        return String.valueOf(data).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package io.confluent.ps.kstreams.errors;
+
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Headers a dead letter carries on top of the record's own, all UTF-8 text,
+ * so an operator can tell from the record alone why it is there and where it
+ * came from.
+ *
+ * <pre>
+ * dlq.stage              deserialization | processing | production | invalid
+ * dlq.reason             exception class and message, or why the payment is invalid
+ * dlq.source.topic       topic, partition and offset of the input record, when known
+ * dlq.source.partition
+ * dlq.source.offset
+ * dlq.processor          processor node that failed, when known
+ * </pre>
+ */
+public final class DeadLetterHeaders {
+
+    public static final String STAGE = "dlq.stage";
+    public static final String REASON = "dlq.reason";
+    public static final String SOURCE_TOPIC = "dlq.source.topic";
+    public static final String SOURCE_PARTITION = "dlq.source.partition";
+    public static final String SOURCE_OFFSET = "dlq.source.offset";
+    public static final String PROCESSOR = "dlq.processor";
+
+    /** Reasons are cut here; a stack trace belongs in the log, not in every header. */
+    static final int MAX_REASON_CHARS = 512;
+
+    private DeadLetterHeaders() {}
+
+    /**
+     * Adds the dead-letter headers; {@code topic} and {@code processor} may be
+     * {@code null} and a negative {@code partition} / {@code offset} is left out.
+     */
+    public static void add(Headers headers, String stage, String reason,
+                           String topic, int partition, long offset, String processor) {
+        put(headers, STAGE, stage);
+        put(headers, REASON, reason.length() > MAX_REASON_CHARS ? reason.substring(0, MAX_REASON_CHARS) : reason);
+        put(headers, SOURCE_TOPIC, topic);
+        put(headers, SOURCE_PARTITION, partition >= 0 ? Integer.toString(partition) : null);
+        put(headers, SOURCE_OFFSET, offset >= 0 ? Long.toString(offset) : null);
+        put(headers, PROCESSOR, processor);
+    }
+
+    /** {@code SomeException: message}, for {@link #REASON}. */
+    public static String reason(Throwable error) {
+        String message = error.getMessage();
+        return message == null ? error.getClass().getName() : error.getClass().getName() + ": " + message;
+    }
+
+    private static void put(Headers headers, String key, String value) {
+        headers.remove(key);
+        if (value != null) {
+            headers.add(key, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.confluent.ps.kstreams.errors;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics.ErrorStage;
+
+import org.apache.kafka.streams.errors.ErrorHandlerContext;
+import org.apache.kafka.streams.errors.ProcessingExceptionHandler;
+import org.apache.kafka.streams.processor.api.Record;
+
+/**
+ * Skips a record a processor threw on, once it is in the dead-letter topic.
+ * The record is the processor's input, so past a repartition it is the
+ * repartitioned form (same key and payment); keys and values that are not
+ * raw bytes are written as their text (an Avro payment as JSON).
+ */
+public class DeadLetterProcessingHandler extends DeadLetterHandler implements ProcessingExceptionHandler {
+
+    @Override
+    public ProcessingHandlerResponse handle(ErrorHandlerContext context, Record<?, ?> record, Exception exception) {
+        boolean skipped = deadLetter(ErrorStage.PROCESSING, context.topic(), context.partition(), context.offset(),
+                context.processorNodeId(), record.headers(), toBytes(record.key()), toBytes(record.value()),
+                exception, true);
+        return skipped ? ProcessingHandlerResponse.CONTINUE : ProcessingHandlerResponse.FAIL;
+    }
+}
@@ -0,0 +1,49 @@
+package io.confluent.ps.kstreams.errors;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics.ErrorStage;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.InvalidRecordException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.streams.errors.ErrorHandlerContext;
+import org.apache.kafka.streams.errors.ProductionExceptionHandler;
+
+/**
+ * Skips an output record the broker rejected for what it is (too large,
+ * invalid) or that could not be serialized, after handing it to the
+ * dead-letter topic. Any other send failure (authorization, a missing topic)
+ * would reject every record alike, so it still fails the stream thread.
+ *
+ * <p>A send failure is reported on the Streams producer's I/O thread, so its
+ * dead letter is only sent, never waited for; the send itself blocks for no
+ * longer than {@code fraud.errors.dlq.timeout.ms} ({@link DeadLetterPublisher}).
+ * A serialization failure is reported on the stream thread, which waits for the
+ * dead letter like the other handlers and fails if it is not written in time.
+ * A record too large for the output topic goes to the dead-letter topic
+ * without its value.
+ */
+public class DeadLetterProductionHandler extends DeadLetterHandler implements ProductionExceptionHandler {
+
+    @Override
+    public ProductionExceptionHandlerResponse handle(ErrorHandlerContext context,
+                                                     ProducerRecord<byte[], byte[]> record, Exception exception) {
+        if (!(exception instanceof RecordTooLargeException || exception instanceof InvalidRecordException)) {
+            return ProductionExceptionHandlerResponse.FAIL;
+        }
+        byte[] value = exception instanceof RecordTooLargeException ? null : record.value();
+        deadLetter(ErrorStage.PRODUCTION, context.topic(), context.partition(), context.offset(),
+                context.processorNodeId(), record.headers(), record.key(), value, exception, false);
+        return ProductionExceptionHandlerResponse.CONTINUE;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ProductionExceptionHandlerResponse handleSerializationException(ErrorHandlerContext context,
+                                                                           ProducerRecord record, Exception exception,
+                                                                           SerializationExceptionOrigin origin) {
+        boolean skipped = deadLetter(ErrorStage.PRODUCTION, context.topic(), context.partition(), context.offset(),
+                context.processorNodeId(), record.headers(), toBytes(record.key()), toBytes(record.value()),
+                exception, true);
+        return skipped ? ProductionExceptionHandlerResponse.CONTINUE : ProductionExceptionHandlerResponse.FAIL;
+    }
+}
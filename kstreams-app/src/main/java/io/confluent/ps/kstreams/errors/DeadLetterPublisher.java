@@ -0,0 +1,106 @@
+package io.confluent.ps.kstreams.errors;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.streams.StreamsConfig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * The producer dead letters are written with, one per JVM and shared by the
+ * handlers of every task and of both {@code KafkaStreams} instances.
+ *
+ * <p>Streams creates its exception handlers per task and gives them no close
+ * hook, so the producer is created on the first dead letter (never for a run
+ * without one) and closed by the application on shutdown ({@link #closeShared}).
+ * It uses the Streams client's connection settings, and {@code acks=all} with
+ * idempotence whatever the application's producer settings are, so a
+ * record is only skipped once its dead letter is durable. {@code max.block.ms}
+ * and {@code delivery.timeout.ms} are set to {@code fraud.errors.dlq.timeout.ms}
+ * (and {@code request.timeout.ms} to no more than it): neither the
+ * {@code send()} on an unreachable or missing topic nor the write blocks the
+ * calling thread for longer than the handlers are configured to wait.
+ *
+ * <p>The producer is not part of the Streams transaction: under
+ * {@code exactly_once_v2} a task that aborts after a dead letter was written
+ * reprocesses the record and writes it again. The dead-letter topic is
+ * therefore at-least-once; consumers dedupe on the source topic, partition
+ * and offset headers ({@link DeadLetterHeaders}), which are the same for
+ * every copy.
+ */
+public final class DeadLetterPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterPublisher.class);
+
+    private static DeadLetterPublisher shared;
+
+    private final Supplier<Producer<byte[], byte[]>> factory;
+    private Producer<byte[], byte[]> producer;
+
+    DeadLetterPublisher(Supplier<Producer<byte[], byte[]>> factory) {
+        this.factory = factory;
+    }
+
+    /** The JVM's publisher, set up from the first handler's Streams configs. */
+    static synchronized DeadLetterPublisher shared(Map<String, ?> configs) {
+        if (shared == null) {
+            shared = new DeadLetterPublisher(() -> new KafkaProducer<>(producerConfigs(configs),
+                    new ByteArraySerializer(), new ByteArraySerializer()));
+        }
+        return shared;
+    }
+
+    /** Flushes and closes the shared producer, if one was created. */
+    public static synchronized void closeShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    Future<RecordMetadata> send(ProducerRecord<byte[], byte[]> record) {
+        return producer().send(record);
+    }
+
+    private synchronized Producer<byte[], byte[]> producer() {
+        if (producer == null) {
+            producer = factory.get();
+            log.info("Created the dead-letter producer");
+        }
+        return producer;
+    }
+
+    synchronized void close() {
+        if (producer != null) {
+            producer.close();
+            producer = null;
+        }
+    }
+
+    static Map<String, Object> producerConfigs(Map<String, ?> configs) {
+        Map<String, Object> producerConfigs = new StreamsConfig(configs).getProducerConfigs("fraud-dead-letters");
+        producerConfigs.remove(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG);
+        producerConfigs.remove(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG);
+        producerConfigs.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerConfigs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        producerConfigs.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+
+        // delivery.timeout.ms must cover linger.ms (0) + request.timeout.ms.
+        int timeoutMs = (int) Math.min(DeadLetterSettings.from(configs).timeoutMs(), Integer.MAX_VALUE);
+        int requestTimeoutMs = Integer.parseInt(String.valueOf(
+                producerConfigs.getOrDefault(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 30_000)).trim());
+        producerConfigs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, (long) timeoutMs);
+        producerConfigs.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, timeoutMs);
+        producerConfigs.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, Math.min(requestTimeoutMs, timeoutMs));
+        return producerConfigs;
+    }
+}
@@ -0,0 +1,75 @@
+package io.confluent.ps.kstreams.errors;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Where records that cannot be processed go ({@code fraud.errors.*}).
+ *
+ * <pre>
+ * fraud.errors.dlq.topic=payments-dlq     dead-letter topic; empty = log, count and skip only
+ * fraud.errors.dlq.timeout.ms=10000       max wait for the dead-letter write of a poison record
+ * </pre>
+ * Poison records are caught by the Streams exception handlers this class
+ * {@link #install installs} ({@link DeadLetterDeserializationHandler},
+ * {@link DeadLetterProcessingHandler}, {@link DeadLetterProductionHandler}),
+ * so one bad record is skipped instead of failing its stream thread. Payments
+ * that deserialize but cannot be scored (unreadable, no valid amount) leave
+ * the topology through its own dead-letter branch instead of being approved.
+ * Every dead letter carries the {@link DeadLetterHeaders}.
+ *
+ * <p>Dead letters are written outside the Streams transaction, so even with
+ * {@code exactly_once_v2} a retried task can write the same one twice; its
+ * source topic, partition and offset headers identify the duplicates.
+ */
+public record DeadLetterSettings(String topic, long timeoutMs) {
+
+    public static final String PREFIX = "fraud.errors.";
+    public static final String TOPIC_CONFIG = PREFIX + "dlq.topic";
+    public static final String TIMEOUT_CONFIG = PREFIX + "dlq.timeout.ms";
+
+    /** Not a user setting: the {@link PipelineMetrics} instance the handlers count into. */
+    static final String METRICS_CONFIG = PREFIX + "metrics";
+
+    static final String DEFAULT_TOPIC = "payments-dlq";
+
+    public DeadLetterSettings {
+        if (topic == null) {
+            throw new IllegalArgumentException(TOPIC_CONFIG + " must not be null");
+        }
+        if (timeoutMs < 1) {
+            throw new IllegalArgumentException(TIMEOUT_CONFIG + " must be >= 1: " + timeoutMs);
+        }
+    }
+
+    /** Reads the settings from {@link Properties} or from the config map Streams hands its handlers. */
+    public static DeadLetterSettings from(Map<?, ?> configs) {
+        return new DeadLetterSettings(
+                String.valueOf(configs.containsKey(TOPIC_CONFIG) ? configs.get(TOPIC_CONFIG) : DEFAULT_TOPIC).trim(),
+                Long.parseLong(String.valueOf(
+                        configs.containsKey(TIMEOUT_CONFIG) ? configs.get(TIMEOUT_CONFIG) : "10000").trim()));
+    }
+
+    public boolean enabled() {
+        return !topic.isEmpty();
+    }
+
+    /**
+     * Registers the dead-letter exception handlers (unless others are
+     * configured) and the metrics they count into. Call before building the
+     * {@code KafkaStreams} instances.
+     */
+    public static void install(Properties props, PipelineMetrics metrics) {
+        props.putIfAbsent(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG,
+                DeadLetterDeserializationHandler.class.getName());
+        props.putIfAbsent(StreamsConfig.PROCESSING_EXCEPTION_HANDLER_CLASS_CONFIG,
+                DeadLetterProcessingHandler.class.getName());
+        props.putIfAbsent(StreamsConfig.DEFAULT_PRODUCTION_EXCEPTION_HANDLER_CLASS_CONFIG,
+                DeadLetterProductionHandler.class.getName());
+        props.put(METRICS_CONFIG, metrics);
+    }
+}
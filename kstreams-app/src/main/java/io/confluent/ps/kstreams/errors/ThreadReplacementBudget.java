@@ -0,0 +1,82 @@
+package io.confluent.ps.kstreams.errors;
+
+import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.function.LongSupplier;
+
+/**
+ * Uncaught-exception handler that replaces a failed stream thread a bounded
+ * number of times, then escalates.
+ *
+ * <pre>
+ * fraud.errors.thread.replacements.max=3            replacements allowed within the window
+ * fraud.errors.thread.replacements.window.ms=600000 sliding window they are counted in
+ * </pre>
+ * Record-level failures are dead-lettered before they reach this handler.
+ * What still does is mostly deterministic — the dead letter of the same
+ * poison record failing again, or the production handler giving up on an
+ * authorization error or a missing topic — and a replaced thread resumes at
+ * the same offset and dies again. A transient failure gets a fresh thread;
+ * a repeating one shuts down with the given response instead of looping.
+ */
+public final class ThreadReplacementBudget implements StreamsUncaughtExceptionHandler {
+
+    public static final String MAX_CONFIG = DeadLetterSettings.PREFIX + "thread.replacements.max";
+    public static final String WINDOW_MS_CONFIG = DeadLetterSettings.PREFIX + "thread.replacements.window.ms";
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadReplacementBudget.class);
+
+    private final String name;
+    private final int max;
+    private final long windowMs;
+    private final StreamThreadExceptionResponse escalation;
+    private final LongSupplier clock;
+    private final Deque<Long> replacements = new ArrayDeque<>();
+
+    ThreadReplacementBudget(String name, int max, long windowMs, StreamThreadExceptionResponse escalation,
+                            LongSupplier clock) {
+        if (max < 0) {
+            throw new IllegalArgumentException(MAX_CONFIG + " must be >= 0: " + max);
+        }
+        if (windowMs < 1) {
+            throw new IllegalArgumentException(WINDOW_MS_CONFIG + " must be >= 1: " + windowMs);
+        }
+        this.name = name;
+        this.max = max;
+        this.windowMs = windowMs;
+        this.escalation = escalation;
+        this.clock = clock;
+    }
+
+    /** The handler for the instance called {@code name}, escalating with {@code escalation}. */
+    public static ThreadReplacementBudget from(Properties props, String name,
+                                               StreamThreadExceptionResponse escalation) {
+        return new ThreadReplacementBudget(name,
+                Integer.parseInt(props.getProperty(MAX_CONFIG, "3").trim()),
+                Long.parseLong(props.getProperty(WINDOW_MS_CONFIG, "600000").trim()),
+                escalation, System::currentTimeMillis);
+    }
+
+    @Override
+    public synchronized StreamThreadExceptionResponse handle(Throwable exception) {
+        long now = clock.getAsLong();
+        while (!replacements.isEmpty() && replacements.peekFirst() <= now - windowMs) {
+            replacements.pollFirst();
+        }
+        if (replacements.size() >= max) {
+            log.error("Uncaught exception in {} stream thread after {} replacements within {} ms, responding {}",
+                    name, replacements.size(), windowMs, escalation, exception);
+            return escalation;
+        }
+        replacements.addLast(now);
+        log.error("Uncaught exception in {} stream thread, replacing it ({} of {} within {} ms)",
+                name, replacements.size(), max, windowMs, exception);
+        return StreamThreadExceptionResponse.REPLACE_THREAD;
+    }
+}
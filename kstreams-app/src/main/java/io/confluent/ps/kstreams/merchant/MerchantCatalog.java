@@ -0,0 +1,72 @@
+package io.confluent.ps.kstreams.merchant;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The merchants global store of one topology: written by its
+ * {@link MerchantStoreUpdater}, read by the scoring tasks through their
+ * {@link MerchantNearCache}s. Each update bumps a generation the caches
+ * compare on every lookup, which costs one volatile read.
+ */
+public final class MerchantCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(MerchantCatalog.class);
+
+    public static final String STORE_NAME = "fraud-merchants-store";
+
+    private final MerchantSettings settings;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MerchantCatalog(MerchantSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Persistent store holding the topic's values as they are, since a global
+     * store is restored by copying the topic; the topic itself is the changelog.
+     */
+    public static StoreBuilder<KeyValueStore<String, String>> storeBuilder() {
+        return Stores.keyValueStoreBuilder(
+                        Stores.persistentKeyValueStore(STORE_NAME), Serdes.String(), Serdes.String())
+                .withLoggingDisabled();
+    }
+
+    public MerchantSettings settings() {
+        return settings;
+    }
+
+    /** A near cache for one scoring task, over the store it got from its context. */
+    public MerchantNearCache nearCache(ReadOnlyKeyValueStore<String, String> store, PipelineMetrics metrics) {
+        return new MerchantNearCache(settings.cacheMaxEntries(), generation::get, id -> load(store, id), metrics);
+    }
+
+    /** The store changed; every near cache starts over. */
+    void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    private static MerchantProfile load(ReadOnlyKeyValueStore<String, String> store, String merchantId) {
+        String json = store.get(merchantId);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MerchantProfile.parse(json);
+        } catch (IllegalArgumentException e) {
+            // Restored from the topic without passing the updater's check
+            log.warn("Ignoring malformed merchant record for {}: {}", merchantId, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.confluent.ps.kstreams.merchant;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-task, size-bounded cache of merchant profiles in front of the global
+ * merchants store, so the hot merchants are resolved on-heap and never reach
+ * RocksDB.
+ *
+ * <p>Two-way set associative over {@link PaymentView#textHash} of the
+ * merchant id: a lookup probes two slots, compares the cached id bytes with
+ * the payment's raw bytes and, on a hit, neither allocates nor decodes. A miss
+ * loads from the store (unknown merchants are cached too, as
+ * {@link MerchantProfile#UNKNOWN}) and evicts the less recently used slot of
+ * its set. Any change to the store clears the cache on its next lookup, so a
+ * lookup never returns a profile older than the store's.
+ *
+ * <p>Instances are not thread-safe; each scoring task owns one.
+ */
+public final class MerchantNearCache {
+
+    private final LongSupplier generation;
+    private final Function<String, MerchantProfile> loader;
+    private final PipelineMetrics metrics;
+
+    private final int setMask;
+    private final int[] hashes;
+    private final byte[][] ids;
+    private final MerchantProfile[] profiles;
+    /** Per set, the way to evict next. */
+    private final byte[] victims;
+
+    private long seenGeneration;
+
+    /**
+     * @param maxEntries rounded up to a power of two
+     * @param generation changes whenever the store does
+     * @param loader     profile of a merchant id from the store, or {@code null} if absent
+     */
+    MerchantNearCache(int maxEntries, LongSupplier generation, Function<String, MerchantProfile> loader,
+                      PipelineMetrics metrics) {
+        if (maxEntries < 2 || maxEntries > MerchantSettings.MAX_CACHE_ENTRIES) {
+            throw new IllegalArgumentException("Near cache entries must be between 2 and "
+                    + MerchantSettings.MAX_CACHE_ENTRIES + ": " + maxEntries);
+        }
+        int capacity = Integer.highestOneBit(maxEntries - 1) << 1;
+        this.generation = generation;
+        this.loader = loader;
+        this.metrics = metrics;
+        this.setMask = capacity / 2 - 1;
+        this.hashes = new int[capacity];
+        this.ids = new byte[capacity][];
+        this.profiles = new MerchantProfile[capacity];
+        this.victims = new byte[capacity / 2];
+        this.seenGeneration = generation.getAsLong();
+    }
+
+    /** Looks up the payment's merchant and sets its fields on {@code view}. */
+    public void enrich(PaymentView view) {
+        lookup(view).applyTo(view);
+    }
+
+    /** Profile of the payment's merchant; {@link MerchantProfile#UNKNOWN} without a merchant id. */
+    public MerchantProfile lookup(PaymentView view) {
+        if (!view.has(PaymentView.MERCHANT_ID)) {
+            return MerchantProfile.UNKNOWN;
+        }
+        long start = System.nanoTime();
+        long current = generation.getAsLong();
+        if (current != seenGeneration) {
+            clear();
+            seenGeneration = current;
+        }
+
+        int hash = view.textHash(PaymentView.MERCHANT_ID);
+        int set = hash & setMask;
+        int first = set << 1;
+        for (int way = 0; way < 2; way++) {
+            int slot = first + way;
+            if (profiles[slot] != null && hashes[slot] == hash
+                    && view.textEquals(PaymentView.MERCHANT_ID, ids[slot])) {
+                victims[set] = (byte) (1 - way);
+                metrics.recordMerchantLookup(true, System.nanoTime() - start);
+                return profiles[slot];
+            }
+        }
+
+        byte[] id = view.textBytes(PaymentView.MERCHANT_ID);
+        MerchantProfile loaded = loader.apply(new String(id, StandardCharsets.UTF_8));
+        MerchantProfile profile = loaded != null ? loaded : MerchantProfile.UNKNOWN;
+        int way = profiles[first] == null ? 0 : profiles[first + 1] == null ? 1 : victims[set];
+        int slot = first + way;
+        hashes[slot] = hash;
+        ids[slot] = id;
+        profiles[slot] = profile;
+        victims[set] = (byte) (1 - way);
+        metrics.recordMerchantLookup(false, System.nanoTime() - start);
+        return profile;
+    }
+
+    /** Slots, i.e. the most merchants held at once. */
+    public int capacity() {
+        return profiles.length;
+    }
+
+    private void clear() {
+        Arrays.fill(profiles, null);
+        Arrays.fill(ids, null);
+    }
+}
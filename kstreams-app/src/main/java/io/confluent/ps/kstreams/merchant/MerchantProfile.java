@@ -0,0 +1,101 @@
+package io.confluent.ps.kstreams.merchant;
+
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reference data of one merchant, as held by the merchants topic:
+ *
+ * <pre>
+ * {"merchant_id":"MERCH-001","risk_tier":"high","mcc":"7995","country":"MT"}
+ * </pre>
+ * {@code risk_tier} is {@code low | medium | high} (or 1..3); every field is
+ * optional and other fields are ignored. Profiles are immutable and shared by
+ * all tasks; {@link #applyTo} hands the pre-encoded text to a
+ * {@link PaymentView} without copying it.
+ */
+public final class MerchantProfile {
+
+    /** An unknown merchant: tier 0, no MCC, no country. */
+    public static final MerchantProfile UNKNOWN = new MerchantProfile(0, null, null);
+
+    private static final Pattern RISK_TIER = field("risk_tier");
+    private static final Pattern MCC = field("mcc");
+    private static final Pattern COUNTRY = field("country");
+
+    private final int riskTier;
+    private final byte[] mcc;
+    private final byte[] country;
+
+    MerchantProfile(int riskTier, String mcc, String country) {
+        this.riskTier = riskTier;
+        this.mcc = mcc == null ? null : mcc.getBytes(StandardCharsets.UTF_8);
+        this.country = country == null ? null : country.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code json} is not an object or has an unknown risk tier
+     */
+    public static MerchantProfile parse(String json) {
+        String trimmed = json.trim();
+        if (!trimmed.startsWith("{") || !trimmed.endsWith("}")) {
+            throw new IllegalArgumentException("Merchant record is not a JSON object: " + json);
+        }
+        String tier = value(RISK_TIER, trimmed);
+        return new MerchantProfile(tier == null ? 0 : riskTier(tier), value(MCC, trimmed), value(COUNTRY, trimmed));
+    }
+
+    public int riskTier() {
+        return riskTier;
+    }
+
+    public String mcc() {
+        return mcc == null ? null : new String(mcc, StandardCharsets.UTF_8);
+    }
+
+    public String country() {
+        return country == null ? null : new String(country, StandardCharsets.UTF_8);
+    }
+
+    /** Sets the merchant fields of a payment read into {@code view}. Does not allocate. */
+    public void applyTo(PaymentView view) {
+        view.setMerchantRiskTier(riskTier);
+        if (mcc != null) {
+            view.setText(PaymentView.MERCHANT_MCC, mcc, 0, mcc.length);
+        }
+        if (country != null) {
+            view.setText(PaymentView.MERCHANT_COUNTRY, country, 0, country.length);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MerchantProfile[riskTier=" + riskTier + ", mcc=" + mcc() + ", country=" + country() + "]";
+    }
+
+    private static int riskTier(String tier) {
+        return switch (tier.toLowerCase(Locale.ROOT)) {
+            case "low", "1" -> 1;
+            case "medium", "2" -> 2;
+            case "high", "3" -> 3;
+            default -> throw new IllegalArgumentException("Unknown merchant risk_tier: " + tier);
+        };
+    }
+
+    /** {@code "name": "text"} or {@code "name": 123}. */
+    private static Pattern field(String name) {
+        return Pattern.compile("\"" + name + "\"\\s*:\\s*(?:\"([^\"]*)\"|([-0-9.]+))");
+    }
+
+    private static String value(Pattern pattern, String json) {
+        Matcher m = pattern.matcher(json);
+        if (!m.find()) {
+            return null;
+        }
+        return m.group(1) != null ? m.group(1) : m.group(2);
+    }
+}
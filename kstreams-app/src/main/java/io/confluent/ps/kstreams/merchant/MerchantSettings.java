@@ -0,0 +1,45 @@
+package io.confluent.ps.kstreams.merchant;
+
+import java.util.Properties;
+
+/**
+ * Merchant reference data ({@code fraud.merchants.*}).
+ *
+ * <pre>
+ * fraud.merchants.topic=                     compacted topic keyed by merchant id; empty = no enrichment
+ * fraud.merchants.cache.max.entries=4096     near-cache entries per scoring task (rounded up to a power of two)
+ * </pre>
+ * Every instance reads the whole topic into a global store (see
+ * {@link MerchantStoreUpdater}); each scoring task looks merchants up through
+ * its own {@link MerchantNearCache}, so the store is only read for merchants
+ * that are not among the recently seen ones.
+ */
+public record MerchantSettings(String topic, int cacheMaxEntries) {
+
+    public static final String PREFIX = "fraud.merchants.";
+    public static final String TOPIC_CONFIG = PREFIX + "topic";
+    public static final String CACHE_MAX_ENTRIES_CONFIG = PREFIX + "cache.max.entries";
+
+    /** Largest cache; a power of two, so rounding up stays in range. */
+    static final int MAX_CACHE_ENTRIES = 1 << 24;
+
+    public MerchantSettings {
+        if (topic == null) {
+            throw new IllegalArgumentException(TOPIC_CONFIG + " must not be null");
+        }
+        if (cacheMaxEntries < 2 || cacheMaxEntries > MAX_CACHE_ENTRIES) {
+            throw new IllegalArgumentException(
+                    CACHE_MAX_ENTRIES_CONFIG + " must be between 2 and " + MAX_CACHE_ENTRIES + ": " + cacheMaxEntries);
+        }
+    }
+
+    public static MerchantSettings from(Properties props) {
+        return new MerchantSettings(
+                props.getProperty(TOPIC_CONFIG, "").trim(),
+                Integer.parseInt(props.getProperty(CACHE_MAX_ENTRIES_CONFIG, "4096").trim()));
+    }
+
+    public boolean enabled() {
+        return !topic.isEmpty();
+    }
+}
@@ -0,0 +1,54 @@
+package io.confluent.ps.kstreams.merchant;
+
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Global-store processor for the compacted merchants topic: every instance
+ * reads the whole topic, keyed by merchant id, into
+ * {@link MerchantCatalog#STORE_NAME}. This is what a {@code GlobalKTable}
+ * does, plus invalidating the scoring tasks' near caches on every change.
+ *
+ * <p>A tombstone removes the merchant. A malformed record is logged and
+ * skipped, keeping the merchant's previous profile.
+ */
+public final class MerchantStoreUpdater implements Processor<String, String, Void, Void> {
+
+    private static final Logger log = LoggerFactory.getLogger(MerchantStoreUpdater.class);
+
+    private final MerchantCatalog catalog;
+
+    private KeyValueStore<String, String> store;
+
+    public MerchantStoreUpdater(MerchantCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public void init(ProcessorContext<Void, Void> context) {
+        store = context.getStateStore(MerchantCatalog.STORE_NAME);
+        catalog.invalidate();
+    }
+
+    @Override
+    public void process(Record<String, String> record) {
+        if (record.key() == null) {
+            return;
+        }
+        if (record.value() != null) {
+            try {
+                MerchantProfile.parse(record.value());
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring merchant update for {}: {}", record.key(), e.getMessage());
+                return;
+            }
+        }
+        store.put(record.key(), record.value());
+        catalog.invalidate();
+    }
+}
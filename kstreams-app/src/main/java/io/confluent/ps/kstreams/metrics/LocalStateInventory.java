@@ -0,0 +1,147 @@
+package io.confluent.ps.kstreams.metrics;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.StreamsConfig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * What this instance finds in its state directory before {@code KafkaStreams}
+ * starts: task directories, which of them have a {@code .checkpoint}, their
+ * size on disk, and the changelog offsets they were checkpointed at.
+ *
+ * <p>A task with a checkpoint only restores the changelog tail written since;
+ * a task without one (first start, wiped volume, or an unclean shutdown under
+ * exactly-once) restores its whole changelog. With the changelog end offsets
+ * ({@link #withEndOffsets}) the tail becomes a record count, which
+ * {@link RestoreProgress} turns into an ETA before the first restore callback.
+ */
+public record LocalStateInventory(
+        int taskDirectories,
+        int checkpointedTasks,
+        long bytesOnDisk,
+        Map<TopicPartition, Long> checkpointedOffsets,
+        long backlogRecords) {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStateInventory.class);
+
+    private static final Pattern TASK_DIR = Pattern.compile("\\d+_\\d+");
+    private static final String CHECKPOINT_FILE = ".checkpoint";
+
+    /** Nothing on disk (or state dir not readable). */
+    public static final LocalStateInventory EMPTY = new LocalStateInventory(0, 0, 0L, Map.of(), -1L);
+
+    /** Scans {@code <state.dir>/<application.id>}. Never throws; unreadable parts are logged and skipped. */
+    public static LocalStateInventory scan(Properties props) {
+        Path stateDir = Path.of(props.getProperty(StreamsConfig.STATE_DIR_CONFIG,
+                Path.of(System.getProperty("java.io.tmpdir"), "kafka-streams").toString()));
+        return scan(stateDir.resolve(props.getProperty(StreamsConfig.APPLICATION_ID_CONFIG, "")));
+    }
+
+    static LocalStateInventory scan(Path appDir) {
+        if (!Files.isDirectory(appDir)) {
+            return EMPTY;
+        }
+        int tasks = 0;
+        int checkpointed = 0;
+        long bytes = 0;
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(appDir,
+                p -> Files.isDirectory(p) && TASK_DIR.matcher(p.getFileName().toString()).matches())) {
+            for (Path taskDir : dirs) {
+                tasks++;
+                bytes += size(taskDir);
+                Path checkpoint = taskDir.resolve(CHECKPOINT_FILE);
+                if (Files.isRegularFile(checkpoint)) {
+                    checkpointed++;
+                    readCheckpoint(checkpoint, offsets);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot scan local state in {}", appDir, e);
+        }
+        return new LocalStateInventory(tasks, checkpointed, bytes, Map.copyOf(offsets), -1L);
+    }
+
+    /**
+     * Adds the records the checkpointed changelog partitions are behind.
+     *
+     * @param endOffsets changelog end offsets for the given partitions (e.g. via Admin listOffsets)
+     */
+    public LocalStateInventory withEndOffsets(Function<Set<TopicPartition>, Map<TopicPartition, Long>> endOffsets) {
+        if (checkpointedOffsets.isEmpty()) {
+            return this;
+        }
+        Map<TopicPartition, Long> ends = endOffsets.apply(checkpointedOffsets.keySet());
+        long backlog = 0;
+        for (Map.Entry<TopicPartition, Long> e : checkpointedOffsets.entrySet()) {
+            Long end = ends.get(e.getKey());
+            if (end != null) {
+                backlog += Math.max(0L, end - e.getValue());
+            }
+        }
+        return new LocalStateInventory(taskDirectories, checkpointedTasks, bytesOnDisk, checkpointedOffsets, backlog);
+    }
+
+    public boolean warm() {
+        return checkpointedTasks > 0;
+    }
+
+    public String summary() {
+        return String.format("tasks=%d checkpointed=%d bytes=%d backlog=%s", taskDirectories, checkpointedTasks,
+                bytesOnDisk, backlogRecords < 0 ? "unknown" : String.valueOf(backlogRecords));
+    }
+
+    /**
+     * Checkpoint file format (Kafka Streams OffsetCheckpoint): a version line,
+     * an entry count, then {@code topic partition offset} per line.
+     */
+    private static void readCheckpoint(Path file, Map<TopicPartition, Long> offsets) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            reader.readLine(); // version
+            String count = reader.readLine();
+            int n = count == null ? 0 : Integer.parseInt(count.trim());
+            for (int i = 0; i < n; i++) {
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length == 3) {
+                    offsets.put(new TopicPartition(parts[0], Integer.parseInt(parts[1])), Long.parseLong(parts[2]));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable checkpoint {}", file, e);
+        }
+    }
+
+    private static long size(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(p -> {
+                try {
+                    return Files.size(p);
+                } catch (IOException e) {
+                    return 0L; // file vanished (e.g. compaction) while walking
+                }
+            }).sum();
+        } catch (IOException | RuntimeException e) {
+            return 0L;
+        }
+    }
+}
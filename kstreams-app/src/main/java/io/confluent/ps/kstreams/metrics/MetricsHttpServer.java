@@ -0,0 +1,193 @@
+package io.confluent.ps.kstreams.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Embedded HTTP endpoint (JDK {@link HttpServer}) for probes and scraping:
+ * <pre>
+ * GET /health/live   200 unless the Streams instance is in (PENDING_)ERROR
+ * GET /health/ready  200 while RUNNING, 503 otherwise (incl. rebalancing/restoring)
+ * GET /health/restore JSON restore/standby progress and ETA ({@link RestoreProgress})
+ * GET /metrics       Prometheus text: KafkaStreams.metrics() + {@link PipelineMetrics}
+ *                    (+ {@link RestoreProgress})
+ * </pre>
+ *
+ * <p>Health comes from the last state reported to {@link #onStateChange},
+ * i.e. from the state listener, so probes never call into {@code KafkaStreams}.
+ * Requests are served by one daemon thread; a scrape reads the stream
+ * threads' metrics but never blocks them on anything of ours.
+ *
+ * <p>Listens on {@code metrics.http.port} (default 9404, the port the
+ * deployment's Prometheus annotation points at); {@code -1} disables it.
+ */
+public final class MetricsHttpServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsHttpServer.class);
+
+    public static final String PORT_CONFIG = "metrics.http.port";
+    public static final int DEFAULT_PORT = 9404;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Supplier<Map<MetricName, ? extends Metric>> streamsMetrics;
+    private final PipelineMetrics pipelineMetrics;
+    private final RestoreProgress restoreProgress;
+
+    private volatile KafkaStreams.State state = KafkaStreams.State.CREATED;
+
+    private MetricsHttpServer(HttpServer server,
+                              Supplier<Map<MetricName, ? extends Metric>> streamsMetrics,
+                              PipelineMetrics pipelineMetrics,
+                              RestoreProgress restoreProgress) {
+        this.server = server;
+        this.streamsMetrics = streamsMetrics;
+        this.pipelineMetrics = pipelineMetrics;
+        this.restoreProgress = restoreProgress;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/health/live", exchange -> respondHealth(exchange, isLive()));
+        server.createContext("/health/ready", exchange -> respondHealth(exchange, isReady()));
+        server.createContext("/health/restore", this::respondRestore);
+        server.createContext("/metrics", this::respondMetrics);
+    }
+
+    /**
+     * Binds and starts the server.
+     *
+     * @param streamsMetrics usually {@code streams::metrics}
+     * @return {@code null} if {@code metrics.http.port} is negative
+     * @throws IllegalStateException if the port cannot be bound
+     */
+    public static MetricsHttpServer start(Properties props,
+                                          Supplier<Map<MetricName, ? extends Metric>> streamsMetrics,
+                                          PipelineMetrics pipelineMetrics) {
+        return start(props, streamsMetrics, pipelineMetrics, null);
+    }
+
+    /**
+     * As {@link #start(Properties, Supplier, PipelineMetrics)}, additionally
+     * serving restore progress on {@code /health/restore}, in the readiness
+     * body and on {@code /metrics}.
+     *
+     * @param restoreProgress registered as the instance's restore/standby listener; may be {@code null}
+     */
+    public static MetricsHttpServer start(Properties props,
+                                          Supplier<Map<MetricName, ? extends Metric>> streamsMetrics,
+                                          PipelineMetrics pipelineMetrics,
+                                          RestoreProgress restoreProgress) {
+        int port = Integer.parseInt(props.getProperty(PORT_CONFIG, String.valueOf(DEFAULT_PORT)).trim());
+        if (port < 0) {
+            log.info("Metrics/health HTTP endpoint disabled ({}={})", PORT_CONFIG, port);
+            return null;
+        }
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot bind metrics/health endpoint on port " + port, e);
+        }
+        MetricsHttpServer metricsServer = new MetricsHttpServer(server, streamsMetrics, pipelineMetrics, restoreProgress);
+        server.start();
+        log.info("Metrics/health HTTP endpoint listening on port {} (/metrics, /health/live, /health/ready, /health/restore)",
+                metricsServer.port());
+        return metricsServer;
+    }
+
+    /** To be called from the {@code KafkaStreams} state listener. */
+    public void onStateChange(KafkaStreams.State newState) {
+        state = newState;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    boolean isLive() {
+        KafkaStreams.State current = state;
+        return current != KafkaStreams.State.ERROR && current != KafkaStreams.State.PENDING_ERROR;
+    }
+
+    boolean isReady() {
+        return state == KafkaStreams.State.RUNNING;
+    }
+
+    private void respondHealth(HttpExchange exchange, boolean healthy) throws IOException {
+        String body = (healthy ? "UP" : "DOWN") + " state=" + state
+                + (restoreProgress != null && restoreProgress.restoringPartitions() > 0
+                        ? " " + restoreProgress.summary() : "")
+                + "\n";
+        respond(exchange, healthy ? 200 : 503, "text/plain; charset=utf-8",
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respondRestore(HttpExchange exchange) throws IOException {
+        if (restoreProgress == null) {
+            respond(exchange, 404, "text/plain; charset=utf-8",
+                    "restore progress not tracked\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        String body = "{\"state\":\"" + state + "\",\"progress\":" + restoreProgress.toJson() + "}\n";
+        respond(exchange, 200, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respondMetrics(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try {
+            PrometheusText text = new PrometheusText();
+            pipelineMetrics.writeTo(text);
+            if (restoreProgress != null) {
+                restoreProgress.writeTo(text);
+            }
+            text.kafkaMetrics(streamsMetrics.get());
+            body = text.toBytes();
+        } catch (RuntimeException e) {
+            log.warn("Failed to render metrics", e);
+            respond(exchange, 500, "text/plain; charset=utf-8",
+                    ("metrics unavailable: " + e + "\n").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        respond(exchange, 200, PrometheusText.CONTENT_TYPE, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            boolean head = "HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(status, head ? -1 : body.length);
+            if (!head) {
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
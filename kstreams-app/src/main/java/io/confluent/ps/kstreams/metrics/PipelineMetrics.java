@@ -0,0 +1,392 @@
+package io.confluent.ps.kstreams.metrics;
+
+import io.confluent.ps.kstreams.config.TunedRocksDBConfig;
+import io.confluent.ps.logging.DroppingAsyncAppender;
+import io.confluent.ps.logging.LogLimiter;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application-level metrics of the fraud detection pipeline, recorded by the
+ * stream threads and exported by {@link MetricsHttpServer}:
+ * <ul>
+ *   <li>{@code fraud_enrich_risk_score_seconds} — per-record latency of the
+ *       {@code enrich-risk-score} processor (read, score, re-encode)</li>
+ *   <li>{@code fraud_scoring_batch_records} — payments per micro-batch when
+ *       {@code fraud.scoring.batch.enabled=true}; the per-record latency above is
+ *       then the batch's scoring time divided by its size</li>
+ *   <li>{@code fraud_event_time_lag_seconds} — wall clock minus record
+ *       timestamp when a payment is scored, i.e. how far behind the input the
+ *       pipeline runs, including time spent in the repartition topics</li>
+ *   <li>{@code fraud_branch_records_total{branch=flagged|approved}}</li>
+ *   <li>{@code fraud_merchant_cache_requests_total{result=hit|miss}}, the near
+ *       cache's hit ratio and {@code fraud_merchant_lookup_seconds} (cache plus,
+ *       on a miss, store), when {@code fraud.merchants.topic} is set</li>
+ *   <li>{@code fraud_alert_latency_main_lane_seconds} — wall clock minus record
+ *       timestamp when an alert is produced by the main topology, and
+ *       {@code fraud_alert_latency_fast_lane_seconds} the same for the fast lane
+ *       once it has produced an alert (p99 = {@code quantile="0.99"})</li>
+ *   <li>{@code fraud_trace_ingest_seconds} and {@code fraud_trace_topology_seconds}
+ *       — for payments carrying the producer's trace headers, creation (on the
+ *       producer's clock) to ingest, and ingest to the sink, once there are any</li>
+ *   <li>{@code fraud_alert_windows_total} and
+ *       {@code fraud_alert_window_payments_total} — consolidated alerts and the
+ *       flagged payments they stand for, when {@code fraud.alerts.window.enabled=true}</li>
+ *   <li>{@code fraud_dedup_records_total{result=unique|duplicate}}, the Bloom
+ *       filter lookups in front of the dedup store
+ *       ({@code fraud_dedup_bloom_lookups_total{result=negative|false_positive|true_positive}}),
+ *       its observed false-positive ratio and memory, when deduplication is on</li>
+ *   <li>{@code fraud_rocksdb_shared_cache_*_bytes} — native memory held by the
+ *       shared RocksDB block cache (memtables included), in shared mode only</li>
+ *   <li>{@code fraud_autoscale_decisions_total{decision=up|down|hold}} plus the
+ *       thread count, lag and CPU the last decision saw, once the stream-thread
+ *       autoscaler has sampled</li>
+ *   <li>{@code fraud_errors_total{stage}} and {@code fraud_dead_letters_total{stage}}
+ *       — records that failed deserialization, processing or production, or
+ *       were not valid payments, and how many of them reached the dead-letter
+ *       topic; plus their share of all scored payments, once there are any</li>
+ *   <li>{@code fraud_log_suppressed_total{site}} and
+ *       {@code fraud_log_dropped_total{appender}} — log events skipped by a
+ *       {@code LogLimiter} or dropped by a full async appender, once there are any</li>
+ * </ul>
+ *
+ * <p>Every record path is lock-free: histograms are wait-free HdrHistogram
+ * recorders and counters are {@link LongAdder}s, so neither the stream threads
+ * nor a scrape ever wait on each other.
+ */
+public final class PipelineMetrics {
+
+    private static final double NANOS_TO_SECONDS = 1.0 / TimeUnit.SECONDS.toNanos(1);
+    private static final double MILLIS_TO_SECONDS = 1.0 / TimeUnit.SECONDS.toMillis(1);
+    private static final double MICROS_TO_SECONDS = 1.0 / TimeUnit.SECONDS.toMicros(1);
+
+    private final StageHistogram scoringLatencyNanos = new StageHistogram();
+    private final StageHistogram eventTimeLagMillis = new StageHistogram();
+    private final StageHistogram scoringBatchRecords = new StageHistogram();
+    private final StageHistogram mainLaneAlertLatencyMillis = new StageHistogram();
+    private final StageHistogram fastLaneAlertLatencyMillis = new StageHistogram();
+    private final StageHistogram merchantLookupNanos = new StageHistogram();
+    private final StageHistogram traceIngestMicros = new StageHistogram();
+    private final StageHistogram traceTopologyMicros = new StageHistogram();
+    private final LongAdder merchantCacheHits = new LongAdder();
+    private final LongAdder merchantCacheMisses = new LongAdder();
+    private final LongAdder fastLaneAlerts = new LongAdder();
+    private final LongAdder tracedRecords = new LongAdder();
+    private final LongAdder windowAlerts = new LongAdder();
+    private final LongAdder windowAlertPayments = new LongAdder();
+    private final LongAdder scoringBatches = new LongAdder();
+    private final LongAdder flagged = new LongAdder();
+    private final LongAdder approved = new LongAdder();
+    private final LongAdder dedupUnique = new LongAdder();
+    private final LongAdder dedupDuplicates = new LongAdder();
+    private final LongAdder bloomNegatives = new LongAdder();
+    private final LongAdder bloomFalsePositives = new LongAdder();
+    private final LongAdder bloomTruePositives = new LongAdder();
+    private final LongAdder dedupFilterBytes = new LongAdder();
+    private final LongAdder scaleUps = new LongAdder();
+    private final LongAdder scaleDowns = new LongAdder();
+    private final LongAdder scaleHolds = new LongAdder();
+    private final LongAdder[] errors = newAdders(ErrorStage.values().length);
+    private final LongAdder[] deadLetters = newAdders(ErrorStage.values().length);
+
+    /** Where a record failed, for {@link #recordError}. */
+    public enum ErrorStage {
+        DESERIALIZATION, PROCESSING, PRODUCTION, INVALID;
+
+        /** The {@code stage} label, and the {@code dlq.stage} header of its dead letters. */
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private volatile int streamThreads = -1;
+    private volatile long consumerLag;
+    private volatile double processCpu;
+
+    public void recordScoring(long nanos) {
+        scoringLatencyNanos.record(nanos);
+    }
+
+    /** One micro-batch of {@code records} payments scored together. */
+    public void recordScoringBatch(int records) {
+        scoringBatchRecords.record(records);
+        scoringBatches.increment();
+    }
+
+    public void recordEventTimeLag(long millis) {
+        eventTimeLagMillis.record(millis);
+    }
+
+    /** Wall clock minus record timestamp of a payment whose alert is being produced. */
+    public void recordAlertLatency(boolean fastLane, long millis) {
+        if (fastLane) {
+            fastLaneAlertLatencyMillis.record(millis);
+            fastLaneAlerts.increment();
+        } else {
+            mainLaneAlertLatencyMillis.record(millis);
+        }
+    }
+
+    public long fastLaneAlertCount() {
+        return fastLaneAlerts.sum();
+    }
+
+    /** Producer creation time to topology ingest of a traced payment. */
+    public void recordTraceIngest(long micros) {
+        traceIngestMicros.record(micros);
+        tracedRecords.increment();
+    }
+
+    /** Topology ingest to sink of a traced payment or its alert. */
+    public void recordTraceTopology(long micros) {
+        traceTopologyMicros.record(micros);
+    }
+
+    public long tracedCount() {
+        return tracedRecords.sum();
+    }
+
+    /** One consolidated alert for {@code payments} flagged payments of a card and window. */
+    public void recordWindowAlert(int payments) {
+        windowAlerts.increment();
+        windowAlertPayments.add(payments);
+    }
+
+    public long windowAlertCount() {
+        return windowAlerts.sum();
+    }
+
+    public void recordBranch(boolean fraudulent) {
+        (fraudulent ? flagged : approved).increment();
+    }
+
+    /** One merchant lookup, answered by the near cache ({@code hit}) or the store. */
+    public void recordMerchantLookup(boolean hit, long nanos) {
+        merchantLookupNanos.record(nanos);
+        (hit ? merchantCacheHits : merchantCacheMisses).increment();
+    }
+
+    /** Share of merchant lookups the near cache answered, or 0 before any lookup. */
+    public double merchantCacheHitRatio() {
+        long hits = merchantCacheHits.sum();
+        long lookups = hits + merchantCacheMisses.sum();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public long flaggedCount() {
+        return flagged.sum();
+    }
+
+    public long approvedCount() {
+        return approved.sum();
+    }
+
+    public void recordDedup(boolean duplicate) {
+        (duplicate ? dedupDuplicates : dedupUnique).increment();
+    }
+
+    /**
+     * One dedup Bloom filter lookup.
+     *
+     * @param maybe whether the filter said the id might have been seen
+     * @param found whether the store then had it ({@code maybe && !found} is a false positive)
+     */
+    public void recordBloomLookup(boolean maybe, boolean found) {
+        (!maybe ? bloomNegatives : found ? bloomTruePositives : bloomFalsePositives).increment();
+    }
+
+    /** Memory of the dedup Bloom filters changed by {@code delta} bytes (task opened or closed). */
+    public void addDedupFilterBytes(long delta) {
+        dedupFilterBytes.add(delta);
+    }
+
+    public long duplicateCount() {
+        return dedupDuplicates.sum();
+    }
+
+    public long dedupFilterBytes() {
+        return dedupFilterBytes.sum();
+    }
+
+    /** Share of never-seen ids the Bloom filter could not rule out, or 0 before any lookup. */
+    public double bloomFalsePositiveRatio() {
+        long falsePositives = bloomFalsePositives.sum();
+        long fresh = falsePositives + bloomNegatives.sum();
+        return fresh == 0 ? 0.0 : (double) falsePositives / fresh;
+    }
+
+    /**
+     * One autoscaler sample.
+     *
+     * @param delta   threads added (+1), removed (-1) or 0 for hold
+     * @param threads stream threads after the decision
+     */
+    public void recordScalingDecision(int delta, int threads, long lag, double cpu) {
+        (delta > 0 ? scaleUps : delta < 0 ? scaleDowns : scaleHolds).increment();
+        consumerLag = lag;
+        processCpu = cpu;
+        streamThreads = threads;
+    }
+
+    /**
+     * One record skipped because of an error at {@code stage}.
+     *
+     * @param deadLettered whether it was written to the dead-letter topic
+     */
+    public void recordError(ErrorStage stage, boolean deadLettered) {
+        errors[stage.ordinal()].increment();
+        if (deadLettered) {
+            deadLetters[stage.ordinal()].increment();
+        }
+    }
+
+    public long errorCount(ErrorStage stage) {
+        return errors[stage.ordinal()].sum();
+    }
+
+    public long errorCount() {
+        long total = 0;
+        for (LongAdder adder : errors) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public long deadLetterCount(ErrorStage stage) {
+        return deadLetters[stage.ordinal()].sum();
+    }
+
+    private static LongAdder[] newAdders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    void writeTo(PrometheusText out) {
+        scoringLatencyNanos.writeTo(out, "fraud_enrich_risk_score_seconds",
+                "Per-record latency of the enrich-risk-score processor", NANOS_TO_SECONDS);
+        eventTimeLagMillis.writeTo(out, "fraud_event_time_lag_seconds",
+                "Wall clock minus record timestamp when the payment is scored", MILLIS_TO_SECONDS);
+        if (scoringBatches.sum() > 0) {
+            scoringBatchRecords.writeTo(out, "fraud_scoring_batch_records",
+                    "Payments per enrich-risk-score micro-batch", 1.0);
+        }
+
+        mainLaneAlertLatencyMillis.writeTo(out, "fraud_alert_latency_main_lane_seconds",
+                "Wall clock minus record timestamp when the main topology produces an alert", MILLIS_TO_SECONDS);
+        if (fastLaneAlerts.sum() > 0) {
+            fastLaneAlertLatencyMillis.writeTo(out, "fraud_alert_latency_fast_lane_seconds",
+                    "Wall clock minus record timestamp when the fast lane produces an alert", MILLIS_TO_SECONDS);
+        }
+
+        if (tracedRecords.sum() > 0) {
+            traceIngestMicros.writeTo(out, "fraud_trace_ingest_seconds",
+                    "Producer creation time to topology ingest of traced payments", MICROS_TO_SECONDS);
+            traceTopologyMicros.writeTo(out, "fraud_trace_topology_seconds",
+                    "Topology ingest to sink of traced payments and their alerts", MICROS_TO_SECONDS);
+        }
+
+        out.family("fraud_branch_records_total", "counter", "Scored payments per output branch");
+        out.sample("fraud_branch_records_total", "branch", "flagged", flagged.sum());
+        out.sample("fraud_branch_records_total", "branch", "approved", approved.sum());
+
+        long merchantHits = merchantCacheHits.sum();
+        long merchantMisses = merchantCacheMisses.sum();
+        if (merchantHits + merchantMisses > 0) {
+            out.family("fraud_merchant_cache_requests_total", "counter", "Merchant lookups by near-cache outcome");
+            out.sample("fraud_merchant_cache_requests_total", "result", "hit", merchantHits);
+            out.sample("fraud_merchant_cache_requests_total", "result", "miss", merchantMisses);
+            out.family("fraud_merchant_cache_hit_ratio", "gauge",
+                    "Share of merchant lookups answered without reading the store");
+            out.sample("fraud_merchant_cache_hit_ratio", null, null,
+                    (double) merchantHits / (merchantHits + merchantMisses));
+            merchantLookupNanos.writeTo(out, "fraud_merchant_lookup_seconds",
+                    "Latency of a merchant reference-data lookup, near cache plus store on a miss", NANOS_TO_SECONDS);
+        }
+
+        long alertWindows = windowAlerts.sum();
+        if (alertWindows > 0) {
+            out.family("fraud_alert_windows_total", "counter", "Consolidated alerts produced for closed card windows");
+            out.sample("fraud_alert_windows_total", null, null, alertWindows);
+            out.family("fraud_alert_window_payments_total", "counter",
+                    "Flagged payments folded into consolidated alerts");
+            out.sample("fraud_alert_window_payments_total", null, null, windowAlertPayments.sum());
+        }
+
+        long unique = dedupUnique.sum();
+        long duplicates = dedupDuplicates.sum();
+        long filterBytes = dedupFilterBytes.sum();
+        if (unique + duplicates > 0 || filterBytes > 0) {
+            out.family("fraud_dedup_records_total", "counter", "Payments passed (unique) or dropped (duplicate)");
+            out.sample("fraud_dedup_records_total", "result", "unique", unique);
+            out.sample("fraud_dedup_records_total", "result", "duplicate", duplicates);
+            out.family("fraud_dedup_bloom_lookups_total", "counter", "Dedup Bloom filter lookups by outcome");
+            out.sample("fraud_dedup_bloom_lookups_total", "result", "negative", bloomNegatives.sum());
+            out.sample("fraud_dedup_bloom_lookups_total", "result", "false_positive", bloomFalsePositives.sum());
+            out.sample("fraud_dedup_bloom_lookups_total", "result", "true_positive", bloomTruePositives.sum());
+            out.family("fraud_dedup_bloom_false_positive_ratio", "gauge",
+                    "Share of new transaction ids the Bloom filter could not rule out (each costs a store read)");
+            out.sample("fraud_dedup_bloom_false_positive_ratio", null, null, bloomFalsePositiveRatio());
+            out.family("fraud_dedup_bloom_memory_bytes", "gauge", "Heap held by the dedup Bloom filters of open tasks");
+            out.sample("fraud_dedup_bloom_memory_bytes", null, null, filterBytes);
+        }
+
+        long usage = TunedRocksDBConfig.sharedCacheUsage();
+        if (usage >= 0) {
+            out.family("fraud_rocksdb_shared_cache_usage_bytes", "gauge",
+                    "Bytes in the shared RocksDB block cache, memtables included");
+            out.sample("fraud_rocksdb_shared_cache_usage_bytes", null, null, usage);
+            out.family("fraud_rocksdb_shared_cache_pinned_bytes", "gauge",
+                    "Bytes pinned in the shared RocksDB block cache");
+            out.sample("fraud_rocksdb_shared_cache_pinned_bytes", null, null,
+                    Math.max(0L, TunedRocksDBConfig.sharedCachePinnedUsage()));
+        }
+
+        int threads = streamThreads;
+        if (threads >= 0) {
+            out.family("fraud_autoscale_decisions_total", "counter", "Stream-thread autoscaler decisions");
+            out.sample("fraud_autoscale_decisions_total", "decision", "up", scaleUps.sum());
+            out.sample("fraud_autoscale_decisions_total", "decision", "down", scaleDowns.sum());
+            out.sample("fraud_autoscale_decisions_total", "decision", "hold", scaleHolds.sum());
+            out.family("fraud_autoscale_stream_threads", "gauge", "Stream threads after the last decision");
+            out.sample("fraud_autoscale_stream_threads", null, null, threads);
+            out.family("fraud_autoscale_consumer_lag_records", "gauge",
+                    "Consumer lag of the assigned partitions at the last decision");
+            out.sample("fraud_autoscale_consumer_lag_records", null, null, consumerLag);
+            out.family("fraud_autoscale_process_cpu_ratio", "gauge",
+                    "Process CPU load (0..1, -1 unknown) at the last decision");
+            out.sample("fraud_autoscale_process_cpu_ratio", null, null, processCpu);
+        }
+
+        long failed = errorCount();
+        if (failed > 0) {
+            out.family("fraud_errors_total", "counter", "Records skipped because of an error, by stage");
+            for (ErrorStage stage : ErrorStage.values()) {
+                out.sample("fraud_errors_total", "stage", stage.label(), errorCount(stage));
+            }
+            out.family("fraud_dead_letters_total", "counter", "Skipped records written to the dead-letter topic");
+            for (ErrorStage stage : ErrorStage.values()) {
+                out.sample("fraud_dead_letters_total", "stage", stage.label(), deadLetterCount(stage));
+            }
+            long scored = flagged.sum() + approved.sum();
+            out.family("fraud_error_ratio", "gauge", "Skipped records as a share of skipped plus scored payments");
+            out.sample("fraud_error_ratio", null, null, (double) failed / (failed + scored));
+        }
+
+        Map<String, Long> suppressed = LogLimiter.suppressedBySite();
+        if (!suppressed.isEmpty()) {
+            out.family("fraud_log_suppressed_total", "counter", "Log events skipped by a per-site rate limit");
+            suppressed.forEach((site, count) -> out.sample("fraud_log_suppressed_total", "site", site, count));
+        }
+        Map<String, Long> dropped = DroppingAsyncAppender.droppedByAppender();
+        if (!dropped.isEmpty()) {
+            out.family("fraud_log_dropped_total", "counter", "Log events dropped by a full async appender queue");
+            dropped.forEach((appender, count) -> out.sample("fraud_log_dropped_total", "appender", appender, count));
+        }
+    }
+}
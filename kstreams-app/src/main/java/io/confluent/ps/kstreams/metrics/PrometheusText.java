@@ -0,0 +1,126 @@
+package io.confluent.ps.kstreams.metrics;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Minimal writer for the Prometheus text exposition format (version 0.0.4).
+ * Not thread-safe; one instance per scrape.
+ */
+final class PrometheusText {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder(64 * 1024);
+
+    void family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /** One sample with at most one label; {@code label == null} for none. */
+    void sample(String name, String label, String labelValue, double value) {
+        out.append(name);
+        if (label != null) {
+            out.append('{').append(label).append("=\"");
+            escapeLabelValue(labelValue);
+            out.append("\"}");
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    /**
+     * Exports every numeric Kafka metric as a gauge named
+     * {@code kafka_<group>_<name>} with the metric tags as labels.
+     * Samples are grouped per family, as the format requires.
+     */
+    void kafkaMetrics(Map<MetricName, ? extends Metric> metrics) {
+        Map<String, List<String>> families = new TreeMap<>();
+        Map<String, String> help = new TreeMap<>();
+
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            Object value = entry.getValue().metricValue();
+            if (!(value instanceof Number)) {
+                continue; // version / commit-id style info metrics
+            }
+            MetricName metricName = entry.getKey();
+            String family = sanitize("kafka_" + metricName.group() + "_" + metricName.name());
+
+            int start = out.length();
+            out.append(family);
+            if (!metricName.tags().isEmpty()) {
+                char separator = '{';
+                for (Map.Entry<String, String> tag : new TreeMap<>(metricName.tags()).entrySet()) {
+                    out.append(separator).append(sanitize(tag.getKey())).append("=\"");
+                    escapeLabelValue(String.valueOf(tag.getValue()));
+                    out.append('"');
+                    separator = ',';
+                }
+                out.append('}');
+            }
+            out.append(' ').append(format(((Number) value).doubleValue())).append('\n');
+            families.computeIfAbsent(family, k -> new ArrayList<>()).add(out.substring(start));
+            out.setLength(start);
+
+            help.putIfAbsent(family, metricName.description().isEmpty() ? metricName.name() : metricName.description());
+        }
+
+        for (Map.Entry<String, List<String>> family : families.entrySet()) {
+            family(family.getKey(), "gauge", help.get(family.getKey()));
+            for (String line : family.getValue()) {
+                out.append(line);
+            }
+        }
+    }
+
+    byte[] toBytes() {
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    static String sanitize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_'
+                    || (i > 0 && c >= '0' && c <= '9');
+            sb.append(valid ? c : '_');
+        }
+        return sb.toString();
+    }
+
+    private void escapeLabelValue(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
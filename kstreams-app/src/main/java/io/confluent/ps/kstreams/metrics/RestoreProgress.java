@@ -0,0 +1,255 @@
+package io.confluent.ps.kstreams.metrics;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.processor.StandbyUpdateListener;
+import org.apache.kafka.streams.processor.StateRestoreListener;
+import org.apache.kafka.streams.processor.TaskId;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Restore and standby progress of this instance, fed by Kafka Streams'
+ * {@link StateRestoreListener} (active tasks rebuilding a store from its
+ * changelog) and {@link StandbyUpdateListener} (standby replicas following
+ * it). Exported on {@code /health/restore} and {@code /metrics} by
+ * {@link MetricsHttpServer}:
+ * <ul>
+ *   <li>{@code fraud_restore_active_partitions} — changelog partitions being restored</li>
+ *   <li>{@code fraud_restore_remaining_records} — records left to restore</li>
+ *   <li>{@code fraud_restore_records_total} — records restored since start</li>
+ *   <li>{@code fraud_restore_eta_seconds} — remaining / restore rate</li>
+ *   <li>{@code fraud_standby_lag_records} — how far the standby replicas trail
+ *       the changelogs, i.e. what a failover onto this instance would restore</li>
+ * </ul>
+ *
+ * <p>Before the first restore callback the remaining count is the backlog
+ * {@link LocalStateInventory} found on disk, and until a rate has been
+ * measured the ETA uses {@code fraud.restore.estimated.records.per.sec}.
+ *
+ * <p>Callbacks arrive on the stream threads (and the global thread); all
+ * state is in concurrent maps and adders, readers never block them.
+ */
+public final class RestoreProgress implements StateRestoreListener, StandbyUpdateListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RestoreProgress.class);
+
+    public static final String ESTIMATED_RATE_CONFIG = "fraud.restore.estimated.records.per.sec";
+    public static final double DEFAULT_ESTIMATED_RATE = 20_000;
+
+    /** Below this much restore time the measured rate is too noisy to use. */
+    private static final long MIN_MEASURE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final class Restore {
+        final String store;
+        final long endOffset;
+        volatile long position;
+
+        Restore(String store, long startOffset, long endOffset) {
+            this.store = store;
+            this.position = startOffset;
+            this.endOffset = endOffset;
+        }
+
+        long remaining() {
+            return Math.max(0L, endOffset - position);
+        }
+    }
+
+    private final double estimatedRate;
+    private final LongSupplier nanoClock;
+
+    private final Map<TopicPartition, Restore> restoring = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> standbyLag = new ConcurrentHashMap<>();
+    private final LongAdder restored = new LongAdder();
+    private final LongAdder restoreNanos = new LongAdder();
+
+    private volatile long busySinceNanos = -1L;
+    private volatile LocalStateInventory inventory = LocalStateInventory.EMPTY;
+
+    public RestoreProgress(Properties props) {
+        this(Double.parseDouble(props.getProperty(ESTIMATED_RATE_CONFIG,
+                String.valueOf(DEFAULT_ESTIMATED_RATE)).trim()), System::nanoTime);
+    }
+
+    RestoreProgress(double estimatedRate, LongSupplier nanoClock) {
+        if (!(estimatedRate > 0)) {
+            throw new IllegalArgumentException(ESTIMATED_RATE_CONFIG + " must be > 0, got " + estimatedRate);
+        }
+        this.estimatedRate = estimatedRate;
+        this.nanoClock = nanoClock;
+    }
+
+    /** What the pre-start scan found; its backlog stands in for remaining records until restoration begins. */
+    public void expect(LocalStateInventory found) {
+        this.inventory = found;
+    }
+
+    // --- StateRestoreListener -------------------------------------------------
+
+    @Override
+    public void onRestoreStart(TopicPartition partition, String storeName, long startingOffset, long endingOffset) {
+        synchronized (restoring) {
+            if (restoring.isEmpty()) {
+                busySinceNanos = nanoClock.getAsLong();
+            }
+            restoring.put(partition, new Restore(storeName, startingOffset, endingOffset));
+        }
+        log.info("Restoring {} from {}: offsets {}..{} ({} records)", storeName, partition,
+                startingOffset, endingOffset, Math.max(0L, endingOffset - startingOffset));
+    }
+
+    @Override
+    public void onBatchRestored(TopicPartition partition, String storeName, long batchEndOffset, long numRestored) {
+        restored.add(numRestored);
+        Restore restore = restoring.get(partition);
+        if (restore != null) {
+            restore.position = batchEndOffset + 1;
+        }
+    }
+
+    @Override
+    public void onRestoreEnd(TopicPartition partition, String storeName, long totalRestored) {
+        finish(partition);
+        log.info("Restored {} from {}: {} records", storeName, partition, totalRestored);
+    }
+
+    @Override
+    public void onRestoreSuspended(TopicPartition partition, String storeName, long totalRestored) {
+        finish(partition);
+        log.info("Restore of {} from {} suspended after {} records (task migrated)", storeName, partition,
+                totalRestored);
+    }
+
+    private void finish(TopicPartition partition) {
+        synchronized (restoring) {
+            if (restoring.remove(partition) != null && restoring.isEmpty() && busySinceNanos >= 0) {
+                restoreNanos.add(nanoClock.getAsLong() - busySinceNanos);
+                busySinceNanos = -1L;
+            }
+        }
+    }
+
+    // --- StandbyUpdateListener ------------------------------------------------
+
+    @Override
+    public void onUpdateStart(TopicPartition partition, String storeName, long startingOffset) {
+        log.info("Standby {} on {} starts at offset {}", storeName, partition, startingOffset);
+    }
+
+    @Override
+    public void onBatchLoaded(TopicPartition partition, String storeName, TaskId taskId,
+                              long batchEndOffset, long batchSize, long currentEndOffset) {
+        standbyLag.put(partition, Math.max(0L, currentEndOffset - batchEndOffset - 1));
+    }
+
+    @Override
+    public void onUpdateSuspended(TopicPartition partition, String storeName, long storeOffset,
+                                  long currentEndOffset, SuspendReason reason) {
+        standbyLag.remove(partition);
+        log.info("Standby {} on {} suspended at offset {} ({} behind): {}", storeName, partition, storeOffset,
+                Math.max(0L, currentEndOffset - storeOffset), reason);
+    }
+
+    // --- readers --------------------------------------------------------------
+
+    public int restoringPartitions() {
+        return restoring.size();
+    }
+
+    public long restoredRecords() {
+        return restored.sum();
+    }
+
+    /** Records left to restore; the on-disk backlog estimate before restoration started, -1 if unknown. */
+    public long remainingRecords() {
+        if (!restoring.isEmpty()) {
+            long remaining = 0;
+            for (Restore restore : restoring.values()) {
+                remaining += restore.remaining();
+            }
+            return remaining;
+        }
+        return restored.sum() == 0 ? inventory.backlogRecords() : 0L;
+    }
+
+    /** Measured restore throughput, or the configured estimate while there is too little to measure. */
+    public double recordsPerSecond() {
+        long nanos = restoreNanos.sum();
+        long since = busySinceNanos;
+        if (since >= 0) {
+            nanos += nanoClock.getAsLong() - since;
+        }
+        long records = restored.sum();
+        if (nanos < MIN_MEASURE_NANOS || records == 0) {
+            return estimatedRate;
+        }
+        return records * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /** Seconds until restoration completes at the current rate; 0 when idle, -1 if unknown. */
+    public double etaSeconds() {
+        long remaining = remainingRecords();
+        return remaining < 0 ? -1 : remaining / recordsPerSecond();
+    }
+
+    public int standbyPartitions() {
+        return standbyLag.size();
+    }
+
+    public long standbyLagRecords() {
+        long lag = 0;
+        for (long partitionLag : standbyLag.values()) {
+            lag += partitionLag;
+        }
+        return lag;
+    }
+
+    /** One line for the heartbeat log. */
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "restoring=%d remaining=%d restored=%d eta=%.0fs standbys=%d standbyLag=%d",
+                restoringPartitions(), remainingRecords(), restoredRecords(), etaSeconds(),
+                standbyPartitions(), standbyLagRecords());
+    }
+
+    public String toJson() {
+        LocalStateInventory local = inventory;
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"restoring_partitions\":").append(restoringPartitions())
+                .append(",\"remaining_records\":").append(remainingRecords())
+                .append(",\"restored_records\":").append(restoredRecords())
+                .append(",\"records_per_sec\":").append(String.format(Locale.ROOT, "%.1f", recordsPerSecond()))
+                .append(",\"eta_seconds\":").append(String.format(Locale.ROOT, "%.1f", etaSeconds()))
+                .append(",\"standby_partitions\":").append(standbyPartitions())
+                .append(",\"standby_lag_records\":").append(standbyLagRecords())
+                .append(",\"local_state\":{\"tasks\":").append(local.taskDirectories())
+                .append(",\"checkpointed_tasks\":").append(local.checkpointedTasks())
+                .append(",\"bytes\":").append(local.bytesOnDisk())
+                .append(",\"backlog_records\":").append(local.backlogRecords())
+                .append("}}");
+        return json.toString();
+    }
+
+    void writeTo(PrometheusText out) {
+        out.family("fraud_restore_active_partitions", "gauge", "Changelog partitions being restored");
+        out.sample("fraud_restore_active_partitions", null, null, restoringPartitions());
+        out.family("fraud_restore_remaining_records", "gauge",
+                "Changelog records left to restore (-1 = unknown)");
+        out.sample("fraud_restore_remaining_records", null, null, remainingRecords());
+        out.family("fraud_restore_records_total", "counter", "Changelog records restored since start");
+        out.sample("fraud_restore_records_total", null, null, restoredRecords());
+        out.family("fraud_restore_eta_seconds", "gauge", "Estimated seconds until restoration completes");
+        out.sample("fraud_restore_eta_seconds", null, null, etaSeconds());
+        out.family("fraud_standby_lag_records", "gauge", "Records the standby replicas trail their changelogs");
+        out.sample("fraud_standby_lag_records", null, null, standbyLagRecords());
+    }
+}
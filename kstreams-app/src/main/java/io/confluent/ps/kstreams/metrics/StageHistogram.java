@@ -0,0 +1,48 @@
+package io.confluent.ps.kstreams.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * A latency/lag distribution written by stream threads and read by the scrape thread.
+ *
+ * <p>Writers go through an HdrHistogram {@link Recorder}: recording is
+ * wait-free (one atomic increment plus an array update), so stream threads
+ * never block on each other or on a scrape. Only the reader side is
+ * synchronized — it swaps out the interval histogram and folds it into the
+ * running total.
+ *
+ * <p>Quantiles are exported for the interval since the previous scrape, so
+ * they follow the current load; count and sum are cumulative.
+ */
+final class StageHistogram {
+
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    private Histogram interval;
+
+    /** Records {@code value}; negative values (clock skew) count as zero. */
+    void record(long value) {
+        recorder.recordValue(Math.max(0L, value));
+    }
+
+    /**
+     * Writes a Prometheus summary named {@code name}, converting recorded
+     * values to the exported unit by multiplying with {@code scale}.
+     */
+    synchronized void writeTo(PrometheusText out, String name, String help, double scale) {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+
+        out.family(name, "summary", help);
+        for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long value = interval.getTotalCount() == 0 ? 0L : interval.getValueAtPercentile(q * 100.0);
+            out.sample(name, "quantile", Double.toString(q), value * scale);
+        }
+        out.sample(name + "_count", null, null, total.getTotalCount());
+        out.sample(name + "_sum", null, null, total.getMean() * total.getTotalCount() * scale);
+
+        out.family(name + "_max", "gauge", "Maximum since the previous scrape: " + help);
+        out.sample(name + "_max", null, null, interval.getMaxValue() * scale);
+    }
+}
@@ -0,0 +1,439 @@
+package io.confluent.ps.kstreams.query;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.StreamsMetadata;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.processor.StreamPartitioner;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interactive Queries over the {@link RiskStores}, served by an embedded JDK
+ * {@link HttpServer}:
+ * <pre>
+ * GET /risk/{card|merchant}/{id}                     latest scored payment (JSON; 404 if none)
+ * GET /risk/{card|merchant}/{id}/alerts?from=&amp;to=   alert history, epoch ms (default: last 24 h)
+ * GET /risk/{card|merchant}?from=&amp;to=               latest per id in a key range, all instances
+ * </pre>
+ * History and range results are streamed as NDJSON (one snapshot per line)
+ * straight from the store iterators, so a large result is never held in memory.
+ *
+ * <p>Key requests are routed with {@link KafkaStreams#queryMetadataForKey} (using the
+ * velocity partitioning) and answered from the owning instance's single store
+ * partition; requests for another instance are forwarded to its
+ * {@code application.server} and the response is relayed as it arrives.
+ * Range requests read the local stores, then relay every other instance's local
+ * part. Latest-value lookups are cached for {@code fraud.query.cache.ttl.ms}.
+ *
+ * <p>Configuration:
+ * <pre>
+ * fraud.query.http.port=9405            listen port; -1 disables (env QUERY_HTTP_PORT)
+ * application.server=&lt;host&gt;:9405       this instance as seen by the others (env APPLICATION_SERVER);
+ *                                       unset = single instance, no routing
+ * fraud.query.http.threads=4
+ * fraud.query.cache.ttl.ms=2000         0 disables the lookup cache
+ * fraud.query.cache.max.entries=10000
+ * fraud.query.forward.timeout.ms=5000
+ * </pre>
+ * A request that cannot be answered right now (rebalancing, store migrating,
+ * owner unreachable) gets a 503 and should be retried.
+ */
+public final class RiskQueryServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RiskQueryServer.class);
+
+    public static final String PORT_CONFIG = "fraud.query.http.port";
+    public static final int DEFAULT_PORT = 9405;
+    public static final String THREADS_CONFIG = "fraud.query.http.threads";
+    public static final String CACHE_TTL_CONFIG = "fraud.query.cache.ttl.ms";
+    public static final String CACHE_MAX_ENTRIES_CONFIG = "fraud.query.cache.max.entries";
+    public static final String FORWARD_TIMEOUT_CONFIG = "fraud.query.forward.timeout.ms";
+
+    static final String NDJSON = "application/x-ndjson";
+    private static final String JSON = "application/json";
+    private static final String TEXT = "text/plain; charset=utf-8";
+    private static final long DEFAULT_HISTORY_MS = Duration.ofHours(24).toMillis();
+    private static final StreamPartitioner<String, Object> PARTITIONER = RiskStores.partitioner();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final KafkaStreams streams;
+    private final HostInfo self;
+    private final HttpClient client;
+    private final Duration forwardTimeout;
+    private final TtlCache<String, byte[]> cache;
+
+    private RiskQueryServer(HttpServer server, KafkaStreams streams, HostInfo self, Properties props) {
+        this.server = server;
+        this.streams = streams;
+        this.self = self;
+        this.forwardTimeout = Duration.ofMillis(
+                Long.parseLong(props.getProperty(FORWARD_TIMEOUT_CONFIG, "5000").trim()));
+        this.client = HttpClient.newBuilder().connectTimeout(forwardTimeout).build();
+        this.cache = new TtlCache<>(
+                Long.parseLong(props.getProperty(CACHE_TTL_CONFIG, "2000").trim()),
+                Integer.parseInt(props.getProperty(CACHE_MAX_ENTRIES_CONFIG, "10000").trim()),
+                System::currentTimeMillis);
+
+        int threads = Integer.parseInt(props.getProperty(THREADS_CONFIG, "4").trim());
+        AtomicInteger n = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "risk-query-" + n.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/risk/", this::handle);
+    }
+
+    /**
+     * Binds and starts the server.
+     *
+     * @return {@code null} if the risk stores are disabled or {@code fraud.query.http.port} is negative
+     * @throws IllegalStateException if the port cannot be bound
+     */
+    public static RiskQueryServer start(Properties props, KafkaStreams streams) {
+        int port = Integer.parseInt(props.getProperty(PORT_CONFIG, String.valueOf(DEFAULT_PORT)).trim());
+        if (!RiskStores.enabled(props) || port < 0) {
+            log.info("Risk query endpoint disabled ({}={}, {}={})",
+                    RiskStores.ENABLED_CONFIG, RiskStores.enabled(props), PORT_CONFIG, port);
+            return null;
+        }
+        String endpoint = props.getProperty(StreamsConfig.APPLICATION_SERVER_CONFIG, "").trim();
+        HostInfo self = endpoint.isEmpty() ? null : HostInfo.buildFromEndpoint(endpoint);
+        if (self == null) {
+            log.warn("{} not set — risk queries are answered from local state only",
+                    StreamsConfig.APPLICATION_SERVER_CONFIG);
+        } else if (self.port() != port) {
+            log.warn("{}={} advertises port {}, but the risk query endpoint listens on {}",
+                    StreamsConfig.APPLICATION_SERVER_CONFIG, endpoint, self.port(), port);
+        }
+
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot bind risk query endpoint on port " + port, e);
+        }
+        RiskQueryServer queryServer = new RiskQueryServer(server, streams, self, props);
+        server.start();
+        log.info("Risk query endpoint listening on port {} (/risk/card/.., /risk/merchant/..)", queryServer.port());
+        return queryServer;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // ------------------------------------------------------------------
+    // Request handling
+    // ------------------------------------------------------------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (NumberFormatException e) {
+                fail(exchange, 400, "bad number: " + e.getMessage() + "\n", e);
+            } catch (InvalidStateStoreException e) {
+                fail(exchange, 503, "state not queryable right now: " + e.getMessage() + "\n", e);
+            } catch (RuntimeException e) {
+                log.warn("Risk query failed: {}", exchange.getRequestURI(), e);
+                fail(exchange, 500, "query failed: " + e + "\n", null);
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, TEXT, "GET only\n");
+            return;
+        }
+        // /risk/{entity}[/{id}[/alerts]]
+        String[] path = exchange.getRequestURI().getPath().substring("/risk/".length()).split("/");
+        RiskStores.Entity entity = RiskStores.Entity.fromId(path[0]);
+        Map<String, String> query = queryParams(exchange.getRequestURI().getRawQuery());
+        boolean local = Boolean.parseBoolean(query.get("local"));
+
+        if (entity == null || path.length > 3 || (path.length == 3 && !"alerts".equals(path[2]))) {
+            respond(exchange, 404, TEXT, "unknown resource\n");
+        } else if (path.length == 1) {
+            range(exchange, entity, query.get("from"), query.get("to"), local);
+        } else if (path.length == 2) {
+            latest(exchange, entity, path[1], partition(query), local);
+        } else {
+            long to = query.containsKey("to") ? Long.parseLong(query.get("to")) : System.currentTimeMillis();
+            long from = query.containsKey("from") ? Long.parseLong(query.get("from")) : to - DEFAULT_HISTORY_MS;
+            alerts(exchange, entity, path[1], from, to, partition(query), local);
+        }
+    }
+
+    /**
+     * Answers a failed request with {@code status}, unless its response has
+     * already started (a streamed range or alert history failing half way):
+     * the status line is out then, so the response is only cut short and
+     * {@code cause}, unless already logged, is logged instead.
+     */
+    private static void fail(HttpExchange exchange, int status, String body, RuntimeException e) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            log.warn("Risk query {} failed after its {} response started; the response is cut short",
+                    exchange.getRequestURI(), exchange.getResponseCode(), e);
+            return;
+        }
+        respond(exchange, status, TEXT, body);
+    }
+
+    private void latest(HttpExchange exchange, RiskStores.Entity entity, String id, Integer partition,
+                        boolean local) throws IOException {
+        String cacheKey = entity.id() + '/' + id;
+        byte[] cached = cache.get(cacheKey);
+        if (cached != null) {
+            respond(exchange, 200, JSON, cached);
+            return;
+        }
+        if (!local && self != null) {
+            KeyQueryMetadata owner = streams.queryMetadataForKey(entity.latestStore(), id, PARTITIONER);
+            if (owner == null || owner == KeyQueryMetadata.NOT_AVAILABLE) {
+                respond(exchange, 503, TEXT, "no owner for key right now\n");
+                return;
+            }
+            if (!self.equals(owner.activeHost())) {
+                byte[] body = forward(exchange, owner.activeHost(), owner.partition());
+                if (body != null) {
+                    cache.put(cacheKey, body);
+                }
+                return;
+            }
+            partition = owner.partition();
+        }
+
+        StoreQueryParameters<ReadOnlyKeyValueStore<String, byte[]>> params =
+                StoreQueryParameters.fromNameAndType(entity.latestStore(), QueryableStoreTypes.keyValueStore());
+        byte[] value = streams.store(partition == null ? params : params.withPartition(partition)).get(id);
+        if (value == null) {
+            respond(exchange, 404, TEXT, "no risk data for " + entity.id() + " " + id + "\n");
+            return;
+        }
+        cache.put(cacheKey, value);
+        respond(exchange, 200, JSON, value);
+    }
+
+    private void alerts(HttpExchange exchange, RiskStores.Entity entity, String id, long from, long to,
+                        Integer partition, boolean local) throws IOException {
+        if (!local && self != null) {
+            KeyQueryMetadata owner = streams.queryMetadataForKey(entity.alertStore(), id, PARTITIONER);
+            if (owner == null || owner == KeyQueryMetadata.NOT_AVAILABLE) {
+                respond(exchange, 503, TEXT, "no owner for key right now\n");
+                return;
+            }
+            if (!self.equals(owner.activeHost())) {
+                relay(exchange, owner.activeHost(), owner.partition());
+                return;
+            }
+            partition = owner.partition();
+        }
+
+        StoreQueryParameters<ReadOnlyWindowStore<String, byte[]>> params =
+                StoreQueryParameters.fromNameAndType(entity.alertStore(), QueryableStoreTypes.windowStore());
+        ReadOnlyWindowStore<String, byte[]> store = streams.store(
+                partition == null ? params : params.withPartition(partition));
+        try (WindowStoreIterator<byte[]> it = store.fetch(id, Instant.ofEpochMilli(from), Instant.ofEpochMilli(to))) {
+            exchange.getResponseHeaders().set("Content-Type", NDJSON);
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody())) {
+                while (it.hasNext()) {
+                    out.write(it.next().value);
+                    out.write('\n');
+                }
+            }
+        }
+    }
+
+    private void range(HttpExchange exchange, RiskStores.Entity entity, String from, String to, boolean local)
+            throws IOException {
+        ReadOnlyKeyValueStore<String, byte[]> store = streams.store(
+                StoreQueryParameters.fromNameAndType(entity.latestStore(), QueryableStoreTypes.keyValueStore()));
+
+        exchange.getResponseHeaders().set("Content-Type", NDJSON);
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody())) {
+            try (KeyValueIterator<String, byte[]> it = from == null && to == null ? store.all() : store.range(from, to)) {
+                while (it.hasNext()) {
+                    out.write(it.next().value);
+                    out.write('\n');
+                }
+            }
+            if (local || self == null) {
+                return;
+            }
+            // Headers are out: a failing peer can only be logged, its part is missing
+            for (StreamsMetadata instance : streams.streamsMetadataForStore(entity.latestStore())) {
+                if (!self.equals(instance.hostInfo())) {
+                    out.flush();
+                    try (InputStream in = get(instance.hostInfo(), exchange.getRequestURI().getRawPath(),
+                            exchange.getRequestURI().getRawQuery(), null)) {
+                        in.transferTo(out);
+                    } catch (IOException e) {
+                        log.warn("Range query to {} failed; its keys are missing from the response",
+                                instance.hostInfo(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Forwarding
+    // ------------------------------------------------------------------
+
+    /** Forwards a lookup and relays the owner's answer; returns the body if it was a 200. */
+    private byte[] forward(HttpExchange exchange, HostInfo owner, int partition) throws IOException {
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request(owner, exchange.getRequestURI().getRawPath(), null, partition),
+                    HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            respond(exchange, 503, TEXT, "owner " + owner + " unreachable: " + e.getMessage() + "\n");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, TEXT, "interrupted\n");
+            return null;
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse(TEXT);
+        respond(exchange, response.statusCode(), contentType, response.body());
+        return response.statusCode() == 200 ? response.body() : null;
+    }
+
+    /** Forwards a streaming request and copies the owner's response through as it arrives. */
+    private void relay(HttpExchange exchange, HostInfo owner, int partition) throws IOException {
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request(owner, exchange.getRequestURI().getRawPath(),
+                    exchange.getRequestURI().getRawQuery(), partition), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            respond(exchange, 503, TEXT, "owner " + owner + " unreachable: " + e.getMessage() + "\n");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, TEXT, "interrupted\n");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type",
+                response.headers().firstValue("Content-Type").orElse(NDJSON));
+        exchange.sendResponseHeaders(response.statusCode(), 0);
+        try (InputStream in = response.body(); OutputStream out = exchange.getResponseBody()) {
+            in.transferTo(out);
+        }
+    }
+
+    private InputStream get(HostInfo host, String rawPath, String rawQuery, Integer partition) throws IOException {
+        try {
+            HttpResponse<InputStream> response = client.send(request(host, rawPath, rawQuery, partition),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+    }
+
+    /** The same request against {@code host}, marked local (no further routing). */
+    private HttpRequest request(HostInfo host, String rawPath, String rawQuery, Integer partition) {
+        StringBuilder uri = new StringBuilder("http://").append(host.host()).append(':').append(host.port())
+                .append(rawPath).append("?local=true");
+        if (partition != null) {
+            uri.append("&partition=").append(partition);
+        }
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                if (!param.startsWith("local=") && !param.startsWith("partition=") && !param.isEmpty()) {
+                    uri.append('&').append(param);
+                }
+            }
+        }
+        return HttpRequest.newBuilder(URI.create(uri.toString())).timeout(forwardTimeout).GET().build();
+    }
+
+    // ------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------
+
+    private static Integer partition(Map<String, String> query) {
+        String value = query.get("partition");
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String param : rawQuery.split("&")) {
+            int eq = param.indexOf('=');
+            String name = eq < 0 ? param : param.substring(0, eq);
+            String value = eq < 0 ? "" : param.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        respond(exchange, status, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
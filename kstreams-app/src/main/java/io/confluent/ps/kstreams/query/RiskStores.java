@@ -0,0 +1,160 @@
+package io.confluent.ps.kstreams.query;
+
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.processor.StreamPartitioner;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The queryable risk stores, one pair per {@link Entity}:
+ * <pre>
+ * risk-latest-card / risk-latest-merchant   key-value: entity id -&gt; latest scored payment
+ * risk-alerts-card / risk-alerts-merchant   window (duplicates): entity id @ event time -&gt; flagged payment
+ * </pre>
+ * Keys are the entity ids as strings; values are one-line JSON snapshots
+ * ({@link #snapshot}), so the query layer can stream them as stored.
+ *
+ * <p>Both stores of an entity live in tasks partitioned with the velocity
+ * partitioning (hash of the id's UTF-8 bytes, see {@link #partitioner()}),
+ * which is also how the query layer finds a key's owner.
+ *
+ * <p>Alert history is kept for {@code fraud.query.alert.retention.ms}
+ * (default 7 days).
+ */
+public final class RiskStores {
+
+    /**
+     * {@code true} materializes the risk stores and enables the query endpoint.
+     * Off by default: the merchant store re-partitions by merchant, which adds
+     * a repartition topic and its round trip to every deployment.
+     */
+    public static final String ENABLED_CONFIG = "fraud.query.enabled";
+    public static final String ALERT_RETENTION_CONFIG = "fraud.query.alert.retention.ms";
+
+    static final long DEFAULT_ALERT_RETENTION_MS = Duration.ofDays(7).toMillis();
+
+    /** An entity whose risk is queryable, with the payment field that identifies it. */
+    public enum Entity {
+        CARD(PaymentView.CARD_NUMBER_MASKED),
+        MERCHANT(PaymentView.MERCHANT_ID);
+
+        private final int field;
+
+        Entity(int field) {
+            this.field = field;
+        }
+
+        /** {@link PaymentView} text field holding the entity id. */
+        public int field() {
+            return field;
+        }
+
+        /** Path segment / store suffix: {@code card}, {@code merchant}. */
+        public String id() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public String latestStore() {
+            return "risk-latest-" + id();
+        }
+
+        public String alertStore() {
+            return "risk-alerts-" + id();
+        }
+
+        static Entity fromId(String id) {
+            for (Entity entity : values()) {
+                if (entity.id().equals(id)) {
+                    return entity;
+                }
+            }
+            return null;
+        }
+    }
+
+    private RiskStores() {}
+
+    public static boolean enabled(Properties props) {
+        return Boolean.parseBoolean(props.getProperty(ENABLED_CONFIG, "false").trim());
+    }
+
+    public static StoreBuilder<KeyValueStore<String, byte[]>> latestStoreBuilder(Entity entity) {
+        return Stores.keyValueStoreBuilder(
+                        Stores.persistentKeyValueStore(entity.latestStore()),
+                        Serdes.String(), Serdes.ByteArray())
+                .withCachingEnabled();
+    }
+
+    /**
+     * Alert history: every flagged payment at its event time. Duplicates are
+     * retained (several alerts in one millisecond), so the store is append-only
+     * and a fetch is a plain time-range scan of one key.
+     */
+    public static StoreBuilder<WindowStore<String, byte[]>> alertStoreBuilder(Entity entity, Properties props) {
+        long retention = Long.parseLong(props.getProperty(ALERT_RETENTION_CONFIG,
+                String.valueOf(DEFAULT_ALERT_RETENTION_MS)).trim());
+        return Stores.windowStoreBuilder(
+                Stores.persistentWindowStore(entity.alertStore(),
+                        Duration.ofMillis(retention), Duration.ofMillis(1), true),
+                Serdes.String(), Serdes.ByteArray());
+    }
+
+    /** Partition of an entity id, as the velocity repartitioning places it. */
+    public static <V> StreamPartitioner<String, V> partitioner() {
+        return (topic, key, value, numPartitions) -> {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            return Utils.toPositive(PaymentView.hash(bytes, 0, bytes.length)) % numPartitions;
+        };
+    }
+
+    /**
+     * One-line JSON snapshot of a scored payment:
+     * {@code {"id":..,"transaction_id":..,"amount":..,"risk_score":..,"flagged":..,"timestamp":..}}
+     * with the record's event time in epoch millis.
+     */
+    public static byte[] snapshot(String id, PaymentView view, long timestamp, boolean flagged) {
+        StringBuilder sb = new StringBuilder(160).append("{\"id\":");
+        quote(sb, id);
+        sb.append(",\"transaction_id\":");
+        quote(sb, view.text(PaymentView.TRANSACTION_ID));
+        sb.append(",\"amount\":").append(view.amount())
+                .append(",\"risk_score\":").append(view.hasRiskScore() ? view.riskScore() : 0.0)
+                .append(",\"flagged\":").append(flagged)
+                .append(",\"timestamp\":").append(timestamp)
+                .append('}');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void quote(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,55 @@
+package io.confluent.ps.kstreams.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Small LRU cache whose entries expire a fixed time after they were put.
+ * Serves repeated key lookups without touching RocksDB or another instance;
+ * the TTL bounds how stale an answer can be. A TTL of 0 disables caching.
+ *
+ * <p>Thread-safe (one lock; the critical sections are a map lookup).
+ */
+final class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtMs) {}
+
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    TtlCache(long ttlMs, int maxEntries, LongSupplier clock) {
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** The cached value, or {@code null} if absent or expired. */
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() >= entry.expiresAtMs()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    synchronized void put(K key, V value) {
+        if (ttlMs > 0) {
+            entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMs));
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,44 @@
+package io.confluent.ps.kstreams.rules;
+
+/**
+ * Numeric inputs a rule can test. The caller fills one {@code double[]} of
+ * {@link #COUNT} slots per record (indexed by {@link #ordinal()}); compiled
+ * rules address the slots by index, never by name.
+ */
+public enum NumericField {
+    AMOUNT("amount"),
+    /** {@code amount - floor(amount)}; {@code 0} for round amounts. */
+    AMOUNT_FRACTION("amount.fraction"),
+    CARD_COUNT_1M("card.count.1m"),
+    CARD_COUNT_10M("card.count.10m"),
+    CARD_COUNT_1H("card.count.1h"),
+    CARD_AMOUNT_1H("card.amount.1h"),
+    MERCHANT_COUNT_1M("merchant.count.1m"),
+    MERCHANT_COUNT_10M("merchant.count.10m"),
+    MERCHANT_COUNT_1H("merchant.count.1h"),
+    MERCHANT_AMOUNT_1H("merchant.amount.1h"),
+    /** From the merchant reference data: 1 low .. 3 high, {@code 0} when unknown. */
+    MERCHANT_RISK_TIER("merchant.risk.tier");
+
+    public static final int COUNT = values().length;
+
+    private final String ruleName;
+
+    NumericField(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    /** Name used in rule conditions. */
+    public String ruleName() {
+        return ruleName;
+    }
+
+    static NumericField byRuleName(String name) {
+        for (NumericField field : values()) {
+            if (field.ruleName.equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+package io.confluent.ps.kstreams.rules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Holds the active {@link CompiledRules} and swaps them atomically.
+ *
+ * <p>Stream threads read {@link #current()} once per record, so a swap takes
+ * effect between two records and a record is never scored by half of one rule
+ * set and half of another. Updates arrive from a watched file
+ * ({@link RuleFileWatcher}) or a compacted topic ({@link RuleSetUpdateProcessor});
+ * an invalid update is logged and the previous rules stay active.
+ *
+ * <pre>
+ * fraud.rules.file=/etc/fraud/rules/fraud.rules   # optional, polled for changes
+ * fraud.rules.topic=fraud-rules                    # optional, compacted; value = whole rule set
+ * fraud.rules.key=active                           # record key of the active rule set
+ * </pre>
+ */
+public final class RuleEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleEngine.class);
+
+    public static final String DEFAULT_RULES_RESOURCE = "fraud-rules/default.rules";
+
+    private final CompiledRules defaults;
+    private volatile CompiledRules current;
+
+    public RuleEngine(CompiledRules initial) {
+        this.defaults = initial;
+        this.current = initial;
+    }
+
+    /** Engine starting with the bundled {@value #DEFAULT_RULES_RESOURCE}. */
+    public static RuleEngine withDefaults() {
+        return new RuleEngine(DefaultRules.RULES);
+    }
+
+    public CompiledRules current() {
+        return current;
+    }
+
+    /**
+     * Compiles {@code text} and makes it the active rule set.
+     *
+     * @return {@code false} if the text is invalid (the active rules are kept)
+     */
+    public boolean update(String source, String text) {
+        CompiledRules rules;
+        try {
+            rules = RuleSetParser.parse(text);
+        } catch (IllegalArgumentException e) {
+            log.error("Rejected rule set from {} — keeping {}: {}", source, current, e.getMessage());
+            return false;
+        }
+        current = rules;
+        log.info("Activated rule set from {}: {}", source, rules);
+        return true;
+    }
+
+    /** Reverts to the rules the engine was created with. */
+    public void reset(String source) {
+        current = defaults;
+        log.info("Reverted to initial rule set ({}): {}", source, defaults);
+    }
+
+    /** Parsed once per JVM. */
+    private static final class DefaultRules {
+        static final CompiledRules RULES = RuleSetParser.parse(load());
+
+        private static String load() {
+            try (InputStream is = RuleEngine.class.getClassLoader().getResourceAsStream(DEFAULT_RULES_RESOURCE)) {
+                if (is == null) {
+                    throw new IllegalStateException("Missing classpath resource " + DEFAULT_RULES_RESOURCE);
+                }
+                return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + DEFAULT_RULES_RESOURCE, e);
+            }
+        }
+    }
+}
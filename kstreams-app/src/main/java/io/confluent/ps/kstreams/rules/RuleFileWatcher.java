@@ -0,0 +1,104 @@
+package io.confluent.ps.kstreams.rules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the rule set from {@code fraud.rules.file} and reloads it whenever the
+ * file's modification time or size changes.
+ *
+ * <p>Polling (default every 5 s, {@code fraud.rules.file.poll.ms}) rather than a
+ * {@code WatchService}, because Kubernetes ConfigMap volumes update files by
+ * swapping a symlink, which directory watches report inconsistently.
+ */
+public final class RuleFileWatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleFileWatcher.class);
+
+    public static final String FILE_CONFIG = "fraud.rules.file";
+    public static final String POLL_INTERVAL_CONFIG = "fraud.rules.file.poll.ms";
+
+    private final Path path;
+    private final RuleEngine engine;
+    private final ScheduledExecutorService scheduler;
+
+    private FileTime lastModified;
+    private long lastSize = -1L;
+
+    private RuleFileWatcher(Path path, RuleEngine engine) {
+        this.path = path;
+        this.engine = engine;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fraud-rules-watcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Loads the file into {@code engine} and starts watching it.
+     *
+     * @return {@code null} if {@code fraud.rules.file} is not set
+     * @throws IllegalStateException if the file cannot be read or is not a valid rule set
+     */
+    public static RuleFileWatcher start(Properties props, RuleEngine engine) {
+        String file = props.getProperty(FILE_CONFIG);
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        RuleFileWatcher watcher = new RuleFileWatcher(Path.of(file.trim()), engine);
+        if (!watcher.reloadIfChanged()) {
+            throw new IllegalStateException("Cannot load rule set from " + watcher.path);
+        }
+        long intervalMs = Long.parseLong(props.getProperty(POLL_INTERVAL_CONFIG, "5000"));
+        watcher.scheduler.scheduleWithFixedDelay(watcher::poll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Watching rule file {} every {} ms", watcher.path, intervalMs);
+        return watcher;
+    }
+
+    private void poll() {
+        try {
+            reloadIfChanged();
+        } catch (RuntimeException e) {
+            log.error("Rule file check failed for {}", path, e);
+        }
+    }
+
+    /** @return {@code false} if the file could not be read or compiled */
+    boolean reloadIfChanged() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            long size = Files.size(path);
+            if (modified.equals(lastModified) && size == lastSize) {
+                return true;
+            }
+            String text = Files.readString(path, StandardCharsets.UTF_8);
+            // Remember the version even if invalid, so a broken file is reported once, not every poll
+            lastModified = modified;
+            lastSize = size;
+            return engine.update("file " + path, text);
+        } catch (NoSuchFileException e) {
+            log.warn("Rule file {} not found — keeping active rules", path);
+            return false;
+        } catch (IOException e) {
+            log.warn("Failed to read rule file {} — keeping active rules", path, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,190 @@
+package io.confluent.ps.kstreams.rules;
+
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses and compiles the declarative rule-set format, one rule per line:
+ *
+ * <pre>
+ * # comment
+ * &lt;id&gt;: &lt;condition&gt; [&amp;&amp; &lt;condition&gt; ...] =&gt; &lt;score&gt; [| &lt;reason&gt;]
+ *
+ * high-value:   amount &gt; 1000 =&gt; 0.4 | amount above 1000.0
+ * round-amount: amount.fraction == 0 &amp;&amp; amount &gt; 500 =&gt; 0.15 | round amount
+ * risky-region: region in (AP-SOUTH, "SA-EAST") =&gt; 0.2
+ * </pre>
+ *
+ * Numeric fields ({@link NumericField}) support {@code > >= < <= == !=};
+ * text fields ({@code transaction_id card_number_masked currency merchant_id
+ * status region merchant.mcc merchant.country}) support
+ * {@code == != in (..) not in (..)}. A missing text field never equals
+ * anything. The reason defaults to the rule id. Scores are non-negative: a
+ * matching rule can only raise a payment's score, which is what lets the fast
+ * lane alert before velocity is known.
+ */
+public final class RuleSetParser {
+
+    private static final Pattern RULE = Pattern.compile(
+            "^([A-Za-z0-9_.-]+)\\s*:\\s*(.+?)\\s*=>\\s*([-+0-9.eE]+)\\s*(?:\\|\\s*(.*?))?\\s*$");
+    private static final Pattern CONDITION = Pattern.compile(
+            "^([a-z_.0-9]+)\\s*(==|!=|>=|<=|>|<|not\\s+in\\b|in\\b)\\s*(.+)$");
+
+    private static final Map<String, Integer> TEXT_FIELDS = Map.of(
+            "transaction_id", PaymentView.TRANSACTION_ID,
+            "card_number_masked", PaymentView.CARD_NUMBER_MASKED,
+            "currency", PaymentView.CURRENCY,
+            "merchant_id", PaymentView.MERCHANT_ID,
+            "status", PaymentView.STATUS,
+            "region", PaymentView.REGION,
+            "merchant.mcc", PaymentView.MERCHANT_MCC,
+            "merchant.country", PaymentView.MERCHANT_COUNTRY);
+
+    private RuleSetParser() {}
+
+    /**
+     * @throws IllegalArgumentException naming the offending line if the text is not a valid rule set
+     */
+    public static CompiledRules parse(String text) {
+        List<String> ids = new ArrayList<>();
+        List<String> reasons = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        List<Integer> conditionStart = new ArrayList<>();
+        List<Integer> opcodes = new ArrayList<>();
+        List<Integer> fields = new ArrayList<>();
+        List<Double> numbers = new ArrayList<>();
+        List<byte[][]> texts = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        String[] lines = text.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Matcher rule = RULE.matcher(line);
+            if (!rule.matches()) {
+                throw error(i, "expected '<id>: <conditions> => <score> [| <reason>]'", line);
+            }
+            String id = rule.group(1);
+            if (!seen.add(id)) {
+                throw error(i, "duplicate rule id '" + id + "'", line);
+            }
+            double score;
+            try {
+                score = Double.parseDouble(rule.group(3));
+            } catch (NumberFormatException e) {
+                throw error(i, "invalid score '" + rule.group(3) + "'", line);
+            }
+            if (!Double.isFinite(score) || score < 0) {
+                throw error(i, "score must be finite and non-negative", line);
+            }
+
+            ids.add(id);
+            scores.add(score);
+            reasons.add(rule.group(4) == null || rule.group(4).isEmpty() ? id : rule.group(4));
+            conditionStart.add(opcodes.size());
+
+            for (String condition : rule.group(2).split("&&")) {
+                compileCondition(condition.trim(), i, line, opcodes, fields, numbers, texts);
+            }
+        }
+        conditionStart.add(opcodes.size());
+
+        return new CompiledRules(
+                ids.toArray(new String[0]),
+                reasons.toArray(new String[0]),
+                scores.stream().mapToDouble(Double::doubleValue).toArray(),
+                conditionStart.stream().mapToInt(Integer::intValue).toArray(),
+                opcodes.stream().mapToInt(Integer::intValue).toArray(),
+                fields.stream().mapToInt(Integer::intValue).toArray(),
+                numbers.stream().mapToDouble(Double::doubleValue).toArray(),
+                texts.toArray(new byte[0][][]));
+    }
+
+    private static void compileCondition(String condition, int lineIndex, String line,
+                                         List<Integer> opcodes, List<Integer> fields,
+                                         List<Double> numbers, List<byte[][]> texts) {
+        Matcher m = CONDITION.matcher(condition);
+        if (!m.matches()) {
+            throw error(lineIndex, "invalid condition '" + condition + "'", line);
+        }
+        String name = m.group(1);
+        String op = m.group(2).replaceAll("\\s+", " ");
+        String operand = m.group(3).trim();
+
+        NumericField numeric = NumericField.byRuleName(name);
+        if (numeric != null) {
+            int opcode = switch (op) {
+                case ">" -> CompiledRules.GT;
+                case ">=" -> CompiledRules.GE;
+                case "<" -> CompiledRules.LT;
+                case "<=" -> CompiledRules.LE;
+                case "==" -> CompiledRules.EQ;
+                case "!=" -> CompiledRules.NE;
+                default -> throw error(lineIndex, "'" + op + "' is not defined for numeric field '" + name + "'", line);
+            };
+            try {
+                numbers.add(Double.parseDouble(operand));
+            } catch (NumberFormatException e) {
+                throw error(lineIndex, "'" + operand + "' is not a number", line);
+            }
+            opcodes.add(opcode);
+            fields.add(numeric.ordinal());
+            texts.add(null);
+            return;
+        }
+
+        Integer text = TEXT_FIELDS.get(name);
+        if (text == null) {
+            throw error(lineIndex, "unknown field '" + name + "'", line);
+        }
+        int opcode;
+        byte[][] values;
+        switch (op) {
+            case "==", "!=" -> {
+                opcode = op.equals("==") ? CompiledRules.TEXT_EQ : CompiledRules.TEXT_NE;
+                values = new byte[][] {utf8(unquote(operand))};
+            }
+            case "in", "not in" -> {
+                if (!operand.startsWith("(") || !operand.endsWith(")")) {
+                    throw error(lineIndex, "expected '(value, ...)' after '" + op + "'", line);
+                }
+                String[] items = operand.substring(1, operand.length() - 1).split(",");
+                values = new byte[items.length][];
+                for (int j = 0; j < items.length; j++) {
+                    values[j] = utf8(unquote(items[j].trim()));
+                }
+                opcode = op.equals("in") ? CompiledRules.TEXT_IN : CompiledRules.TEXT_NOT_IN;
+            }
+            default -> throw error(lineIndex, "'" + op + "' is not defined for text field '" + name + "'", line);
+        }
+        opcodes.add(opcode);
+        fields.add(text);
+        numbers.add(0.0);
+        texts.add(values);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static IllegalArgumentException error(int lineIndex, String message, String line) {
+        return new IllegalArgumentException("Rule line " + (lineIndex + 1) + ": " + message + " — " + line);
+    }
+}
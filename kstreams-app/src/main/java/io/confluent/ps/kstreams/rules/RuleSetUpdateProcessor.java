@@ -0,0 +1,69 @@
+package io.confluent.ps.kstreams.rules;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+/**
+ * Global-store processor for the compacted rules topic: every instance reads
+ * the whole topic and activates the rule set stored under {@code fraud.rules.key}.
+ *
+ * <p>The value is a complete rule set ({@link RuleSetParser} format), so one
+ * record is one atomic change. A tombstone reverts to the initial rules. On
+ * startup the restored store is read in {@link #init}, because restoration
+ * writes to the store without calling {@link #process}.
+ */
+public final class RuleSetUpdateProcessor implements Processor<String, String, Void, Void> {
+
+    public static final String TOPIC_CONFIG = "fraud.rules.topic";
+    public static final String KEY_CONFIG = "fraud.rules.key";
+    public static final String STORE_NAME = "fraud-rules-store";
+
+    private final RuleEngine engine;
+    private final String activeKey;
+
+    private KeyValueStore<String, String> store;
+    private String source;
+
+    public RuleSetUpdateProcessor(RuleEngine engine, String activeKey) {
+        this.engine = engine;
+        this.activeKey = activeKey;
+    }
+
+    /** In-memory store rebuilt from the topic on startup; the topic itself is the changelog. */
+    public static StoreBuilder<KeyValueStore<String, String>> storeBuilder() {
+        return Stores.keyValueStoreBuilder(
+                        Stores.inMemoryKeyValueStore(STORE_NAME), Serdes.String(), Serdes.String())
+                .withLoggingDisabled();
+    }
+
+    @Override
+    public void init(ProcessorContext<Void, Void> context) {
+        store = context.getStateStore(STORE_NAME);
+        source = "topic key '" + activeKey + "'";
+        String restored = store.get(activeKey);
+        if (restored != null) {
+            engine.update(source, restored);
+        }
+    }
+
+    @Override
+    public void process(Record<String, String> record) {
+        if (record.key() == null) {
+            return;
+        }
+        store.put(record.key(), record.value());
+        if (!activeKey.equals(record.key())) {
+            return;
+        }
+        if (record.value() == null) {
+            engine.reset(source + " (tombstone)");
+        } else {
+            engine.update(source, record.value());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.confluent.ps.kstreams.scaling;
+
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.util.Properties;
+
+/**
+ * Stream-thread autoscaling settings ({@code fraud.autoscale.*}).
+ *
+ * <pre>
+ * fraud.autoscale.enabled=false
+ * fraud.autoscale.interval.ms=15000          how often lag and CPU are sampled
+ * fraud.autoscale.min.threads                default num.stream.threads
+ * fraud.autoscale.max.threads                default: available CPUs (at least min)
+ * fraud.autoscale.lag.up.per.thread=10000    consumer lag per thread that asks for one more thread
+ * fraud.autoscale.lag.down.per.thread=1000   ... below which a thread may go
+ * fraud.autoscale.cpu.max=0.85               no scale-up above this process CPU (0..1): threads would only time-slice
+ * fraud.autoscale.cpu.down=0.5               scale-down only below this process CPU
+ * fraud.autoscale.up.intervals=2             consecutive samples asking for more before adding
+ * fraud.autoscale.down.intervals=8           consecutive samples asking for fewer before removing
+ * fraud.autoscale.cooldown.ms=60000          no decision after a change (covers the rebalance)
+ * </pre>
+ * Separate up/down thresholds plus the consecutive-sample requirement are the
+ * hysteresis: a spike has to last to add a thread, and a thread is only given
+ * back after a sustained quiet period.
+ */
+public record AutoscaleSettings(
+        boolean enabled,
+        long intervalMs,
+        int minThreads,
+        int maxThreads,
+        long lagUpPerThread,
+        long lagDownPerThread,
+        double cpuMax,
+        double cpuDown,
+        int upIntervals,
+        int downIntervals,
+        long cooldownMs) {
+
+    public static final String PREFIX = "fraud.autoscale.";
+    public static final String ENABLED_CONFIG = PREFIX + "enabled";
+
+    public AutoscaleSettings {
+        if (minThreads < 1 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("Need 1 <= " + PREFIX + "min.threads (" + minThreads
+                    + ") <= " + PREFIX + "max.threads (" + maxThreads + ")");
+        }
+        if (lagDownPerThread >= lagUpPerThread) {
+            throw new IllegalArgumentException(PREFIX + "lag.down.per.thread (" + lagDownPerThread
+                    + ") must be below " + PREFIX + "lag.up.per.thread (" + lagUpPerThread + ")");
+        }
+        if (upIntervals < 1 || downIntervals < 1 || intervalMs <= 0) {
+            throw new IllegalArgumentException(PREFIX + "interval.ms, up.intervals and down.intervals must be positive");
+        }
+    }
+
+    public static AutoscaleSettings from(Properties props) {
+        int configured = Integer.parseInt(props.getProperty(StreamsConfig.NUM_STREAM_THREADS_CONFIG, "1").trim());
+        int min = intValue(props, "min.threads", configured);
+        int max = intValue(props, "max.threads", Math.max(min, Runtime.getRuntime().availableProcessors()));
+        return new AutoscaleSettings(
+                Boolean.parseBoolean(props.getProperty(ENABLED_CONFIG, "false").trim()),
+                longValue(props, "interval.ms", 15_000),
+                min,
+                max,
+                longValue(props, "lag.up.per.thread", 10_000),
+                longValue(props, "lag.down.per.thread", 1_000),
+                Double.parseDouble(props.getProperty(PREFIX + "cpu.max", "0.85").trim()),
+                Double.parseDouble(props.getProperty(PREFIX + "cpu.down", "0.5").trim()),
+                intValue(props, "up.intervals", 2),
+                intValue(props, "down.intervals", 8),
+                longValue(props, "cooldown.ms", 60_000));
+    }
+
+    private static int intValue(Properties props, String key, int defaultValue) {
+        return Integer.parseInt(props.getProperty(PREFIX + key, String.valueOf(defaultValue)).trim());
+    }
+
+    private static long longValue(Properties props, String key, long defaultValue) {
+        return Long.parseLong(props.getProperty(PREFIX + key, String.valueOf(defaultValue)).trim());
+    }
+}
@@ -0,0 +1,98 @@
+package io.confluent.ps.kstreams.scaling;
+
+import java.util.Locale;
+
+/**
+ * Decides, once per sample, whether this instance should run one stream
+ * thread more, one less, or keep its count. Pure and single-threaded; the
+ * {@link ThreadAutoscaler} feeds it lag, CPU and the current thread count.
+ *
+ * <ul>
+ *   <li><b>Up</b> when consumer lag per thread stays above
+ *       {@code lag.up.per.thread} for {@code up.intervals} samples, unless the
+ *       process CPU is already at {@code cpu.max}: more threads on a saturated
+ *       CPU only time-slice.</li>
+ *   <li><b>Down</b> when lag per thread stays below {@code lag.down.per.thread}
+ *       and CPU below {@code cpu.down} for {@code down.intervals} samples.</li>
+ *   <li>Nothing for {@code cooldown.ms} after a change; the rebalance it
+ *       triggers distorts lag, so the streaks restart afterwards.</li>
+ * </ul>
+ */
+final class ScalingPolicy {
+
+    enum Action { UP, DOWN, HOLD }
+
+    record Decision(Action action, String reason) {
+        int delta() {
+            return action == Action.UP ? 1 : action == Action.DOWN ? -1 : 0;
+        }
+    }
+
+    private final AutoscaleSettings settings;
+
+    private int upStreak;
+    private int downStreak;
+    private long lastChangeMs = Long.MIN_VALUE;
+
+    ScalingPolicy(AutoscaleSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @param lag total consumer lag of this instance's source partitions
+     * @param cpu process CPU load 0..1, negative if unknown (then only lag counts)
+     */
+    Decision decide(long nowMs, int threads, long lag, double cpu) {
+        if (threads < settings.minThreads()) {
+            return changed(nowMs, Action.UP, "below min.threads " + settings.minThreads());
+        }
+        if (threads > settings.maxThreads()) {
+            return changed(nowMs, Action.DOWN, "above max.threads " + settings.maxThreads());
+        }
+        if (lastChangeMs != Long.MIN_VALUE && nowMs - lastChangeMs < settings.cooldownMs()) {
+            upStreak = 0;
+            downStreak = 0;
+            return hold("cooldown");
+        }
+
+        long perThread = lag / Math.max(1, threads);
+        boolean lagHigh = perThread > settings.lagUpPerThread();
+        boolean quiet = perThread < settings.lagDownPerThread() && cpu < settings.cpuDown();
+        upStreak = lagHigh ? upStreak + 1 : 0;
+        downStreak = quiet ? downStreak + 1 : 0;
+
+        if (lagHigh) {
+            if (threads >= settings.maxThreads()) {
+                return hold("lag high, at max.threads " + settings.maxThreads());
+            }
+            if (cpu >= settings.cpuMax()) {
+                return hold(String.format(Locale.ROOT, "lag high, CPU saturated (%.2f)", cpu));
+            }
+            if (upStreak >= settings.upIntervals()) {
+                return changed(nowMs, Action.UP, String.format(Locale.ROOT,
+                        "lag %d/thread > %d for %d samples", perThread, settings.lagUpPerThread(), upStreak));
+            }
+            return hold("lag high for " + upStreak + "/" + settings.upIntervals() + " samples");
+        }
+        if (quiet && threads > settings.minThreads()) {
+            if (downStreak >= settings.downIntervals()) {
+                return changed(nowMs, Action.DOWN, String.format(Locale.ROOT,
+                        "lag %d/thread < %d, CPU %.2f for %d samples", perThread, settings.lagDownPerThread(),
+                        cpu, downStreak));
+            }
+            return hold("quiet for " + downStreak + "/" + settings.downIntervals() + " samples");
+        }
+        return hold("within band");
+    }
+
+    private Decision changed(long nowMs, Action action, String reason) {
+        lastChangeMs = nowMs;
+        upStreak = 0;
+        downStreak = 0;
+        return new Decision(action, reason);
+    }
+
+    private static Decision hold(String reason) {
+        return new Decision(Action.HOLD, reason);
+    }
+}
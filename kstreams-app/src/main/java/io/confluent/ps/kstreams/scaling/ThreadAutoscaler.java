@@ -0,0 +1,163 @@
+package io.confluent.ps.kstreams.scaling;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Adds and removes stream threads at runtime ({@link KafkaStreams#addStreamThread()},
+ * {@link KafkaStreams#removeStreamThread(Duration)}) so the instance follows
+ * the payment volume instead of being sized for the daily peak.
+ *
+ * <p>Every {@code fraud.autoscale.interval.ms} it samples the consumer lag of
+ * the partitions assigned to its stream threads (the {@code records-lag}
+ * metric of their main consumers) and the process CPU load, and lets
+ * {@link ScalingPolicy} decide. Only samples taken while RUNNING count;
+ * during a rebalance or restore lag says nothing about capacity. Every
+ * decision is exported via {@link PipelineMetrics#recordScalingDecision}.
+ *
+ * <p>Each added thread is a new consumer in the group and triggers a
+ * rebalance; the bounds and cooldown in {@link AutoscaleSettings} keep that rare.
+ */
+public final class ThreadAutoscaler implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadAutoscaler.class);
+
+    private static final String FETCH_METRICS_GROUP = "consumer-fetch-manager-metrics";
+
+    private final KafkaStreams streams;
+    private final AutoscaleSettings settings;
+    private final ScalingPolicy policy;
+    private final PipelineMetrics metrics;
+    private final DoubleSupplier cpuLoad;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    ThreadAutoscaler(KafkaStreams streams, AutoscaleSettings settings, PipelineMetrics metrics,
+                     DoubleSupplier cpuLoad, LongSupplier clock) {
+        this.streams = streams;
+        this.settings = settings;
+        this.policy = new ScalingPolicy(settings);
+        this.metrics = metrics;
+        this.cpuLoad = cpuLoad;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "kstreams-autoscaler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts sampling; call after {@code streams.start()}.
+     *
+     * @return {@code null} if {@code fraud.autoscale.enabled} is not {@code true}
+     */
+    public static ThreadAutoscaler start(Properties props, KafkaStreams streams, PipelineMetrics metrics) {
+        AutoscaleSettings settings = AutoscaleSettings.from(props);
+        if (!settings.enabled()) {
+            log.info("Stream thread autoscaling disabled ({}=false)", AutoscaleSettings.ENABLED_CONFIG);
+            return null;
+        }
+        ThreadAutoscaler autoscaler = new ThreadAutoscaler(streams, settings, metrics,
+                ThreadAutoscaler::processCpuLoad, System::currentTimeMillis);
+        autoscaler.scheduler.scheduleWithFixedDelay(autoscaler::tick,
+                settings.intervalMs(), settings.intervalMs(), TimeUnit.MILLISECONDS);
+        log.info("Stream thread autoscaling between {} and {} threads every {} ms",
+                settings.minThreads(), settings.maxThreads(), settings.intervalMs());
+        return autoscaler;
+    }
+
+    void tick() {
+        try {
+            if (streams.state() != KafkaStreams.State.RUNNING) {
+                return;
+            }
+            int threads = streams.metadataForLocalThreads().size();
+            long lag = consumerLag(streams.metrics());
+            double cpu = cpuLoad.getAsDouble();
+            ScalingPolicy.Decision decision = policy.decide(clock.getAsLong(), threads, lag, cpu);
+            int now = apply(decision, threads);
+            metrics.recordScalingDecision(now - threads, now, lag, cpu);
+        } catch (RuntimeException e) {
+            log.warn("Autoscaling sample failed", e);
+        }
+    }
+
+    private int apply(ScalingPolicy.Decision decision, int threads) {
+        Optional<String> changed;
+        switch (decision.action()) {
+            case UP -> changed = streams.addStreamThread();
+            case DOWN -> changed = streams.removeStreamThread(Duration.ofMillis(settings.intervalMs()));
+            default -> {
+                log.debug("Autoscaling: {} threads, hold ({})", threads, decision.reason());
+                return threads;
+            }
+        }
+        if (changed.isEmpty()) {
+            log.warn("Autoscaling: could not {} a stream thread ({}); staying at {}",
+                    decision.action() == ScalingPolicy.Action.UP ? "add" : "remove", decision.reason(), threads);
+            return threads;
+        }
+        int now = threads + decision.delta();
+        log.info("Autoscaling: {} {} -> {} threads ({})",
+                decision.action() == ScalingPolicy.Action.UP ? "added" : "removed", changed.get(), now,
+                decision.reason());
+        return now;
+    }
+
+    /**
+     * Sum of {@code records-lag} over the partitions of the stream threads'
+     * main consumers; restore and global consumers are left out.
+     */
+    static long consumerLag(Map<MetricName, ? extends Metric> metrics) {
+        long lag = 0;
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            MetricName name = entry.getKey();
+            if (!FETCH_METRICS_GROUP.equals(name.group()) || !"records-lag".equals(name.name())
+                    || !name.tags().containsKey("partition")) {
+                continue;
+            }
+            String clientId = name.tags().getOrDefault("client-id", "");
+            if (!clientId.endsWith("-consumer") || clientId.endsWith("-restore-consumer")
+                    || clientId.endsWith("-global-consumer")) {
+                continue;
+            }
+            if (entry.getValue().metricValue() instanceof Number value && !Double.isNaN(value.doubleValue())) {
+                lag += Math.max(0L, value.longValue());
+            }
+        }
+        return lag;
+    }
+
+    /** Process CPU load 0..1 of the CPUs available to the JVM (container-aware), -1 if unknown. */
+    private static double processCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return sunOs.getProcessCpuLoad();
+        }
+        return -1.0;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,439 @@
+package io.confluent.ps.kstreams.scan;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single-pass, allocation-free scanner for flat payment JSON documents.
+ *
+ * <p>Works directly on the UTF-8 bytes delivered by Kafka, so the record value
+ * never has to be decoded into a {@link String}. Known fields are located in
+ * one left-to-right pass and recorded in a caller-supplied {@link PaymentView};
+ * unknown fields (including nested objects and arrays) are skipped.
+ *
+ * <p>Limitations (acceptable for the payment schema):
+ * <ul>
+ *   <li>String values are referenced raw — escape sequences are not decoded</li>
+ *   <li>Duplicate keys: the last occurrence wins</li>
+ * </ul>
+ */
+public final class PaymentScanner {
+
+    private static final byte[] AMOUNT = ascii("amount");
+    private static final byte[] REGION = ascii("region");
+    private static final byte[] STATUS = ascii("status");
+    private static final byte[] CURRENCY = ascii("currency");
+    private static final byte[] TIMESTAMP = ascii("timestamp");
+    private static final byte[] RISK_SCORE = ascii("risk_score");
+    private static final byte[] MERCHANT_ID = ascii("merchant_id");
+    private static final byte[] TRANSACTION_ID = ascii("transaction_id");
+    private static final byte[] CARD_NUMBER_MASKED = ascii("card_number_masked");
+
+    private static final byte[] RISK_SCORE_PREFIX = ascii(",\"risk_score\":");
+
+    // Field ids beyond the text fields of PaymentView
+    private static final int F_UNKNOWN = -1;
+    private static final int F_AMOUNT = 100;
+    private static final int F_TIMESTAMP = 101;
+    private static final int F_RISK_SCORE = 102;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private PaymentScanner() {}
+
+    /**
+     * Scans a JSON object into {@code view}.
+     *
+     * @return {@code true} if the input is a well-formed flat JSON object;
+     *         {@code false} otherwise (fields seen before the error are kept)
+     */
+    public static boolean scan(byte[] json, PaymentView view) {
+        view.reset();
+        if (json == null) {
+            return false;
+        }
+        int n = json.length;
+        int i = skipWhitespace(json, 0, n);
+        if (i >= n || json[i] != '{') {
+            return false;
+        }
+        i = skipWhitespace(json, i + 1, n);
+        if (i < n && json[i] == '}') {
+            view.setSource(json, i);
+            return true;
+        }
+
+        while (i < n) {
+            // --- key ---
+            if (json[i] != '"') {
+                return false;
+            }
+            int keyStart = i + 1;
+            int keyEnd = endOfString(json, keyStart, n);
+            if (keyEnd < 0) {
+                return false;
+            }
+            int field = fieldOf(json, keyStart, keyEnd - keyStart);
+
+            i = skipWhitespace(json, keyEnd + 1, n);
+            if (i >= n || json[i] != ':') {
+                return false;
+            }
+            i = skipWhitespace(json, i + 1, n);
+            if (i >= n) {
+                return false;
+            }
+
+            // --- value ---
+            byte c = json[i];
+            if (c == '"') {
+                int valueStart = i + 1;
+                int valueEnd = endOfString(json, valueStart, n);
+                if (valueEnd < 0) {
+                    return false;
+                }
+                if (field >= 0 && field < PaymentView.TEXT_FIELD_COUNT) {
+                    view.setText(field, json, valueStart, valueEnd - valueStart);
+                } else if (field == F_RISK_SCORE) {
+                    // Not a number, but still the value a new score replaces
+                    view.setRiskScoreSpan(i, valueEnd + 1);
+                }
+                i = valueEnd + 1;
+            } else if (c == '{' || c == '[') {
+                int valueStart = i;
+                i = skipNested(json, i, n);
+                if (i < 0) {
+                    return false;
+                }
+                if (field == F_RISK_SCORE) {
+                    view.setRiskScoreSpan(valueStart, i);
+                }
+            } else {
+                int valueStart = i;
+                while (i < n && !isDelimiter(json[i])) {
+                    i++;
+                }
+                assignNumber(json, valueStart, i, field, view);
+            }
+
+            // --- separator ---
+            i = skipWhitespace(json, i, n);
+            if (i >= n) {
+                return false;
+            }
+            if (json[i] == '}') {
+                view.setSource(json, i);
+                return true;
+            }
+            if (json[i] != ',') {
+                return false;
+            }
+            i = skipWhitespace(json, i + 1, n);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a copy of {@code view}'s source document with its risk score set
+     * to {@code score}: an existing {@code risk_score} value (the last one, as
+     * read) is replaced, otherwise {@code "risk_score":<score>} is appended
+     * before the closing brace. The score is written with two decimals,
+     * independent of the default locale.
+     */
+    public static byte[] appendRiskScore(PaymentView view, double score) {
+        byte[] src = view.source();
+        int end = view.objectEnd();
+        if (src == null || end < 0) {
+            throw new IllegalStateException("View was not scanned from a JSON object");
+        }
+        int from = view.riskScoreFrom();
+        if (from >= 0) {
+            int to = view.riskScoreTo();
+            // head + up to 24 bytes of score + tail up to and including the closing brace
+            byte[] out = new byte[from + 24 + end + 1 - to];
+            System.arraycopy(src, 0, out, 0, from);
+            int pos = writeFixed2(out, from, score);
+            System.arraycopy(src, to, out, pos, end + 1 - to);
+            pos += end + 1 - to;
+            return pos == out.length ? out : Arrays.copyOf(out, pos);
+        }
+        // prefix + up to 20 integer digits + '.' + 2 decimals + '}'
+        byte[] out = new byte[end + RISK_SCORE_PREFIX.length + 24];
+        System.arraycopy(src, 0, out, 0, end);
+        int pos = end;
+        // An empty object takes the field without the leading comma
+        int skip = lastNonWhitespace(src, end - 1) == '{' ? 1 : 0;
+        System.arraycopy(RISK_SCORE_PREFIX, skip, out, pos, RISK_SCORE_PREFIX.length - skip);
+        pos += RISK_SCORE_PREFIX.length - skip;
+        pos = writeFixed2(out, pos, score);
+        out[pos++] = '}';
+        return pos == out.length ? out : Arrays.copyOf(out, pos);
+    }
+
+    /** Parses an ASCII decimal number without allocating on the common path. */
+    static double parseDouble(byte[] b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        for (; i < to; i++) {
+            byte c = b[i];
+            if (c >= '0' && c <= '9') {
+                if (digits == 18) {
+                    return parseDoubleSlow(b, from, to);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenDot) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else if (c == 'e' || c == 'E') {
+                return parseDoubleSlow(b, from, to);
+            } else {
+                throw new NumberFormatException("Invalid number");
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Empty number");
+        }
+        double value;
+        if (mantissa <= MAX_EXACT_MANTISSA && scale < POW10.length) {
+            // Both operands are exact doubles, so one IEEE division is correctly rounded
+            value = mantissa / POW10[scale];
+        } else {
+            return parseDoubleSlow(b, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    static long parseLong(byte[] b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && b[i] == '-') {
+            negative = true;
+            i++;
+        }
+        if (i >= to || to - i > 18) {
+            throw new NumberFormatException("Invalid long");
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            byte c = b[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Invalid long");
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /** Writes a value with exactly two decimals (HALF_UP) and returns the new position. */
+    public static int writeFixed2(byte[] out, int pos, double value) {
+        long hundredths = Math.round(Math.abs(value) * 100.0);
+        if (value < 0 && hundredths != 0) {
+            out[pos++] = '-';
+        }
+        long whole = hundredths / 100;
+        int frac = (int) (hundredths % 100);
+
+        if (whole == 0) {
+            out[pos++] = '0';
+        } else {
+            int start = pos;
+            while (whole > 0) {
+                out[pos++] = (byte) ('0' + (whole % 10));
+                whole /= 10;
+            }
+            reverse(out, start, pos - 1);
+        }
+        out[pos++] = '.';
+        out[pos++] = (byte) ('0' + frac / 10);
+        out[pos++] = (byte) ('0' + frac % 10);
+        return pos;
+    }
+
+    /** Writes a decimal long and returns the new position. */
+    public static int writeLong(byte[] out, int pos, long value) {
+        if (value == Long.MIN_VALUE) {
+            byte[] min = ascii(Long.toString(value));
+            System.arraycopy(min, 0, out, pos, min.length);
+            return pos + min.length;
+        }
+        if (value < 0) {
+            out[pos++] = '-';
+            value = -value;
+        }
+        int start = pos;
+        do {
+            out[pos++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        reverse(out, start, pos - 1);
+        return pos;
+    }
+
+    /**
+     * Writes {@code value} as a quoted, escaped JSON string and returns the new
+     * position; {@code out} needs {@code 6 * value.length() + 2} bytes from
+     * {@code pos}. Allocates — keep off the per-record path.
+     */
+    public static int writeString(byte[] out, int pos, String value) {
+        out[pos++] = '"';
+        for (byte c : value.getBytes(StandardCharsets.UTF_8)) {
+            // Bytes of multi-byte sequences are all >= 0x80 and never need escaping
+            if (c == '"' || c == '\\') {
+                out[pos++] = '\\';
+                out[pos++] = c;
+            } else if (c >= 0 && c < 0x20) {
+                out[pos++] = '\\';
+                out[pos++] = 'u';
+                out[pos++] = '0';
+                out[pos++] = '0';
+                out[pos++] = HEX[c >> 4];
+                out[pos++] = HEX[c & 0xF];
+            } else {
+                out[pos++] = c;
+            }
+        }
+        out[pos++] = '"';
+        return pos;
+    }
+
+    // ------------------------------------------------------------------
+    // Internals
+    // ------------------------------------------------------------------
+
+    private static void assignNumber(byte[] json, int from, int to, int field, PaymentView view) {
+        if (field != F_AMOUNT && field != F_TIMESTAMP && field != F_RISK_SCORE) {
+            return;
+        }
+        if (field == F_RISK_SCORE) {
+            view.setRiskScoreSpan(from, to);
+        }
+        try {
+            switch (field) {
+                case F_AMOUNT -> view.setAmount(parseDouble(json, from, to));
+                case F_TIMESTAMP -> view.setTimestamp(parseLong(json, from, to));
+                default -> view.setRiskScore(parseDouble(json, from, to));
+            }
+        } catch (NumberFormatException e) {
+            // Malformed value — leave the field absent (amount reads as 0.0)
+        }
+    }
+
+    private static int fieldOf(byte[] json, int start, int length) {
+        switch (length) {
+            case 6:
+                if (matches(json, start, AMOUNT)) return F_AMOUNT;
+                if (matches(json, start, REGION)) return PaymentView.REGION;
+                if (matches(json, start, STATUS)) return PaymentView.STATUS;
+                return F_UNKNOWN;
+            case 8:
+                return matches(json, start, CURRENCY) ? PaymentView.CURRENCY : F_UNKNOWN;
+            case 9:
+                return matches(json, start, TIMESTAMP) ? F_TIMESTAMP : F_UNKNOWN;
+            case 10:
+                return matches(json, start, RISK_SCORE) ? F_RISK_SCORE : F_UNKNOWN;
+            case 11:
+                return matches(json, start, MERCHANT_ID) ? PaymentView.MERCHANT_ID : F_UNKNOWN;
+            case 14:
+                return matches(json, start, TRANSACTION_ID) ? PaymentView.TRANSACTION_ID : F_UNKNOWN;
+            case 18:
+                return matches(json, start, CARD_NUMBER_MASKED) ? PaymentView.CARD_NUMBER_MASKED : F_UNKNOWN;
+            default:
+                return F_UNKNOWN;
+        }
+    }
+
+    private static boolean matches(byte[] json, int start, byte[] name) {
+        return Arrays.equals(json, start, start + name.length, name, 0, name.length);
+    }
+
+    /** Returns the index of the closing quote of a string starting at {@code from}, or -1. */
+    private static int endOfString(byte[] json, int from, int n) {
+        for (int i = from; i < n; i++) {
+            byte c = json[i];
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Skips a nested object or array and returns the index after it, or -1. */
+    private static int skipNested(byte[] json, int from, int n) {
+        int depth = 0;
+        for (int i = from; i < n; i++) {
+            byte c = json[i];
+            if (c == '"') {
+                i = endOfString(json, i + 1, n);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] json, int from, int n) {
+        int i = from;
+        while (i < n) {
+            byte c = json[i];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /** The last non-whitespace byte at or before {@code from}. */
+    private static byte lastNonWhitespace(byte[] json, int from) {
+        int i = from;
+        while (i > 0 && (json[i] == ' ' || json[i] == '\t' || json[i] == '\n' || json[i] == '\r')) {
+            i--;
+        }
+        return json[i];
+    }
+
+    private static boolean isDelimiter(byte c) {
+        return c == ',' || c == '}' || c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static double parseDoubleSlow(byte[] b, int from, int to) {
+        return Double.parseDouble(new String(b, from, to - from, StandardCharsets.US_ASCII));
+    }
+
+    private static void reverse(byte[] b, int from, int to) {
+        while (from < to) {
+            byte tmp = b[from];
+            b[from++] = b[to];
+            b[to--] = tmp;
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
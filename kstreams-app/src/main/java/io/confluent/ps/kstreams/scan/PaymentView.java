@@ -0,0 +1,234 @@
+package io.confluent.ps.kstreams.scan;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable, mutable view over the fields of a single payment event.
+ *
+ * <p>Text fields are not copied: the view only remembers which buffer, offset
+ * and length hold the raw UTF-8 bytes of each value. Numeric fields are parsed
+ * once into primitives. One instance is meant to be reused for every record
+ * processed by a stream thread — call {@link #reset()} (or let
+ * {@link PaymentScanner#scan} do it) before filling it again.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class PaymentView {
+
+    public static final int TRANSACTION_ID = 0;
+    public static final int CARD_NUMBER_MASKED = 1;
+    public static final int CURRENCY = 2;
+    public static final int MERCHANT_ID = 3;
+    public static final int STATUS = 4;
+    public static final int REGION = 5;
+
+    // Merchant reference data, set by the scoring step rather than read from the payment
+    public static final int MERCHANT_MCC = 6;
+    public static final int MERCHANT_COUNTRY = 7;
+
+    static final int TEXT_FIELD_COUNT = 8;
+
+    private final byte[][] buffers = new byte[TEXT_FIELD_COUNT][];
+    private final int[] offsets = new int[TEXT_FIELD_COUNT];
+    private final int[] lengths = new int[TEXT_FIELD_COUNT];
+
+    private double amount;
+    private boolean hasAmount;
+    private long timestamp;
+    private boolean hasTimestamp;
+    private double riskScore;
+    private boolean hasRiskScore;
+    private int merchantRiskTier;
+
+    private byte[] source;
+    private int objectEnd = -1;
+    private int riskScoreFrom = -1;
+    private int riskScoreTo = -1;
+
+    private Object readFrom;
+
+    public void reset() {
+        Arrays.fill(buffers, null);
+        hasAmount = false;
+        hasTimestamp = false;
+        hasRiskScore = false;
+        amount = 0.0;
+        timestamp = 0L;
+        riskScore = 0.0;
+        merchantRiskTier = 0;
+        source = null;
+        objectEnd = -1;
+        riskScoreFrom = -1;
+        riskScoreTo = -1;
+        readFrom = null;
+    }
+
+    // ------------------------------------------------------------------
+    // Read once
+    // ------------------------------------------------------------------
+
+    /**
+     * Whether the view holds {@code value} as {@link #markReadFrom marked}.
+     * Lets later stages of the same record skip reading it again; compares by
+     * identity, so a value must not change once marked.
+     */
+    public boolean isReadFrom(Object value) {
+        return readFrom != null && readFrom == value;
+    }
+
+    /** Marks the view as read from {@code value}; cleared by {@link #reset()}. */
+    public void markReadFrom(Object value) {
+        readFrom = value;
+    }
+
+    // ------------------------------------------------------------------
+    // Text fields
+    // ------------------------------------------------------------------
+
+    public boolean has(int field) {
+        return buffers[field] != null;
+    }
+
+    /** Compares the raw bytes of a text field against a pre-encoded constant. */
+    public boolean textEquals(int field, byte[] expected) {
+        byte[] buf = buffers[field];
+        if (buf == null || lengths[field] != expected.length) {
+            return false;
+        }
+        int off = offsets[field];
+        return Arrays.equals(buf, off, off + lengths[field], expected, 0, expected.length);
+    }
+
+    /** Decodes a text field into a {@link String}. Allocates — keep off the per-record path. */
+    public String text(int field) {
+        byte[] buf = buffers[field];
+        if (buf == null) {
+            return null;
+        }
+        return new String(buf, offsets[field], lengths[field], StandardCharsets.UTF_8);
+    }
+
+    /** Copies the raw bytes of a text field (e.g. as a state-store key), or {@code null} when absent. */
+    public byte[] textBytes(int field) {
+        byte[] buf = buffers[field];
+        if (buf == null) {
+            return null;
+        }
+        return Arrays.copyOfRange(buf, offsets[field], offsets[field] + lengths[field]);
+    }
+
+    /**
+     * Hash of the raw bytes of a text field, stable across JVMs (used for
+     * partitioning); {@code 0} when absent. Does not allocate.
+     */
+    public int textHash(int field) {
+        byte[] buf = buffers[field];
+        if (buf == null) {
+            return 0;
+        }
+        return hash(buf, offsets[field], lengths[field]);
+    }
+
+    /** The {@link #textHash} function over raw UTF-8 bytes, e.g. to locate a key from outside a record. */
+    public static int hash(byte[] buf, int offset, int length) {
+        int h = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    public void setText(int field, byte[] buffer, int offset, int length) {
+        buffers[field] = buffer;
+        offsets[field] = offset;
+        lengths[field] = length;
+    }
+
+    // ------------------------------------------------------------------
+    // Numeric fields
+    // ------------------------------------------------------------------
+
+    public boolean hasAmount() {
+        return hasAmount;
+    }
+
+    /** Transaction amount, or {@code 0.0} when absent or malformed. */
+    public double amount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+        this.hasAmount = true;
+    }
+
+    public boolean hasTimestamp() {
+        return hasTimestamp;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+        this.hasTimestamp = true;
+    }
+
+    public boolean hasRiskScore() {
+        return hasRiskScore;
+    }
+
+    public double riskScore() {
+        return riskScore;
+    }
+
+    public void setRiskScore(double riskScore) {
+        this.riskScore = riskScore;
+        this.hasRiskScore = true;
+    }
+
+    /** Risk tier of the payment's merchant (1 low .. 3 high), or {@code 0} when unknown. */
+    public int merchantRiskTier() {
+        return merchantRiskTier;
+    }
+
+    public void setMerchantRiskTier(int merchantRiskTier) {
+        this.merchantRiskTier = merchantRiskTier;
+    }
+
+    // ------------------------------------------------------------------
+    // Source document (JSON only)
+    // ------------------------------------------------------------------
+
+    /** The JSON buffer the view was scanned from, or {@code null}. */
+    public byte[] source() {
+        return source;
+    }
+
+    /** Index of the closing brace of the scanned JSON object, or {@code -1}. */
+    public int objectEnd() {
+        return objectEnd;
+    }
+
+    void setSource(byte[] source, int objectEnd) {
+        this.source = source;
+        this.objectEnd = objectEnd;
+    }
+
+    /** Start of the raw {@code risk_score} value in the source, or {@code -1} when absent. */
+    int riskScoreFrom() {
+        return riskScoreFrom;
+    }
+
+    /** End (exclusive) of the raw {@code risk_score} value in the source. */
+    int riskScoreTo() {
+        return riskScoreTo;
+    }
+
+    void setRiskScoreSpan(int from, int to) {
+        this.riskScoreFrom = from;
+        this.riskScoreTo = to;
+    }
+}
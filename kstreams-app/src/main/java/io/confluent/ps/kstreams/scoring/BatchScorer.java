@@ -0,0 +1,61 @@
+package io.confluent.ps.kstreams.scoring;
+
+import io.confluent.ps.kstreams.rules.NumericField;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Properties;
+
+/**
+ * Scores a micro-batch of payments in one call — the hook for model-based
+ * scoring that benefits from batch inference.
+ *
+ * <p>Features are column-major: {@code features[f][r]} is
+ * {@link NumericField} {@code f} (by ordinal) of row {@code r}. Each column
+ * is a contiguous {@code double[]}, so per-feature loops over the rows
+ * compile to SIMD code. The arrays are sized to the batch capacity and reused;
+ * only rows {@code 0 .. rows-1} are valid.
+ *
+ * <p>On entry {@code scores[r]} holds the active rule set's score for row
+ * {@code r}; the scorer replaces it with the final risk score in {@code 0..1}.
+ * Implementations must not allocate per row or keep references to the arrays.
+ *
+ * <p>Selected with {@value #CONFIG}: {@code rules} (default, keeps the rule
+ * scores), {@code linear} ({@link LinearBatchScorer}) or the name of a class
+ * with a public {@code (Properties)} or no-arg constructor. One instance is
+ * created per stream task and only called from that task's stream thread.
+ */
+@FunctionalInterface
+public interface BatchScorer {
+
+    String CONFIG = "fraud.scoring.batch.scorer";
+
+    /** Keeps the rule-set scores unchanged. */
+    BatchScorer RULES = (features, rows, scores) -> { };
+
+    void score(double[][] features, int rows, double[] scores);
+
+    static BatchScorer create(Properties props) {
+        String name = props.getProperty(CONFIG, "rules").trim();
+        return switch (name) {
+            case "rules" -> RULES;
+            case "linear" -> new LinearBatchScorer(props);
+            default -> instantiate(name, props);
+        };
+    }
+
+    private static BatchScorer instantiate(String className, Properties props) {
+        try {
+            Class<? extends BatchScorer> type = Class.forName(className).asSubclass(BatchScorer.class);
+            try {
+                return type.getConstructor(Properties.class).newInstance(props);
+            } catch (NoSuchMethodException e) {
+                return type.getConstructor().newInstance();
+            }
+        } catch (ClassNotFoundException | ClassCastException | NoSuchMethodException
+                 | InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot use '" + className + "' as " + CONFIG + ": " + e, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException("Creating " + className + " failed: " + e.getCause(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.confluent.ps.kstreams.scoring;
+
+import java.util.Properties;
+
+/**
+ * Micro-batching of the {@code enrich-risk-score} step ({@code fraud.scoring.batch.*}).
+ *
+ * <pre>
+ * fraud.scoring.batch.enabled=false      per-record scoring when false
+ * fraud.scoring.batch.max.records=256    a task scores as soon as this many payments are buffered
+ * fraud.scoring.batch.max.wait.ms=20     ... or at the latest this long (wall clock) after buffering started
+ * fraud.scoring.batch.scorer=rules       see {@link BatchScorer}
+ * </pre>
+ * {@code max.wait.ms} is added to the end-to-end latency of a payment at low
+ * volume; at high volume batches fill up first.
+ */
+public record BatchScoringSettings(boolean enabled, int maxRecords, long maxWaitMs) {
+
+    public static final String PREFIX = "fraud.scoring.batch.";
+    public static final String ENABLED_CONFIG = PREFIX + "enabled";
+    public static final String MAX_RECORDS_CONFIG = PREFIX + "max.records";
+    public static final String MAX_WAIT_MS_CONFIG = PREFIX + "max.wait.ms";
+
+    public BatchScoringSettings {
+        if (maxRecords < 1) {
+            throw new IllegalArgumentException(MAX_RECORDS_CONFIG + " must be positive: " + maxRecords);
+        }
+        if (maxWaitMs < 1) {
+            throw new IllegalArgumentException(MAX_WAIT_MS_CONFIG + " must be positive: " + maxWaitMs);
+        }
+    }
+
+    public static BatchScoringSettings from(Properties props) {
+        return new BatchScoringSettings(
+                Boolean.parseBoolean(props.getProperty(ENABLED_CONFIG, "false").trim()),
+                Integer.parseInt(props.getProperty(MAX_RECORDS_CONFIG, "256").trim()),
+                Long.parseLong(props.getProperty(MAX_WAIT_MS_CONFIG, "20").trim()));
+    }
+}
@@ -0,0 +1,83 @@
+package io.confluent.ps.kstreams.scoring;
+
+import io.confluent.ps.kstreams.rules.NumericField;
+
+import java.util.Properties;
+
+/**
+ * Logistic-regression scorer over the rule score and the numeric features:
+ * {@code sigmoid(bias + rules.weight * ruleScore + sum(weight[f] * feature[f]))}.
+ * A stand-in for a trained model, with coefficients from configuration:
+ *
+ * <pre>
+ * fraud.scoring.linear.bias=-3.0
+ * fraud.scoring.linear.rules.weight=6.0
+ * fraud.scoring.linear.weight.&lt;field&gt;=0.0    per {@link NumericField#ruleName()}, e.g. weight.card.count.1m
+ * </pre>
+ *
+ * <p>The sum is accumulated one feature column at a time over all rows
+ * ({@code scores[r] += w * column[r]}), a loop the JIT vectorises; features
+ * with weight 0 are skipped.
+ */
+public final class LinearBatchScorer implements BatchScorer {
+
+    public static final String PREFIX = "fraud.scoring.linear.";
+
+    private final double bias;
+    private final double rulesWeight;
+    private final double[] weights;
+
+    public LinearBatchScorer(double bias, double rulesWeight, double[] weights) {
+        if (weights.length != NumericField.COUNT) {
+            throw new IllegalArgumentException("Expected " + NumericField.COUNT + " weights, got " + weights.length);
+        }
+        this.bias = bias;
+        this.rulesWeight = rulesWeight;
+        this.weights = weights.clone();
+    }
+
+    /** Coefficients from {@code fraud.scoring.linear.*}. */
+    public LinearBatchScorer(Properties props) {
+        this(number(props, "bias", -3.0), number(props, "rules.weight", 6.0), weights(props));
+    }
+
+    @Override
+    public void score(double[][] features, int rows, double[] scores) {
+        for (int r = 0; r < rows; r++) {
+            scores[r] = bias + rulesWeight * scores[r];
+        }
+        for (int f = 0; f < weights.length; f++) {
+            double w = weights[f];
+            if (w == 0.0) {
+                continue;
+            }
+            double[] column = features[f];
+            for (int r = 0; r < rows; r++) {
+                scores[r] += w * column[r];
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            scores[r] = 1.0 / (1.0 + Math.exp(-scores[r]));
+        }
+    }
+
+    private static double[] weights(Properties props) {
+        double[] weights = new double[NumericField.COUNT];
+        for (NumericField field : NumericField.values()) {
+            weights[field.ordinal()] = number(props, "weight." + field.ruleName(), 0.0);
+        }
+        return weights;
+    }
+
+    private static double number(Properties props, String key, double defaultValue) {
+        String value = props.getProperty(PREFIX + key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(PREFIX + key + " is not a number: '" + value + "'", e);
+        }
+    }
+}
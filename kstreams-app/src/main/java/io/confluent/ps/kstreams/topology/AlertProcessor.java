@@ -0,0 +1,43 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+/**
+ * Turns a flagged payment into its alert and records the alert latency of
+ * its lane: wall clock (the task's cached time) minus the payment's record
+ * timestamp, which the repartition and fast-lane topics carry along.
+ */
+final class AlertProcessor<V, A> implements FixedKeyProcessor<String, V, A> {
+
+    private final PaymentCodec<V, A> codec;
+    private final PipelineMetrics metrics;
+    private final boolean fastLane;
+
+    private FixedKeyProcessorContext<String, A> context;
+
+    AlertProcessor(PaymentCodec<V, A> codec, PipelineMetrics metrics, boolean fastLane) {
+        this.codec = codec;
+        this.metrics = metrics;
+        this.fastLane = fastLane;
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, A> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        // Usually already read by the branch predicates, right before on this thread
+        PaymentView view = FraudDetectionTopology.VIEW.get();
+        codec.readOnce(record.value(), view);
+        A alert = codec.toAlert(record.value(), view);
+        metrics.recordAlertLatency(fastLane, context.currentSystemTimeMs() - record.timestamp());
+        context.forward(record.withValue(alert));
+    }
+}
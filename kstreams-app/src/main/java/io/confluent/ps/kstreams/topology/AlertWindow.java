@@ -0,0 +1,60 @@
+package io.confluent.ps.kstreams.topology;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flagged payments of one card within one alert window, reduced to what the
+ * consolidated alert needs; see {@link AlertWindowSettings}.
+ *
+ * @param topTransactionId the payment with the highest score (the first one seen on a tie)
+ */
+record AlertWindow(int count, double maxScore, double totalAmount, String topTransactionId) {
+
+    private static final int FIXED_BYTES = Integer.BYTES + 2 * Double.BYTES + Integer.BYTES;
+
+    static final Serde<AlertWindow> SERDE = Serdes.serdeFrom(
+            (Serializer<AlertWindow>) (topic, window) -> window == null ? null : window.encode(),
+            (Deserializer<AlertWindow>) (topic, bytes) -> bytes == null ? null : decode(bytes));
+
+    /** A window of one flagged payment. */
+    static AlertWindow of(String transactionId, double amount, double score) {
+        return new AlertWindow(1, score, amount, transactionId);
+    }
+
+    /** Both windows together; used to add a payment as well as to merge sessions. */
+    AlertWindow merge(AlertWindow other) {
+        AlertWindow top = other.maxScore > maxScore ? other : this;
+        return new AlertWindow(count + other.count, top.maxScore, totalAmount + other.totalAmount,
+                top.topTransactionId);
+    }
+
+    private byte[] encode() {
+        byte[] txn = topTransactionId == null ? new byte[0] : topTransactionId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(FIXED_BYTES + txn.length)
+                .putInt(count).putDouble(maxScore).putDouble(totalAmount)
+                .putInt(txn.length).put(txn)
+                .array();
+    }
+
+    private static AlertWindow decode(byte[] bytes) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            int count = in.getInt();
+            double maxScore = in.getDouble();
+            double totalAmount = in.getDouble();
+            byte[] txn = new byte[in.getInt()];
+            in.get(txn);
+            return new AlertWindow(count, maxScore, totalAmount, new String(txn, StandardCharsets.UTF_8));
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new SerializationException("Malformed alert window of " + bytes.length + " bytes", e);
+        }
+    }
+}
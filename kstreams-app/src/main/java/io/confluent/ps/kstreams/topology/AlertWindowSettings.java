@@ -0,0 +1,95 @@
+package io.confluent.ps.kstreams.topology;
+
+import org.apache.kafka.streams.kstream.Suppressed;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Consolidated alerts per card and event-time window ({@code fraud.alerts.window.*}).
+ *
+ * <pre>
+ * fraud.alerts.window.enabled=false
+ * fraud.alerts.window.type=tumbling                tumbling | session
+ * fraud.alerts.window.size.ms=60000                window size, or the session inactivity gap
+ * fraud.alerts.window.grace.ms=10000               how late (in event time) a payment may still join
+ * fraud.alerts.window.buffer.max.bytes=16777216    suppression buffer per task
+ * fraud.alerts.window.buffer.max.records=100000
+ * </pre>
+ * When enabled, flagged payments are no longer written to {@code fraud-alerts}
+ * one by one: they are counted per card in windows over the payment's own
+ * {@code timestamp} ({@link PaymentTimestampExtractor}), and each window
+ * produces a single alert (count, max score, total amount) once it has closed,
+ * i.e. once stream time passed its end plus the grace period. A card-testing
+ * attack of thousands of payments then costs its downstream consumers one
+ * record per card and window.
+ *
+ * <p>The suppression buffer holds the open windows. It is bounded, and a
+ * final-results buffer cannot emit early, so an instance that exceeds it stops
+ * with an error rather than alert incompletely: size it for the number of
+ * cards that can be flagged within one window plus grace (about 150 bytes
+ * each).
+ */
+public record AlertWindowSettings(boolean enabled, Type type, long sizeMs, long graceMs,
+                                  long bufferMaxBytes, long bufferMaxRecords) {
+
+    public enum Type { TUMBLING, SESSION }
+
+    public static final String PREFIX = "fraud.alerts.window.";
+    public static final String ENABLED_CONFIG = PREFIX + "enabled";
+    public static final String TYPE_CONFIG = PREFIX + "type";
+    public static final String SIZE_MS_CONFIG = PREFIX + "size.ms";
+    public static final String GRACE_MS_CONFIG = PREFIX + "grace.ms";
+    public static final String BUFFER_MAX_BYTES_CONFIG = PREFIX + "buffer.max.bytes";
+    public static final String BUFFER_MAX_RECORDS_CONFIG = PREFIX + "buffer.max.records";
+
+    public AlertWindowSettings {
+        if (type == null) {
+            throw new IllegalArgumentException(TYPE_CONFIG + " must be tumbling or session");
+        }
+        if (sizeMs < 1) {
+            throw new IllegalArgumentException(SIZE_MS_CONFIG + " must be positive: " + sizeMs);
+        }
+        if (graceMs < 0) {
+            throw new IllegalArgumentException(GRACE_MS_CONFIG + " must not be negative: " + graceMs);
+        }
+        if (bufferMaxBytes < 1) {
+            throw new IllegalArgumentException(BUFFER_MAX_BYTES_CONFIG + " must be positive: " + bufferMaxBytes);
+        }
+        if (bufferMaxRecords < 1) {
+            throw new IllegalArgumentException(BUFFER_MAX_RECORDS_CONFIG + " must be positive: " + bufferMaxRecords);
+        }
+    }
+
+    public static AlertWindowSettings from(Properties props) {
+        String type = props.getProperty(TYPE_CONFIG, "tumbling").trim().toUpperCase(Locale.ROOT);
+        return new AlertWindowSettings(
+                Boolean.parseBoolean(props.getProperty(ENABLED_CONFIG, "false").trim()),
+                switch (type) {
+                    case "TUMBLING" -> Type.TUMBLING;
+                    case "SESSION" -> Type.SESSION;
+                    default -> throw new IllegalArgumentException(
+                            TYPE_CONFIG + " must be tumbling or session: " + type.toLowerCase(Locale.ROOT));
+                },
+                Long.parseLong(props.getProperty(SIZE_MS_CONFIG, "60000").trim()),
+                Long.parseLong(props.getProperty(GRACE_MS_CONFIG, "10000").trim()),
+                Long.parseLong(props.getProperty(BUFFER_MAX_BYTES_CONFIG, "16777216").trim()),
+                Long.parseLong(props.getProperty(BUFFER_MAX_RECORDS_CONFIG, "100000").trim()));
+    }
+
+    Duration size() {
+        return Duration.ofMillis(sizeMs);
+    }
+
+    Duration grace() {
+        return Duration.ofMillis(graceMs);
+    }
+
+    /** Final results only, from a bounded buffer. */
+    Suppressed.StrictBufferConfig bufferConfig() {
+        return Suppressed.BufferConfig.maxBytes(bufferMaxBytes)
+                .withMaxRecords(bufferMaxRecords)
+                .shutDownWhenFull();
+    }
+}
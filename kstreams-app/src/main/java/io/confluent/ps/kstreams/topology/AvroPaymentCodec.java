@@ -0,0 +1,141 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.kafka.streams.serdes.avro.SpecificAvroSerde;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.scan.PaymentView;
+import io.confluent.ps.model.FraudAlert;
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.model.PaymentStatus;
+
+import org.apache.avro.util.Utf8;
+import org.apache.kafka.common.serialization.Serde;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Binary Avro wire format using the generated {@link Payment} and
+ * {@link FraudAlert} records and Schema Registry.
+ *
+ * <p>Text fields deserialized as {@link Utf8} are exposed to the view without
+ * copying. Use {@code schema.registry.url=mock://<scope>} in tests.
+ */
+final class AvroPaymentCodec implements PaymentCodec<Payment, FraudAlert> {
+
+    private static final byte[][] STATUS_BYTES = new byte[PaymentStatus.values().length][];
+
+    static {
+        for (PaymentStatus status : PaymentStatus.values()) {
+            STATUS_BYTES[status.ordinal()] = status.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final Serde<Payment> paymentSerde;
+    private final Serde<FraudAlert> alertSerde;
+    private final RuleEngine rules;
+
+    AvroPaymentCodec(Properties props, RuleEngine rules) {
+        this.rules = rules;
+        Map<String, Object> serdeConfig = new HashMap<>();
+        props.stringPropertyNames().forEach(k -> serdeConfig.put(k, props.getProperty(k)));
+
+        this.paymentSerde = new SpecificAvroSerde<>();
+        this.paymentSerde.configure(serdeConfig, false);
+        this.alertSerde = new SpecificAvroSerde<>();
+        this.alertSerde.configure(serdeConfig, false);
+    }
+
+    @Override
+    public Serde<Payment> paymentSerde() {
+        return paymentSerde;
+    }
+
+    @Override
+    public Serde<FraudAlert> alertSerde() {
+        return alertSerde;
+    }
+
+    @Override
+    public boolean read(Payment payment, PaymentView view) {
+        view.reset();
+        if (payment == null) {
+            return false;
+        }
+        setText(view, PaymentView.TRANSACTION_ID, payment.getTransactionId());
+        setText(view, PaymentView.CARD_NUMBER_MASKED, payment.getCardNumberMasked());
+        setText(view, PaymentView.CURRENCY, payment.getCurrency());
+        setText(view, PaymentView.MERCHANT_ID, payment.getMerchantId());
+        setText(view, PaymentView.REGION, payment.getRegion());
+        if (payment.getStatus() != null) {
+            byte[] status = STATUS_BYTES[payment.getStatus().ordinal()];
+            view.setText(PaymentView.STATUS, status, 0, status.length);
+        }
+        view.setAmount(payment.getAmount());
+        view.setTimestamp(payment.getTimestamp());
+        if (payment.getRiskScore() != null) {
+            view.setRiskScore(payment.getRiskScore());
+        }
+        return true;
+    }
+
+    /**
+     * Copies the record with the score set. The deserialized value is shared
+     * by every child of the source node (the fast-lane selector and the
+     * velocity/scoring path), so it is never modified.
+     */
+    @Override
+    public Payment withRiskScore(Payment payment, PaymentView view, double riskScore) {
+        return Payment.newBuilder(payment).setRiskScore(riskScore).build();
+    }
+
+    @Override
+    public FraudAlert toAlert(Payment scored, PaymentView view) {
+        String txnId = String.valueOf(scored.getTransactionId());
+        return FraudAlert.newBuilder()
+                // Deterministic id: a replayed payment yields the same alert id (EOS-friendly)
+                .setAlertId(UUID.nameUUIDFromBytes(
+                        ("fraud-alert:" + txnId).getBytes(StandardCharsets.UTF_8)).toString())
+                .setTransactionId(txnId)
+                .setCardNumberMasked(scored.getCardNumberMasked())
+                .setAmount(scored.getAmount())
+                .setReason(FraudDetectionTopology.describeRisk(rules, view))
+                .setRiskScore(view.riskScore())
+                // The payment's event time, so a replayed payment yields the same alert
+                .setTimestamp(scored.getTimestamp())
+                .build();
+    }
+
+    @Override
+    public FraudAlert toWindowAlert(String card, long windowStart, long windowEnd, AlertWindow window) {
+        return FraudAlert.newBuilder()
+                // One alert per card and window, also when replayed
+                .setAlertId(UUID.nameUUIDFromBytes(("fraud-alert-window:" + card + ":" + windowStart)
+                        .getBytes(StandardCharsets.UTF_8)).toString())
+                .setTransactionId(window.topTransactionId())
+                .setCardNumberMasked(card)
+                .setAmount(window.totalAmount())
+                .setReason(window.count() + " flagged payments, highest risk " + window.topTransactionId())
+                .setRiskScore(window.maxScore())
+                // Event time like the window itself, so a replay produces the same alert
+                .setTimestamp(windowEnd)
+                .setPaymentCount(window.count())
+                .setWindowStart(windowStart)
+                .setWindowEnd(windowEnd)
+                .build();
+    }
+
+    private static void setText(PaymentView view, int field, CharSequence value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Utf8 utf8) {
+            view.setText(field, utf8.getBytes(), 0, utf8.getByteLength());
+        } else {
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            view.setText(field, bytes, 0, bytes.length);
+        }
+    }
+}
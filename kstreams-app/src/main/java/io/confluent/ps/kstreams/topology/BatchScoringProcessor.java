@@ -0,0 +1,292 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.merchant.MerchantCatalog;
+import io.confluent.ps.kstreams.merchant.MerchantNearCache;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.rules.CompiledRules;
+import io.confluent.ps.kstreams.rules.NumericField;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.scan.PaymentView;
+import io.confluent.ps.kstreams.scoring.BatchScorer;
+import io.confluent.ps.kstreams.scoring.BatchScoringSettings;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.TreeMap;
+
+/**
+ * Micro-batched variant of {@link RiskScoringProcessor}: buffers up to
+ * {@code max.records} payments per task and scores them together — the rule
+ * set row by row, then one {@link BatchScorer} call over column-major
+ * {@code double[]} features — when the buffer is full or on a wall-clock
+ * punctuation every {@code max.wait.ms}. Results are forwarded in arrival
+ * order with each payment's own key, timestamp and headers.
+ *
+ * <p>Every buffered payment is also written to {@link #BUFFER_STORE}, an
+ * in-memory store with a changelog. A commit can therefore happen while
+ * payments sit in the buffer: their input offsets are committed together with
+ * the store (in the same transaction under {@code exactly_once_v2}), and
+ * after a crash or migration the new owner reloads them in {@link #init} and
+ * scores them on its first punctuation. Slots are overwritten batch after
+ * batch and a flushed-through sequence number marks what was already
+ * forwarded, so the changelog gets one write per payment plus one per batch
+ * and stays at {@code max.records + 1} keys after compaction.
+ */
+final class BatchScoringProcessor<V> implements Processor<String, V, String, V> {
+
+    static final String BUFFER_STORE = "enrich-risk-score-buffer";
+
+    /** Store key of the sequence number of the last forwarded payment; slots are 0..n-1. */
+    private static final int FLUSHED_KEY = -1;
+
+    private final PaymentCodec<V, ?> codec;
+    private final RuleEngine rules;
+    private final BatchScorer scorer;
+    private final PipelineMetrics metrics;
+    private final BatchScoringSettings settings;
+    private final MerchantCatalog merchants;
+    private final Serializer<V> valueSerializer;
+    private final Deserializer<V> valueDeserializer;
+    private final VelocityFeatures card = new VelocityFeatures();
+    private final VelocityFeatures merchant = new VelocityFeatures();
+    private final double[] row = new double[NumericField.COUNT];
+
+    private ProcessorContext<String, V> context;
+    private KeyValueStore<Integer, byte[]> buffer;
+    private MerchantNearCache merchantCache;
+
+    // One slot per buffered payment, reused batch after batch
+    private String[] keys;
+    private Object[] values;
+    private long[] timestamps;
+    private Headers[] headers;
+    private PaymentView[] views;
+    private boolean[] readable;
+    private double[][] features;
+    private double[] scores;
+    private double[] ruleScores;
+    private int size;
+    private long lastSeq;
+
+    BatchScoringProcessor(PaymentCodec<V, ?> codec, RuleEngine rules, BatchScorer scorer,
+                          BatchScoringSettings settings, MerchantCatalog merchants, PipelineMetrics metrics) {
+        this.codec = codec;
+        this.rules = rules;
+        this.scorer = scorer;
+        this.settings = settings;
+        this.merchants = merchants;
+        this.metrics = metrics;
+        this.valueSerializer = codec.paymentSerde().serializer();
+        this.valueDeserializer = codec.paymentSerde().deserializer();
+    }
+
+    /** The buffer is small and rewritten constantly, so it lives in memory; the changelog makes it durable. */
+    static StoreBuilder<KeyValueStore<Integer, byte[]>> storeBuilder() {
+        return Stores.keyValueStoreBuilder(Stores.inMemoryKeyValueStore(BUFFER_STORE),
+                Serdes.Integer(), Serdes.ByteArray());
+    }
+
+    @Override
+    public void init(ProcessorContext<String, V> context) {
+        this.context = context;
+        this.buffer = context.getStateStore(BUFFER_STORE);
+        if (merchants != null) {
+            merchantCache = merchants.nearCache(context.getStateStore(MerchantCatalog.STORE_NAME), metrics);
+        }
+
+        TreeMap<Long, byte[]> pending = unflushed();
+        // Room for everything reloaded (max.records may have shrunk) plus the next payment, which then flushes
+        allocate(Math.max(settings.maxRecords(), pending.size() + 1));
+        for (byte[] encoded : pending.values()) {
+            // Re-buffer in sequence order; the slots move, stale copies keep their (flushed) sequence numbers
+            ByteBuffer in = ByteBuffer.wrap(encoded);
+            in.getLong();
+            long timestamp = in.getLong();
+            String key = readString(in);
+            V value = valueDeserializer.deserialize(FraudDetectionTopology.INPUT_TOPIC, readBytes(in));
+            Headers restored = new RecordHeaders();
+            for (int n = in.getInt(); n > 0; n--) {
+                restored.add(readString(in), readBytes(in));
+            }
+            buffer.put(size, encoded);
+            admit(key, value, timestamp, restored);
+        }
+        // Forwarding is not allowed in init(); reloaded payments go out on the first punctuation
+        context.schedule(Duration.ofMillis(settings.maxWaitMs()), PunctuationType.WALL_CLOCK_TIME, now -> flush());
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        Headers copy = new RecordHeaders(record.headers().toArray());
+        buffer.put(size, encode(++lastSeq, record.key(), record.value(), record.timestamp(), copy));
+        admit(record.key(), record.value(), record.timestamp(), copy);
+        if (size >= settings.maxRecords()) {
+            flush();
+        }
+    }
+
+    /**
+     * Takes the velocity headers off and fills slot {@code size} with the payment's fields, its merchant's
+     * reference data and the features.
+     */
+    private void admit(String key, V value, long timestamp, Headers recordHeaders) {
+        int slot = size++;
+        card.readFrom(recordHeaders, VelocityFeatures.CARD_HEADER);
+        merchant.readFrom(recordHeaders, VelocityFeatures.MERCHANT_HEADER);
+        keys[slot] = key;
+        values[slot] = value;
+        timestamps[slot] = timestamp;
+        headers[slot] = recordHeaders;
+        // Without a valid amount there is nothing to score; it is left for the invalid branch
+        readable[slot] = codec.read(value, views[slot]) && views[slot].hasAmount();
+        if (readable[slot] && merchantCache != null) {
+            merchantCache.enrich(views[slot]);
+        }
+        FraudDetectionTopology.fillInputs(row, views[slot], card, merchant);
+        for (int f = 0; f < row.length; f++) {
+            features[f][slot] = row[f];
+        }
+    }
+
+    /** Scores and forwards everything buffered, in arrival order. */
+    private void flush() {
+        int rows = size;
+        if (rows == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        CompiledRules compiled = rules.current();
+        for (int r = 0; r < rows; r++) {
+            for (int f = 0; f < row.length; f++) {
+                row[f] = features[f][r];
+            }
+            scores[r] = readable[r] ? compiled.score(views[r], row) : 0.0;
+        }
+        System.arraycopy(scores, 0, ruleScores, 0, rows);
+        scorer.score(features, rows, scores);
+        long perRecord = (System.nanoTime() - start) / rows;
+
+        long now = context.currentSystemTimeMs();
+        for (int r = 0; r < rows; r++) {
+            @SuppressWarnings("unchecked")
+            V value = (V) values[r];
+            if (readable[r]) {
+                double score = scores[r];
+                // A scorer bug must not turn into unscored payments: NaN falls back to the rules
+                score = Double.isNaN(score) ? ruleScores[r] : Math.min(1.0, Math.max(0.0, score));
+                value = FraudDetectionTopology.attachRiskScore(codec, keys[r], value, views[r], score);
+            }
+            metrics.recordScoring(perRecord);
+            metrics.recordEventTimeLag(now - timestamps[r]);
+            context.forward(new Record<>(keys[r], value, timestamps[r], headers[r]));
+            keys[r] = null;
+            values[r] = null;
+            headers[r] = null;
+        }
+        metrics.recordScoringBatch(rows);
+        size = 0;
+        buffer.put(FLUSHED_KEY, ByteBuffer.allocate(Long.BYTES).putLong(lastSeq).array());
+    }
+
+    /** Buffered payments not yet forwarded, by sequence number; also restores {@link #lastSeq}. */
+    private TreeMap<Long, byte[]> unflushed() {
+        byte[] mark = buffer.get(FLUSHED_KEY);
+        long flushed = mark == null ? 0L : ByteBuffer.wrap(mark).getLong();
+        lastSeq = flushed;
+        TreeMap<Long, byte[]> pending = new TreeMap<>();
+        try (KeyValueIterator<Integer, byte[]> it = buffer.all()) {
+            while (it.hasNext()) {
+                KeyValue<Integer, byte[]> entry = it.next();
+                if (entry.key == FLUSHED_KEY) {
+                    continue;
+                }
+                long seq = ByteBuffer.wrap(entry.value).getLong();
+                lastSeq = Math.max(lastSeq, seq);
+                if (seq > flushed) {
+                    pending.put(seq, entry.value);
+                }
+            }
+        }
+        return pending;
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new Object[capacity];
+        timestamps = new long[capacity];
+        headers = new Headers[capacity];
+        views = new PaymentView[capacity];
+        for (int i = 0; i < capacity; i++) {
+            views[i] = new PaymentView();
+        }
+        readable = new boolean[capacity];
+        features = new double[NumericField.COUNT][capacity];
+        scores = new double[capacity];
+        ruleScores = new double[capacity];
+    }
+
+    /** {@code seq, timestamp, key, value, headers}; lengths are -1 for null. */
+    private byte[] encode(long seq, String key, V value, long timestamp, Headers recordHeaders) {
+        byte[] keyBytes = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = valueSerializer.serialize(FraudDetectionTopology.INPUT_TOPIC, value);
+        Header[] all = recordHeaders.toArray();
+        int length = 2 * Long.BYTES + 3 * Integer.BYTES + length(keyBytes) + length(valueBytes);
+        for (Header header : all) {
+            length += 2 * Integer.BYTES + header.key().getBytes(StandardCharsets.UTF_8).length
+                    + length(header.value());
+        }
+        ByteBuffer out = ByteBuffer.allocate(length).putLong(seq).putLong(timestamp);
+        writeBytes(out, keyBytes);
+        writeBytes(out, valueBytes);
+        out.putInt(all.length);
+        for (Header header : all) {
+            writeBytes(out, header.key().getBytes(StandardCharsets.UTF_8));
+            writeBytes(out, header.value());
+        }
+        return out.array();
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void writeBytes(ByteBuffer out, byte[] bytes) {
+        if (bytes == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,73 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decides, right after the source, which payments take the fast lane (see
+ * {@link FastLaneSettings}) and marks them with a {@link #HEADER} carrying
+ * the score that flagged them. Every payment is forwarded: marked ones still
+ * run through the velocity stages, so the card and merchant counts stay
+ * complete, and are taken out again before the main lane's sinks
+ * ({@link LaneSelector}).
+ *
+ * <p>Low-value payments — the bulk — cost one amount comparison. Only those
+ * above the threshold are scored, against the same rule set as the main lane
+ * but without velocity.
+ */
+final class FastLaneRouter<V> implements FixedKeyProcessor<String, V, V> {
+
+    static final String HEADER = "fraud.lane.fast";
+
+    private final PaymentCodec<V, ?> codec;
+    private final RuleEngine rules;
+    private final double amountThreshold;
+    private final PipelineMetrics metrics;
+    private final PaymentView view = new PaymentView();
+
+    private FixedKeyProcessorContext<String, V> context;
+
+    FastLaneRouter(PaymentCodec<V, ?> codec, RuleEngine rules, double amountThreshold, PipelineMetrics metrics) {
+        this.codec = codec;
+        this.rules = rules;
+        this.amountThreshold = amountThreshold;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        if (codec.read(record.value(), view) && view.amount() > amountThreshold) {
+            double score = FraudDetectionTopology.computeRiskScore(
+                    rules.current(), view, VelocityFeatures.NONE, VelocityFeatures.NONE);
+            if (FraudDetectionTopology.isAlert(score)) {
+                record.headers().remove(HEADER);
+                record.headers().add(HEADER, ByteBuffer.allocate(Double.BYTES).putDouble(score).array());
+                metrics.recordBranch(true);
+            }
+        }
+        context.forward(record);
+    }
+
+    /** The score a payment was routed with, or {@code NaN} if it is not on the fast lane. */
+    static double fastLaneScore(Headers headers) {
+        Header header = headers.lastHeader(HEADER);
+        if (header == null || header.value() == null || header.value().length != Double.BYTES) {
+            return Double.NaN;
+        }
+        return ByteBuffer.wrap(header.value()).getDouble();
+    }
+}
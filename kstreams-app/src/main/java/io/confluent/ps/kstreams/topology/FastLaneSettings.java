@@ -0,0 +1,73 @@
+package io.confluent.ps.kstreams.topology;
+
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.util.Properties;
+
+/**
+ * Priority lane for obvious fraud ({@code fraud.fastlane.*}).
+ *
+ * <pre>
+ * fraud.fastlane.enabled=false
+ * fraud.fastlane.amount.threshold=1000   only payments above this amount are considered
+ * fraud.fastlane.topic=fraud-fast-lane   carries them from the main topology to the fast lane
+ * fraud.fastlane.threads=1               stream threads of the fast-lane instance
+ * </pre>
+ * A payment takes the fast lane when its amount is above the threshold and
+ * its own fields, without velocity, already score above the alert threshold.
+ * Rule scores are non-negative ({@code RuleSetParser}) and only add up, so
+ * velocity cannot undo such an alert; it is decided at the source
+ * and produced by {@link FastLaneTopology}, which runs in its own
+ * {@code KafkaStreams} instance ({@link #streamsConfig}) and so never waits
+ * behind the main lane's backlog.
+ */
+public record FastLaneSettings(boolean enabled, double amountThreshold, String topic, int threads) {
+
+    public static final String PREFIX = "fraud.fastlane.";
+    public static final String ENABLED_CONFIG = PREFIX + "enabled";
+    public static final String AMOUNT_THRESHOLD_CONFIG = PREFIX + "amount.threshold";
+    public static final String TOPIC_CONFIG = PREFIX + "topic";
+    public static final String THREADS_CONFIG = PREFIX + "threads";
+
+    static final String DEFAULT_TOPIC = "fraud-fast-lane";
+
+    public FastLaneSettings {
+        if (!Double.isFinite(amountThreshold) || amountThreshold < 0) {
+            throw new IllegalArgumentException(AMOUNT_THRESHOLD_CONFIG + " must be a non-negative amount: "
+                    + amountThreshold);
+        }
+        if (topic == null || topic.isBlank()) {
+            throw new IllegalArgumentException(TOPIC_CONFIG + " must not be empty");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException(THREADS_CONFIG + " must be positive: " + threads);
+        }
+    }
+
+    public static FastLaneSettings from(Properties props) {
+        return new FastLaneSettings(
+                Boolean.parseBoolean(props.getProperty(ENABLED_CONFIG, "false").trim()),
+                Double.parseDouble(props.getProperty(AMOUNT_THRESHOLD_CONFIG, "1000").trim()),
+                props.getProperty(TOPIC_CONFIG, DEFAULT_TOPIC).trim(),
+                Integer.parseInt(props.getProperty(THREADS_CONFIG, "1").trim()));
+    }
+
+    /**
+     * Config of the fast-lane instance: {@code props} under the application id
+     * {@code <application.id>-fast-lane}, with its own thread count. It has no
+     * state to query, so it does not advertise {@code application.server}.
+     */
+    public Properties streamsConfig(Properties props) {
+        Properties fast = new Properties();
+        fast.putAll(props);
+        fast.put(StreamsConfig.APPLICATION_ID_CONFIG,
+                props.getProperty(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-app") + "-fast-lane");
+        fast.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, Integer.toString(threads));
+        fast.remove(StreamsConfig.APPLICATION_SERVER_CONFIG);
+        String clientId = props.getProperty(StreamsConfig.CLIENT_ID_CONFIG);
+        if (clientId != null) {
+            fast.put(StreamsConfig.CLIENT_ID_CONFIG, clientId + "-fast-lane");
+        }
+        return fast;
+    }
+}
@@ -0,0 +1,63 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.config.PaymentFormat;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Produced;
+
+import java.util.Properties;
+
+/**
+ * The fast lane: payments already scored and flagged by
+ * {@link FastLaneRouter} in the main topology, read from
+ * {@code fraud.fastlane.topic} and written to {@code fraud-alerts}.
+ *
+ * <pre>
+ *   fraud-fast-lane (scored, flagged)
+ *     -> to alert (records fraud_alert_latency_fast_lane_seconds)
+ *     -> stamp trace egress (see {@link TraceProcessor})
+ *     -> fraud-alerts
+ * </pre>
+ *
+ * Stateless and tiny on purpose. It runs as its own {@code KafkaStreams}
+ * instance with {@code fraud.fastlane.threads} threads (see
+ * {@link FastLaneSettings#streamsConfig}), so its consumers never queue
+ * behind the main lane's velocity stages, scoring or approved-payments
+ * backlog.
+ */
+public final class FastLaneTopology {
+
+    private FastLaneTopology() {}
+
+    public static Topology build(Properties props, RuleEngine rules, PipelineMetrics metrics) {
+        props.putIfAbsent(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG,
+                Serdes.StringSerde.class.getName());
+        props.putIfAbsent(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG,
+                Serdes.StringSerde.class.getName());
+
+        FastLaneSettings settings = FastLaneSettings.from(props);
+        return switch (PaymentFormat.from(props)) {
+            case AVRO -> build(new AvroPaymentCodec(props, rules), settings, metrics);
+            case JSON -> build(JsonPaymentCodec.INSTANCE, settings, metrics);
+        };
+    }
+
+    private static <V, A> Topology build(PaymentCodec<V, A> codec, FastLaneSettings settings,
+                                         PipelineMetrics metrics) {
+        StreamsBuilder builder = new StreamsBuilder();
+        builder.stream(settings.topic(),
+                        Consumed.with(Serdes.String(), codec.paymentSerde()).withName("source-fast-lane"))
+                .processValues(() -> new AlertProcessor<V, A>(codec, metrics, true), Named.as("to-fraud-alert"))
+                .processValues(() -> TraceProcessor.<A>egress(metrics), Named.as("trace-egress-fraud-alerts"))
+                .to(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                        Produced.with(Serdes.String(), codec.alertSerde()).withName("sink-fraud-alerts"));
+        return builder.build();
+    }
+}
@@ -1,17 +1,51 @@
 package io.confluent.ps.kstreams.topology;
 
+import io.confluent.ps.config.PaymentFormat;
+import io.confluent.ps.kstreams.dedup.DedupProcessor;
+import io.confluent.ps.kstreams.dedup.DedupSettings;
+import io.confluent.ps.kstreams.errors.DeadLetterSettings;
+import io.confluent.ps.kstreams.merchant.MerchantCatalog;
+import io.confluent.ps.kstreams.merchant.MerchantNearCache;
+import io.confluent.ps.kstreams.merchant.MerchantSettings;
+import io.confluent.ps.kstreams.merchant.MerchantStoreUpdater;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.query.RiskStores;
+import io.confluent.ps.kstreams.rules.CompiledRules;
+import io.confluent.ps.kstreams.rules.NumericField;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.rules.RuleSetUpdateProcessor;
+import io.confluent.ps.kstreams.scan.PaymentScanner;
+import io.confluent.ps.kstreams.scan.PaymentView;
+import io.confluent.ps.kstreams.scoring.BatchScorer;
+import io.confluent.ps.kstreams.scoring.BatchScoringSettings;
+import io.confluent.ps.logging.LogLimiter;
+
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.Topology;
 import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KGroupedStream;
 import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
 import org.apache.kafka.streams.kstream.Named;
 import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.kstream.SessionWindows;
+import org.apache.kafka.streams.kstream.Suppressed;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.SessionStore;
+import org.apache.kafka.streams.state.WindowStore;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
 
 /**
@@ -19,9 +53,62 @@ import java.util.Properties;
  *
  * Pipeline:
  *   payments (input)
- *     -> filter high-value transactions (> threshold)
- *     -> evaluate risk score
- *     -> branch: fraud-alerts / approved-payments
+ *     -> drop retried transaction ids (optional, see {@link DedupProcessor})
+ *     -> (optional) obvious fraud -> fast-lane topic ({@link FastLaneTopology})
+ *     -> (optional) repartition by merchant -> merchant velocity (1m/10m/1h windows)
+ *     -> (optional) repartition by card     -> card velocity (1m/10m/1h counts, 1h amount)
+ *     -> evaluate risk score (compiled rule set over payment + velocity fields,
+ *        plus merchant reference data from a global store when configured)
+ *     -> branch: fraud-alerts / approved-payments (fast-lane payments excluded);
+ *        payments that could not be scored -> dead-letter topic
+ *        (optional) flagged -> per-card event-time windows -> one alert per closed window
+ *     -> (card / merchant partitioned) latest risk + alert history stores
+ *
+ * The rules come from a {@link RuleEngine}: bundled defaults, optionally
+ * replaced at runtime from a watched file or the compacted
+ * {@code fraud.rules.topic} (read into a global store on every instance).
+ *
+ * The velocity stages are opt-in with {@code fraud.velocity.enabled=true}; without
+ * them scoring is stateless and needs no repartition topics; see {@link VelocityProcessor}.
+ *
+ * The risk stores back the Interactive Queries endpoint
+ * ({@code io.confluent.ps.kstreams.query}) and are opt-in: without
+ * {@code fraud.query.enabled=true} they (and the merchant re-partitioning
+ * they need) are left out.
+ *
+ * With {@code fraud.merchants.topic} set, the scoring step looks each
+ * payment's merchant up (risk tier, MCC, country) in a global store of that
+ * compacted topic, through a near cache per task; see {@link MerchantSettings}.
+ *
+ * With {@code fraud.scoring.batch.enabled=true} the scoring step buffers
+ * payments per task and scores them in micro-batches through a pluggable
+ * {@link BatchScorer}; see {@link BatchScoringProcessor}.
+ *
+ * With {@code fraud.fastlane.enabled=true} high-value payments that their own
+ * fields already flag are alerted through a separate fast lane; see
+ * {@link FastLaneSettings}.
+ *
+ * With {@code fraud.alerts.window.enabled=true} flagged payments are
+ * consolidated into one alert per card and event-time window instead of one
+ * alert each; see {@link AlertWindowSettings}.
+ *
+ * The wire format is selected with {@code payment.format} (json | avro); see
+ * {@link PaymentFormat}. Rules are evaluated against a {@link PaymentView}
+ * either way.
+ *
+ * A payment that cannot be read or has no valid amount is never approved:
+ * it leaves through the "invalid" branch to {@code fraud.errors.dlq.topic},
+ * or is logged and dropped without one; see {@link DeadLetterSettings} and
+ * {@link InvalidPaymentProcessor}. Records that fail deserialization,
+ * processing or production are handled by the Streams exception handlers
+ * the application installs from the same settings.
+ *
+ * Payments stamped with trace headers by the producer are stamped again on
+ * their way in and out ({@link TraceProcessor}); Streams carries headers
+ * through every step, so the consumer can tell the topology's share of the
+ * end-to-end latency from the producer's and its own.
+ *
+ * Scoring latency, event-time lag, trace hops, branch and error counts go to a {@link PipelineMetrics}.
  */
 public class FraudDetectionTopology {
 
@@ -31,125 +118,426 @@ public class FraudDetectionTopology {
     public static final String FRAUD_ALERTS_TOPIC = "fraud-alerts";
     public static final String APPROVED_TOPIC = "approved-payments";
 
-    private static final double HIGH_VALUE_THRESHOLD = 1000.00;
+    /**
+     * {@code true} adds the windowed card/merchant velocity stages. Off by
+     * default: they add two repartition topics and two window stores.
+     */
+    public static final String VELOCITY_ENABLED_CONFIG = "fraud.velocity.enabled";
+
+    /** Per-card alert windows, when {@code fraud.alerts.window.enabled=true}. */
+    public static final String ALERT_WINDOW_STORE = "fraud-alert-windows";
+
     private static final double RISK_SCORE_THRESHOLD = 0.7;
 
+    /** Every high-risk payment is already in fraud-alerts; the log only needs a sample of them. */
+    private static final LogLimiter HIGH_RISK_LOG = LogLimiter.perSecond("kstreams.high-risk", 10);
+
+    /** Bundled rules, for the static convenience overloads (tests, benchmarks). */
+    private static final RuleEngine DEFAULT_RULES = RuleEngine.withDefaults();
+
+    /**
+     * One reusable view per stream thread — the mapper instance is shared across
+     * tasks. The branch predicates and the alert step read each scored payment
+     * into it once ({@link PaymentCodec#readOnce}).
+     */
+    static final ThreadLocal<PaymentView> VIEW = ThreadLocal.withInitial(PaymentView::new);
+    private static final ThreadLocal<double[]> INPUTS =
+            ThreadLocal.withInitial(() -> new double[NumericField.COUNT]);
+
     private FraudDetectionTopology() {}
 
     public static Topology build(Properties props) {
+        return build(props, RuleEngine.withDefaults());
+    }
+
+    public static Topology build(Properties props, RuleEngine rules) {
+        return build(props, rules, new PipelineMetrics());
+    }
+
+    /**
+     * Builds the topology scoring with {@code rules}, which may be swapped while
+     * it runs, and recording into {@code metrics}.
+     */
+    public static Topology build(Properties props, RuleEngine rules, PipelineMetrics metrics) {
         props.putIfAbsent(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG,
                 Serdes.StringSerde.class.getName());
         props.putIfAbsent(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG,
                 Serdes.StringSerde.class.getName());
 
+        PaymentFormat format = PaymentFormat.from(props);
+        log.info("Building fraud detection topology for payment.format={}", format);
+
+        return switch (format) {
+            case AVRO -> build(new AvroPaymentCodec(props, rules), props, rules, metrics);
+            case JSON -> build(JsonPaymentCodec.INSTANCE, props, rules, metrics);
+        };
+    }
+
+    private static <V, A> Topology build(PaymentCodec<V, A> codec, Properties props, RuleEngine rules,
+                                         PipelineMetrics metrics) {
+        boolean velocity = Boolean.parseBoolean(
+                props.getProperty(VELOCITY_ENABLED_CONFIG, "false").trim());
+        boolean queryable = RiskStores.enabled(props);
+        String rulesTopic = props.getProperty(RuleSetUpdateProcessor.TOPIC_CONFIG, "").trim();
+        BatchScoringSettings batching = BatchScoringSettings.from(props);
+        DedupSettings dedup = DedupSettings.from(props);
+        FastLaneSettings fastLane = FastLaneSettings.from(props);
+        AlertWindowSettings alertWindows = AlertWindowSettings.from(props);
+        MerchantSettings merchantSettings = MerchantSettings.from(props);
+        DeadLetterSettings deadLetters = DeadLetterSettings.from(props);
+        log.info("Topology options: velocity={}, queryable={}, rules={}, rulesTopic='{}', batching={}, dedup={}, "
+                        + "fastLane={}, alertWindows={}, merchants={}, deadLetters={}", velocity, queryable,
+                rules.current(), rulesTopic, batching, dedup, fastLane, alertWindows, merchantSettings, deadLetters);
+
         StreamsBuilder builder = new StreamsBuilder();
 
-        // Source: read payment events
-        KStream<String, String> payments = builder.stream(
-                INPUT_TOPIC,
-                Consumed.with(Serdes.String(), Serdes.String())
-                        .withName("source-payments")
-        );
+        // Rule updates: every instance reads the whole compacted topic and swaps its rules
+        if (!rulesTopic.isEmpty()) {
+            String activeKey = props.getProperty(RuleSetUpdateProcessor.KEY_CONFIG, "active").trim();
+            builder.addGlobalStore(
+                    RuleSetUpdateProcessor.storeBuilder(),
+                    rulesTopic,
+                    Consumed.with(Serdes.String(), Serdes.String()).withName("source-fraud-rules"),
+                    () -> new RuleSetUpdateProcessor(rules, activeKey));
+        }
+
+        // Merchant reference data: the whole compacted topic on every instance, like a GlobalKTable
+        MerchantCatalog merchants = merchantSettings.enabled() ? new MerchantCatalog(merchantSettings) : null;
+        if (merchants != null) {
+            builder.addGlobalStore(
+                    MerchantCatalog.storeBuilder(),
+                    merchantSettings.topic(),
+                    Consumed.with(Serdes.String(), Serdes.String()).withName("source-merchants"),
+                    () -> new MerchantStoreUpdater(merchants));
+        }
+
+        // Source: read payment events. JSON values stay raw UTF-8 bytes — the
+        // scanner works on the wire format directly, so nothing is decoded into Strings.
+        Consumed<String, V> consumed = Consumed.with(Serdes.String(), codec.paymentSerde())
+                .withName("source-payments");
+        if (alertWindows.enabled()) {
+            // Alert windows are in payment time, which the repartition topics carry along
+            consumed = consumed.withTimestampExtractor(new PaymentTimestampExtractor<>(codec));
+        }
+        KStream<String, V> payments = builder.stream(INPUT_TOPIC, consumed)
+                .processValues(() -> TraceProcessor.<V>ingest(metrics), Named.as("trace-ingest"));
+
+        // Step 0: Drop upstream retries before they count towards velocity or get scored twice.
+        // The source is keyed (and partitioned) by transaction id.
+        if (dedup.enabled()) {
+            builder.addStateStore(DedupProcessor.storeBuilder(dedup));
+            payments = payments.processValues(() -> new DedupProcessor<V>(dedup, metrics),
+                    Named.as("dedup-payments"), DedupProcessor.STORE);
+        }
+
+        // Fast lane: obvious fraud is alerted by its own KafkaStreams instance, off the
+        // main lane's backlog. Marked payments stay on this path to feed velocity.
+        if (fastLane.enabled()) {
+            payments = payments.processValues(
+                    () -> new FastLaneRouter<V>(codec, rules, fastLane.amountThreshold(), metrics),
+                    Named.as("fast-lane-router"));
+            payments.processValues(() -> LaneSelector.fastLane(codec), Named.as("fast-lane-select"))
+                    .to(fastLane.topic(),
+                            Produced.with(Serdes.String(), codec.paymentSerde()).withName("sink-fast-lane"));
+        }
+
+        // Step 1: Velocity features, each computed where its entity is partitioned.
+        // The key stays the transaction id; only the partitioning changes.
+        if (velocity) {
+            builder.addStateStore(VelocityProcessor.storeBuilder(VelocityProcessor.MERCHANT_STORE));
+            builder.addStateStore(VelocityProcessor.storeBuilder(VelocityProcessor.CARD_STORE));
+
+            payments = payments
+                    .repartition(repartitionedBy(codec, "by-merchant", PaymentView.MERCHANT_ID))
+                    .processValues(() -> new VelocityProcessor<V>(codec, VelocityProcessor.MERCHANT_STORE,
+                                    PaymentView.MERCHANT_ID, VelocityFeatures.MERCHANT_HEADER),
+                            Named.as("merchant-velocity"), VelocityProcessor.MERCHANT_STORE)
+                    .repartition(repartitionedBy(codec, "by-card", PaymentView.CARD_NUMBER_MASKED))
+                    .processValues(() -> new VelocityProcessor<V>(codec, VelocityProcessor.CARD_STORE,
+                                    PaymentView.CARD_NUMBER_MASKED, VelocityFeatures.CARD_HEADER),
+                            Named.as("card-velocity"), VelocityProcessor.CARD_STORE);
+        }
 
-        // Step 1: Enrich with risk score
-        KStream<String, String> scored = payments
-                .mapValues((key, value) -> enrichWithRiskScore(key, value),
-                        Named.as("enrich-risk-score"));
+        // Step 2: Enrich with risk score, per record or in micro-batches per task
+        KStream<String, V> scored;
+        if (batching.enabled()) {
+            builder.addStateStore(BatchScoringProcessor.storeBuilder());
+            scored = payments.process(() -> new BatchScoringProcessor<V>(codec, rules, BatchScorer.create(props),
+                            batching, merchants, metrics),
+                    Named.as("enrich-risk-score"), BatchScoringProcessor.BUFFER_STORE);
+        } else {
+            scored = payments
+                    .processValues(() -> new RiskScoringProcessor<V>(codec, rules, merchants, metrics),
+                            Named.as("enrich-risk-score"));
+        }
 
-        // Step 2: Branch — flagged vs. approved
-        scored.split(Named.as("fraud-check-"))
+        // Step 3: Branch — invalid vs. flagged vs. approved. A payment without a score
+        // must not fall through to approved.
+        KStream<String, V> mainLane = fastLane.enabled()
+                ? scored.processValues(() -> LaneSelector.mainLane(codec), Named.as("main-lane-select"))
+                : scored;
+        mainLane.split(Named.as("fraud-check-"))
+                .branch(
+                        (key, value) -> InvalidPaymentProcessor.isInvalid(codec, VIEW.get(), value),
+                        org.apache.kafka.streams.kstream.Branched.withConsumer(
+                                invalid -> deadLetter(codec, invalid, deadLetters, metrics),
+                                "invalid"
+                        )
+                )
                 .branch(
-                        (key, value) -> isFraudulent(value),
+                        (key, value) -> {
+                            // The invalid predicate has just read the value into the view
+                            boolean fraudulent = isFraudulent(codec, VIEW.get(), value);
+                            metrics.recordBranch(fraudulent);
+                            return fraudulent;
+                        },
                         org.apache.kafka.streams.kstream.Branched.withConsumer(
-                                flagged -> flagged.to(
-                                        FRAUD_ALERTS_TOPIC,
-                                        Produced.with(Serdes.String(), Serdes.String())
-                                                .withName("sink-fraud-alerts")
-                                ),
+                                flagged -> (alertWindows.enabled()
+                                        ? windowAlerts(codec, flagged, alertWindows, metrics)
+                                        : flagged.processValues(() -> new AlertProcessor<V, A>(codec, metrics, false),
+                                                Named.as("to-fraud-alert")))
+                                        .processValues(() -> TraceProcessor.<A>egress(metrics),
+                                                Named.as("trace-egress-fraud-alerts"))
+                                        .to(
+                                                FRAUD_ALERTS_TOPIC,
+                                                Produced.with(Serdes.String(), codec.alertSerde())
+                                                        .withName("sink-fraud-alerts")
+                                        ),
                                 "flagged"
                         )
                 )
                 .defaultBranch(
                         org.apache.kafka.streams.kstream.Branched.withConsumer(
-                                approved -> approved.to(
-                                        APPROVED_TOPIC,
-                                        Produced.with(Serdes.String(), Serdes.String())
-                                                .withName("sink-approved")
-                                ),
+                                approved -> approved
+                                        .processValues(() -> TraceProcessor.<V>egress(metrics),
+                                                Named.as("trace-egress-approved"))
+                                        .to(
+                                                APPROVED_TOPIC,
+                                                Produced.with(Serdes.String(), codec.paymentSerde())
+                                                        .withName("sink-approved")
+                                        ),
                                 "approved"
                         )
                 );
 
+        // Step 4: Queryable risk state, each store in a task partitioned by its entity.
+        // After the velocity stages the scored stream already is partitioned by card.
+        if (queryable) {
+            KStream<String, V> byCard = velocity
+                    ? scored
+                    : scored.repartition(repartitionedBy(codec, "risk-by-card", PaymentView.CARD_NUMBER_MASKED));
+            materializeRisk(builder, codec, props, byCard, RiskStores.Entity.CARD);
+            materializeRisk(builder, codec, props,
+                    scored.repartition(repartitionedBy(codec, "risk-by-merchant", PaymentView.MERCHANT_ID)),
+                    RiskStores.Entity.MERCHANT);
+        }
+
         return builder.build();
     }
 
+    private static <V> void deadLetter(PaymentCodec<V, ?> codec, KStream<String, V> invalid,
+                                       DeadLetterSettings settings, PipelineMetrics metrics) {
+        KStream<String, V> tagged = invalid.processValues(
+                () -> new InvalidPaymentProcessor<V>(codec, settings.enabled(), metrics),
+                Named.as("to-dead-letter"));
+        if (settings.enabled()) {
+            tagged.to(settings.topic(),
+                    Produced.with(Serdes.String(), codec.paymentSerde()).withName("sink-dead-letters"));
+        }
+    }
+
     /**
-     * Simulates risk scoring. In production, this would call an ML model
-     * or a rules engine.
+     * One alert per card and closed window instead of one per flagged payment.
+     * The windows advance with the stream time of the flagged payments only, so
+     * in a quiet period a window is emitted with the next flagged payment on
+     * its partitions rather than right at its end.
      */
-    static String enrichWithRiskScore(String key, String paymentJson) {
-        double amount = extractAmount(paymentJson);
-        double riskScore = computeRiskScore(amount, paymentJson);
+    private static <V, A> KStream<String, A> windowAlerts(PaymentCodec<V, A> codec, KStream<String, V> flagged,
+                                                          AlertWindowSettings settings, PipelineMetrics metrics) {
+        KGroupedStream<String, AlertWindow> byCard = flagged
+                .map((txnId, payment) -> {
+                    PaymentView view = VIEW.get();
+                    codec.readOnce(payment, view);
+                    String card = view.text(PaymentView.CARD_NUMBER_MASKED);
+                    // A payment without a card still gets its alert, in a window of its own
+                    return KeyValue.pair(card != null ? card : txnId,
+                            AlertWindow.of(txnId, view.amount(), view.riskScore()));
+                }, Named.as("to-alert-window"))
+                .groupByKey(Grouped.with("fraud-alerts-by-card", Serdes.String(), AlertWindow.SERDE));
 
-        // Inject risk_score into the JSON (simplified — use proper JSON library in production)
-        String enriched = paymentJson.substring(0, paymentJson.length() - 1)
-                + ",\"risk_score\":" + String.format("%.2f", riskScore) + "}";
+        KTable<Windowed<String>, AlertWindow> windows = switch (settings.type()) {
+            case TUMBLING -> byCard
+                    .windowedBy(TimeWindows.ofSizeAndGrace(settings.size(), settings.grace()))
+                    .reduce(AlertWindow::merge, Named.as("fraud-alert-window"),
+                            Materialized.<String, AlertWindow, WindowStore<Bytes, byte[]>>as(ALERT_WINDOW_STORE)
+                                    .withKeySerde(Serdes.String())
+                                    .withValueSerde(AlertWindow.SERDE));
+            case SESSION -> byCard
+                    .windowedBy(SessionWindows.ofInactivityGapAndGrace(settings.size(), settings.grace()))
+                    .reduce(AlertWindow::merge, Named.as("fraud-alert-window"),
+                            Materialized.<String, AlertWindow, SessionStore<Bytes, byte[]>>as(ALERT_WINDOW_STORE)
+                                    .withKeySerde(Serdes.String())
+                                    .withValueSerde(AlertWindow.SERDE));
+        };
 
-        if (riskScore > RISK_SCORE_THRESHOLD) {
-            log.warn("HIGH RISK txn_id={} amount={} risk_score={}", key, amount, riskScore);
-        }
+        return windows
+                .suppress(Suppressed.untilWindowCloses(settings.bufferConfig()).withName("fraud-alert-suppress"))
+                .toStream(Named.as("fraud-alert-window-closed"))
+                .filter((window, alerts) -> alerts != null, Named.as("fraud-alert-window-final"))
+                .map((window, alerts) -> {
+                    metrics.recordWindowAlert(alerts.count());
+                    return KeyValue.pair(window.key(), codec.toWindowAlert(
+                            window.key(), window.window().start(), window.window().end(), alerts));
+                }, Named.as("to-window-alert"));
+    }
 
-        return enriched;
+    private static <V> void materializeRisk(StreamsBuilder builder, PaymentCodec<V, ?> codec, Properties props,
+                                            KStream<String, V> partitioned, RiskStores.Entity entity) {
+        builder.addStateStore(RiskStores.latestStoreBuilder(entity));
+        builder.addStateStore(RiskStores.alertStoreBuilder(entity, props));
+        partitioned.process(() -> new RiskHistoryProcessor<V>(codec, entity, RISK_SCORE_THRESHOLD),
+                Named.as(entity.id() + "-risk-history"), entity.latestStore(), entity.alertStore());
     }
 
-    static boolean isFraudulent(String enrichedJson) {
-        // Extract risk_score from enriched JSON
-        int idx = enrichedJson.indexOf("\"risk_score\":");
-        if (idx < 0) return false;
-        String scoreStr = enrichedJson.substring(idx + 13).split("[,}]")[0];
-        try {
-            return Double.parseDouble(scoreStr) > RISK_SCORE_THRESHOLD;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+    private static <V> Repartitioned<String, V> repartitionedBy(PaymentCodec<V, ?> codec, String name, int field) {
+        return Repartitioned.<String, V>as(name)
+                .withKeySerde(Serdes.String())
+                .withValueSerde(codec.paymentSerde())
+                .withStreamPartitioner(new VelocityPartitioner<>(codec, field));
     }
 
     /**
-     * Simple risk scoring heuristic.
-     * Replace with a real ML model or rules engine for production.
+     * Scores the payment with the active rule set and attaches the score.
+     *
+     * <p>The payment is read once into the stream thread's {@link PaymentView};
+     * for JSON the only allocation is the enriched output buffer.
      */
-    static double computeRiskScore(double amount, String paymentJson) {
-        double score = 0.0;
+    static <V> V enrichWithRiskScore(PaymentCodec<V, ?> codec, String key, V payment) {
+        return enrichWithRiskScore(codec, DEFAULT_RULES, key, payment, VelocityFeatures.NONE, VelocityFeatures.NONE);
+    }
 
-        // Rule 1: High-value transactions are riskier
-        if (amount > HIGH_VALUE_THRESHOLD) {
-            score += 0.4;
+    static <V> V enrichWithRiskScore(PaymentCodec<V, ?> codec, RuleEngine rules, String key, V payment,
+                                     VelocityFeatures card, VelocityFeatures merchant) {
+        return enrichWithRiskScore(codec, rules, key, payment, card, merchant, null);
+    }
+
+    /** @param merchantCache {@code null} without merchant reference data */
+    static <V> V enrichWithRiskScore(PaymentCodec<V, ?> codec, RuleEngine rules, String key, V payment,
+                                     VelocityFeatures card, VelocityFeatures merchant,
+                                     MerchantNearCache merchantCache) {
+        PaymentView view = VIEW.get();
+        if (!codec.read(payment, view) || !view.hasAmount()) {
+            // Not a payment that can be scored: left unscored, for the invalid branch
+            return payment;
         }
-        if (amount > 5000.00) {
-            score += 0.3;
+        if (merchantCache != null) {
+            merchantCache.enrich(view);
         }
+        double riskScore = computeRiskScore(rules.current(), view, card, merchant);
+        return attachRiskScore(codec, key, payment, view, riskScore);
+    }
 
-        // Rule 2: Certain regions are higher risk (simplified)
-        if (paymentJson.contains("\"region\":\"AP-SOUTH\"")) {
-            score += 0.2;
+    /** Attaches {@code riskScore} to a payment read into {@code view}, logging high-risk ones. */
+    static <V> V attachRiskScore(PaymentCodec<V, ?> codec, String key, V payment, PaymentView view,
+                                 double riskScore) {
+        if (riskScore > RISK_SCORE_THRESHOLD && HIGH_RISK_LOG.permit()) {
+            log.warn("HIGH RISK txn_id={} amount={} risk_score={} ({} more suppressed)",
+                    key, view.amount(), riskScore, HIGH_RISK_LOG.drainSuppressed());
         }
+        return codec.withRiskScore(payment, view, riskScore);
+    }
 
-        // Rule 3: Round amounts are suspicious
-        if (amount == Math.floor(amount) && amount > 500) {
-            score += 0.15;
-        }
+    /** Reads {@code scored} afresh; the topology's predicate shares the branch's read instead. */
+    static <V> boolean isFraudulent(PaymentCodec<V, ?> codec, V scored) {
+        PaymentView view = VIEW.get();
+        return codec.read(scored, view)
+                && view.hasRiskScore()
+                && isAlert(view.riskScore());
+    }
+
+    static <V> boolean isFraudulent(PaymentCodec<V, ?> codec, PaymentView view, V scored) {
+        return codec.readOnce(scored, view)
+                && view.hasRiskScore()
+                && isAlert(view.riskScore());
+    }
+
+    static boolean isAlert(double riskScore) {
+        return riskScore > RISK_SCORE_THRESHOLD;
+    }
+
+    static byte[] enrichWithRiskScore(String key, byte[] paymentJson) {
+        return enrichWithRiskScore(JsonPaymentCodec.INSTANCE, key, paymentJson);
+    }
 
-        return Math.min(score, 1.0);
+    static boolean isFraudulent(byte[] enrichedJson) {
+        return isFraudulent(JsonPaymentCodec.INSTANCE, enrichedJson);
+    }
+
+    /** Scores with the bundled rules and no velocity features. */
+    static double computeRiskScore(PaymentView view) {
+        return computeRiskScore(DEFAULT_RULES.current(), view, VelocityFeatures.NONE, VelocityFeatures.NONE);
+    }
+
+    static double computeRiskScore(CompiledRules rules, PaymentView view,
+                                   VelocityFeatures card, VelocityFeatures merchant) {
+        return rules.score(view, inputs(view, card, merchant));
+    }
+
+    /** Human-readable list of the rules that fired, for alert records. Not on the per-record path. */
+    static String describeRisk(RuleEngine rules, PaymentView view) {
+        String reasons = rules.current().describe(view, inputs(view, VelocityFeatures.NONE, VelocityFeatures.NONE));
+        return reasons == null ? "risk score above threshold" : reasons;
+    }
+
+    /** Fills the stream thread's numeric rule inputs. */
+    private static double[] inputs(PaymentView view, VelocityFeatures card, VelocityFeatures merchant) {
+        double[] in = INPUTS.get();
+        fillInputs(in, view, card, merchant);
+        return in;
+    }
+
+    /** Fills {@code in}, indexed by {@link NumericField#ordinal()}. */
+    static void fillInputs(double[] in, PaymentView view, VelocityFeatures card, VelocityFeatures merchant) {
+        double amount = view.amount();
+        in[NumericField.AMOUNT.ordinal()] = amount;
+        in[NumericField.AMOUNT_FRACTION.ordinal()] = amount - Math.floor(amount);
+        in[NumericField.CARD_COUNT_1M.ordinal()] = card.count1m();
+        in[NumericField.CARD_COUNT_10M.ordinal()] = card.count10m();
+        in[NumericField.CARD_COUNT_1H.ordinal()] = card.count1h();
+        in[NumericField.CARD_AMOUNT_1H.ordinal()] = card.amount1h();
+        in[NumericField.MERCHANT_COUNT_1M.ordinal()] = merchant.count1m();
+        in[NumericField.MERCHANT_COUNT_10M.ordinal()] = merchant.count10m();
+        in[NumericField.MERCHANT_COUNT_1H.ordinal()] = merchant.count1h();
+        in[NumericField.MERCHANT_AMOUNT_1H.ordinal()] = merchant.amount1h();
+        in[NumericField.MERCHANT_RISK_TIER.ordinal()] = view.merchantRiskTier();
+    }
+
+    // ------------------------------------------------------------------
+    // String convenience overloads (tests, tooling) — not used on the hot path
+    // ------------------------------------------------------------------
+
+    static String enrichWithRiskScore(String key, String paymentJson) {
+        return new String(enrichWithRiskScore(key, utf8(paymentJson)), StandardCharsets.UTF_8);
+    }
+
+    static boolean isFraudulent(String enrichedJson) {
+        return isFraudulent(utf8(enrichedJson));
+    }
+
+    static double computeRiskScore(double amount, String paymentJson) {
+        PaymentView view = VIEW.get();
+        PaymentScanner.scan(utf8(paymentJson), view);
+        view.setAmount(amount);
+        return computeRiskScore(view);
     }
 
     static double extractAmount(String json) {
-        int idx = json.indexOf("\"amount\":");
-        if (idx < 0) return 0.0;
-        String amountStr = json.substring(idx + 9).split("[,}]")[0];
-        try {
-            return Double.parseDouble(amountStr);
-        } catch (NumberFormatException e) {
-            return 0.0;
-        }
+        PaymentView view = VIEW.get();
+        PaymentScanner.scan(utf8(json), view);
+        return view.amount();
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
     }
 }
@@ -0,0 +1,78 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.errors.DeadLetterHeaders;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics.ErrorStage;
+import io.confluent.ps.kstreams.scan.PaymentView;
+import io.confluent.ps.logging.LogLimiter;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Takes the payments that could not be scored (unreadable, or without a
+ * valid amount) out of the approved / fraud-alerts branch. Each is counted
+ * and, with a dead-letter topic, forwarded there with the
+ * {@link DeadLetterHeaders}; otherwise it is only logged (rate-limited) and dropped.
+ *
+ * <p>The source in the headers is the topic this sub-topology read the payment
+ * from, i.e. a repartition topic when the velocity stages are on.
+ */
+final class InvalidPaymentProcessor<V> implements FixedKeyProcessor<String, V, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidPaymentProcessor.class);
+
+    private static final LogLimiter DROPPED_LOG = LogLimiter.perSecond("kstreams.invalid-payment", 10);
+
+    private final PaymentCodec<V, ?> codec;
+    private final boolean deadLetter;
+    private final PipelineMetrics metrics;
+    private final PaymentView view = new PaymentView();
+
+    private FixedKeyProcessorContext<String, V> context;
+
+    InvalidPaymentProcessor(PaymentCodec<V, ?> codec, boolean deadLetter, PipelineMetrics metrics) {
+        this.codec = codec;
+        this.deadLetter = deadLetter;
+        this.metrics = metrics;
+    }
+
+    /** Whether {@code scored} has to leave through this processor instead of being branched. */
+    static <V> boolean isInvalid(PaymentCodec<V, ?> codec, PaymentView view, V scored) {
+        return !codec.readOnce(scored, view) || !view.hasRiskScore();
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        String reason = codec.read(record.value(), view) ? "missing or malformed amount" : "unreadable payment";
+        metrics.recordError(ErrorStage.INVALID, deadLetter);
+        if (!deadLetter) {
+            if (DROPPED_LOG.permit()) {
+                log.warn("Dropping invalid payment txn_id={}: {} ({} more suppressed)",
+                        record.key(), reason, DROPPED_LOG.drainSuppressed());
+            }
+            return;
+        }
+        RecordMetadata source = context.recordMetadata().orElse(null);
+        // Other branches may see the same headers, so the dead letter gets its own copy
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        DeadLetterHeaders.add(headers, ErrorStage.INVALID.label(), reason,
+                source == null ? null : source.topic(),
+                source == null ? -1 : source.partition(),
+                source == null ? -1 : source.offset(),
+                null);
+        context.forward(record.withHeaders(headers));
+    }
+}
@@ -0,0 +1,94 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.scan.PaymentScanner;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * JSON wire format: values stay raw UTF-8 bytes end-to-end.
+ *
+ * <p>The alert is the enriched payment document itself, i.e. the payment JSON
+ * with {@code "risk_score"} appended. A window alert carries the same
+ * {@code transaction_id} (highest score), {@code card_number_masked},
+ * {@code amount} (total) and {@code risk_score} (max) fields, plus
+ * {@code payment_count}, {@code window_start} and {@code window_end}, its
+ * strings JSON-escaped as they are written.
+ */
+final class JsonPaymentCodec implements PaymentCodec<byte[], byte[]> {
+
+    static final JsonPaymentCodec INSTANCE = new JsonPaymentCodec();
+
+    private static final byte[] TRANSACTION_ID = ascii("{\"transaction_id\":");
+    private static final byte[] CARD_NUMBER_MASKED = ascii(",\"card_number_masked\":");
+    private static final byte[] AMOUNT = ascii(",\"amount\":");
+    private static final byte[] RISK_SCORE = ascii(",\"risk_score\":");
+    private static final byte[] PAYMENT_COUNT = ascii(",\"payment_count\":");
+    private static final byte[] WINDOW_START = ascii(",\"window_start\":");
+    private static final byte[] WINDOW_END = ascii(",\"window_end\":");
+    private static final int WINDOW_ALERT_FIXED_BYTES = TRANSACTION_ID.length + CARD_NUMBER_MASKED.length
+            + AMOUNT.length + RISK_SCORE.length + PAYMENT_COUNT.length + WINDOW_START.length + WINDOW_END.length + 1;
+
+    private JsonPaymentCodec() {}
+
+    @Override
+    public Serde<byte[]> paymentSerde() {
+        return Serdes.ByteArray();
+    }
+
+    @Override
+    public Serde<byte[]> alertSerde() {
+        return Serdes.ByteArray();
+    }
+
+    @Override
+    public boolean read(byte[] payment, PaymentView view) {
+        return PaymentScanner.scan(payment, view);
+    }
+
+    @Override
+    public byte[] withRiskScore(byte[] payment, PaymentView view, double riskScore) {
+        return PaymentScanner.appendRiskScore(view, riskScore);
+    }
+
+    @Override
+    public byte[] toAlert(byte[] scored, PaymentView view) {
+        return scored;
+    }
+
+    @Override
+    public byte[] toWindowAlert(String card, long windowStart, long windowEnd, AlertWindow window) {
+        String txnId = window.topTransactionId() == null ? "" : window.topTransactionId();
+        // Fixed parts + both strings at worst escaped and quoted + five numbers of up to 24 bytes
+        byte[] out = new byte[WINDOW_ALERT_FIXED_BYTES + 6 * (txnId.length() + card.length()) + 4 + 5 * 24];
+        int pos = put(out, 0, TRANSACTION_ID);
+        pos = PaymentScanner.writeString(out, pos, txnId);
+        pos = put(out, pos, CARD_NUMBER_MASKED);
+        pos = PaymentScanner.writeString(out, pos, card);
+        pos = put(out, pos, AMOUNT);
+        pos = PaymentScanner.writeFixed2(out, pos, window.totalAmount());
+        pos = put(out, pos, RISK_SCORE);
+        pos = PaymentScanner.writeFixed2(out, pos, window.maxScore());
+        pos = put(out, pos, PAYMENT_COUNT);
+        pos = PaymentScanner.writeLong(out, pos, window.count());
+        pos = put(out, pos, WINDOW_START);
+        pos = PaymentScanner.writeLong(out, pos, windowStart);
+        pos = put(out, pos, WINDOW_END);
+        pos = PaymentScanner.writeLong(out, pos, windowEnd);
+        out[pos++] = '}';
+        return Arrays.copyOf(out, pos);
+    }
+
+    private static int put(byte[] out, int pos, byte[] bytes) {
+        System.arraycopy(bytes, 0, out, pos, bytes.length);
+        return pos + bytes.length;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
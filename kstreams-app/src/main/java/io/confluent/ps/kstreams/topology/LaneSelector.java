@@ -0,0 +1,68 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+/**
+ * Keeps the payments of one lane after {@link FastLaneRouter}.
+ *
+ * <p>For the fast lane: only marked payments, with the routing score
+ * attached, on their way to the fast-lane topic. For the main lane: only
+ * unmarked ones, ahead of the approved / fraud-alerts branch — a marked
+ * payment's alert is already on its way, whatever velocity adds to its score.
+ * The marker header leaves the topology with neither.
+ */
+final class LaneSelector<V> implements FixedKeyProcessor<String, V, V> {
+
+    private final PaymentCodec<V, ?> codec;
+    private final boolean fastLane;
+    private final PaymentView view = new PaymentView();
+
+    private FixedKeyProcessorContext<String, V> context;
+
+    private LaneSelector(PaymentCodec<V, ?> codec, boolean fastLane) {
+        this.codec = codec;
+        this.fastLane = fastLane;
+    }
+
+    static <V> LaneSelector<V> fastLane(PaymentCodec<V, ?> codec) {
+        return new LaneSelector<>(codec, true);
+    }
+
+    static <V> LaneSelector<V> mainLane(PaymentCodec<V, ?> codec) {
+        return new LaneSelector<>(codec, false);
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        double score = FastLaneRouter.fastLaneScore(record.headers());
+        if (Double.isNaN(score)) {
+            if (!fastLane) {
+                context.forward(record);
+            }
+            return;
+        }
+        if (!fastLane) {
+            return;
+        }
+        // The velocity stages and the main lane see the same record (headers and value), so both are copied:
+        // the marker is removed from a copy of the headers, and withRiskScore returns a new value
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        headers.remove(FastLaneRouter.HEADER);
+        V value = record.value();
+        if (codec.read(value, view)) {
+            value = FraudDetectionTopology.attachRiskScore(codec, record.key(), value, view, score);
+        }
+        context.forward(record.withHeaders(headers).withValue(value));
+    }
+}
@@ -0,0 +1,61 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.common.serialization.Serde;
+
+/**
+ * Bridges a wire format to the format-independent scoring pipeline.
+ *
+ * <p>The topology only ever evaluates rules against a {@link PaymentView};
+ * the codec decides how a record value is read into that view, how the risk
+ * score is attached, and what a fraud alert looks like on the wire.
+ *
+ * @param <V> payment value type (input and approved topics)
+ * @param <A> alert value type (fraud-alerts topic)
+ */
+interface PaymentCodec<V, A> {
+
+    Serde<V> paymentSerde();
+
+    Serde<A> alertSerde();
+
+    /**
+     * Fills {@code view} from {@code payment}.
+     *
+     * @return {@code false} if the value cannot be interpreted as a payment
+     */
+    boolean read(V payment, PaymentView view);
+
+    /**
+     * {@link #read}, unless {@code view} already holds {@code scored} from an
+     * earlier stage of the same record: the branch predicates and the alert
+     * step share one read of each scored payment.
+     */
+    default boolean readOnce(V scored, PaymentView view) {
+        if (view.isReadFrom(scored)) {
+            return true;
+        }
+        if (!read(scored, view)) {
+            return false;
+        }
+        view.markReadFrom(scored);
+        return true;
+    }
+
+    /**
+     * Returns a new payment carrying {@code riskScore}; {@code view} was filled
+     * from {@code payment}, which is left as it is (other processors may hold it).
+     */
+    V withRiskScore(V payment, PaymentView view, double riskScore);
+
+    /** Builds the alert for a scored payment; {@code view} was filled from {@code scored}. */
+    A toAlert(V scored, PaymentView view);
+
+    /**
+     * Builds the consolidated alert for the flagged payments of {@code card}
+     * in the window from {@code windowStart} to {@code windowEnd}; see
+     * {@link AlertWindowSettings}.
+     */
+    A toWindowAlert(String card, long windowStart, long windowEnd, AlertWindow window);
+}
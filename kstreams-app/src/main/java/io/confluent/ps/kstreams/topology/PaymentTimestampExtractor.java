@@ -0,0 +1,46 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+
+/**
+ * Event time from the payment's own {@code timestamp} field rather than the
+ * Kafka record timestamp, which is the producer's send time (or the broker's
+ * append time) and drifts from it for retried and backfilled payments.
+ *
+ * <p>Falls back to the record timestamp when the value cannot be read or has
+ * no timestamp, and to the partition's stream time when that is invalid too,
+ * so a malformed payment is never dropped here. The timestamp is then carried
+ * through the repartition topics, so every downstream window sees it.
+ *
+ * <p>Older JSON producers wrote the timestamp in epoch seconds. A value below
+ * {@value #SECONDS_BELOW} (early 1973 in milliseconds, far beyond year 5000 in
+ * seconds) is taken as seconds and scaled to milliseconds.
+ */
+final class PaymentTimestampExtractor<V> implements TimestampExtractor {
+
+    static final long SECONDS_BELOW = 100_000_000_000L;
+
+    private final PaymentCodec<V, ?> codec;
+
+    /** The extractor is shared by all stream threads. */
+    private final ThreadLocal<PaymentView> view = ThreadLocal.withInitial(PaymentView::new);
+
+    PaymentTimestampExtractor(PaymentCodec<V, ?> codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long extract(ConsumerRecord<Object, Object> record, long partitionTime) {
+        PaymentView payment = view.get();
+        if (record.value() != null && codec.read((V) record.value(), payment)
+                && payment.hasTimestamp() && payment.timestamp() >= 0) {
+            long timestamp = payment.timestamp();
+            return timestamp < SECONDS_BELOW ? timestamp * 1_000 : timestamp;
+        }
+        return record.timestamp() >= 0 ? record.timestamp() : partitionTime;
+    }
+}
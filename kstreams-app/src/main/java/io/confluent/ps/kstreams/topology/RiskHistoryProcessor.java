@@ -0,0 +1,57 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.query.RiskStores;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.WindowStore;
+
+/**
+ * Materializes the queryable {@link RiskStores} of one entity (card or
+ * merchant) from scored payments: the latest snapshot per entity id, and every
+ * flagged payment in the entity's alert history.
+ *
+ * <p>Terminal; the input must be partitioned by the entity (velocity
+ * partitioning). Payments without a risk score or without the entity field
+ * are skipped.
+ */
+final class RiskHistoryProcessor<V> implements Processor<String, V, Void, Void> {
+
+    private final PaymentCodec<V, ?> codec;
+    private final RiskStores.Entity entity;
+    private final double threshold;
+    private final PaymentView view = new PaymentView();
+
+    private KeyValueStore<String, byte[]> latest;
+    private WindowStore<String, byte[]> alerts;
+
+    RiskHistoryProcessor(PaymentCodec<V, ?> codec, RiskStores.Entity entity, double threshold) {
+        this.codec = codec;
+        this.entity = entity;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void init(ProcessorContext<Void, Void> context) {
+        this.latest = context.getStateStore(entity.latestStore());
+        this.alerts = context.getStateStore(entity.alertStore());
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        if (!codec.read(record.value(), view) || !view.hasRiskScore() || !view.has(entity.field())) {
+            return;
+        }
+        String id = view.text(entity.field());
+        boolean flagged = view.riskScore() > threshold;
+        byte[] snapshot = RiskStores.snapshot(id, view, record.timestamp(), flagged);
+
+        latest.put(id, snapshot);
+        if (flagged) {
+            alerts.put(id, snapshot, record.timestamp());
+        }
+    }
+}
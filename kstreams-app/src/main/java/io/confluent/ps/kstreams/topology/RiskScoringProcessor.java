@@ -0,0 +1,62 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.merchant.MerchantCatalog;
+import io.confluent.ps.kstreams.merchant.MerchantNearCache;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+/**
+ * Scores a payment with the engine's active rule set, using its own fields
+ * plus the card and merchant {@link VelocityFeatures} headers (if present)
+ * and, with a {@link MerchantCatalog}, the merchant's reference data, then
+ * drops those headers so they never reach the output topics.
+ *
+ * <p>Records its own latency and the record's event-time lag in
+ * {@link PipelineMetrics}; the lag uses the task's cached wall-clock time,
+ * so neither measurement adds a system call beyond the two {@code nanoTime}s.
+ */
+final class RiskScoringProcessor<V> implements FixedKeyProcessor<String, V, V> {
+
+    private final PaymentCodec<V, ?> codec;
+    private final RuleEngine rules;
+    private final PipelineMetrics metrics;
+    private final MerchantCatalog merchants;
+    private final VelocityFeatures card = new VelocityFeatures();
+    private final VelocityFeatures merchant = new VelocityFeatures();
+
+    private FixedKeyProcessorContext<String, V> context;
+    private MerchantNearCache merchantCache;
+
+    /** @param merchants {@code null} without merchant reference data */
+    RiskScoringProcessor(PaymentCodec<V, ?> codec, RuleEngine rules, MerchantCatalog merchants,
+                         PipelineMetrics metrics) {
+        this.codec = codec;
+        this.rules = rules;
+        this.merchants = merchants;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+        if (merchants != null) {
+            merchantCache = merchants.nearCache(context.getStateStore(MerchantCatalog.STORE_NAME), metrics);
+        }
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        long start = System.nanoTime();
+        card.readFrom(record.headers(), VelocityFeatures.CARD_HEADER);
+        merchant.readFrom(record.headers(), VelocityFeatures.MERCHANT_HEADER);
+        V scored = FraudDetectionTopology.enrichWithRiskScore(
+                codec, rules, record.key(), record.value(), card, merchant, merchantCache);
+        metrics.recordScoring(System.nanoTime() - start);
+        metrics.recordEventTimeLag(context.currentSystemTimeMs() - record.timestamp());
+        context.forward(record.withValue(scored));
+    }
+}
@@ -0,0 +1,71 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.tracing.TraceHeaders;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+/**
+ * Stamps the topology's {@link TraceHeaders} on traced payments and records
+ * the hops they close. Records without the producer's creation time pass
+ * through untouched.
+ *
+ * <p>At ingest, right after the source: records creation-to-ingest and sets
+ * {@code trace.streams.in.us}. At egress, right before a sink: records
+ * in-to-out (repartition topics and the fast-lane topic included) and sets
+ * {@code trace.streams.out.us}.
+ */
+final class TraceProcessor<V> implements FixedKeyProcessor<String, V, V> {
+
+    private final PipelineMetrics metrics;
+    private final boolean ingest;
+
+    private FixedKeyProcessorContext<String, V> context;
+
+    private TraceProcessor(PipelineMetrics metrics, boolean ingest) {
+        this.metrics = metrics;
+        this.ingest = ingest;
+    }
+
+    static <V> TraceProcessor<V> ingest(PipelineMetrics metrics) {
+        return new TraceProcessor<>(metrics, true);
+    }
+
+    static <V> TraceProcessor<V> egress(PipelineMetrics metrics) {
+        return new TraceProcessor<>(metrics, false);
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        if (ingest) {
+            long created = TraceHeaders.micros(record.headers(), TraceHeaders.CREATED_US);
+            if (created >= 0) {
+                long now = TraceHeaders.nowMicros();
+                metrics.recordTraceIngest(now - created);
+                TraceHeaders.put(record.headers(), TraceHeaders.STREAMS_IN_US, now);
+            }
+            context.forward(record);
+            return;
+        }
+        long in = TraceHeaders.micros(record.headers(), TraceHeaders.STREAMS_IN_US);
+        if (in < 0) {
+            context.forward(record);
+            return;
+        }
+        long now = TraceHeaders.nowMicros();
+        metrics.recordTraceTopology(now - in);
+        // Sibling branches (the risk stores) share the headers, so the egress time goes on a copy
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        TraceHeaders.put(headers, TraceHeaders.STREAMS_OUT_US, now);
+        context.forward(record.withHeaders(headers));
+    }
+}
@@ -0,0 +1,110 @@
+package io.confluent.ps.kstreams.topology;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+/**
+ * Sliding-window activity of one entity (card or merchant) at the time of a payment,
+ * including the payment itself.
+ *
+ * <p>Computed by {@link VelocityProcessor} and carried to the scoring step in a
+ * record header, because card and merchant features are computed in different
+ * sub-topologies (each partitioned by its own entity). The header is removed
+ * again before the record leaves the topology.
+ *
+ * <p>Instances are mutable and reused per processor.
+ */
+final class VelocityFeatures {
+
+    static final long ONE_MINUTE = Duration.ofMinutes(1).toMillis();
+    static final long TEN_MINUTES = Duration.ofMinutes(10).toMillis();
+    static final long ONE_HOUR = Duration.ofHours(1).toMillis();
+
+    static final String CARD_HEADER = "fraud.velocity.card";
+    static final String MERCHANT_HEADER = "fraud.velocity.merchant";
+
+    /** Empty features — for payments scored without velocity. Never mutate. */
+    static final VelocityFeatures NONE = new VelocityFeatures();
+
+    private static final int ENCODED_SIZE = 3 * Integer.BYTES + Double.BYTES;
+
+    private int count1m;
+    private int count10m;
+    private int count1h;
+    private double amount1h;
+
+    int count1m() {
+        return count1m;
+    }
+
+    int count10m() {
+        return count10m;
+    }
+
+    int count1h() {
+        return count1h;
+    }
+
+    /** Sum of amounts in the last hour. */
+    double amount1h() {
+        return amount1h;
+    }
+
+    void reset() {
+        count1m = 0;
+        count10m = 0;
+        count1h = 0;
+        amount1h = 0.0;
+    }
+
+    /** Adds a bucket of {@code count} payments totalling {@code amount}, starting {@code age} ms before now. */
+    void add(long age, long bucketSize, int count, double amount) {
+        // A bucket counts towards a window if any part of it overlaps the window
+        long newestAge = age - bucketSize;
+        if (newestAge < ONE_MINUTE) {
+            count1m += count;
+        }
+        if (newestAge < TEN_MINUTES) {
+            count10m += count;
+        }
+        if (newestAge < ONE_HOUR) {
+            count1h += count;
+            amount1h += amount;
+        }
+    }
+
+    void writeTo(Headers headers, String key) {
+        byte[] encoded = ByteBuffer.allocate(ENCODED_SIZE)
+                .putInt(count1m).putInt(count10m).putInt(count1h).putDouble(amount1h)
+                .array();
+        headers.remove(key);
+        headers.add(key, encoded);
+    }
+
+    /**
+     * Reads and removes the header {@code key}.
+     *
+     * @return {@code false} (and the features reset) if the header is absent or malformed
+     */
+    boolean readFrom(Headers headers, String key) {
+        reset();
+        Header header = headers.lastHeader(key);
+        if (header == null) {
+            return false;
+        }
+        headers.remove(key);
+        byte[] value = header.value();
+        if (value == null || value.length != ENCODED_SIZE) {
+            return false;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(value);
+        count1m = buf.getInt();
+        count10m = buf.getInt();
+        count1h = buf.getInt();
+        amount1h = buf.getDouble();
+        return true;
+    }
+}
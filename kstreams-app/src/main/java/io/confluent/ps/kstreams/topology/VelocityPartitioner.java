@@ -0,0 +1,36 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.processor.StreamPartitioner;
+
+/**
+ * Partitions payments by a text field (card or merchant) while keeping the
+ * record key (transaction id) unchanged, so the velocity stores of one entity
+ * live in exactly one task and output topics stay keyed by transaction.
+ *
+ * <p>Payments without the field go to partition 0.
+ */
+final class VelocityPartitioner<V> implements StreamPartitioner<String, V> {
+
+    /** Shared by all tasks of a stream thread. */
+    private static final ThreadLocal<PaymentView> VIEW = ThreadLocal.withInitial(PaymentView::new);
+
+    private final PaymentCodec<V, ?> codec;
+    private final int field;
+
+    VelocityPartitioner(PaymentCodec<V, ?> codec, int field) {
+        this.codec = codec;
+        this.field = field;
+    }
+
+    @Override
+    public Integer partition(String topic, String key, V value, int numPartitions) {
+        PaymentView view = VIEW.get();
+        if (!codec.read(value, view) || !view.has(field)) {
+            return 0;
+        }
+        return Utils.toPositive(view.textHash(field)) % numPartitions;
+    }
+}
@@ -0,0 +1,119 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+/**
+ * Counts payments (and sums amounts) per card or merchant in sliding 1-minute,
+ * 10-minute and 1-hour windows and attaches the result as a
+ * {@link VelocityFeatures} header.
+ *
+ * <p>Each entity's activity is kept in a RocksDB window store as fixed
+ * {@link #BUCKET_SIZE} buckets of {@code (count, amountSum)}. Per payment the
+ * processor does one range scan over at most an hour of that entity's
+ * buckets and one put — the sliding windows are therefore exact to within one
+ * bucket. Retention is one hour plus a bucket, so expired segments are
+ * dropped whole and the store size depends only on the number of active
+ * entities per hour, not on total volume.
+ *
+ * <p>The input must be partitioned by the same entity ({@link VelocityPartitioner}).
+ * Payments without the entity field are forwarded unchanged.
+ */
+final class VelocityProcessor<V> implements FixedKeyProcessor<String, V, V> {
+
+    static final String CARD_STORE = "velocity-card";
+    static final String MERCHANT_STORE = "velocity-merchant";
+
+    static final long BUCKET_SIZE = Duration.ofSeconds(10).toMillis();
+    static final long RETENTION = VelocityFeatures.ONE_HOUR + BUCKET_SIZE;
+
+    private static final int BUCKET_BYTES = Long.BYTES + Double.BYTES;
+
+    private final PaymentCodec<V, ?> codec;
+    private final String storeName;
+    private final int field;
+    private final String headerKey;
+
+    private final PaymentView view = new PaymentView();
+    private final VelocityFeatures features = new VelocityFeatures();
+
+    private FixedKeyProcessorContext<String, V> context;
+    private WindowStore<Bytes, byte[]> store;
+
+    VelocityProcessor(PaymentCodec<V, ?> codec, String storeName, int field, String headerKey) {
+        this.codec = codec;
+        this.storeName = storeName;
+        this.field = field;
+        this.headerKey = headerKey;
+    }
+
+    /**
+     * Windowed store for one entity type. Caching absorbs repeated updates of a
+     * hot bucket between commits; the changelog is compacted and deleted by the
+     * same retention.
+     */
+    static StoreBuilder<WindowStore<Bytes, byte[]>> storeBuilder(String storeName) {
+        return Stores.windowStoreBuilder(
+                        Stores.persistentWindowStore(storeName,
+                                Duration.ofMillis(RETENTION), Duration.ofMillis(BUCKET_SIZE), false),
+                        Serdes.Bytes(), Serdes.ByteArray())
+                .withCachingEnabled();
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        if (codec.read(record.value(), view) && view.has(field)) {
+            update(Bytes.wrap(view.textBytes(field)), record.timestamp(), view.amount());
+            features.writeTo(record.headers(), headerKey);
+        }
+        context.forward(record);
+    }
+
+    /** Adds one payment to the entity's current bucket and recomputes its features. */
+    private void update(Bytes entity, long timestamp, double amount) {
+        long bucketStart = timestamp - Math.floorMod(timestamp, BUCKET_SIZE);
+        long bucketCount = 0;
+        double bucketAmount = 0.0;
+
+        features.reset();
+        try (WindowStoreIterator<byte[]> buckets =
+                     store.fetch(entity, bucketStart - VelocityFeatures.ONE_HOUR, bucketStart)) {
+            while (buckets.hasNext()) {
+                KeyValue<Long, byte[]> bucket = buckets.next();
+                ByteBuffer value = ByteBuffer.wrap(bucket.value);
+                long count = value.getLong();
+                double sum = value.getDouble();
+                if (bucket.key == bucketStart) {
+                    bucketCount = count;
+                    bucketAmount = sum;
+                }
+                features.add(timestamp - bucket.key, BUCKET_SIZE, (int) count, sum);
+            }
+        }
+
+        features.add(timestamp - bucketStart, BUCKET_SIZE, 1, amount);
+        store.put(entity, ByteBuffer.allocate(BUCKET_BYTES)
+                .putLong(bucketCount + 1)
+                .putDouble(bucketAmount + amount)
+                .array(), bucketStart);
+    }
+}
@@ -0,0 +1,48 @@
+package io.confluent.ps.kstreams.config;
+
+import org.junit.jupiter.api.Test;
+import org.rocksdb.Options;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TunedRocksDBConfigTest {
+
+    private static final Map<String, Object> SHARED = Map.of(
+            TunedRocksDBConfig.SHARED_MEMORY_CONFIG, "true",
+            TunedRocksDBConfig.MEMORY_BUDGET_CONFIG, String.valueOf(64L * 1024 * 1024));
+
+    @Test
+    void sharedMode_shouldReuseOneCacheAndReleaseItWithTheLastStore() {
+        TunedRocksDBConfig first = new TunedRocksDBConfig();
+        TunedRocksDBConfig second = new TunedRocksDBConfig();
+
+        try (Options firstOptions = new Options(); Options secondOptions = new Options()) {
+            first.setConfig("payments-store", firstOptions, SHARED);
+            second.setConfig("velocity-card.1700000000000", secondOptions, SHARED);
+
+            assertEquals(2, SharedRocksDBMemory.references(), "Both stores use the one shared cache");
+
+            first.close("payments-store", firstOptions);
+            assertEquals(1, SharedRocksDBMemory.references(), "Still used by the second store");
+
+            second.close("velocity-card.1700000000000", secondOptions);
+            assertEquals(0, SharedRocksDBMemory.references());
+
+            // Closing twice must not underflow the count
+            second.close("velocity-card.1700000000000", secondOptions);
+            assertEquals(0, SharedRocksDBMemory.references());
+        }
+    }
+
+    @Test
+    void perStoreMode_shouldNotTouchSharedMemory() {
+        TunedRocksDBConfig setter = new TunedRocksDBConfig();
+        try (Options options = new Options()) {
+            setter.setConfig("payments-store", options, Map.of());
+            assertEquals(0, SharedRocksDBMemory.references());
+            setter.close("payments-store", options);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.confluent.ps.kstreams.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void addedIds_shouldAlwaysBeFound() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("txn-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("txn-" + i), "txn-" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRate_shouldStayNearTargetAtExpectedCardinality() {
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("txn-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 100_000; i < 200_000; i++) {
+            if (filter.mightContain("txn-" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = falsePositives / 100_000.0;
+        assertTrue(rate < 0.015, "False-positive rate " + rate);
+        // ~9.6 bits per id at 1%
+        assertEquals(7, filter.hashes());
+        assertTrue(filter.sizeInBytes() < 125_000, "Size " + filter.sizeInBytes());
+    }
+
+    @Test
+    void clear_shouldForgetEverything() {
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        filter.add("txn-1");
+        filter.clear();
+        assertFalse(filter.mightContain("txn-1"));
+    }
+
+    @Test
+    void windowedFilter_shouldRememberForOneWindowAndForgetAfterTwo() {
+        WindowedBloomFilter filter = new WindowedBloomFilter(1_000, 1_000, 0.01);
+        filter.add("txn-1", 0);
+        filter.add("txn-2", 999);
+
+        filter.add("txn-3", 1_500);
+        assertTrue(filter.mightContain("txn-1"), "Previous generation is still checked");
+        assertTrue(filter.mightContain("txn-2"));
+
+        filter.add("txn-4", 2_600);
+        assertFalse(filter.mightContain("txn-1"), "Two windows on, the first generation is gone");
+        assertTrue(filter.mightContain("txn-3"));
+
+        filter.add("txn-5", 10_000);
+        assertFalse(filter.mightContain("txn-3"), "A gap of two windows clears both generations");
+        assertFalse(filter.mightContain("txn-4"));
+        assertTrue(filter.mightContain("txn-5"));
+    }
+
+    @Test
+    void restoredIds_shouldStartTheWindowAtTheNewestOfThem() {
+        WindowedBloomFilter filter = new WindowedBloomFilter(1_000, 1_000, 0.01);
+        // Store iteration is by key, not by time
+        filter.restore("txn-b", 5_000);
+        filter.restore("txn-a", 4_200);
+
+        filter.add("txn-c", 5_500);
+        assertTrue(filter.mightContain("txn-a"));
+        assertTrue(filter.mightContain("txn-b"));
+
+        filter.add("txn-d", 6_000);
+        assertTrue(filter.mightContain("txn-b"), "Rotated into the previous generation, not dropped");
+    }
+
+    @Test
+    void settings_shouldRejectInvalidSizing() {
+        Properties props = new Properties();
+        props.put(DedupSettings.BLOOM_FPP_CONFIG, "1.0");
+        assertThrows(IllegalArgumentException.class, () -> DedupSettings.from(props));
+
+        props.put(DedupSettings.BLOOM_FPP_CONFIG, "0.01");
+        props.put(DedupSettings.EXPECTED_IDS_CONFIG, "0");
+        assertThrows(IllegalArgumentException.class, () -> DedupSettings.from(props));
+
+        DedupSettings defaults = DedupSettings.from(new Properties());
+        assertFalse(defaults.enabled());
+        assertTrue(defaults.bloomEnabled());
+        assertEquals(3_600_000L, defaults.windowMs());
+    }
+}
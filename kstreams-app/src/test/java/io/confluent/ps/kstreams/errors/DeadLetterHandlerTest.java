@@ -0,0 +1,156 @@
+package io.confluent.ps.kstreams.errors;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics.ErrorStage;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadLetterHandlerTest {
+
+    private final PipelineMetrics metrics = new PipelineMetrics();
+
+    @Test
+    void deadLetter_shouldWriteRawRecordWithHeadersAndCount() {
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(),
+                new ByteArraySerializer());
+        DeadLetterDeserializationHandler handler = new DeadLetterDeserializationHandler();
+        handler.configure(new DeadLetterSettings("payments-dlq", 1_000), metrics,
+                new DeadLetterPublisher(() -> producer));
+
+        Headers headers = new RecordHeaders().add("trace", utf8("abc"));
+        boolean skipped = handler.deadLetter(ErrorStage.DESERIALIZATION, "payments", 3, 42L, "source-payments",
+                headers, utf8("txn-1"), new byte[] {0, 1, 2}, new SerializationException("Unknown magic byte!"), true);
+
+        assertTrue(skipped);
+        assertEquals(1, producer.history().size());
+        ProducerRecord<byte[], byte[]> sent = producer.history().get(0);
+        assertEquals("payments-dlq", sent.topic());
+        assertArrayEquals(new byte[] {0, 1, 2}, sent.value(), "Poison bytes are kept as they came in");
+        assertEquals("abc", header(sent.headers(), "trace"), "The record's own headers are kept");
+        assertEquals("deserialization", header(sent.headers(), DeadLetterHeaders.STAGE));
+        assertEquals("org.apache.kafka.common.errors.SerializationException: Unknown magic byte!",
+                header(sent.headers(), DeadLetterHeaders.REASON));
+        assertEquals("payments", header(sent.headers(), DeadLetterHeaders.SOURCE_TOPIC));
+        assertEquals("3", header(sent.headers(), DeadLetterHeaders.SOURCE_PARTITION));
+        assertEquals("42", header(sent.headers(), DeadLetterHeaders.SOURCE_OFFSET));
+        assertNull(headers.lastHeader(DeadLetterHeaders.STAGE), "Input headers are not modified");
+
+        assertEquals(1, metrics.errorCount(ErrorStage.DESERIALIZATION));
+        assertEquals(1, metrics.deadLetterCount(ErrorStage.DESERIALIZATION));
+    }
+
+    @Test
+    void deadLetter_shouldNotSkipWhenTheWriteTimesOut() {
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(false, new ByteArraySerializer(),
+                new ByteArraySerializer());
+        DeadLetterProcessingHandler handler = new DeadLetterProcessingHandler();
+        handler.configure(new DeadLetterSettings("payments-dlq", 20), metrics,
+                new DeadLetterPublisher(() -> producer));
+
+        assertFalse(handler.deadLetter(ErrorStage.PROCESSING, "payments", 0, 7L, "enrich-risk-score",
+                null, null, utf8("{}"), new IllegalStateException("boom"), true));
+        assertTrue(handler.deadLetter(ErrorStage.PRODUCTION, null, -1, -1L, "sink-approved",
+                null, null, null, new IllegalStateException("too large"), false), "Not awaited: sent is enough");
+
+        assertEquals(1, metrics.errorCount(ErrorStage.PROCESSING));
+        assertEquals(0, metrics.deadLetterCount(ErrorStage.PROCESSING));
+        assertNull(header(producer.history().get(1).headers(), DeadLetterHeaders.SOURCE_OFFSET));
+    }
+
+    @Test
+    void deadLetter_withoutTopic_shouldOnlyCount() {
+        DeadLetterProductionHandler handler = new DeadLetterProductionHandler();
+        handler.configure(new DeadLetterSettings("", 1_000), metrics, null);
+
+        assertTrue(handler.deadLetter(ErrorStage.PRODUCTION, "payments", 0, 1L, "sink-fraud-alerts",
+                null, null, null, new IllegalStateException("boom"), true));
+        assertEquals(1, metrics.errorCount());
+        assertEquals(0, metrics.deadLetterCount(ErrorStage.PRODUCTION));
+    }
+
+    @Test
+    void settings_shouldInstallHandlersWithoutOverridingExplicitOnes() {
+        Properties props = new Properties();
+        props.put(StreamsConfig.PROCESSING_EXCEPTION_HANDLER_CLASS_CONFIG, "com.example.Custom");
+        DeadLetterSettings.install(props, metrics);
+
+        assertEquals(DeadLetterDeserializationHandler.class.getName(),
+                props.get(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG));
+        assertEquals("com.example.Custom", props.get(StreamsConfig.PROCESSING_EXCEPTION_HANDLER_CLASS_CONFIG));
+        assertSame(metrics, props.get(DeadLetterSettings.METRICS_CONFIG));
+
+        assertEquals(new DeadLetterSettings("payments-dlq", 10_000), DeadLetterSettings.from(props));
+        props.put(DeadLetterSettings.TIMEOUT_CONFIG, "0");
+        assertThrows(IllegalArgumentException.class, () -> DeadLetterSettings.from(props));
+    }
+
+    @Test
+    void publisher_shouldNotBlockLongerThanTheDeadLetterTimeout() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection");
+        configs.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        configs.put(DeadLetterSettings.TIMEOUT_CONFIG, "2000");
+
+        Map<String, Object> producerConfigs = DeadLetterPublisher.producerConfigs(configs);
+
+        assertEquals(2000L, producerConfigs.get(ProducerConfig.MAX_BLOCK_MS_CONFIG));
+        assertEquals(2000, producerConfigs.get(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG));
+        assertEquals(2000, producerConfigs.get(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG),
+                "delivery.timeout.ms must cover request.timeout.ms");
+
+        configs.put(StreamsConfig.producerPrefix(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG), "500");
+        assertEquals(500, DeadLetterPublisher.producerConfigs(configs).get(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG));
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void threadReplacementBudget_shouldEscalateWhenFailuresRepeatWithinTheWindow() {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        ThreadReplacementBudget budget = new ThreadReplacementBudget("main", 2, 60_000,
+                StreamThreadExceptionResponse.SHUTDOWN_APPLICATION, now::get);
+        IllegalStateException failure = new IllegalStateException("dead letter not written");
+
+        assertEquals(StreamThreadExceptionResponse.REPLACE_THREAD, budget.handle(failure));
+        now.addAndGet(1_000);
+        assertEquals(StreamThreadExceptionResponse.REPLACE_THREAD, budget.handle(failure));
+        now.addAndGet(1_000);
+        assertEquals(StreamThreadExceptionResponse.SHUTDOWN_APPLICATION, budget.handle(failure),
+                "The same failure again right away is not worth another thread");
+
+        now.addAndGet(60_000);
+        assertEquals(StreamThreadExceptionResponse.REPLACE_THREAD, budget.handle(failure),
+                "Replacements older than the window no longer count");
+
+        Properties props = new Properties();
+        props.setProperty(ThreadReplacementBudget.MAX_CONFIG, "-1");
+        assertThrows(IllegalArgumentException.class, () -> ThreadReplacementBudget.from(props, "main",
+                StreamThreadExceptionResponse.SHUTDOWN_APPLICATION));
+    }
+
+    private static String header(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,126 @@
+package io.confluent.ps.kstreams.merchant;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.scan.PaymentScanner;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerchantNearCacheTest {
+
+    private final Map<String, MerchantProfile> store = new HashMap<>();
+    private final List<String> loads = new ArrayList<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private final PaymentView view = new PaymentView();
+
+    @Test
+    void hotMerchants_shouldBeServedWithoutReadingTheStore() {
+        store.put("MERCH-001", MerchantProfile.parse("{\"risk_tier\":\"high\",\"mcc\":\"7995\",\"country\":\"MT\"}"));
+        MerchantNearCache cache = cache(16);
+
+        for (int i = 0; i < 100; i++) {
+            cache.enrich(payment("MERCH-001"));
+        }
+
+        assertEquals(List.of("MERCH-001"), loads);
+        assertEquals(3, view.merchantRiskTier());
+        assertEquals("7995", view.text(PaymentView.MERCHANT_MCC));
+        assertEquals("MT", view.text(PaymentView.MERCHANT_COUNTRY));
+        assertEquals(0.99, metrics.merchantCacheHitRatio(), 1e-9);
+    }
+
+    @Test
+    void unknownMerchants_shouldBeCachedAsUnknown() {
+        MerchantNearCache cache = cache(16);
+
+        assertSame(MerchantProfile.UNKNOWN, cache.lookup(payment("MERCH-404")));
+        assertSame(MerchantProfile.UNKNOWN, cache.lookup(payment("MERCH-404")));
+        assertEquals(List.of("MERCH-404"), loads);
+        assertEquals(0, view.merchantRiskTier());
+        assertFalse(view.has(PaymentView.MERCHANT_MCC));
+
+        PaymentView noMerchant = new PaymentView();
+        PaymentScanner.scan(utf8("{\"amount\":10.00}"), noMerchant);
+        assertSame(MerchantProfile.UNKNOWN, cache.lookup(noMerchant));
+        assertEquals(1, loads.size(), "A payment without a merchant id is not looked up");
+    }
+
+    @Test
+    void capacity_shouldBoundTheEntriesAndEvictTheLeastRecentlyUsedWay() {
+        MerchantNearCache cache = cache(3);
+        assertEquals(4, cache.capacity());
+
+        for (int i = 0; i < 1000; i++) {
+            cache.lookup(payment("MERCH-" + i));
+        }
+        loads.clear();
+        // Whatever survived, no more than capacity merchants can still be hits
+        for (int i = 0; i < 1000; i++) {
+            cache.lookup(payment("MERCH-" + i));
+        }
+        assertTrue(loads.size() >= 1000 - cache.capacity(), "loads=" + loads.size());
+
+        // Two merchants sharing a set both stay if one of them is touched in between
+        MerchantNearCache pair = cache(2);
+        pair.lookup(payment("A"));
+        pair.lookup(payment("B"));
+        pair.lookup(payment("A"));
+        pair.lookup(payment("C"));
+        loads.clear();
+        pair.lookup(payment("A"));
+        assertEquals(List.of(), loads, "The most recently used way survives an eviction");
+        pair.lookup(payment("B"));
+        assertEquals(List.of("B"), loads);
+    }
+
+    @Test
+    void storeChanges_shouldInvalidateTheCache() {
+        store.put("MERCH-001", MerchantProfile.parse("{\"risk_tier\":\"low\"}"));
+        MerchantNearCache cache = cache(16);
+        assertEquals(1, cache.lookup(payment("MERCH-001")).riskTier());
+
+        store.put("MERCH-001", MerchantProfile.parse("{\"risk_tier\":3}"));
+        assertEquals(1, cache.lookup(payment("MERCH-001")).riskTier(), "Unchanged generation, cached profile");
+
+        generation.incrementAndGet();
+        assertEquals(3, cache.lookup(payment("MERCH-001")).riskTier());
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    void parse_shouldRejectUnknownRiskTiersAndNonObjects() {
+        assertThrows(IllegalArgumentException.class, () -> MerchantProfile.parse("{\"risk_tier\":\"extreme\"}"));
+        assertThrows(IllegalArgumentException.class, () -> MerchantProfile.parse("high"));
+
+        MerchantProfile profile = MerchantProfile.parse("{\"merchant_id\":\"M\",\"mcc\":5411,\"extra\":[1,2]}");
+        assertEquals(0, profile.riskTier());
+        assertEquals("5411", profile.mcc());
+        assertNull(profile.country());
+    }
+
+    private MerchantNearCache cache(int maxEntries) {
+        return new MerchantNearCache(maxEntries, generation::get, id -> {
+            loads.add(id);
+            return store.get(id);
+        }, metrics);
+    }
+
+    private PaymentView payment(String merchantId) {
+        PaymentScanner.scan(utf8("{\"merchant_id\":\"" + merchantId + "\",\"amount\":10.00}"), view);
+        return view;
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
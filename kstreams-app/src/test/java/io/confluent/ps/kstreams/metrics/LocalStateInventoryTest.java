@@ -0,0 +1,75 @@
+package io.confluent.ps.kstreams.metrics;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.StreamsConfig;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalStateInventoryTest {
+
+    private static final TopicPartition CARD_0 = new TopicPartition("app-risk-latest-card-changelog", 0);
+    private static final TopicPartition MERCHANT_0 = new TopicPartition("app-risk-latest-merchant-changelog", 0);
+
+    @TempDir
+    Path stateDir;
+
+    @Test
+    void missingStateDir_shouldBeEmpty() {
+        LocalStateInventory inventory = scan();
+        assertEquals(LocalStateInventory.EMPTY, inventory);
+        assertFalse(inventory.warm());
+    }
+
+    @Test
+    void scan_shouldReadCheckpointsOfTaskDirectories() throws IOException {
+        Path app = stateDir.resolve("app");
+        Files.createDirectories(app.resolve("3_0/rocksdb/risk-latest-card"));
+        Files.write(app.resolve("3_0/rocksdb/risk-latest-card/000001.sst"), new byte[1024]);
+        Files.writeString(app.resolve("3_0/.checkpoint"), "0\n2\n"
+                + "app-risk-latest-card-changelog 0 1200\n"
+                + "app-risk-latest-merchant-changelog 0 800\n");
+        Files.createDirectories(app.resolve("4_1"));             // no checkpoint: unclean shutdown
+        Files.createDirectories(app.resolve("kafka-streams-tmp")); // not a task directory
+        Files.writeString(app.resolve(".lock"), "");
+
+        LocalStateInventory inventory = scan();
+        assertEquals(2, inventory.taskDirectories());
+        assertEquals(1, inventory.checkpointedTasks());
+        assertTrue(inventory.warm());
+        assertTrue(inventory.bytesOnDisk() >= 1024);
+        assertEquals(Map.of(CARD_0, 1200L, MERCHANT_0, 800L), inventory.checkpointedOffsets());
+        assertEquals(-1, inventory.backlogRecords());
+
+        LocalStateInventory withBacklog = inventory.withEndOffsets(partitions -> {
+            assertEquals(inventory.checkpointedOffsets().keySet(), partitions);
+            return Map.of(CARD_0, 1500L);
+        });
+        assertEquals(300, withBacklog.backlogRecords(), "Partitions without an end offset add nothing");
+    }
+
+    @Test
+    void corruptCheckpoint_shouldBeSkipped() throws IOException {
+        Path task = Files.createDirectories(stateDir.resolve("app/0_0"));
+        Files.writeString(task.resolve(".checkpoint"), "0\nnot-a-number\n");
+
+        LocalStateInventory inventory = scan();
+        assertEquals(1, inventory.checkpointedTasks());
+        assertTrue(inventory.checkpointedOffsets().isEmpty());
+    }
+
+    private LocalStateInventory scan() {
+        Properties props = new Properties();
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "app");
+        return LocalStateInventory.scan(props);
+    }
+}
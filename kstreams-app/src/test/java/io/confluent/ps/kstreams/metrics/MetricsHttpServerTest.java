@@ -0,0 +1,162 @@
+package io.confluent.ps.kstreams.metrics;
+
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.topology.FraudDetectionTopology;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsHttpServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private MetricsHttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void health_shouldFollowReportedState() throws Exception {
+        server = start(new PipelineMetrics(), Map.of());
+
+        assertEquals(200, get("/health/live").statusCode());
+        assertEquals(503, get("/health/ready").statusCode(), "Not ready before RUNNING");
+
+        server.onStateChange(KafkaStreams.State.RUNNING);
+        assertEquals(200, get("/health/ready").statusCode());
+
+        server.onStateChange(KafkaStreams.State.REBALANCING);
+        assertEquals(503, get("/health/ready").statusCode());
+        assertEquals(200, get("/health/live").statusCode());
+
+        server.onStateChange(KafkaStreams.State.ERROR);
+        HttpResponse<String> live = get("/health/live");
+        assertEquals(503, live.statusCode());
+        assertTrue(live.body().contains("state=ERROR"));
+    }
+
+    @Test
+    void metrics_shouldExportStreamsAndPipelineMetrics() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "metrics-http-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "false");
+
+        try (TopologyTestDriver driver = new TopologyTestDriver(
+                FraudDetectionTopology.build(props, RuleEngine.withDefaults(), metrics), props)) {
+            TestInputTopic<String, String> input = driver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                    Serdes.String().serializer(), Serdes.String().serializer());
+            input.pipeInput("txn-1", payment("txn-1", 25.00));
+            input.pipeInput("txn-2", payment("txn-2", 9999.00));
+            input.pipeInput("txn-3", payment("txn-3", 42.50));
+        }
+        assertEquals(1, metrics.flaggedCount());
+        assertEquals(2, metrics.approvedCount());
+
+        MetricName name = new MetricName("process-rate", "stream-thread-metrics",
+                "The average number of records processed per second", Map.of("thread-id", "app-\"1\""));
+        server = start(metrics, Map.of(name, new FixedMetric(name, 12.5)));
+
+        HttpResponse<String> response = get("/metrics");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain; version=0.0.4"));
+
+        String body = response.body();
+        assertTrue(body.contains("# TYPE fraud_enrich_risk_score_seconds summary"), body);
+        assertTrue(body.contains("fraud_enrich_risk_score_seconds_count 3"), body);
+        assertTrue(body.contains("fraud_event_time_lag_seconds_count 3"), body);
+        assertTrue(body.contains("fraud_branch_records_total{branch=\"flagged\"} 1"), body);
+        assertTrue(body.contains("fraud_branch_records_total{branch=\"approved\"} 2"), body);
+        assertTrue(body.contains("# TYPE kafka_stream_thread_metrics_process_rate gauge"), body);
+        assertTrue(body.contains("kafka_stream_thread_metrics_process_rate{thread_id=\"app-\\\"1\\\"\"} 12.5"), body);
+    }
+
+    @Test
+    void restore_shouldReportProgressOnHealthAndMetrics() throws Exception {
+        RestoreProgress progress = new RestoreProgress(1_000, () -> 0L);
+        Properties props = new Properties();
+        props.put(MetricsHttpServer.PORT_CONFIG, "0");
+        server = MetricsHttpServer.start(props, Map::of, new PipelineMetrics(), progress);
+        server.onStateChange(KafkaStreams.State.REBALANCING);
+
+        TopicPartition changelog = new TopicPartition("fraud-detection-app-risk-latest-card-changelog", 0);
+        progress.onRestoreStart(changelog, "risk-latest-card", 0, 5_000);
+        progress.onBatchRestored(changelog, "risk-latest-card", 999, 1_000);
+
+        HttpResponse<String> restore = get("/health/restore");
+        assertEquals(200, restore.statusCode());
+        assertTrue(restore.body().startsWith("{\"state\":\"REBALANCING\",\"progress\":{\"restoring_partitions\":1,"
+                + "\"remaining_records\":4000,"), restore.body());
+        assertTrue(restore.body().contains("\"eta_seconds\":4.0"), restore.body());
+
+        HttpResponse<String> ready = get("/health/ready");
+        assertEquals(503, ready.statusCode());
+        assertTrue(ready.body().contains("remaining=4000"), ready.body());
+
+        String metrics = get("/metrics").body();
+        assertTrue(metrics.contains("fraud_restore_remaining_records 4000"), metrics);
+        assertTrue(metrics.contains("fraud_restore_records_total 1000"), metrics);
+    }
+
+    @Test
+    void restore_withoutProgress_shouldAnswerNotFound() throws Exception {
+        server = start(new PipelineMetrics(), Map.of());
+        assertEquals(404, get("/health/restore").statusCode());
+    }
+
+    @Test
+    void negativePort_shouldDisableTheEndpoint() {
+        Properties props = new Properties();
+        props.put(MetricsHttpServer.PORT_CONFIG, "-1");
+        assertNull(MetricsHttpServer.start(props, Map::of, new PipelineMetrics()));
+    }
+
+    private static MetricsHttpServer start(PipelineMetrics metrics, Map<MetricName, ? extends Metric> streamsMetrics) {
+        Properties props = new Properties();
+        props.put(MetricsHttpServer.PORT_CONFIG, "0");
+        return MetricsHttpServer.start(props, () -> streamsMetrics, metrics);
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String payment(String txnId, double amount) {
+        return String.format(Locale.ROOT, "{\"transaction_id\":\"%s\","
+                + "\"card_number_masked\":\"****-****-****-1234\","
+                + "\"amount\":%.2f,\"currency\":\"USD\",\"merchant_id\":\"MERCH-1\","
+                + "\"timestamp\":1700000000000,\"status\":\"PENDING\",\"region\":\"US-EAST\"}", txnId, amount);
+    }
+
+    private record FixedMetric(MetricName metricName, double value) implements Metric {
+        @Override
+        public Object metricValue() {
+            return value;
+        }
+    }
+}
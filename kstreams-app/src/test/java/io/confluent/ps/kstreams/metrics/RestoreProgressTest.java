@@ -0,0 +1,95 @@
+package io.confluent.ps.kstreams.metrics;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.processor.StandbyUpdateListener;
+import org.apache.kafka.streams.processor.TaskId;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestoreProgressTest {
+
+    private static final TopicPartition CARD_0 = new TopicPartition("app-risk-latest-card-changelog", 0);
+    private static final TopicPartition CARD_1 = new TopicPartition("app-risk-latest-card-changelog", 1);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final RestoreProgress progress = new RestoreProgress(10_000, nanos::get);
+
+    @Test
+    void beforeRestore_shouldUseTheOnDiskBacklogAndEstimatedRate() {
+        assertEquals(-1, progress.remainingRecords(), "Unknown until the local state was scanned");
+        assertEquals(-1, progress.etaSeconds());
+
+        progress.expect(new LocalStateInventory(4, 4, 1 << 20, Map.of(CARD_0, 100L), 50_000));
+        assertEquals(50_000, progress.remainingRecords());
+        assertEquals(5.0, progress.etaSeconds(), 1e-9);
+    }
+
+    @Test
+    void duringRestore_shouldTrackRemainingRecordsAndMeasuredRate() {
+        progress.onRestoreStart(CARD_0, "risk-latest-card", 0, 10_000);
+        progress.onRestoreStart(CARD_1, "risk-latest-card", 500, 20_500);
+        assertEquals(2, progress.restoringPartitions());
+        assertEquals(30_000, progress.remainingRecords());
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        progress.onBatchRestored(CARD_0, "risk-latest-card", 4_999, 5_000);
+        progress.onBatchRestored(CARD_1, "risk-latest-card", 5_499, 5_000);
+
+        assertEquals(20_000, progress.remainingRecords());
+        assertEquals(10_000, progress.restoredRecords());
+        assertEquals(5_000, progress.recordsPerSecond(), 1e-9, "10k records in 2s");
+        assertEquals(4.0, progress.etaSeconds(), 1e-9);
+
+        progress.onRestoreEnd(CARD_0, "risk-latest-card", 10_000);
+        progress.onRestoreSuspended(CARD_1, "risk-latest-card", 5_000);
+        assertEquals(0, progress.restoringPartitions());
+        assertEquals(0, progress.remainingRecords());
+        assertEquals(0.0, progress.etaSeconds(), 1e-9);
+    }
+
+    @Test
+    void idleTime_shouldNotDiluteTheMeasuredRate() {
+        progress.onRestoreStart(CARD_0, "risk-latest-card", 0, 4_000);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        progress.onBatchRestored(CARD_0, "risk-latest-card", 3_999, 4_000);
+        progress.onRestoreEnd(CARD_0, "risk-latest-card", 4_000);
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertEquals(2_000, progress.recordsPerSecond(), 1e-9);
+    }
+
+    @Test
+    void standby_shouldReportLagUntilSuspended() {
+        TaskId task = new TaskId(3, 0);
+        progress.onUpdateStart(CARD_0, "risk-latest-card", 0);
+        progress.onBatchLoaded(CARD_0, "risk-latest-card", task, 899, 900, 1_000);
+        progress.onBatchLoaded(CARD_1, "risk-latest-card", task, 1_999, 2_000, 2_000);
+        assertEquals(2, progress.standbyPartitions());
+        assertEquals(100, progress.standbyLagRecords());
+
+        progress.onUpdateSuspended(CARD_0, "risk-latest-card", 900, 1_000,
+                StandbyUpdateListener.SuspendReason.PROMOTED);
+        assertEquals(1, progress.standbyPartitions());
+        assertEquals(0, progress.standbyLagRecords());
+    }
+
+    @Test
+    void toJson_shouldIncludeLocalState() {
+        progress.expect(new LocalStateInventory(2, 1, 4096, Map.of(CARD_0, 10L), 90));
+        String json = progress.toJson();
+        assertTrue(json.startsWith("{\"restoring_partitions\":0,\"remaining_records\":90,"), json);
+        assertTrue(json.endsWith(",\"local_state\":{\"tasks\":2,\"checkpointed_tasks\":1,\"bytes\":4096,"
+                + "\"backlog_records\":90}}"), json);
+    }
+
+    @Test
+    void nonPositiveEstimatedRate_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RestoreProgress(0, System::nanoTime));
+    }
+}
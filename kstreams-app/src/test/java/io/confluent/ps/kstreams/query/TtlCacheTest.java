@@ -0,0 +1,45 @@
+package io.confluent.ps.kstreams.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void entries_shouldExpireAfterTtl() {
+        TtlCache<String, String> cache = new TtlCache<>(2_000, 10, now::get);
+        cache.put("card/1", "a");
+
+        now.addAndGet(1_999);
+        assertEquals("a", cache.get("card/1"));
+        now.addAndGet(1);
+        assertNull(cache.get("card/1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cache_shouldEvictLeastRecentlyUsedBeyondCapacity() {
+        TtlCache<String, String> cache = new TtlCache<>(60_000, 2, now::get);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    void zeroTtl_shouldDisableCaching() {
+        TtlCache<String, String> cache = new TtlCache<>(0, 10, now::get);
+        cache.put("a", "1");
+
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,118 @@
+package io.confluent.ps.kstreams.rules;
+
+import io.confluent.ps.kstreams.scan.PaymentScanner;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleEngineTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void defaultRules_shouldMatchTheOriginalHeuristics() {
+        CompiledRules rules = RuleEngine.withDefaults().current();
+
+        assertEquals(1.0, score(rules, "{\"amount\":7500.00,\"region\":\"AP-SOUTH\"}"), 1e-9);
+        assertEquals(0.0, score(rules, "{\"amount\":50.00,\"region\":\"US-EAST\"}"), 1e-9);
+        assertEquals(0.15, score(rules, "{\"amount\":600,\"region\":\"US-EAST\"}"), 1e-9);
+        assertEquals(0.4, score(rules, "{\"amount\":1500.50,\"region\":\"US-EAST\"}"), 1e-9);
+    }
+
+    @Test
+    void parse_shouldCompileConjunctionsAndTextLists() {
+        CompiledRules rules = RuleSetParser.parse("""
+                # comment
+                offshore: region not in (US-EAST, "EU-WEST") && amount >= 100 => 0.5 | offshore
+                usd-only: currency == USD => 0.25
+                """);
+
+        assertEquals(2, rules.ruleCount());
+        assertEquals(3, rules.conditionCount());
+        assertEquals(0.0, score(rules, "{\"amount\":100,\"region\":\"EU-WEST\",\"currency\":\"EUR\"}"), 1e-9);
+        assertEquals(0.75, score(rules, "{\"amount\":100,\"region\":\"AP-SOUTH\",\"currency\":\"USD\"}"), 1e-9);
+        assertEquals(0.25, score(rules, "{\"amount\":99,\"region\":\"AP-SOUTH\",\"currency\":\"USD\"}"), 1e-9);
+    }
+
+    @Test
+    void parse_shouldRejectInvalidRulesWithLineNumber() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RuleSetParser.parse("ok: amount > 1 => 0.1\nbad: region > 5 => 0.2"));
+        assertTrue(e.getMessage().startsWith("Rule line 2"), e.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> RuleSetParser.parse("x: colour == red => 0.1"));
+        assertThrows(IllegalArgumentException.class, () -> RuleSetParser.parse("x: amount > 1 => 0.1\nx: amount > 2 => 0.1"));
+        assertThrows(IllegalArgumentException.class, () -> RuleSetParser.parse("x: amount in (1, 2) => 0.1"));
+    }
+
+    @Test
+    void parse_shouldRejectNegativeScores() {
+        // A negative velocity rule could lower a score the fast lane already alerted on
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RuleSetParser.parse("ok: amount > 1 => 0.1\nknown-card: card.count.1h >= 3 => -0.3"));
+        assertTrue(e.getMessage().startsWith("Rule line 2"), e.getMessage());
+
+        assertEquals(1, RuleSetParser.parse("zero: amount > 1 => 0").ruleCount());
+    }
+
+    @Test
+    void update_shouldKeepActiveRulesWhenTheNewSetIsInvalid() {
+        RuleEngine engine = RuleEngine.withDefaults();
+        CompiledRules before = engine.current();
+
+        assertFalse(engine.update("test", "not a rule"));
+        assertSame(before, engine.current());
+
+        assertTrue(engine.update("test", "all: amount >= 0 => 1.0"));
+        assertEquals(1, engine.current().ruleCount());
+
+        engine.reset("test");
+        assertSame(before, engine.current());
+    }
+
+    @Test
+    void fileWatcher_shouldLoadAndReloadOnChange() throws Exception {
+        Path file = dir.resolve("fraud.rules");
+        Files.writeString(file, "a: amount > 1 => 0.1\n", StandardCharsets.UTF_8);
+        Properties props = new Properties();
+        props.setProperty(RuleFileWatcher.FILE_CONFIG, file.toString());
+        props.setProperty(RuleFileWatcher.POLL_INTERVAL_CONFIG, "60000");
+        RuleEngine engine = RuleEngine.withDefaults();
+
+        try (RuleFileWatcher watcher = RuleFileWatcher.start(props, engine)) {
+            assertNotNull(watcher);
+            assertEquals(1, engine.current().ruleCount());
+
+            Files.writeString(file, "a: amount > 1 => 0.1\nb: amount > 2 => 0.2\n", StandardCharsets.UTF_8);
+            assertTrue(watcher.reloadIfChanged());
+            assertEquals(2, engine.current().ruleCount());
+
+            Files.writeString(file, "broken", StandardCharsets.UTF_8);
+            assertFalse(watcher.reloadIfChanged());
+            assertEquals(2, engine.current().ruleCount(), "Invalid file must not replace active rules");
+        }
+    }
+
+    @Test
+    void fileWatcher_shouldBeAbsentWhenNotConfigured() {
+        assertNull(RuleFileWatcher.start(new Properties(), RuleEngine.withDefaults()));
+    }
+
+    private static double score(CompiledRules rules, String json) {
+        PaymentView view = new PaymentView();
+        PaymentScanner.scan(json.getBytes(StandardCharsets.UTF_8), view);
+        double[] inputs = new double[NumericField.COUNT];
+        inputs[NumericField.AMOUNT.ordinal()] = view.amount();
+        inputs[NumericField.AMOUNT_FRACTION.ordinal()] = view.amount() - Math.floor(view.amount());
+        return rules.score(view, inputs);
+    }
+}
@@ -0,0 +1,150 @@
+package io.confluent.ps.kstreams.scaling;
+
+import io.confluent.ps.kstreams.scaling.ScalingPolicy.Action;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalingPolicyTest {
+
+    private static final long INTERVAL = 15_000;
+
+    /** 2..6 threads, up above 10k/thread for 2 samples, down below 1k/thread for 3 samples, 60 s cooldown. */
+    private static final AutoscaleSettings SETTINGS = new AutoscaleSettings(
+            true, INTERVAL, 2, 6, 10_000, 1_000, 0.85, 0.5, 2, 3, 60_000);
+
+    private final ScalingPolicy policy = new ScalingPolicy(SETTINGS);
+    private long now = 1_000_000;
+
+    @Test
+    void sustainedLag_shouldAddOneThreadThenCoolDown() {
+        assertEquals(Action.HOLD, sample(2, 50_000, 0.4), "One high sample is not enough");
+        assertEquals(Action.UP, sample(2, 50_000, 0.4));
+        assertEquals(Action.HOLD, sample(3, 80_000, 0.4), "Cooldown after a change");
+        assertEquals(Action.HOLD, sample(3, 80_000, 0.4));
+        assertEquals(Action.HOLD, sample(3, 80_000, 0.4));
+        assertEquals(Action.HOLD, sample(3, 80_000, 0.4), "Cooldown over, streak restarts");
+        assertEquals(Action.UP, sample(3, 80_000, 0.4));
+    }
+
+    @Test
+    void lagSpike_shouldNotFlap() {
+        assertEquals(Action.HOLD, sample(2, 50_000, 0.4));
+        assertEquals(Action.HOLD, sample(2, 500, 0.4), "Spike over before the second sample");
+        assertEquals(Action.HOLD, sample(2, 50_000, 0.4), "Streak starts again");
+    }
+
+    @Test
+    void lagBetweenThresholds_shouldHold() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Action.HOLD, sample(4, 4 * 5_000, 0.3));
+        }
+    }
+
+    @Test
+    void saturatedCpu_shouldBlockScaleUp() {
+        for (int i = 0; i < 5; i++) {
+            ScalingPolicy.Decision decision = policy.decide(now += INTERVAL, 2, 50_000, 0.95);
+            assertEquals(Action.HOLD, decision.action());
+            assertTrue(decision.reason().contains("CPU saturated"), decision.reason());
+        }
+        assertEquals(Action.UP, sample(2, 50_000, 0.6), "Streak kept while blocked by CPU");
+    }
+
+    @Test
+    void sustainedQuiet_shouldRemoveThreadsDownToMin() {
+        assertEquals(Action.HOLD, sample(3, 100, 0.1));
+        assertEquals(Action.HOLD, sample(3, 100, 0.1));
+        assertEquals(Action.DOWN, sample(3, 100, 0.1));
+        now += SETTINGS.cooldownMs();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Action.HOLD, sample(2, 0, 0.1), "Never below min.threads");
+        }
+    }
+
+    @Test
+    void lowLagButBusyCpu_shouldKeepThreads() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Action.HOLD, sample(4, 100, 0.7));
+        }
+    }
+
+    @Test
+    void atMaxThreads_shouldHold() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Action.HOLD, sample(6, 600_000, 0.3));
+        }
+    }
+
+    @Test
+    void outsideBounds_shouldCorrectImmediately() {
+        assertEquals(Action.UP, sample(1, 0, 0.1));
+        assertEquals(Action.DOWN, policy.decide(now + 1, 7, 0, 0.1).action());
+    }
+
+    @Test
+    void unknownCpu_shouldScaleOnLagAlone() {
+        assertEquals(Action.HOLD, sample(2, 50_000, -1));
+        assertEquals(Action.UP, sample(2, 50_000, -1));
+    }
+
+    @Test
+    void settings_shouldDefaultMinToConfiguredThreadsAndValidateBounds() {
+        Properties props = new Properties();
+        props.put("num.stream.threads", "3");
+        props.put(AutoscaleSettings.PREFIX + "max.threads", "8");
+        AutoscaleSettings settings = AutoscaleSettings.from(props);
+        assertFalse(settings.enabled());
+        assertEquals(3, settings.minThreads());
+        assertEquals(8, settings.maxThreads());
+
+        props.put(AutoscaleSettings.PREFIX + "max.threads", "2");
+        assertThrows(IllegalArgumentException.class, () -> AutoscaleSettings.from(props));
+
+        props.put(AutoscaleSettings.PREFIX + "max.threads", "8");
+        props.put(AutoscaleSettings.PREFIX + "lag.down.per.thread", "20000");
+        assertThrows(IllegalArgumentException.class, () -> AutoscaleSettings.from(props));
+    }
+
+    @Test
+    void consumerLag_shouldSumMainConsumerPartitionsOnly() {
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        lag(metrics, "app-StreamThread-1-consumer", "payments", "0", 1_200);
+        lag(metrics, "app-StreamThread-2-consumer", "payments", "1", 300);
+        lag(metrics, "app-StreamThread-2-consumer", "app-velocity-by-card-repartition", "1", 50);
+        lag(metrics, "app-StreamThread-1-restore-consumer", "app-risk-latest-card-changelog", "0", 90_000);
+        lag(metrics, "app-global-consumer", "fraud-rules", "0", 7);
+        lag(metrics, "app-StreamThread-3-consumer", "payments", "2", Double.NaN);
+        MetricName perClient = new MetricName("records-lag", "consumer-fetch-manager-metrics", "",
+                Map.of("client-id", "app-StreamThread-1-consumer"));
+        metrics.put(perClient, new FixedMetric(perClient, 5_000));
+
+        assertEquals(1_550, ThreadAutoscaler.consumerLag(metrics));
+    }
+
+    private Action sample(int threads, long lag, double cpu) {
+        return policy.decide(now += INTERVAL, threads, lag, cpu).action();
+    }
+
+    private static void lag(Map<MetricName, Metric> metrics, String clientId, String topic, String partition,
+                            double value) {
+        MetricName name = new MetricName("records-lag", "consumer-fetch-manager-metrics", "",
+                Map.of("client-id", clientId, "topic", topic, "partition", partition));
+        metrics.put(name, new FixedMetric(name, value));
+    }
+
+    private record FixedMetric(MetricName metricName, double value) implements Metric {
+        @Override
+        public Object metricValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.confluent.ps.kstreams.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentScannerTest {
+
+    private static final String PAYMENT = "{\"transaction_id\":\"txn-001\","
+            + "\"card_number_masked\":\"****-****-****-1234\","
+            + "\"amount\":7500.25,"
+            + "\"currency\":\"USD\","
+            + "\"merchant_id\":\"MERCH-002\","
+            + "\"timestamp\":1700000000000,"
+            + "\"status\":\"PENDING\","
+            + "\"region\":\"AP-SOUTH\"}";
+
+    private final PaymentView view = new PaymentView();
+
+    @Test
+    void scan_shouldReadAllKnownFields() {
+        assertTrue(PaymentScanner.scan(utf8(PAYMENT), view));
+
+        assertEquals("txn-001", view.text(PaymentView.TRANSACTION_ID));
+        assertEquals("****-****-****-1234", view.text(PaymentView.CARD_NUMBER_MASKED));
+        assertEquals("USD", view.text(PaymentView.CURRENCY));
+        assertEquals("MERCH-002", view.text(PaymentView.MERCHANT_ID));
+        assertEquals("PENDING", view.text(PaymentView.STATUS));
+        assertEquals("AP-SOUTH", view.text(PaymentView.REGION));
+        assertEquals(7500.25, view.amount(), 0.0);
+        assertEquals(1700000000000L, view.timestamp());
+        assertFalse(view.hasRiskScore());
+    }
+
+    @Test
+    void scan_shouldSkipUnknownAndNestedValues() {
+        String json = "{ \"meta\": {\"tags\": [\"}\", 1, {\"x\": null}]}, \"flag\": true,"
+                + " \"amount\" : 42.5 , \"region\":\"EU-WEST\" }";
+
+        assertTrue(PaymentScanner.scan(utf8(json), view));
+        assertEquals(42.5, view.amount(), 0.0);
+        assertTrue(view.textEquals(PaymentView.REGION, utf8("EU-WEST")));
+    }
+
+    @Test
+    void scan_shouldResetViewBetweenRecords() {
+        PaymentScanner.scan(utf8(PAYMENT), view);
+        PaymentScanner.scan(utf8("{\"amount\":10}"), view);
+
+        assertFalse(view.has(PaymentView.REGION), "Fields from the previous record must not leak");
+        assertEquals(10.0, view.amount(), 0.0);
+    }
+
+    @Test
+    void scan_malformedAmount_shouldLeaveAmountAbsent() {
+        assertTrue(PaymentScanner.scan(utf8("{\"amount\":\"n/a\",\"region\":\"US-EAST\"}"), view));
+        assertFalse(view.hasAmount());
+        assertEquals(0.0, view.amount(), 0.0);
+    }
+
+    @Test
+    void scan_notAnObject_shouldFail() {
+        assertFalse(PaymentScanner.scan(utf8("[1,2,3]"), view));
+        assertFalse(PaymentScanner.scan(utf8("{\"amount\":1"), view));
+        assertFalse(PaymentScanner.scan(null, view));
+    }
+
+    @Test
+    void parseDouble_shouldMatchJdkParsing() {
+        String[] samples = {"0", "147.00", "1234.56", "-0.15", "0.1", "9999999.99", "1e3", "12345678901234567890.5"};
+        for (String s : samples) {
+            byte[] b = utf8(s);
+            assertEquals(Double.parseDouble(s), PaymentScanner.parseDouble(b, 0, b.length), 0.0, s);
+        }
+    }
+
+    @Test
+    void appendRiskScore_shouldSpliceScoreBeforeClosingBrace() {
+        PaymentScanner.scan(utf8("{\"amount\":50.00}"), view);
+
+        String enriched = new String(PaymentScanner.appendRiskScore(view, 0.85), StandardCharsets.UTF_8);
+
+        assertEquals("{\"amount\":50.00,\"risk_score\":0.85}", enriched);
+    }
+
+    @Test
+    void appendRiskScore_emptyObject_shouldNotLeadWithComma() {
+        PaymentScanner.scan(utf8("{ }"), view);
+
+        assertEquals("{ \"risk_score\":0.10}",
+                new String(PaymentScanner.appendRiskScore(view, 0.1), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void appendRiskScore_existingScore_shouldBeReplaced() {
+        PaymentScanner.scan(utf8("{\"risk_score\":0.20,\"amount\":50.00}"), view);
+        assertEquals("{\"risk_score\":0.85,\"amount\":50.00}",
+                new String(PaymentScanner.appendRiskScore(view, 0.85), StandardCharsets.UTF_8));
+
+        PaymentScanner.scan(utf8("{\"amount\":50.00,\"risk_score\":\"n/a\"}"), view);
+        assertEquals("{\"amount\":50.00,\"risk_score\":1.00}",
+                new String(PaymentScanner.appendRiskScore(view, 1.0), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeFixed2_shouldRoundToTwoDecimals() {
+        byte[] out = new byte[32];
+        assertEquals("0.00", new String(out, 0, PaymentScanner.writeFixed2(out, 0, 0.0), StandardCharsets.US_ASCII));
+        assertEquals("0.55", new String(out, 0, PaymentScanner.writeFixed2(out, 0, 0.4 + 0.15), StandardCharsets.US_ASCII));
+        assertEquals("1.00", new String(out, 0, PaymentScanner.writeFixed2(out, 0, 0.999), StandardCharsets.US_ASCII));
+        assertEquals("120.50", new String(out, 0, PaymentScanner.writeFixed2(out, 0, 120.5), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void writeString_shouldEscapeQuotesBackslashesAndControlCharacters() {
+        String value = "a\"b\\c\nd\u0001é";
+        byte[] out = new byte[6 * value.length() + 2];
+        int end = PaymentScanner.writeString(out, 0, value);
+        assertEquals("\"a\\\"b\\\\c\\u000ad\\u0001é\"", new String(out, 0, end, StandardCharsets.UTF_8));
+
+        byte[] number = new byte[20];
+        assertEquals("-1700000000000", new String(number, 0,
+                PaymentScanner.writeLong(number, 0, -1_700_000_000_000L), StandardCharsets.US_ASCII));
+        assertEquals("0", new String(number, 0, PaymentScanner.writeLong(number, 0, 0), StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
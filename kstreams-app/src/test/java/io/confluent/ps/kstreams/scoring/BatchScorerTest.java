@@ -0,0 +1,97 @@
+package io.confluent.ps.kstreams.scoring;
+
+import io.confluent.ps.kstreams.rules.NumericField;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchScorerTest {
+
+    private static final double EPS = 1e-12;
+
+    @Test
+    void create_shouldDefaultToRuleScores() {
+        assertSame(BatchScorer.RULES, BatchScorer.create(new Properties()));
+
+        double[] scores = {0.2, 0.9};
+        BatchScorer.RULES.score(new double[NumericField.COUNT][2], 2, scores);
+        assertArrayEquals(new double[] {0.2, 0.9}, scores);
+    }
+
+    @Test
+    void create_shouldInstantiateConfiguredClass() {
+        Properties props = new Properties();
+        props.put(BatchScorer.CONFIG, "linear");
+        assertInstanceOf(LinearBatchScorer.class, BatchScorer.create(props));
+
+        props.put(BatchScorer.CONFIG, LinearBatchScorer.class.getName());
+        assertInstanceOf(LinearBatchScorer.class, BatchScorer.create(props));
+
+        props.put(BatchScorer.CONFIG, "com.example.NoSuchScorer");
+        assertThrows(IllegalArgumentException.class, () -> BatchScorer.create(props));
+
+        props.put(BatchScorer.CONFIG, String.class.getName());
+        assertThrows(IllegalArgumentException.class, () -> BatchScorer.create(props));
+    }
+
+    @Test
+    void linear_withoutFeatureWeights_shouldRecalibrateRuleScore() {
+        LinearBatchScorer scorer = new LinearBatchScorer(new Properties());
+        double[] scores = {0.0, 0.5, 1.0};
+
+        scorer.score(new double[NumericField.COUNT][3], 3, scores);
+
+        assertEquals(sigmoid(-3.0), scores[0], EPS);
+        assertEquals(sigmoid(0.0), scores[1], EPS);
+        assertEquals(sigmoid(3.0), scores[2], EPS);
+    }
+
+    @Test
+    void linear_shouldWeighFeatureColumnsAndLeaveUnusedRowsAlone() {
+        Properties props = new Properties();
+        props.put(LinearBatchScorer.PREFIX + "bias", "-1.0");
+        props.put(LinearBatchScorer.PREFIX + "rules.weight", "2.0");
+        props.put(LinearBatchScorer.PREFIX + "weight." + NumericField.AMOUNT.ruleName(), "0.001");
+        props.put(LinearBatchScorer.PREFIX + "weight." + NumericField.CARD_COUNT_1M.ruleName(), "0.5");
+        LinearBatchScorer scorer = new LinearBatchScorer(props);
+
+        double[][] features = new double[NumericField.COUNT][4];
+        features[NumericField.AMOUNT.ordinal()][0] = 1000.0;
+        features[NumericField.CARD_COUNT_1M.ordinal()][1] = 4.0;
+        features[NumericField.MERCHANT_COUNT_1H.ordinal()][2] = 1e6;
+        double[] scores = {0.0, 0.5, 0.25, 42.0};
+
+        scorer.score(features, 3, scores);
+
+        assertEquals(sigmoid(-1.0 + 1.0), scores[0], EPS);
+        assertEquals(sigmoid(-1.0 + 1.0 + 2.0), scores[1], EPS);
+        assertEquals(sigmoid(-1.0 + 0.5), scores[2], EPS, "Unweighted feature is ignored");
+        assertEquals(42.0, scores[3], "Rows beyond the batch are not touched");
+    }
+
+    @Test
+    void linear_shouldRejectNonNumericCoefficients() {
+        Properties props = new Properties();
+        props.put(LinearBatchScorer.PREFIX + "weight.amount", "high");
+        assertThrows(IllegalArgumentException.class, () -> new LinearBatchScorer(props));
+    }
+
+    @Test
+    void settings_shouldRejectEmptyBatches() {
+        Properties props = new Properties();
+        props.put(BatchScoringSettings.MAX_RECORDS_CONFIG, "0");
+        assertThrows(IllegalArgumentException.class, () -> BatchScoringSettings.from(props));
+
+        BatchScoringSettings defaults = BatchScoringSettings.from(new Properties());
+        assertFalse(defaults.enabled());
+        assertEquals(256, defaults.maxRecords());
+        assertEquals(20, defaults.maxWaitMs());
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+}
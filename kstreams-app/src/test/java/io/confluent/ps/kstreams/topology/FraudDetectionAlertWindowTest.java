@@ -0,0 +1,158 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.test.TestRecord;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionAlertWindowTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String CARD = "****-****-****-0001";
+    private static final String OTHER_CARD = "****-****-****-0002";
+
+    @TempDir
+    Path stateDir;
+
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private TopologyTestDriver testDriver;
+    private TestInputTopic<String, String> payments;
+    private TestOutputTopic<String, String> alerts;
+
+    @AfterEach
+    void tearDown() {
+        if (testDriver != null) {
+            testDriver.close();
+        }
+    }
+
+    @Test
+    void cardTestingBurst_shouldProduceOneAlertPerWindow() {
+        start("tumbling");
+        for (int i = 0; i < 20; i++) {
+            pipe("txn-" + i, CARD, 6000.25, T0.plusSeconds(i), T0.plusSeconds(i));
+        }
+        assertTrue(alerts.isEmpty(), "Nothing is emitted while the window is open");
+
+        // Stream time passes window end (60s) plus grace (10s)
+        pipe("txn-closer", OTHER_CARD, 6000.25, T0.plusSeconds(80), T0.plusSeconds(80));
+
+        List<TestRecord<String, String>> emitted = alerts.readRecordsToList();
+        assertEquals(1, emitted.size());
+        assertEquals(CARD, emitted.get(0).key());
+        String alert = emitted.get(0).value();
+        assertTrue(alert.contains("\"payment_count\":20"), alert);
+        assertTrue(alert.contains("\"amount\":120005.00"), alert);
+        assertTrue(alert.contains("\"window_start\":" + T0.toEpochMilli()), alert);
+        assertTrue(alert.contains("\"window_end\":" + T0.plusSeconds(60).toEpochMilli()), alert);
+        assertEquals(21, metrics.flaggedCount());
+        assertEquals(1, metrics.windowAlertCount());
+    }
+
+    @Test
+    void windows_shouldFollowThePaymentTimestamp_notTheRecordTimestamp() {
+        start("tumbling");
+        // Backfilled: sent now (record time T0), made two minutes later in payment time
+        for (int i = 0; i < 3; i++) {
+            pipe("txn-" + i, CARD, 6000.25, T0.plusSeconds(125 + i), T0);
+        }
+        pipe("txn-closer", OTHER_CARD, 6000.25, T0.plusSeconds(300), T0);
+
+        TestRecord<String, String> alert = alerts.readRecord();
+        assertTrue(alert.value().contains("\"window_start\":" + T0.plusSeconds(120).toEpochMilli()), alert.value());
+        assertTrue(alert.value().contains("\"payment_count\":3"), alert.value());
+        assertTrue(alerts.isEmpty());
+    }
+
+    @Test
+    void sessionWindows_shouldSplitBurstsAtTheInactivityGap() {
+        start("session");
+        for (int i = 0; i < 3; i++) {
+            pipe("txn-a" + i, CARD, 6000.25, T0.plusSeconds(i * 10L), T0.plusSeconds(i * 10L));
+        }
+        for (int i = 0; i < 3; i++) {
+            pipe("txn-b" + i, CARD, 6000.25, T0.plusSeconds(100 + i * 10L), T0.plusSeconds(100 + i * 10L));
+        }
+        // Last session ends at 120s; + 30s gap + 10s grace
+        pipe("txn-closer", OTHER_CARD, 6000.25, T0.plusSeconds(200), T0.plusSeconds(200));
+
+        List<String> values = alerts.readValuesToList();
+        assertEquals(2, values.size(), values.toString());
+        assertTrue(values.get(0).contains("\"window_start\":" + T0.toEpochMilli()), values.get(0));
+        assertTrue(values.get(0).contains("\"window_end\":" + T0.plusSeconds(20).toEpochMilli()), values.get(0));
+        assertTrue(values.get(1).contains("\"window_start\":" + T0.plusSeconds(100).toEpochMilli()), values.get(1));
+        values.forEach(v -> assertTrue(v.contains("\"payment_count\":3"), v));
+    }
+
+    @Test
+    void paymentsAfterTheGracePeriod_shouldNotReopenAClosedWindow() {
+        start("tumbling");
+        pipe("txn-1", CARD, 6000.25, T0, T0);
+        pipe("txn-closer", OTHER_CARD, 6000.25, T0.plusSeconds(80), T0.plusSeconds(80));
+        pipe("txn-late", CARD, 6000.25, T0.plusSeconds(30), T0.plusSeconds(30));
+        pipe("txn-closer-2", OTHER_CARD, 6000.25, T0.plusSeconds(200), T0.plusSeconds(200));
+
+        List<TestRecord<String, String>> emitted = alerts.readRecordsToList();
+        assertEquals(List.of(CARD, OTHER_CARD), emitted.stream().map(TestRecord::key).toList());
+        assertTrue(emitted.get(0).value().contains("\"payment_count\":1"), emitted.get(0).value());
+    }
+
+    @Test
+    void settings_shouldRejectUnknownWindowTypes() {
+        Properties props = new Properties();
+        props.put(AlertWindowSettings.TYPE_CONFIG, "sliding");
+        assertThrows(IllegalArgumentException.class, () -> AlertWindowSettings.from(props));
+
+        props.put(AlertWindowSettings.TYPE_CONFIG, "Session");
+        props.put(AlertWindowSettings.GRACE_MS_CONFIG, "-1");
+        assertThrows(IllegalArgumentException.class, () -> AlertWindowSettings.from(props));
+    }
+
+    private void start(String type) {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-alert-window-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(AlertWindowSettings.ENABLED_CONFIG, "true");
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "true");
+        props.put(AlertWindowSettings.TYPE_CONFIG, type);
+        props.put(AlertWindowSettings.SIZE_MS_CONFIG, type.equals("session") ? "30000" : "60000");
+        props.put(AlertWindowSettings.GRACE_MS_CONFIG, "10000");
+
+        testDriver = new TopologyTestDriver(FraudDetectionTopology.build(props, RuleEngine.withDefaults(), metrics),
+                props, T0);
+        payments = testDriver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+        alerts = testDriver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+    }
+
+    private void pipe(String txnId, String card, double amount, Instant paymentTime, Instant recordTime) {
+        String payment = "{\"transaction_id\":\"" + txnId + "\","
+                + "\"card_number_masked\":\"" + card + "\","
+                + "\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"MERCH-001\","
+                + "\"timestamp\":" + paymentTime.toEpochMilli() + ","
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"AP-SOUTH\"}";
+        payments.pipeInput(txnId, payment, recordTime);
+    }
+}
@@ -0,0 +1,215 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.scoring.BatchScorer;
+import io.confluent.ps.kstreams.scoring.BatchScoringSettings;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.processor.api.MockProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.test.TestRecord;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionBatchScoringTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+    private static final long MAX_WAIT_MS = 50;
+
+    @TempDir
+    Path stateDir;
+
+    private final List<TopologyTestDriver> drivers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        drivers.forEach(TopologyTestDriver::close);
+    }
+
+    @Test
+    void fullBatch_shouldForwardInArrivalOrderWithOriginalTimestamps() {
+        Pipeline batched = pipeline(true, 3, "rules");
+
+        batched.pipe("txn-1", "****-****-****-0001", 50.25, T0);
+        batched.pipe("txn-2", "****-****-****-0002", 7000.00, T0.plusSeconds(1));
+        assertTrue(batched.approved.isEmpty() && batched.alerts.isEmpty(), "Batch not full yet");
+
+        batched.pipe("txn-3", "****-****-****-0003", 20.25, T0.plusSeconds(2));
+
+        List<TestRecord<String, String>> approved = batched.approved.readRecordsToList();
+        assertEquals(List.of("txn-1", "txn-3"), approved.stream().map(TestRecord::key).toList());
+        assertEquals(T0, approved.get(0).getRecordTime());
+        assertEquals(T0.plusSeconds(2), approved.get(1).getRecordTime());
+        assertEquals(List.of("txn-2"), batched.alerts.readKeysToList());
+        for (TestRecord<String, String> record : approved) {
+            assertTrue(record.value().contains("\"risk_score\":"), record.value());
+            assertNull(record.getHeaders().lastHeader(VelocityFeatures.CARD_HEADER),
+                    "Velocity headers must not leak to output topics");
+        }
+    }
+
+    @Test
+    void maxWait_shouldFlushPartialBatch() {
+        Pipeline batched = pipeline(true, 100, "rules");
+        batched.pipe("txn-1", "****-****-****-0001", 50.25, T0);
+        batched.pipe("txn-2", "****-****-****-0001", 60.25, T0.plusSeconds(1));
+        assertTrue(batched.approved.isEmpty());
+
+        batched.driver.advanceWallClockTime(Duration.ofMillis(MAX_WAIT_MS));
+
+        assertEquals(List.of("txn-1", "txn-2"), batched.approved.readKeysToList());
+    }
+
+    @Test
+    void batchedScores_shouldMatchPerRecordScoring() {
+        Pipeline perRecord = pipeline(false, 1, "rules");
+        Pipeline batched = pipeline(true, 7, "rules");
+        for (Pipeline p : List.of(perRecord, batched)) {
+            for (int i = 0; i < 40; i++) {
+                // Repeated cards build up velocity; every seventh payment is large
+                double amount = i % 7 == 0 ? 1500.50 : 10.25 + i;
+                p.pipe("txn-" + i, "****-****-****-000" + (i % 3), amount, T0.plusSeconds(i));
+            }
+            p.driver.advanceWallClockTime(Duration.ofMillis(MAX_WAIT_MS));
+        }
+
+        List<TestRecord<String, String>> expectedApproved = perRecord.approved.readRecordsToList();
+        List<TestRecord<String, String>> expectedAlerts = perRecord.alerts.readRecordsToList();
+        assertFalse(expectedAlerts.isEmpty(), "The data set should flag some payments");
+        assertEquals(expectedApproved, batched.approved.readRecordsToList());
+        assertEquals(expectedAlerts, batched.alerts.readRecordsToList());
+    }
+
+    @Test
+    void pluggableScorer_shouldBeCalledOncePerBatch() {
+        EveryoneIsFraud.calls.set(0);
+        Pipeline batched = pipeline(true, 4, EveryoneIsFraud.class.getName());
+        for (int i = 0; i < 8; i++) {
+            batched.pipe("txn-" + i, "****-****-****-0001", 10.25, T0.plusSeconds(i));
+        }
+
+        assertEquals(2, EveryoneIsFraud.calls.get());
+        assertEquals(8, batched.alerts.readKeysToList().size());
+        assertTrue(batched.approved.isEmpty());
+    }
+
+    @Test
+    void bufferedPayments_shouldSurviveTaskRestart() {
+        KeyValueStore<Integer, byte[]> store = BatchScoringProcessor.storeBuilder().withLoggingDisabled().build();
+        MockProcessorContext<String, byte[]> first = new MockProcessorContext<>();
+        store.init(first.getStateStoreContext(), store);
+        first.addStateStore(store);
+
+        BatchScoringProcessor<byte[]> before = processor(10);
+        before.init(first);
+        for (int i = 1; i <= 3; i++) {
+            Record<String, byte[]> record = new Record<>("txn-" + i,
+                    payment("txn-" + i, "****-****-****-0001", 100.25 * i), 1_000L * i);
+            record.headers().add("trace", ("t" + i).getBytes(StandardCharsets.UTF_8));
+            before.process(record);
+        }
+        assertTrue(first.forwarded().isEmpty(), "Still buffered when the task goes away");
+
+        // The new owner of the task starts from the same (restored) store
+        MockProcessorContext<String, byte[]> second = new MockProcessorContext<>();
+        second.addStateStore(store);
+        processor(10).init(second);
+        second.scheduledPunctuators().get(0).getPunctuator().punctuate(0L);
+
+        List<MockProcessorContext.CapturedForward<? extends String, ? extends byte[]>> forwarded = second.forwarded();
+        assertEquals(3, forwarded.size());
+        for (int i = 0; i < 3; i++) {
+            Record<? extends String, ? extends byte[]> record = forwarded.get(i).record();
+            assertEquals("txn-" + (i + 1), record.key());
+            assertEquals(1_000L * (i + 1), record.timestamp());
+            assertArrayEquals(("t" + (i + 1)).getBytes(StandardCharsets.UTF_8),
+                    record.headers().lastHeader("trace").value());
+            assertTrue(new String(record.value(), StandardCharsets.UTF_8).contains("\"risk_score\":"));
+        }
+
+        // Once forwarded they are not replayed by the next owner
+        MockProcessorContext<String, byte[]> third = new MockProcessorContext<>();
+        third.addStateStore(store);
+        processor(10).init(third);
+        third.scheduledPunctuators().get(0).getPunctuator().punctuate(0L);
+        assertTrue(third.forwarded().isEmpty());
+    }
+
+    /** Flags everything; counts calls. */
+    public static final class EveryoneIsFraud implements BatchScorer {
+        static final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public void score(double[][] features, int rows, double[] scores) {
+            calls.incrementAndGet();
+            Arrays.fill(scores, 0, rows, 1.0);
+        }
+    }
+
+    private static BatchScoringProcessor<byte[]> processor(int maxRecords) {
+        return new BatchScoringProcessor<>(JsonPaymentCodec.INSTANCE, RuleEngine.withDefaults(), BatchScorer.RULES,
+                new BatchScoringSettings(true, maxRecords, MAX_WAIT_MS), null, new PipelineMetrics());
+    }
+
+    private Pipeline pipeline(boolean batching, int maxRecords, String scorer) {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-batch-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.resolve("driver-" + drivers.size()).toString());
+        props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2);
+        props.put(BatchScoringSettings.ENABLED_CONFIG, Boolean.toString(batching));
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "true");
+        props.put(BatchScoringSettings.MAX_RECORDS_CONFIG, Integer.toString(maxRecords));
+        props.put(BatchScoringSettings.MAX_WAIT_MS_CONFIG, Long.toString(MAX_WAIT_MS));
+        props.put(BatchScorer.CONFIG, scorer);
+
+        TopologyTestDriver driver = new TopologyTestDriver(FraudDetectionTopology.build(props), props, T0);
+        drivers.add(driver);
+        return new Pipeline(driver,
+                driver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                        Serdes.String().serializer(), Serdes.String().serializer()),
+                driver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                        Serdes.String().deserializer(), Serdes.String().deserializer()),
+                driver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                        Serdes.String().deserializer(), Serdes.String().deserializer()));
+    }
+
+    private record Pipeline(TopologyTestDriver driver, TestInputTopic<String, String> input,
+                            TestOutputTopic<String, String> approved, TestOutputTopic<String, String> alerts) {
+        void pipe(String txnId, String card, double amount, Instant timestamp) {
+            input.pipeInput(txnId, new String(payment(txnId, card, amount), StandardCharsets.UTF_8), timestamp);
+        }
+    }
+
+    private static byte[] payment(String txnId, String card, double amount) {
+        return ("{\"transaction_id\":\"" + txnId + "\","
+                + "\"card_number_masked\":\"" + card + "\","
+                + "\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"MERCH-001\","
+                + "\"timestamp\":1700000000000,"
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"US-EAST\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
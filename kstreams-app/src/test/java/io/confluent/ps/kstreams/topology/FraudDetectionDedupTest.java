@@ -0,0 +1,166 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.dedup.DedupSettings;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.query.RiskStores;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionDedupTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+    private static final long WINDOW_MS = 60_000;
+
+    @TempDir
+    Path stateDir;
+
+    private final List<TopologyTestDriver> drivers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        drivers.forEach(TopologyTestDriver::close);
+    }
+
+    @Test
+    void retryWithinWindow_shouldBeDroppedAndLaterCopyPassed() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        Pipeline p = pipeline(metrics, true);
+
+        p.pipe("txn-1", T0.toEpochMilli());
+        p.pipe("txn-2", T0.toEpochMilli() + 1_000);
+        p.pipe("txn-1", T0.toEpochMilli() + 30_000);
+        // A retry stamped before the copy that got here first is still a retry
+        p.pipe("txn-2", T0.toEpochMilli() - 5_000);
+        p.pipe("txn-1", T0.toEpochMilli() + WINDOW_MS + 1);
+
+        assertEquals(List.of("txn-1", "txn-2", "txn-1"), p.approved.readKeysToList());
+        assertEquals(2, metrics.duplicateCount());
+    }
+
+    @Test
+    void withoutBloomFilter_storeAloneShouldDedup() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        Pipeline p = pipeline(metrics, false);
+
+        p.pipe("txn-1", T0.toEpochMilli());
+        p.pipe("txn-1", T0.toEpochMilli() + 1);
+
+        assertEquals(List.of("txn-1"), p.approved.readKeysToList());
+        assertEquals(1, metrics.duplicateCount());
+        assertEquals(0, metrics.dedupFilterBytes());
+    }
+
+    @Test
+    void millionsOfIds_shouldDropExactlyTheRetriesWithinTheWindow() {
+        // One payment per millisecond of event time: 60k ids per window
+        int ids = 2_000_000;
+        int recentLag = 30_000;
+        int staleLag = (int) (3 * WINDOW_MS);
+
+        PipelineMetrics metrics = new PipelineMetrics();
+        Pipeline p = pipeline(metrics, true);
+        long start = T0.toEpochMilli();
+        long expectedPassed = 0;
+        long expectedDropped = 0;
+        long passed = 0;
+        for (int i = 0; i < ids; i++) {
+            long timestamp = start + i;
+            p.pipe("txn-" + i, timestamp);
+            expectedPassed++;
+            if (i % 10 == 0 && i >= recentLag) {
+                // Retried half a window later: dropped
+                p.pipe("txn-" + (i - recentLag), timestamp);
+                expectedDropped++;
+            }
+            if (i % 1_000 == 500 && i >= staleLag) {
+                // Same id three windows later: a new payment as far as dedup goes
+                p.pipe("txn-" + (i - staleLag), timestamp);
+                expectedPassed++;
+            }
+            if (i % 10_000 == 0) {
+                passed += p.drain();
+            }
+        }
+        passed += p.drain();
+
+        assertEquals(expectedPassed, passed);
+        assertEquals(expectedDropped, metrics.duplicateCount());
+        // Two generations of (at most) 100k expected ids each at 1% fpp
+        double ratio = metrics.bloomFalsePositiveRatio();
+        assertTrue(ratio > 0.0 && ratio < 0.03, "False-positive ratio " + ratio);
+        assertTrue(metrics.dedupFilterBytes() > 0 && metrics.dedupFilterBytes() < 300_000,
+                "Filter bytes " + metrics.dedupFilterBytes());
+
+        p.driver.close();
+        drivers.remove(p.driver);
+        assertEquals(0, metrics.dedupFilterBytes(), "Closed tasks release their filter");
+    }
+
+    private Pipeline pipeline(PipelineMetrics metrics, boolean bloom) {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-dedup-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.resolve("driver-" + drivers.size()).toString());
+        props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2);
+        // Dedup in isolation: no velocity stages, no risk stores
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "false");
+        props.put(RiskStores.ENABLED_CONFIG, "false");
+        props.put(DedupSettings.ENABLED_CONFIG, "true");
+        props.put(DedupSettings.WINDOW_MS_CONFIG, Long.toString(WINDOW_MS));
+        props.put(DedupSettings.EXPECTED_IDS_CONFIG, "100000");
+        props.put(DedupSettings.BLOOM_ENABLED_CONFIG, Boolean.toString(bloom));
+
+        TopologyTestDriver driver = new TopologyTestDriver(
+                FraudDetectionTopology.build(props, RuleEngine.withDefaults(), metrics), props, T0);
+        drivers.add(driver);
+        return new Pipeline(driver,
+                driver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                        Serdes.String().serializer(), Serdes.ByteArray().serializer()),
+                driver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                        Serdes.String().deserializer(), Serdes.ByteArray().deserializer()),
+                driver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                        Serdes.String().deserializer(), Serdes.ByteArray().deserializer()));
+    }
+
+    private record Pipeline(TopologyTestDriver driver, TestInputTopic<String, byte[]> input,
+                            TestOutputTopic<String, byte[]> approved, TestOutputTopic<String, byte[]> alerts) {
+
+        /** Small amounts only, so everything that passes dedup is approved. */
+        private static final byte[] PAYMENT = ("{\"transaction_id\":\"txn\","
+                + "\"card_number_masked\":\"****-****-****-0001\","
+                + "\"amount\":" + String.format(Locale.ROOT, "%.2f", 25.50) + ","
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"MERCH-001\","
+                + "\"timestamp\":1700000000000,"
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"US-EAST\"}").getBytes(StandardCharsets.UTF_8);
+
+        void pipe(String txnId, long timestamp) {
+            input.pipeInput(txnId, PAYMENT, timestamp);
+        }
+
+        /** Reads both output topics so they do not pile up; returns the number of payments out. */
+        long drain() {
+            return approved.readValuesToList().size() + alerts.readValuesToList().size();
+        }
+    }
+}
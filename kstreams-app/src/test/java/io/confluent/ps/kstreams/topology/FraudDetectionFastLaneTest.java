@@ -0,0 +1,163 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.test.TestRecord;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionFastLaneTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String CARD = "****-****-****-0001";
+
+    @TempDir
+    Path stateDir;
+
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private Properties props;
+    private TopologyTestDriver mainDriver;
+    private TopologyTestDriver fastDriver;
+    private TestInputTopic<String, String> payments;
+    private TestOutputTopic<String, String> fastLaneOut;
+    private TestOutputTopic<String, String> mainAlerts;
+    private TestOutputTopic<String, String> approved;
+
+    @BeforeEach
+    void setup() {
+        props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-fast-lane-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(FastLaneSettings.ENABLED_CONFIG, "true");
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "true");
+
+        mainDriver = new TopologyTestDriver(FraudDetectionTopology.build(props, RuleEngine.withDefaults(), metrics),
+                props, T0);
+        payments = mainDriver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+        fastLaneOut = mainDriver.createOutputTopic(FastLaneSettings.DEFAULT_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+        mainAlerts = mainDriver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+        approved = mainDriver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (mainDriver != null) {
+            mainDriver.close();
+        }
+        if (fastDriver != null) {
+            fastDriver.close();
+        }
+    }
+
+    @Test
+    void obviousFraud_shouldTakeTheFastLaneOnly() {
+        // 0.4 + 0.3 (amount) + 0.2 (region) without any velocity
+        pipe("txn-obvious", CARD, 6000.25, "AP-SOUTH", T0);
+        pipe("txn-small", CARD, 20.25, "AP-SOUTH", T0.plusSeconds(1));
+
+        TestRecord<String, String> routed = fastLaneOut.readRecord();
+        assertEquals("txn-obvious", routed.key());
+        assertEquals(T0, routed.getRecordTime());
+        assertTrue(routed.value().contains("\"risk_score\":0.90"), routed.value());
+        assertNull(routed.getHeaders().lastHeader(FastLaneRouter.HEADER), "Lane marker must not leak");
+        assertTrue(fastLaneOut.isEmpty());
+
+        assertTrue(mainAlerts.isEmpty(), "The main lane must not alert twice");
+        assertEquals(List.of("txn-small"), approved.readKeysToList());
+        assertEquals(1, metrics.flaggedCount());
+    }
+
+    @Test
+    void highValueNeedingVelocity_shouldStayOnTheMainLane() {
+        // 0.4 on its own: only velocity can push it over the threshold
+        pipe("txn-high", CARD, 1500.50, "US-EAST", T0);
+
+        assertTrue(fastLaneOut.isEmpty());
+        assertEquals(List.of("txn-high"), approved.readKeysToList());
+    }
+
+    @Test
+    void fastLanePayments_shouldStillCountTowardsVelocity() {
+        for (int i = 0; i < 4; i++) {
+            pipe("txn-obvious-" + i, CARD, 6000.25, "AP-SOUTH", T0.plusSeconds(i));
+        }
+        // Fifth payment on the card within a minute: 0.4 + 0.4 (burst)
+        pipe("txn-burst", CARD, 1500.50, "US-EAST", T0.plusSeconds(10));
+
+        assertEquals(4, fastLaneOut.getQueueSize());
+        assertEquals(List.of("txn-burst"), mainAlerts.readKeysToList());
+        assertTrue(approved.isEmpty());
+    }
+
+    @Test
+    void fastLaneTopology_shouldTurnRoutedPaymentsIntoAlerts() {
+        pipe("txn-obvious", CARD, 6000.25, "AP-SOUTH", T0);
+
+        Properties fastProps = FastLaneSettings.from(props).streamsConfig(props);
+        fastDriver = new TopologyTestDriver(FastLaneTopology.build(fastProps, RuleEngine.withDefaults(), metrics),
+                fastProps, T0.plusMillis(250));
+        TestInputTopic<String, String> fastIn = fastDriver.createInputTopic(FastLaneSettings.DEFAULT_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+        TestOutputTopic<String, String> fastAlerts = fastDriver.createOutputTopic(
+                FraudDetectionTopology.FRAUD_ALERTS_TOPIC, Serdes.String().deserializer(), Serdes.String().deserializer());
+        fastIn.pipeRecordList(fastLaneOut.readRecordsToList());
+
+        TestRecord<String, String> alert = fastAlerts.readRecord();
+        assertEquals("txn-obvious", alert.key());
+        assertTrue(alert.value().contains("\"risk_score\":0.90"), alert.value());
+        assertEquals(1, metrics.fastLaneAlertCount());
+    }
+
+    @Test
+    void settings_shouldGiveTheFastLaneItsOwnApplicationAndThreads() {
+        Properties base = new Properties();
+        base.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-app");
+        base.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, "4");
+        base.put(StreamsConfig.APPLICATION_SERVER_CONFIG, "pod-1:9405");
+        base.put(FastLaneSettings.THREADS_CONFIG, "2");
+
+        Properties fast = FastLaneSettings.from(base).streamsConfig(base);
+
+        assertEquals("fraud-detection-app-fast-lane", fast.getProperty(StreamsConfig.APPLICATION_ID_CONFIG));
+        assertEquals("2", fast.getProperty(StreamsConfig.NUM_STREAM_THREADS_CONFIG));
+        assertNull(fast.getProperty(StreamsConfig.APPLICATION_SERVER_CONFIG));
+        assertEquals("4", base.getProperty(StreamsConfig.NUM_STREAM_THREADS_CONFIG), "Main config untouched");
+
+        base.put(FastLaneSettings.AMOUNT_THRESHOLD_CONFIG, "-1");
+        assertThrows(IllegalArgumentException.class, () -> FastLaneSettings.from(base));
+    }
+
+    private void pipe(String txnId, String card, double amount, String region, Instant timestamp) {
+        String payment = "{\"transaction_id\":\"" + txnId + "\","
+                + "\"card_number_masked\":\"" + card + "\","
+                + "\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"MERCH-001\","
+                + "\"timestamp\":" + timestamp.toEpochMilli() + ","
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"" + region + "\"}";
+        payments.pipeInput(txnId, payment, timestamp);
+    }
+}
@@ -0,0 +1,135 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.merchant.MerchantSettings;
+import io.confluent.ps.kstreams.metrics.PipelineMetrics;
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.scoring.BatchScoringSettings;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionMerchantTest {
+
+    private static final String MERCHANTS_TOPIC = "merchants";
+
+    @TempDir
+    Path stateDir;
+
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private TopologyTestDriver testDriver;
+    private TestInputTopic<String, String> payments;
+    private TestInputTopic<String, String> merchants;
+    private TestOutputTopic<String, String> fraudAlerts;
+    private TestOutputTopic<String, String> approved;
+
+    @AfterEach
+    void tearDown() {
+        if (testDriver != null) {
+            testDriver.close();
+        }
+    }
+
+    @Test
+    void highRiskMerchant_shouldRaiseTheScoreAndFollowTopicUpdates() {
+        start(RuleEngine.withDefaults(), false);
+        // 1500.50 in AP-SOUTH scores 0.6 on its own fields: flagged only with the high-risk merchant rule (+0.2)
+        merchants.pipeInput("MERCH-666", "{\"merchant_id\":\"MERCH-666\",\"risk_tier\":\"high\",\"mcc\":\"7995\"}");
+        payments.pipeInput("txn-1", payment("txn-1", "MERCH-666"));
+        payments.pipeInput("txn-2", payment("txn-2", "MERCH-001"));
+
+        merchants.pipeInput("MERCH-666", null);
+        merchants.pipeInput("MERCH-001", "{\"merchant_id\":\"MERCH-001\",\"risk_tier\":\"high\"}");
+        payments.pipeInput("txn-3", payment("txn-3", "MERCH-666"));
+        payments.pipeInput("txn-4", payment("txn-4", "MERCH-001"));
+
+        merchants.pipeInput("MERCH-001", "{\"risk_tier\":\"unheard-of\"}");
+        payments.pipeInput("txn-5", payment("txn-5", "MERCH-001"));
+
+        assertEquals(List.of("txn-1", "txn-4", "txn-5"), fraudAlerts.readKeysToList(),
+                "A malformed update keeps the merchant's previous profile");
+        assertEquals(List.of("txn-2", "txn-3"), approved.readKeysToList());
+    }
+
+    @Test
+    void repeatedMerchants_shouldBeAnsweredByTheNearCache() {
+        start(RuleEngine.withDefaults(), false);
+        merchants.pipeInput("MERCH-001", "{\"risk_tier\":\"low\",\"country\":\"DE\"}");
+        for (int i = 0; i < 10; i++) {
+            payments.pipeInput("txn-" + i, payment("txn-" + i, "MERCH-001"));
+        }
+
+        assertEquals(0.9, metrics.merchantCacheHitRatio(), 1e-9);
+        assertEquals(10, approved.readKeysToList().size());
+    }
+
+    @Test
+    void merchantFields_shouldBeUsableInRulesWhenScoringInBatches() {
+        RuleEngine rules = RuleEngine.withDefaults();
+        rules.update("test", """
+                gambling: merchant.mcc in (7995, 7801) => 0.5
+                offshore: merchant.country == MT && amount > 100 => 0.3
+                """);
+        start(rules, true);
+        merchants.pipeInput("MERCH-777", "{\"mcc\":\"7995\",\"country\":\"MT\"}");
+        merchants.pipeInput("MERCH-778", "{\"mcc\":\"7995\",\"country\":\"DE\"}");
+        payments.pipeInput("txn-1", payment("txn-1", "MERCH-777"));
+        payments.pipeInput("txn-2", payment("txn-2", "MERCH-778"));
+        testDriver.advanceWallClockTime(Duration.ofSeconds(1));
+
+        assertEquals(List.of("txn-1"), fraudAlerts.readKeysToList());
+        assertEquals(List.of("txn-2"), approved.readKeysToList());
+    }
+
+    @Test
+    void settings_shouldRejectTooSmallCaches() {
+        Properties props = new Properties();
+        props.put(MerchantSettings.CACHE_MAX_ENTRIES_CONFIG, "1");
+        assertThrows(IllegalArgumentException.class, () -> MerchantSettings.from(props));
+        assertFalse(MerchantSettings.from(new Properties()).enabled());
+    }
+
+    private void start(RuleEngine rules, boolean batching) {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-merchant-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "false");
+        props.put(MerchantSettings.TOPIC_CONFIG, MERCHANTS_TOPIC);
+        props.put(BatchScoringSettings.ENABLED_CONFIG, Boolean.toString(batching));
+
+        testDriver = new TopologyTestDriver(FraudDetectionTopology.build(props, rules, metrics), props);
+        payments = testDriver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+        merchants = testDriver.createInputTopic(MERCHANTS_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+        fraudAlerts = testDriver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+        approved = testDriver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+    }
+
+    private static String payment(String txnId, String merchantId) {
+        return "{\"transaction_id\":\"" + txnId + "\","
+                + "\"card_number_masked\":\"****-****-****-1234\","
+                + "\"amount\":1500.50,"
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"" + merchantId + "\","
+                + "\"timestamp\":1700000000000,"
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"AP-SOUTH\"}";
+    }
+}
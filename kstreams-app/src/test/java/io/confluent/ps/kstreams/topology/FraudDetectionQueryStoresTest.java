@@ -0,0 +1,143 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.query.RiskStores;
+import io.confluent.ps.kstreams.scan.PaymentView;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionQueryStoresTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String CARD = "****-****-****-4242";
+
+    @TempDir
+    Path stateDir;
+
+    private TopologyTestDriver testDriver;
+    private TestInputTopic<String, String> inputTopic;
+
+    @AfterEach
+    void tearDown() {
+        if (testDriver != null) {
+            testDriver.close();
+        }
+    }
+
+    @Test
+    void withVelocity_shouldKeepLatestRiskAndAlertHistoryPerCardAndMerchant() {
+        start("true", "true");
+        assertRiskHistory();
+    }
+
+    @Test
+    void withoutVelocity_shouldStillPartitionStoresByEntity() {
+        start("false", "true");
+        assertRiskHistory();
+    }
+
+    @Test
+    void disabled_shouldNotMaterializeRiskStores() {
+        start("true", "false");
+        pipe("txn-1", CARD, "MERCH-001", 6000.00, T0);
+
+        assertNull(testDriver.getKeyValueStore(RiskStores.Entity.CARD.latestStore()));
+        assertNull(testDriver.getWindowStore(RiskStores.Entity.MERCHANT.alertStore()));
+    }
+
+    @Test
+    void queryPartitioner_shouldAgreeWithVelocityPartitioning() {
+        VelocityPartitioner<byte[]> velocity =
+                new VelocityPartitioner<>(JsonPaymentCodec.INSTANCE, PaymentView.CARD_NUMBER_MASKED);
+        for (int i = 0; i < 1_000; i++) {
+            String card = String.format(Locale.ROOT, "****-****-%04d-%04d", i / 7, i);
+            byte[] payment = ("{\"transaction_id\":\"t\",\"card_number_masked\":\"" + card + "\",\"amount\":1.00}")
+                    .getBytes(StandardCharsets.UTF_8);
+            assertEquals(velocity.partition("t", "t", payment, 12),
+                    RiskStores.partitioner().partition("t", card, null, 12), card);
+        }
+    }
+
+    private void assertRiskHistory() {
+        pipe("txn-1", CARD, "MERCH-001", 6000.00, T0);                  // flagged
+        pipe("txn-2", CARD, "MERCH-002", 50.00, T0.plusSeconds(60));     // approved
+        pipe("txn-3", CARD, "MERCH-001", 7000.00, T0.plusSeconds(120));  // flagged
+
+        KeyValueStore<String, byte[]> latestByCard =
+                testDriver.getKeyValueStore(RiskStores.Entity.CARD.latestStore());
+        String latest = new String(latestByCard.get(CARD), StandardCharsets.UTF_8);
+        assertTrue(latest.startsWith("{\"id\":\"" + CARD + "\",\"transaction_id\":\"txn-3\""), latest);
+        assertTrue(latest.contains("\"flagged\":true"), latest);
+        assertTrue(latest.endsWith("\"timestamp\":" + T0.plusSeconds(120).toEpochMilli() + "}"), latest);
+
+        KeyValueStore<String, byte[]> latestByMerchant =
+                testDriver.getKeyValueStore(RiskStores.Entity.MERCHANT.latestStore());
+        assertTrue(new String(latestByMerchant.get("MERCH-002"), StandardCharsets.UTF_8)
+                .contains("\"transaction_id\":\"txn-2\",\"amount\":50.0"));
+
+        assertEquals(List.of("txn-1", "txn-3"),
+                alerts(RiskStores.Entity.CARD.alertStore(), CARD));
+        assertEquals(List.of("txn-1", "txn-3"),
+                alerts(RiskStores.Entity.MERCHANT.alertStore(), "MERCH-001"));
+        assertEquals(List.of(), alerts(RiskStores.Entity.MERCHANT.alertStore(), "MERCH-002"));
+    }
+
+    private List<String> alerts(String storeName, String id) {
+        WindowStore<String, byte[]> store = testDriver.getWindowStore(storeName);
+        List<String> txnIds = new ArrayList<>();
+        try (WindowStoreIterator<byte[]> it = store.fetch(id, T0, T0.plusSeconds(3600))) {
+            while (it.hasNext()) {
+                KeyValue<Long, byte[]> alert = it.next();
+                String json = new String(alert.value, StandardCharsets.UTF_8);
+                assertTrue(json.contains("\"timestamp\":" + alert.key + "}"), json);
+                txnIds.add(json.replaceAll(".*\"transaction_id\":\"([^\"]+)\".*", "$1"));
+            }
+        }
+        return txnIds;
+    }
+
+    private void start(String velocity, String queryable) {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-query-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, velocity);
+        props.put(RiskStores.ENABLED_CONFIG, queryable);
+
+        testDriver = new TopologyTestDriver(FraudDetectionTopology.build(props), props);
+        inputTopic = testDriver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+    }
+
+    private void pipe(String txnId, String card, String merchant, double amount, Instant timestamp) {
+        String payment = "{\"transaction_id\":\"" + txnId + "\","
+                + "\"card_number_masked\":\"" + card + "\","
+                + "\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"" + merchant + "\","
+                + "\"timestamp\":" + timestamp.toEpochMilli() + ","
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"US-EAST\"}";
+        inputTopic.pipeInput(txnId, payment, timestamp);
+    }
+}
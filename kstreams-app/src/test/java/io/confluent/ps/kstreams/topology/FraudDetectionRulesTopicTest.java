@@ -0,0 +1,88 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.rules.RuleEngine;
+import io.confluent.ps.kstreams.rules.RuleSetUpdateProcessor;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionRulesTopicTest {
+
+    private static final String RULES_TOPIC = "fraud-rules";
+
+    private TopologyTestDriver testDriver;
+    private TestInputTopic<String, String> inputTopic;
+    private TestInputTopic<String, String> rulesTopic;
+    private TestOutputTopic<String, String> fraudAlertsTopic;
+    private TestOutputTopic<String, String> approvedTopic;
+
+    @BeforeEach
+    void setup() {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-rules-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "false");
+        props.put(RuleSetUpdateProcessor.TOPIC_CONFIG, RULES_TOPIC);
+
+        testDriver = new TopologyTestDriver(FraudDetectionTopology.build(props, RuleEngine.withDefaults()), props);
+        inputTopic = testDriver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+        rulesTopic = testDriver.createInputTopic(RULES_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+        fraudAlertsTopic = testDriver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+        approvedTopic = testDriver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (testDriver != null) {
+            testDriver.close();
+        }
+    }
+
+    @Test
+    void ruleSetFromTopic_shouldApplyToTheNextRecordAndRevertOnTombstone() {
+        inputTopic.pipeInput("txn-1", payment("txn-1", "EU-WEST"));
+
+        rulesTopic.pipeInput("active", "eu-block: region == EU-WEST => 0.9 | region blocked");
+        inputTopic.pipeInput("txn-2", payment("txn-2", "EU-WEST"));
+
+        rulesTopic.pipeInput("other", "ignored: amount >= 0 => 1.0");
+        inputTopic.pipeInput("txn-3", payment("txn-3", "US-EAST"));
+
+        rulesTopic.pipeInput("active", "broken rule");
+        inputTopic.pipeInput("txn-4", payment("txn-4", "EU-WEST"));
+
+        rulesTopic.pipeInput("active", null);
+        inputTopic.pipeInput("txn-5", payment("txn-5", "EU-WEST"));
+
+        assertEquals(List.of("txn-2", "txn-4"), fraudAlertsTopic.readKeysToList(),
+                "Active rules apply until replaced by a valid set or a tombstone");
+        assertEquals(List.of("txn-1", "txn-3", "txn-5"), approvedTopic.readKeysToList());
+    }
+
+    private static String payment(String txnId, String region) {
+        return "{\"transaction_id\":\"" + txnId + "\","
+                + "\"card_number_masked\":\"****-****-****-1234\","
+                + "\"amount\":120.50,"
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"MERCH-001\","
+                + "\"timestamp\":1700000000000,"
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"" + region + "\"}";
+    }
+}
@@ -0,0 +1,119 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+import io.confluent.kafka.streams.serdes.avro.SpecificAvroSerde;
+import io.confluent.ps.config.PaymentFormat;
+import io.confluent.ps.model.FraudAlert;
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.model.PaymentStatus;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.TopologyTestDriver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionTopologyAvroTest {
+
+    private static final String SCHEMA_REGISTRY_SCOPE = "fraud-detection-avro-test";
+
+    private TopologyTestDriver testDriver;
+    private TestInputTopic<String, Payment> inputTopic;
+    private TestOutputTopic<String, FraudAlert> fraudAlertsTopic;
+    private TestOutputTopic<String, Payment> approvedTopic;
+
+    @BeforeEach
+    void setup() {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-avro-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(PaymentFormat.CONFIG, "avro");
+        props.put(AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, "mock://" + SCHEMA_REGISTRY_SCOPE);
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "true");
+
+        Topology topology = FraudDetectionTopology.build(props);
+        testDriver = new TopologyTestDriver(topology, props);
+
+        Map<String, String> serdeConfig = Map.of(
+                AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, "mock://" + SCHEMA_REGISTRY_SCOPE);
+        SpecificAvroSerde<Payment> paymentSerde = new SpecificAvroSerde<>();
+        paymentSerde.configure(serdeConfig, false);
+        SpecificAvroSerde<FraudAlert> alertSerde = new SpecificAvroSerde<>();
+        alertSerde.configure(serdeConfig, false);
+
+        inputTopic = testDriver.createInputTopic(
+                FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(),
+                paymentSerde.serializer()
+        );
+        fraudAlertsTopic = testDriver.createOutputTopic(
+                FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                Serdes.String().deserializer(),
+                alertSerde.deserializer()
+        );
+        approvedTopic = testDriver.createOutputTopic(
+                FraudDetectionTopology.APPROVED_TOPIC,
+                Serdes.String().deserializer(),
+                paymentSerde.deserializer()
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (testDriver != null) {
+            testDriver.close();
+        }
+        MockSchemaRegistry.dropScope(SCHEMA_REGISTRY_SCOPE);
+    }
+
+    @Test
+    void lowValueTransaction_shouldBeApprovedWithRiskScore() {
+        inputTopic.pipeInput("txn-low", payment("txn-low", 50.00, "US-EAST"));
+
+        assertTrue(fraudAlertsTopic.isEmpty(), "Low-value txn should NOT trigger fraud alert");
+
+        Payment approved = approvedTopic.readValue();
+        assertEquals("txn-low", approved.getTransactionId().toString());
+        assertNotNull(approved.getRiskScore(), "Approved payment should carry its risk score");
+        assertTrue(approved.getRiskScore() < 0.7);
+    }
+
+    @Test
+    void highValueTransaction_fromHighRiskRegion_shouldEmitFraudAlert() {
+        inputTopic.pipeInput("txn-fraud", payment("txn-fraud", 7500.00, "AP-SOUTH"));
+
+        assertTrue(approvedTopic.isEmpty(), "High-risk txn should not be approved");
+
+        FraudAlert alert = fraudAlertsTopic.readValue();
+        assertEquals("txn-fraud", alert.getTransactionId().toString());
+        assertEquals("****-****-****-9999", alert.getCardNumberMasked().toString());
+        assertEquals(7500.00, alert.getAmount(), 0.001);
+        assertTrue(alert.getRiskScore() > 0.7, "Alert should carry the computed risk score");
+        assertTrue(alert.getReason().toString().contains("AP-SOUTH"), "Reason should name the fired rules");
+        assertFalse(alert.getAlertId().toString().isEmpty());
+    }
+
+    private static Payment payment(String txnId, double amount, String region) {
+        return Payment.newBuilder()
+                .setTransactionId(txnId)
+                .setCardNumberMasked("****-****-****-9999")
+                .setAmount(amount)
+                .setCurrency("USD")
+                .setMerchantId("MERCH-002")
+                .setTimestamp(1700000000000L)
+                .setStatus(PaymentStatus.PENDING)
+                .setRegion(region)
+                .build();
+    }
+}
@@ -1,16 +1,25 @@
 package io.confluent.ps.kstreams.topology;
 
+import io.confluent.ps.kstreams.errors.DeadLetterHeaders;
+import io.confluent.ps.kstreams.errors.DeadLetterSettings;
+import io.confluent.ps.tracing.TraceHeaders;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.TestInputTopic;
 import org.apache.kafka.streams.TestOutputTopic;
 import org.apache.kafka.streams.Topology;
 import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.test.TestRecord;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,12 +30,14 @@ class FraudDetectionTopologyTest {
     private TestInputTopic<String, String> inputTopic;
     private TestOutputTopic<String, String> fraudAlertsTopic;
     private TestOutputTopic<String, String> approvedTopic;
+    private TestOutputTopic<String, String> deadLetterTopic;
 
     @BeforeEach
     void setup() {
         Properties props = new Properties();
         props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-test");
         props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "true");
 
         Topology topology = FraudDetectionTopology.build(props);
         testDriver = new TopologyTestDriver(topology, props);
@@ -48,6 +59,12 @@ class FraudDetectionTopologyTest {
                 Serdes.String().deserializer(),
                 Serdes.String().deserializer()
         );
+
+        deadLetterTopic = testDriver.createOutputTopic(
+                "payments-dlq",
+                Serdes.String().deserializer(),
+                Serdes.String().deserializer()
+        );
     }
 
     @AfterEach
@@ -97,6 +114,86 @@ class FraudDetectionTopologyTest {
         assertTrue(alert.contains("\"risk_score\":"), "Alert should contain risk_score");
     }
 
+    @Test
+    void tracedPayments_shouldKeepTheirTraceAndGetTheTopologyTimesStamped() {
+        String approvedPayment = "{\"transaction_id\":\"txn-traced\","
+                + "\"card_number_masked\":\"****-****-****-1234\","
+                + "\"amount\":50.00,"
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"MERCH-001\","
+                + "\"timestamp\":1700000000000,"
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"US-EAST\"}";
+        String flaggedPayment = approvedPayment.replace("txn-traced", "txn-traced-fraud")
+                .replace("50.00", "7500.00").replace("US-EAST", "AP-SOUTH");
+        long created = TraceHeaders.nowMicros() - 1_000;
+
+        inputTopic.pipeInput(new TestRecord<>("txn-traced", approvedPayment,
+                TraceHeaders.stamp(new RecordHeaders(), "00000000000000a1", created)));
+        inputTopic.pipeInput(new TestRecord<>("txn-traced-fraud", flaggedPayment,
+                TraceHeaders.stamp(new RecordHeaders(), "00000000000000a2", created)));
+        inputTopic.pipeInput("txn-untraced", approvedPayment.replace("txn-traced", "txn-untraced"));
+
+        Headers approved = approvedTopic.readRecord().getHeaders();
+        assertEquals("00000000000000a1", TraceHeaders.traceId(approved));
+        assertEquals(created, TraceHeaders.micros(approved, TraceHeaders.CREATED_US));
+        long in = TraceHeaders.micros(approved, TraceHeaders.STREAMS_IN_US);
+        assertTrue(in >= created, "Ingest is stamped after creation");
+        assertTrue(TraceHeaders.micros(approved, TraceHeaders.STREAMS_OUT_US) >= in, "Egress after ingest");
+
+        Headers alert = fraudAlertsTopic.readRecord().getHeaders();
+        assertEquals("00000000000000a2", TraceHeaders.traceId(alert), "The alert keeps its payment's trace");
+        assertTrue(TraceHeaders.micros(alert, TraceHeaders.STREAMS_OUT_US)
+                >= TraceHeaders.micros(alert, TraceHeaders.STREAMS_IN_US));
+
+        Headers untraced = approvedTopic.readRecord().getHeaders();
+        assertNull(TraceHeaders.traceId(untraced));
+        assertEquals(-1L, TraceHeaders.micros(untraced, TraceHeaders.STREAMS_IN_US), "Untraced records pass untouched");
+    }
+
+    @Test
+    void malformedAmount_shouldBeDeadLetteredNotApproved() {
+        String payment = "{\"transaction_id\":\"txn-bad\","
+                + "\"card_number_masked\":\"****-****-****-1234\","
+                + "\"amount\":\"fifty\","
+                + "\"currency\":\"USD\","
+                + "\"region\":\"US-EAST\"}";
+
+        inputTopic.pipeInput("txn-bad", payment);
+        inputTopic.pipeInput("txn-garbage", "not a payment");
+
+        assertTrue(approvedTopic.isEmpty(), "A payment without a valid amount must not be approved");
+        assertTrue(fraudAlertsTopic.isEmpty());
+
+        TestRecord<String, String> deadLetter = deadLetterTopic.readRecord();
+        assertEquals("txn-bad", deadLetter.key());
+        assertEquals(payment, deadLetter.value(), "Dead letter carries the payment as it came in");
+        assertEquals("invalid", header(deadLetter, DeadLetterHeaders.STAGE));
+        assertEquals("missing or malformed amount", header(deadLetter, DeadLetterHeaders.REASON));
+        assertEquals(FraudDetectionTopology.INPUT_TOPIC, header(deadLetter, DeadLetterHeaders.SOURCE_TOPIC));
+        assertEquals("0", header(deadLetter, DeadLetterHeaders.SOURCE_OFFSET));
+
+        assertEquals("txn-garbage", deadLetterTopic.readKey());
+        assertTrue(deadLetterTopic.isEmpty());
+    }
+
+    @Test
+    void malformedAmount_withoutDeadLetterTopic_shouldBeDropped() {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-test-no-dlq");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(DeadLetterSettings.TOPIC_CONFIG, "");
+
+        try (TopologyTestDriver driver = new TopologyTestDriver(FraudDetectionTopology.build(props), props)) {
+            driver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                            Serdes.String().serializer(), Serdes.String().serializer())
+                    .pipeInput("txn-bad", "{\"transaction_id\":\"txn-bad\",\"currency\":\"USD\"}");
+            assertTrue(driver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                    Serdes.String().deserializer(), Serdes.String().deserializer()).isEmpty());
+            assertFalse(driver.producedTopicNames().contains("payments-dlq"));
+        }
+    }
+
     @Test
     void extractAmount_shouldParseCorrectly() {
         String json = "{\"amount\":1234.56,\"other\":\"field\"}";
@@ -134,4 +231,9 @@ class FraudDetectionTopologyTest {
         String enriched = "{\"amount\":100,\"risk_score\":0.20}";
         assertFalse(FraudDetectionTopology.isFraudulent(enriched));
     }
+
+    private static String header(TestRecord<String, String> record, String key) {
+        Header header = record.getHeaders().lastHeader(key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
 }
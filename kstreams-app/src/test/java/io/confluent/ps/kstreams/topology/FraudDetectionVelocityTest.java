@@ -0,0 +1,165 @@
+package io.confluent.ps.kstreams.topology;
+
+import io.confluent.ps.kstreams.config.TunedRocksDBConfig;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.test.TestRecord;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionVelocityTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path stateDir;
+
+    private TopologyTestDriver testDriver;
+    private TestInputTopic<String, String> inputTopic;
+    private TestOutputTopic<String, String> fraudAlertsTopic;
+    private TestOutputTopic<String, String> approvedTopic;
+
+    @BeforeEach
+    void setup() {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "fraud-detection-velocity-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, TunedRocksDBConfig.class.getName());
+        props.put(FraudDetectionTopology.VELOCITY_ENABLED_CONFIG, "true");
+
+        testDriver = new TopologyTestDriver(FraudDetectionTopology.build(props), props);
+        inputTopic = testDriver.createInputTopic(FraudDetectionTopology.INPUT_TOPIC,
+                Serdes.String().serializer(), Serdes.String().serializer());
+        fraudAlertsTopic = testDriver.createOutputTopic(FraudDetectionTopology.FRAUD_ALERTS_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+        approvedTopic = testDriver.createOutputTopic(FraudDetectionTopology.APPROVED_TOPIC,
+                Serdes.String().deserializer(), Serdes.String().deserializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (testDriver != null) {
+            testDriver.close();
+        }
+    }
+
+    @Test
+    void cardBurstWithinOneMinute_shouldBeFlaggedFromTheFifthPayment() {
+        // 1500.50 alone scores 0.4; five or more on one card within a minute adds 0.4
+        for (int i = 0; i < 6; i++) {
+            pipe("txn-burst-" + i, "****-****-****-0001", "MERCH-001", 1500.50, T0.plusSeconds(i * 5L));
+        }
+
+        List<String> approved = approvedTopic.readKeysToList();
+        List<String> flagged = fraudAlertsTopic.readKeysToList();
+        assertEquals(List.of("txn-burst-0", "txn-burst-1", "txn-burst-2", "txn-burst-3"), approved);
+        assertEquals(List.of("txn-burst-4", "txn-burst-5"), flagged);
+    }
+
+    @Test
+    void hourlySpendOnOneCard_shouldBeFlaggedOnceAboveLimit() {
+        for (int i = 0; i < 3; i++) {
+            pipe("txn-spend-" + i, "****-****-****-0002", "MERCH-002", 4000.50, T0.plus(Duration.ofMinutes(20L * i)));
+        }
+
+        assertEquals(List.of("txn-spend-0", "txn-spend-1"), approvedTopic.readKeysToList());
+        assertEquals(List.of("txn-spend-2"), fraudAlertsTopic.readKeysToList());
+    }
+
+    @Test
+    void velocity_shouldForgetActivityOlderThanOneHour() {
+        for (int i = 0; i < 6; i++) {
+            pipe("txn-old-" + i, "****-****-****-0003", "MERCH-003", 1500.50, T0.plusSeconds(i));
+        }
+        fraudAlertsTopic.readKeysToList();
+        approvedTopic.readKeysToList();
+
+        pipe("txn-later", "****-****-****-0003", "MERCH-003", 1500.50, T0.plus(Duration.ofHours(2)));
+
+        assertTrue(fraudAlertsTopic.isEmpty(), "The earlier burst is outside every window");
+        TestRecord<String, String> approved = approvedTopic.readRecord();
+        assertEquals("txn-later", approved.key());
+        assertTrue(approved.getHeaders().lastHeader(VelocityFeatures.CARD_HEADER) == null
+                        && approved.getHeaders().lastHeader(VelocityFeatures.MERCHANT_HEADER) == null,
+                "Velocity headers must not leak to output topics");
+    }
+
+    @Test
+    void thousandsOfCards_shouldBeScoredIndependentlyWithBoundedStores() {
+        int cards = 3_000;
+        int paymentsPerCard = 3;
+        long spanMs = Duration.ofHours(3).toMillis();
+        Random random = new Random(42);
+
+        // Low-value traffic spread over three hours: no card or merchant comes near a limit
+        for (int round = 0; round < paymentsPerCard; round++) {
+            for (int card = 0; card < cards; card++) {
+                long offset = (round * spanMs + (long) card * spanMs / cards) / paymentsPerCard;
+                pipe("txn-" + round + "-" + card, maskedCard(card), "MERCH-" + (card % 100),
+                        10 + random.nextInt(400) + 0.25, T0.plusMillis(offset));
+            }
+        }
+        // Two cards burst at the very end
+        Instant end = T0.plusMillis(spanMs);
+        for (int i = 0; i < 5; i++) {
+            pipe("txn-hot-a-" + i, maskedCard(7), "MERCH-7", 1200.25, end.plusSeconds(i));
+            pipe("txn-hot-b-" + i, maskedCard(2024), "MERCH-24", 1200.25, end.plusSeconds(i));
+        }
+
+        assertEquals(List.of("txn-hot-a-4", "txn-hot-b-4"), fraudAlertsTopic.readKeysToList());
+        assertEquals(cards * paymentsPerCard + 8, approvedTopic.getQueueSize());
+
+        // Retention keeps only recent buckets: everything older than two retention periods is gone
+        long lastTs = end.plusSeconds(4).toEpochMilli();
+        WindowStore<Bytes, byte[]> store = testDriver.getWindowStore(VelocityProcessor.CARD_STORE);
+        int live = 0;
+        try (KeyValueIterator<Windowed<Bytes>, byte[]> it = store.all()) {
+            while (it.hasNext()) {
+                KeyValue<Windowed<Bytes>, byte[]> bucket = it.next();
+                assertTrue(bucket.key.window().start() > lastTs - 2 * VelocityProcessor.RETENTION,
+                        "Expired bucket still in store: " + bucket.key);
+                live++;
+            }
+        }
+        assertTrue(live < cards * paymentsPerCard, "Store should not grow with total volume, had " + live);
+    }
+
+    private void pipe(String txnId, String card, String merchant, double amount, Instant timestamp) {
+        String payment = "{\"transaction_id\":\"" + txnId + "\","
+                + "\"card_number_masked\":\"" + card + "\","
+                + "\"amount\":" + String.format(Locale.ROOT, "%.2f", amount) + ","
+                + "\"currency\":\"USD\","
+                + "\"merchant_id\":\"" + merchant + "\","
+                + "\"timestamp\":" + timestamp.toEpochMilli() + ","
+                + "\"status\":\"PENDING\","
+                + "\"region\":\"US-EAST\"}";
+        inputTopic.pipeInput(txnId, payment, timestamp);
+    }
+
+    private static String maskedCard(int card) {
+        return String.format(Locale.ROOT, "****-****-%04d-%04d", card / 10_000, card % 10_000);
+    }
+}
@@ -0,0 +1,83 @@
+package io.confluent.ps.config;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Named producer batching / compression profiles.
+ *
+ * <p>Selected with {@code producer.profile} (env {@code PRODUCER_PROFILE}):
+ * <ul>
+ *   <li>{@code latency}  — send immediately, small batches, no compression</li>
+ *   <li>{@code balanced} — 5 ms linger, 64 KiB batches, lz4 (default)</li>
+ *   <li>{@code bulk}     — 50 ms linger, 256 KiB batches, zstd, larger buffer</li>
+ * </ul>
+ * A profile only fills in {@code linger.ms}, {@code batch.size},
+ * {@code compression.type} and {@code buffer.memory}; any of these set
+ * explicitly in the configuration wins.
+ */
+public enum ProducerProfile {
+    LATENCY(0, 16_384, "none", 32L << 20),
+    BALANCED(5, 65_536, "lz4", 64L << 20),
+    BULK(50, 262_144, "zstd", 128L << 20);
+
+    public static final String CONFIG = "producer.profile";
+
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+    private final long bufferMemory;
+
+    ProducerProfile(int lingerMs, int batchSize, String compressionType, long bufferMemory) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+        this.bufferMemory = bufferMemory;
+    }
+
+    public static ProducerProfile from(Properties props) {
+        String value = props.getProperty(CONFIG, "balanced").trim();
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unsupported " + CONFIG + "='" + value + "' (expected latency, balanced or bulk)", e);
+        }
+    }
+
+    /** The producer settings this profile stands for, keyed by Kafka config name. */
+    public Map<String, String> settings() {
+        return Map.of(
+                "linger.ms", Integer.toString(lingerMs),
+                "batch.size", Integer.toString(batchSize),
+                "compression.type", compressionType,
+                "buffer.memory", Long.toString(bufferMemory));
+    }
+
+    /** Adds this profile's settings to {@code props}, keeping any already set. */
+    public void applyTo(Properties props) {
+        settings().forEach(props::putIfAbsent);
+    }
+
+    /** Replaces the profile-controlled settings in {@code props}, e.g. to compare profiles. */
+    public void overrideIn(Properties props) {
+        props.putAll(settings());
+    }
+
+    public int lingerMs() {
+        return lingerMs;
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    public String compressionType() {
+        return compressionType;
+    }
+
+    public long bufferMemory() {
+        return bufferMemory;
+    }
+}
@@ -1,17 +1,43 @@
 package io.confluent.ps.consumer;
 
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
 import io.confluent.ps.config.ConfigLoader;
+import io.confluent.ps.config.PaymentFormat;
+import io.confluent.ps.consumer.commit.CommitMetrics;
+import io.confluent.ps.consumer.commit.CommitOnRevokeListener;
+import io.confluent.ps.consumer.commit.CommitStrategy;
+import io.confluent.ps.consumer.parallel.ParallelProcessingEngine;
+import io.confluent.ps.consumer.parallel.ParallelSettings;
+import io.confluent.ps.consumer.pipeline.PaymentHandler;
+import io.confluent.ps.consumer.pipeline.PaymentPipeline;
+import io.confluent.ps.consumer.pipeline.PipelineSettings;
+import io.confluent.ps.consumer.retry.PoisonPillDeserializer;
+import io.confluent.ps.consumer.retry.RetrySettings;
+import io.confluent.ps.consumer.retry.RetryTiers;
+import io.confluent.ps.consumer.trace.TraceLatencyInterceptor;
+import io.confluent.ps.logging.LogDrops;
+import io.confluent.ps.logging.LogLimiter;
+import io.confluent.ps.model.Payment;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -21,64 +47,197 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *
  * Usage:
  *   java -Dapp.env=dev -jar producer-consumer-app.jar consume
+ *
+ * With payment.format=avro the values are read as specific Avro {@code Payment} records.
+ * With consumer.processing.mode=parallel records are processed on a key-ordered
+ * worker pool (see {@link ParallelProcessingEngine}).
+ * With consumer.processing.mode=pipeline whole batches go through the
+ * {@link PaymentHandler} stages named in consumer.pipeline.handlers (see {@link PaymentPipeline}).
+ * Offsets are committed by the {@link CommitStrategy} selected with consumer.commit.strategy
+ * (default: sync for inline, async-batched for parallel and pipeline).
+ * With consumer.retry.enabled=true a payment that fails is routed to delayed retry
+ * topics and finally a dead-letter topic instead of being skipped (see {@link RetrySettings}).
+ * Unless consumer.trace.enabled=false the producer-to-consumer latency of traced
+ * payments is measured and logged per hop (see {@link TraceLatencyInterceptor}).
  */
 public class PaymentConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentConsumer.class);
     private static final String DEFAULT_TOPIC = "payments";
     private static final AtomicBoolean running = new AtomicBoolean(true);
+    private static final LogLimiter RECEIVED_LOG = LogLimiter.perSecond("consumer.received", 1);
+
+    /**
+     * {@code inline} (poll-thread processing, default), {@code parallel} (key-ordered worker pool)
+     * or {@code pipeline} (batched handler stages).
+     */
+    static final String PROCESSING_MODE_CONFIG = "consumer.processing.mode";
 
     public static void main(String[] args) {
         runConsumer();
     }
 
     public static void runConsumer() {
+        LogDrops.registerMBean();
         Properties props = ConfigLoader.load();
         props.putIfAbsent(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
                 StringDeserializer.class.getName());
-        props.putIfAbsent(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-                StringDeserializer.class.getName());
         props.putIfAbsent(ConsumerConfig.GROUP_ID_CONFIG, "payment-consumer-group");
         props.putIfAbsent(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.putIfAbsent(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
         props.putIfAbsent(ConsumerConfig.CLIENT_ID_CONFIG, "payment-consumer");
 
+        PaymentFormat format = PaymentFormat.from(props);
+        switch (format) {
+            case AVRO -> {
+                props.putIfAbsent(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                        KafkaAvroDeserializer.class.getName());
+                props.putIfAbsent(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+                PaymentConsumer.<Payment>consume(props, avroSerializer());
+            }
+            case JSON -> {
+                props.putIfAbsent(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                        StringDeserializer.class.getName());
+                PaymentConsumer.<String>consume(props, new StringSerializer());
+            }
+        }
+    }
+
+    /** Re-serializes payments for the retry topics; configured by {@link RetryTiers}. */
+    @SuppressWarnings("unchecked")
+    private static Serializer<Payment> avroSerializer() {
+        return (Serializer<Payment>) (Serializer<?>) new KafkaAvroSerializer();
+    }
+
+    private static <V> void consume(Properties props, Serializer<V> serializer) {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Shutdown signal received");
             running.set(false);
         }));
 
         String topic = resolveTopic();
-        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props)) {
-            consumer.subscribe(Collections.singletonList(topic));
-            log.info("PaymentConsumer started — subscribed to topic '{}'", topic);
-
-            long totalConsumed = 0;
-            while (running.get()) {
-                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(1000));
-
-                if (!records.isEmpty()) {
-                    records.forEach(record -> {
-                        log.info("Received payment: partition={} offset={} key={} value={}",
-                                record.partition(), record.offset(),
-                                record.key(), record.value());
-                        // -------------------------------------------------------
-                        // Business logic goes here.
-                        // IMPORTANT: Never log full card numbers (PCI-DSS Req 3).
-                        // -------------------------------------------------------
-                    });
-
-                    // Commit after processing the batch
-                    consumer.commitSync();
-                    totalConsumed += records.count();
-                    log.info("Committed offsets — total consumed: {}", totalConsumed);
+        String mode = props.getProperty(PROCESSING_MODE_CONFIG, "inline").trim().toLowerCase(Locale.ROOT);
+        if (!mode.equals("inline") && !mode.equals("parallel") && !mode.equals("pipeline")) {
+            throw new IllegalArgumentException("Unsupported " + PROCESSING_MODE_CONFIG + "='" + mode
+                    + "' (expected inline, parallel or pipeline)");
+        }
+
+        RetrySettings retrySettings = RetrySettings.from(props);
+        if (retrySettings.enabled()) {
+            // Undeserializable payments then reach the handlers flagged, instead of failing poll()
+            PoisonPillDeserializer.wrap(props);
+        }
+        TraceLatencyInterceptor.install(props);
+
+        try (KafkaConsumer<String, V> consumer = new KafkaConsumer<>(props);
+             CommitStrategy commits = CommitStrategy.create(props, mode.equals("inline") ? "sync" : "async-batched",
+                     new CommitMetrics(props.getProperty(ConsumerConfig.CLIENT_ID_CONFIG)));
+             RetryTiers<V> retry = retrySettings.enabled()
+                     ? RetryTiers.start(props, topic, retrySettings, serializer,
+                             PaymentConsumer.<V>retryHandler(mode, props))
+                     : null) {
+            java.util.function.Consumer<ConsumerRecord<String, V>> handler = retry == null
+                    ? PaymentConsumer::handle
+                    : retry.router().guard(PaymentConsumer::handle);
+            long totalConsumed;
+            if (mode.equals("parallel")) {
+                try (ParallelProcessingEngine<String, V> engine = new ParallelProcessingEngine<>(
+                        consumer, handler, ParallelSettings.from(props), commits)) {
+                    log.info("PaymentConsumer started — subscribed to topic '{}' (parallel mode)", topic);
+                    totalConsumed = engine.run(Collections.singletonList(topic), running);
+                }
+            } else if (mode.equals("pipeline")) {
+                PipelineSettings settings = PipelineSettings.from(props);
+                List<PaymentHandler<V>> handlers = PaymentConsumer.handlers(settings, props);
+                if (retry != null) {
+                    // The first stage routes poison payments, the others never see them
+                    for (int i = 0; i < handlers.size(); i++) {
+                        handlers.set(i, retry.router().withoutPoison(handlers.get(i), i == 0));
+                    }
                 }
+                try (PaymentPipeline<V> pipeline = new PaymentPipeline<>(consumer, handlers, settings, commits,
+                        retry == null ? null : retry.router()::recover)) {
+                    log.info("PaymentConsumer started — subscribed to topic '{}' (pipeline mode, stages {})",
+                            topic, settings.handlers());
+                    totalConsumed = pipeline.run(Collections.singletonList(topic), running);
+                }
+            } else {
+                totalConsumed = consumeInline(consumer, topic, commits, handler);
             }
 
             log.info("PaymentConsumer stopped after consuming {} records", totalConsumed);
         }
     }
 
+    /** Handlers of {@code consumer.pipeline.handlers}; {@code log} is {@link #handle} per record. */
+    private static <V> List<PaymentHandler<V>> handlers(PipelineSettings settings, Properties props) {
+        List<PaymentHandler<V>> handlers = new ArrayList<>();
+        for (String name : settings.handlers()) {
+            handlers.add(name.equals("log")
+                    ? PaymentHandler.perRecord(PaymentConsumer::handle)
+                    : PaymentHandler.create(name, props));
+        }
+        return handlers;
+    }
+
+    /**
+     * What the retry tiers run a failed payment through again: the same stages
+     * as the main path (its own instances for pipeline mode).
+     */
+    private static <V> PaymentHandler<V> retryHandler(String mode, Properties props) {
+        return mode.equals("pipeline")
+                ? PaymentHandler.chain(PaymentConsumer.<V>handlers(PipelineSettings.from(props), props))
+                : PaymentHandler.perRecord(PaymentConsumer::handle);
+    }
+
+    private static <V> long consumeInline(KafkaConsumer<String, V> consumer, String topic,
+                                          CommitStrategy commits,
+                                          java.util.function.Consumer<ConsumerRecord<String, V>> handler) {
+        consumer.subscribe(Collections.singletonList(topic), new CommitOnRevokeListener(consumer, commits));
+        log.info("PaymentConsumer started — subscribed to topic '{}'", topic);
+
+        long totalConsumed = 0;
+        while (running.get()) {
+            ConsumerRecords<String, V> records = consumer.poll(Duration.ofMillis(1000));
+
+            if (!records.isEmpty()) {
+                records.forEach(handler);
+
+                // Mark the batch processed; the strategy decides when to commit
+                for (TopicPartition tp : records.partitions()) {
+                    List<ConsumerRecord<String, V>> partitionRecords = records.records(tp);
+                    long last = partitionRecords.get(partitionRecords.size() - 1).offset();
+                    commits.markProcessed(tp, last + 1, partitionRecords.size());
+                }
+                totalConsumed += records.count();
+                log.debug("Processed batch — total consumed: {}", totalConsumed);
+            }
+            commits.maybeCommit(consumer);
+        }
+
+        commits.commitAllSync(consumer);
+        return totalConsumed;
+    }
+
+    /**
+     * Per-record business logic. In parallel mode this runs on a worker thread,
+     * concurrently for different keys and in offset order for the same key;
+     * in pipeline mode it is the {@code log} stage. Bulk writes belong in a
+     * {@link PaymentHandler} instead.
+     */
+    static <V> void handle(ConsumerRecord<String, V> record) {
+        // Sampled: a line per record costs more than the record itself at full rate
+        if (RECEIVED_LOG.permit()) {
+            log.info("Received payment: partition={} offset={} key={} value={} ({} more since last line)",
+                    record.partition(), record.offset(),
+                    record.key(), record.value(), RECEIVED_LOG.drainSuppressed());
+        }
+        // -------------------------------------------------------
+        // Business logic goes here.
+        // IMPORTANT: Never log full card numbers (PCI-DSS Req 3).
+        // -------------------------------------------------------
+    }
+
     private static String resolveTopic() {
         String fromEnv = System.getenv("CONSUME_TOPIC");
         if (fromEnv != null && !fromEnv.isBlank()) {
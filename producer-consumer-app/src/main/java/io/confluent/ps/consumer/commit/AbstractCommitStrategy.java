@@ -0,0 +1,93 @@
+package io.confluent.ps.consumer.commit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Shared offset bookkeeping, synchronous flush and metrics for commit strategies.
+ */
+abstract class AbstractCommitStrategy implements CommitStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractCommitStrategy.class);
+
+    protected final DirtyOffsetTracker tracker = new DirtyOffsetTracker();
+    protected final CommitMetrics metrics;
+
+    AbstractCommitStrategy(CommitMetrics metrics) {
+        this.metrics = metrics;
+        metrics.registerLag(tracker::lag);
+    }
+
+    @Override
+    public void markProcessed(TopicPartition tp, long nextOffset, long records) {
+        onProcessed(tracker.markProcessed(tp, nextOffset, records));
+    }
+
+    /** Hook for strategies that count progress. */
+    protected void onProcessed(long records) {
+    }
+
+    @Override
+    public void commitSync(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        commitSync(consumer, tracker.dirty(partitions));
+    }
+
+    @Override
+    public void commitAllSync(Consumer<?, ?> consumer) {
+        commitSync(consumer, tracker.dirty(null));
+    }
+
+    @Override
+    public void forget(Collection<TopicPartition> partitions) {
+        tracker.forget(partitions);
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+    }
+
+    protected void commitSync(Consumer<?, ?> consumer, Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (offsets.isEmpty()) {
+            return;
+        }
+        tracker.requested(offsets);
+        long start = System.nanoTime();
+        try {
+            consumer.commitSync(offsets);
+            metrics.recordSuccess(System.nanoTime() - start);
+            tracker.committed(offsets);
+        } catch (KafkaException e) {
+            metrics.recordFailure();
+            tracker.failed(offsets);
+            throw e;
+        }
+    }
+
+    protected void commitAsync(Consumer<?, ?> consumer, Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (offsets.isEmpty()) {
+            return;
+        }
+        tracker.requested(offsets);
+        long start = System.nanoTime();
+        consumer.commitAsync(offsets, (committed, ex) -> {
+            if (ex == null) {
+                metrics.recordSuccess(System.nanoTime() - start);
+                tracker.committed(offsets);
+            } else {
+                // Retried by the next commit; a later success supersedes this one
+                metrics.recordFailure();
+                tracker.failed(offsets);
+                log.warn("Async commit failed for {}: {}", offsets.keySet(), ex.toString());
+            }
+        });
+    }
+}
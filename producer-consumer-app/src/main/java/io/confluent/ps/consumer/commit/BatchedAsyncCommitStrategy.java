@@ -0,0 +1,43 @@
+package io.confluent.ps.consumer.commit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+
+/**
+ * Commits asynchronously once {@code maxRecords} records were processed or
+ * {@code intervalMs} elapsed since the last commit, whichever comes first.
+ *
+ * <p>The poll loop never waits for the broker; the redelivery window after a
+ * crash is bounded by roughly {@code maxRecords} (or {@code intervalMs} worth
+ * of records) per consumer. Rebalances and shutdown still flush with
+ * {@link #commitSync}.
+ */
+final class BatchedAsyncCommitStrategy extends AbstractCommitStrategy {
+
+    private final long maxRecords;
+    private final long intervalMs;
+
+    private long uncommittedRecords;
+    private long lastCommitMs = System.currentTimeMillis();
+
+    BatchedAsyncCommitStrategy(CommitMetrics metrics, long maxRecords, long intervalMs) {
+        super(metrics);
+        this.maxRecords = maxRecords;
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    protected void onProcessed(long records) {
+        uncommittedRecords += records;
+    }
+
+    @Override
+    public void maybeCommit(Consumer<?, ?> consumer) {
+        long now = System.currentTimeMillis();
+        if (uncommittedRecords < maxRecords && now - lastCommitMs < intervalMs) {
+            return;
+        }
+        lastCommitMs = now;
+        uncommittedRecords = 0;
+        commitAsync(consumer, tracker.dirty(null));
+    }
+}
@@ -0,0 +1,96 @@
+package io.confluent.ps.consumer.commit;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.KafkaMetricsContext;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.CumulativeCount;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.utils.Time;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Offset-commit metrics, registered with Kafka's metrics library and exported
+ * over JMX next to the client's own metrics ({@code payment.consumer:type=commit-metrics}).
+ *
+ * <ul>
+ *   <li>{@code commit-latency-avg|max} — ms from request to broker acknowledgement</li>
+ *   <li>{@code commit-rate}, {@code commit-total}, {@code commit-failed-total}</li>
+ *   <li>{@code commit-lag-records} — processed but not yet committed (redelivery window)</li>
+ * </ul>
+ */
+public final class CommitMetrics implements AutoCloseable {
+
+    private static final String GROUP = "commit-metrics";
+
+    private final Metrics metrics;
+    private final Map<String, String> tags;
+    private final Sensor latency;
+    private final Sensor commits;
+    private final Sensor failures;
+
+    public CommitMetrics(String clientId) {
+        this(new Metrics(new MetricConfig(), List.of(new JmxReporter()), Time.SYSTEM,
+                new KafkaMetricsContext("payment.consumer")), clientId);
+    }
+
+    CommitMetrics(Metrics metrics, String clientId) {
+        this.metrics = metrics;
+        this.tags = Map.of("client-id", clientId);
+
+        latency = metrics.sensor("commit-latency");
+        latency.add(name("commit-latency-avg", "Average commit latency in ms"), new Avg());
+        latency.add(name("commit-latency-max", "Max commit latency in ms"), new Max());
+
+        commits = metrics.sensor("commits");
+        commits.add(name("commit-rate", "Successful commits per second"), new Rate(TimeUnit.SECONDS));
+        commits.add(name("commit-total", "Successful commits"), new CumulativeCount());
+
+        failures = metrics.sensor("commit-failures");
+        failures.add(name("commit-failed-total", "Failed commits"), new CumulativeCount());
+    }
+
+    /** Registers (or replaces) the lag gauge; {@code lag} is read on every metrics scrape. */
+    public void registerLag(LongSupplier lag) {
+        MetricName lagName = name("commit-lag-records", "Records processed but not yet committed");
+        metrics.removeMetric(lagName);
+        metrics.addMetric(lagName, (Measurable) (config, now) -> lag.getAsLong());
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        long now = System.currentTimeMillis();
+        latency.record(latencyNanos / 1_000_000.0, now);
+        commits.record(1.0, now);
+    }
+
+    public void recordFailure() {
+        failures.record();
+    }
+
+    /** Current value of a metric by name (tests, logging). */
+    public double value(String metricName) {
+        return metrics.metrics().entrySet().stream()
+                .filter(e -> e.getKey().name().equals(metricName))
+                .mapToDouble(e -> ((Number) e.getValue().metricValue()).doubleValue())
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+    }
+
+    private MetricName name(String name, String description) {
+        return metrics.metricName(name, GROUP, description, tags);
+    }
+}
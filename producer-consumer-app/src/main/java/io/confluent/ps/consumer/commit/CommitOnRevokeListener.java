@@ -0,0 +1,48 @@
+package io.confluent.ps.consumer.commit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+
+/**
+ * Flushes pending offsets synchronously before partitions are handed to
+ * another group member, so batched/async commits never widen the redelivery
+ * window across a rebalance.
+ */
+public final class CommitOnRevokeListener implements ConsumerRebalanceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitOnRevokeListener.class);
+
+    private final Consumer<?, ?> consumer;
+    private final CommitStrategy strategy;
+
+    public CommitOnRevokeListener(Consumer<?, ?> consumer, CommitStrategy strategy) {
+        this.consumer = consumer;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        try {
+            strategy.commitSync(consumer, partitions);
+        } finally {
+            strategy.forget(partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        // No longer the owner — a commit would be fenced
+        strategy.forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        log.info("Assigned partitions: {}", partitions);
+    }
+}
@@ -0,0 +1,59 @@
+package io.confluent.ps.consumer.commit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Decides when processed offsets are committed.
+ *
+ * <p>All methods are called from the poll thread. Implementations must commit
+ * synchronously in {@link #commitSync} so that rebalances and shutdown never
+ * lose processed offsets.
+ *
+ * <p>Selected with {@code consumer.commit.strategy}:
+ * <ul>
+ *   <li>{@code sync} — {@code commitSync} after every poll that made progress
+ *       (smallest redelivery window, one broker round-trip per poll)</li>
+ *   <li>{@code async-batched} — {@code commitAsync} every
+ *       {@code consumer.commit.max.records} records or
+ *       {@code consumer.commit.interval.ms}, whichever comes first</li>
+ * </ul>
+ */
+public interface CommitStrategy extends AutoCloseable {
+
+    String CONFIG = "consumer.commit.strategy";
+
+    /** Marks everything below {@code nextOffset} processed; {@code records} is how many records that covered. */
+    void markProcessed(TopicPartition tp, long nextOffset, long records);
+
+    /** Called once per poll-loop iteration; commits if the strategy says it is due. */
+    void maybeCommit(Consumer<?, ?> consumer);
+
+    /** Synchronously commits pending offsets of {@code partitions} (rebalance, shutdown). */
+    void commitSync(Consumer<?, ?> consumer, Collection<TopicPartition> partitions);
+
+    /** Synchronously commits everything pending. */
+    void commitAllSync(Consumer<?, ?> consumer);
+
+    /** Drops state for partitions that are no longer owned (lost or revoked). */
+    void forget(Collection<TopicPartition> partitions);
+
+    @Override
+    void close();
+
+    static CommitStrategy create(Properties props, String defaultStrategy, CommitMetrics metrics) {
+        String strategy = props.getProperty(CONFIG, defaultStrategy).trim().toLowerCase(Locale.ROOT);
+        return switch (strategy) {
+            case "sync" -> new SyncCommitStrategy(metrics);
+            case "async-batched" -> new BatchedAsyncCommitStrategy(metrics,
+                    Long.parseLong(props.getProperty("consumer.commit.max.records", "1000")),
+                    Long.parseLong(props.getProperty("consumer.commit.interval.ms", "1000")));
+            default -> throw new IllegalArgumentException(
+                    "Unsupported " + CONFIG + "='" + strategy + "' (expected sync or async-batched)");
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package io.confluent.ps.consumer.commit;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-partition bookkeeping of processed vs. committed offsets.
+ *
+ * <p>For each partition three positions are kept (all "next offset to read"):
+ * <ul>
+ *   <li><b>processed</b> — everything below has been handled</li>
+ *   <li><b>requested</b> — highest offset sent in a commit request</li>
+ *   <li><b>committed</b> — highest offset acknowledged by the broker</li>
+ * </ul>
+ * A partition is <em>dirty</em> when processed &gt; requested. Commit lag is
+ * the sum of processed − committed, i.e. the redelivery window if the
+ * consumer died now.
+ *
+ * <p>Only used from the poll thread (commit callbacks also run there);
+ * {@link #lag()} may be read from any thread.
+ */
+public final class DirtyOffsetTracker {
+
+    private static final class Position {
+        long processed = -1L;
+        long requested = -1L;
+        long committed = -1L;
+    }
+
+    private final Map<TopicPartition, Position> positions = new HashMap<>();
+    private volatile long lag;
+
+    /**
+     * Marks everything below {@code nextOffset} as processed; {@code records}
+     * is how many records that step covered (used for the first sighting of a
+     * partition, whose previous position is unknown).
+     *
+     * @return number of offsets newly covered (0 if not advanced)
+     */
+    public long markProcessed(TopicPartition tp, long nextOffset, long records) {
+        Position p = positions.computeIfAbsent(tp, k -> new Position());
+        if (nextOffset <= p.processed) {
+            return 0L;
+        }
+        long delta = p.processed < 0 ? records : nextOffset - p.processed;
+        if (p.committed < 0) {
+            // First sighting: everything before this step was committed by a previous owner
+            p.committed = nextOffset - records;
+            p.requested = p.committed;
+        }
+        p.processed = nextOffset;
+        updateLag();
+        return delta;
+    }
+
+    /** Offsets that advanced since the last request, limited to {@code partitions} (null = all). */
+    public Map<TopicPartition, OffsetAndMetadata> dirty(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        positions.forEach((tp, p) -> {
+            if ((partitions == null || partitions.contains(tp)) && p.processed > p.requested) {
+                offsets.put(tp, new OffsetAndMetadata(p.processed));
+            }
+        });
+        return offsets;
+    }
+
+    public void requested(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((tp, om) -> {
+            Position p = positions.get(tp);
+            if (p != null) {
+                p.requested = Math.max(p.requested, om.offset());
+            }
+        });
+    }
+
+    public void committed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((tp, om) -> {
+            Position p = positions.get(tp);
+            if (p != null) {
+                p.committed = Math.max(p.committed, om.offset());
+            }
+        });
+        updateLag();
+    }
+
+    /** A failed request: make those partitions dirty again so the next commit retries them. */
+    public void failed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((tp, om) -> {
+            Position p = positions.get(tp);
+            if (p != null && p.requested == om.offset()) {
+                p.requested = p.committed;
+            }
+        });
+    }
+
+    public void forget(Collection<TopicPartition> partitions) {
+        partitions.forEach(positions::remove);
+        updateLag();
+    }
+
+    public long lag() {
+        return lag;
+    }
+
+    public int partitionCount() {
+        return positions.size();
+    }
+
+    private void updateLag() {
+        long sum = 0;
+        for (Position p : positions.values()) {
+            if (p.processed > p.committed) {
+                sum += p.processed - p.committed;
+            }
+        }
+        lag = sum;
+    }
+}
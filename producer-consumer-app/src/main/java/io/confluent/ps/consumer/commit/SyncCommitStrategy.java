@@ -0,0 +1,19 @@
+package io.confluent.ps.consumer.commit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+
+/**
+ * Commits synchronously whenever any partition made progress — the original
+ * per-batch {@code commitSync()} behaviour.
+ */
+final class SyncCommitStrategy extends AbstractCommitStrategy {
+
+    SyncCommitStrategy(CommitMetrics metrics) {
+        super(metrics);
+    }
+
+    @Override
+    public void maybeCommit(Consumer<?, ?> consumer) {
+        commitAllSync(consumer);
+    }
+}
@@ -0,0 +1,102 @@
+package io.confluent.ps.consumer.parallel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a bounded worker pool while preserving submission order per key.
+ *
+ * <p>Keys are hashed onto a fixed number of <em>lanes</em>. Each lane is a
+ * serial queue that is scheduled on the pool at most once at a time, so tasks
+ * of the same key never run concurrently or out of order, while tasks of
+ * different lanes run in parallel. Because a lane occupies at most one pool
+ * queue slot, the pool's own queue is bounded by the number of lanes.
+ */
+public final class KeyOrderedExecutor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedExecutor.class);
+
+    /** Tasks a lane runs before yielding its worker, so one hot key cannot starve others. */
+    private static final int LANE_BATCH = 64;
+
+    private final ExecutorService workers;
+    private final Lane[] lanes;
+
+    public KeyOrderedExecutor(int threads, int lanes, String threadNamePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, threadNamePrefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane();
+        }
+    }
+
+    /** Queues {@code task} behind all earlier tasks with the same {@code orderingHash}. */
+    public void execute(int orderingHash, Runnable task) {
+        lanes[Math.floorMod(spread(orderingHash), lanes.length)].submit(task);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private final class Lane implements Runnable {
+
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void submit(Runnable task) {
+            queue.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            int budget = LANE_BATCH;
+            while (budget-- > 0 && (task = queue.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Task failed on lane worker", e);
+                }
+            }
+            scheduled.set(false);
+            // Re-check: a task may have been queued after the last poll but before the flag was cleared
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package io.confluent.ps.consumer.parallel;
+
+import io.confluent.ps.consumer.commit.CommitStrategy;
+import io.confluent.ps.logging.LogLimiter;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Processes consumed records on a worker pool while keeping per-key order.
+ *
+ * <p>Threading model:
+ * <ul>
+ *   <li>The poll thread owns the {@link Consumer}: it polls, dispatches records
+ *       to a {@link KeyOrderedExecutor}, pauses/resumes partitions and commits.</li>
+ *   <li>Workers only run the handler and mark offsets complete in the
+ *       partition's {@link PartitionOffsetTracker}.</li>
+ * </ul>
+ *
+ * <p>Each partition's contiguous watermark is reported to a {@link CommitStrategy},
+ * which decides when to commit it, so a crash redelivers in-flight records but
+ * never skips one (at-least-once). A partition with too many records in flight is
+ * paused until it drains to half the limit, which bounds memory and lets one
+ * slow key hold back only its own partition.
+ *
+ * <p>Records with the same key are processed in offset order. Records without
+ * a key fall back to partition order.
+ */
+public final class ParallelProcessingEngine<K, V> implements ConsumerRebalanceListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelProcessingEngine.class);
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final LogLimiter HANDLER_FAILED_LOG = LogLimiter.perSecond("consumer.handler-failed", 10);
+
+    private final Consumer<K, V> consumer;
+    private final java.util.function.Consumer<ConsumerRecord<K, V>> handler;
+    private final ParallelSettings settings;
+    private final KeyOrderedExecutor executor;
+    private final CommitStrategy commits;
+
+    // Poll-thread state
+    private final Map<TopicPartition, PartitionOffsetTracker> trackers = new HashMap<>();
+    private final Map<TopicPartition, Long> reported = new HashMap<>();
+    private final Set<TopicPartition> paused = new HashSet<>();
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ParallelProcessingEngine(Consumer<K, V> consumer,
+                                    java.util.function.Consumer<ConsumerRecord<K, V>> handler,
+                                    ParallelSettings settings,
+                                    CommitStrategy commits) {
+        this.consumer = consumer;
+        this.handler = handler;
+        this.settings = settings;
+        this.commits = commits;
+        this.executor = new KeyOrderedExecutor(
+                settings.workers(), settings.workers() * settings.lanesPerWorker(), "payment-worker-");
+    }
+
+    /**
+     * Subscribes and runs the poll loop until {@code running} is cleared, then
+     * drains in-flight work and commits final offsets synchronously.
+     *
+     * @return number of records processed
+     */
+    public long run(Collection<String> topics, AtomicBoolean running) {
+        consumer.subscribe(topics, this);
+        log.info("Parallel processing started — workers={} lanes={} maxInFlightPerPartition={}",
+                settings.workers(), settings.workers() * settings.lanesPerWorker(),
+                settings.maxInFlightPerPartition());
+
+        while (running.get()) {
+            ConsumerRecords<K, V> records = consumer.poll(POLL_TIMEOUT);
+            for (ConsumerRecord<K, V> record : records) {
+                dispatch(record);
+            }
+            applyBackpressure();
+            reportProgress();
+            commits.maybeCommit(consumer);
+        }
+
+        drain(trackers.keySet());
+        reportProgress();
+        commits.commitAllSync(consumer);
+        log.info("Parallel processing stopped — processed={} failed={}", processed.sum(), failed.sum());
+        return processed.sum();
+    }
+
+    public long processedCount() {
+        return processed.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    // ------------------------------------------------------------------
+    // Dispatch
+    // ------------------------------------------------------------------
+
+    private void dispatch(ConsumerRecord<K, V> record) {
+        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+        PartitionOffsetTracker tracker = trackers.computeIfAbsent(tp, p -> new PartitionOffsetTracker());
+        tracker.dispatched(record.offset());
+
+        int orderingHash = record.key() != null ? record.key().hashCode() : tp.hashCode();
+        executor.execute(orderingHash, () -> process(record, tracker));
+    }
+
+    private void process(ConsumerRecord<K, V> record, PartitionOffsetTracker tracker) {
+        try {
+            handler.accept(record);
+        } catch (RuntimeException e) {
+            failed.increment();
+            if (HANDLER_FAILED_LOG.permit()) {
+                log.error("Handler failed for partition={} offset={} — record skipped ({} more failures suppressed)",
+                        record.partition(), record.offset(), HANDLER_FAILED_LOG.drainSuppressed(), e);
+            }
+        } finally {
+            tracker.completed(record.offset());
+            processed.increment();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Backpressure
+    // ------------------------------------------------------------------
+
+    private void applyBackpressure() {
+        int high = settings.maxInFlightPerPartition();
+        int low = Math.max(1, high / 2);
+        Set<TopicPartition> toPause = new HashSet<>();
+        Set<TopicPartition> toResume = new HashSet<>();
+
+        trackers.forEach((tp, tracker) -> {
+            int inFlight = tracker.inFlight();
+            if (inFlight >= high && !paused.contains(tp)) {
+                toPause.add(tp);
+            } else if (inFlight <= low && paused.contains(tp)) {
+                toResume.add(tp);
+            }
+        });
+
+        if (!toPause.isEmpty()) {
+            consumer.pause(toPause);
+            paused.addAll(toPause);
+            log.debug("Paused {} (in-flight limit {})", toPause, high);
+        }
+        if (!toResume.isEmpty()) {
+            consumer.resume(toResume);
+            paused.removeAll(toResume);
+            log.debug("Resumed {}", toResume);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Commits
+    // ------------------------------------------------------------------
+
+    /** Hands every advanced watermark to the commit strategy. */
+    private void reportProgress() {
+        trackers.forEach((tp, tracker) -> {
+            long watermark = tracker.watermark();
+            if (watermark < 0) {
+                return;
+            }
+            long previous = reported.getOrDefault(tp, tracker.firstOffset());
+            if (watermark > previous) {
+                commits.markProcessed(tp, watermark, watermark - previous);
+                reported.put(tp, watermark);
+            }
+        });
+    }
+
+    /** Waits (bounded) until the given partitions have nothing in flight. */
+    private void drain(Collection<TopicPartition> partitions) {
+        long deadline = System.currentTimeMillis() + settings.drainTimeoutMs();
+        for (TopicPartition tp : partitions) {
+            PartitionOffsetTracker tracker = trackers.get(tp);
+            while (tracker != null && tracker.inFlight() > 0) {
+                if (System.currentTimeMillis() > deadline) {
+                    log.warn("Drain timeout — {} records of {} still in flight (will be redelivered)",
+                            tracker.inFlight(), tp);
+                    break;
+                }
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Rebalance
+    // ------------------------------------------------------------------
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        // Runs on the poll thread inside poll(): finish what we started, then hand over cleanly
+        drain(partitions);
+        reportProgress();
+        try {
+            commits.commitSync(consumer, partitions);
+        } finally {
+            forget(partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        // Ownership is already gone — committing would be rejected; just drop local state
+        forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        log.info("Assigned partitions: {}", partitions);
+    }
+
+    private void forget(Collection<TopicPartition> partitions) {
+        for (TopicPartition tp : partitions) {
+            trackers.remove(tp);
+            reported.remove(tp);
+            paused.remove(tp);
+        }
+        commits.forget(partitions);
+    }
+}
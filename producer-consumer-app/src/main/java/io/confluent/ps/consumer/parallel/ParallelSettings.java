@@ -0,0 +1,38 @@
+package io.confluent.ps.consumer.parallel;
+
+import java.util.Properties;
+
+/**
+ * Tuning for {@link ParallelProcessingEngine}, read from {@code consumer.parallel.*}.
+ *
+ * <pre>
+ * consumer.parallel.workers=&lt;cores&gt;               worker threads
+ * consumer.parallel.lanes.per.worker=8               key lanes per worker (more lanes = less head-of-line blocking)
+ * consumer.parallel.max.in.flight.per.partition=500  pause a partition above this, resume at half
+ * consumer.parallel.drain.timeout.ms=30000           max wait for in-flight records on revoke/shutdown
+ * </pre>
+ *
+ * Commit cadence is set by {@code consumer.commit.*} (see
+ * {@link io.confluent.ps.consumer.commit.CommitStrategy}).
+ */
+public record ParallelSettings(
+        int workers,
+        int lanesPerWorker,
+        int maxInFlightPerPartition,
+        long drainTimeoutMs) {
+
+    public ParallelSettings {
+        if (workers < 1 || lanesPerWorker < 1 || maxInFlightPerPartition < 1) {
+            throw new IllegalArgumentException("consumer.parallel.* sizes must be >= 1");
+        }
+    }
+
+    public static ParallelSettings from(Properties props) {
+        return new ParallelSettings(
+                Integer.parseInt(props.getProperty("consumer.parallel.workers",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(props.getProperty("consumer.parallel.lanes.per.worker", "8")),
+                Integer.parseInt(props.getProperty("consumer.parallel.max.in.flight.per.partition", "500")),
+                Long.parseLong(props.getProperty("consumer.parallel.drain.timeout.ms", "30000")));
+    }
+}
@@ -0,0 +1,51 @@
+package io.confluent.ps.consumer.parallel;
+
+import java.util.TreeSet;
+
+/**
+ * Tracks dispatched-but-unfinished offsets of one partition.
+ *
+ * <p>Records of a partition are dispatched in offset order but may complete
+ * out of order (different keys run on different workers). The committable
+ * watermark is therefore the lowest offset still in flight — or, when nothing
+ * is in flight, one past the highest dispatched offset. Committing it never
+ * skips an unprocessed record.
+ *
+ * <p>Written by workers ({@link #completed}) and read by the poll thread;
+ * all methods are synchronized.
+ */
+final class PartitionOffsetTracker {
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private long firstOffset = -1L;
+    private long nextOffset = -1L;
+
+    synchronized void dispatched(long offset) {
+        if (firstOffset < 0) {
+            firstOffset = offset;
+        }
+        inFlight.add(offset);
+        nextOffset = offset + 1;
+    }
+
+    synchronized void completed(long offset) {
+        inFlight.remove(offset);
+    }
+
+    synchronized int inFlight() {
+        return inFlight.size();
+    }
+
+    /** First offset dispatched since this tracker was created (the position inherited on assignment). */
+    synchronized long firstOffset() {
+        return firstOffset;
+    }
+
+    /** Offset to commit (the next record to read), or {@code -1} if nothing was dispatched yet. */
+    synchronized long watermark() {
+        if (nextOffset < 0) {
+            return -1L;
+        }
+        return inFlight.isEmpty() ? nextOffset : inFlight.first();
+    }
+}
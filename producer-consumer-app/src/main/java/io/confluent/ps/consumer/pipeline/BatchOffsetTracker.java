@@ -0,0 +1,53 @@
+package io.confluent.ps.consumer.pipeline;
+
+import java.util.TreeSet;
+
+/**
+ * Tracks the batches of one partition that are still in the pipeline.
+ *
+ * <p>A partition's batches cover consecutive offset ranges and are dispatched
+ * in offset order, but a stage with {@code max.in.flight > 1} may complete
+ * them out of order. The committable watermark is therefore the first offset
+ * of the oldest batch still in flight — or, when nothing is in flight, one
+ * past the last dispatched record.
+ *
+ * <p>Only used by the poll thread: completions are handed over through
+ * {@link PaymentPipeline}'s completion queue.
+ */
+final class BatchOffsetTracker {
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private long firstOffset = -1L;
+    private long nextOffset = -1L;
+
+    /** A batch holding offsets {@code first} to {@code next - 1} entered the pipeline. */
+    void dispatched(long first, long next) {
+        if (firstOffset < 0) {
+            firstOffset = first;
+        }
+        inFlight.add(first);
+        nextOffset = next;
+    }
+
+    /** The batch that started at {@code first} left the last stage (or failed). */
+    void completed(long first) {
+        inFlight.remove(first);
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    /** First offset dispatched since this tracker was created (the position inherited on assignment). */
+    long firstOffset() {
+        return firstOffset;
+    }
+
+    /** Offset to commit (the next record to read), or {@code -1} if nothing was dispatched yet. */
+    long watermark() {
+        if (nextOffset < 0) {
+            return -1L;
+        }
+        return inFlight.isEmpty() ? nextOffset : inFlight.first();
+    }
+}
@@ -0,0 +1,103 @@
+package io.confluent.ps.consumer.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * One {@link PaymentHandler} behind a bounded queue of batches.
+ *
+ * <p>A dispatcher thread takes batches in queue order and calls the handler,
+ * starting a new batch only while fewer than {@code maxInFlight} returned
+ * futures are still pending. When a future completes, the batch goes to
+ * {@code downstream} on the completing thread; handing it to the next stage
+ * blocks there while that stage's queue is full, so a slow stage holds back
+ * the ones in front of it instead of buffering without bound.
+ */
+final class HandlerStage<V> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HandlerStage.class);
+
+    private final int index;
+    private final PaymentHandler<V> handler;
+    private final BlockingQueue<PipelineBatch<V>> queue;
+    private final Semaphore inFlight;
+    private final Consumer<PipelineBatch<V>> downstream;
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    HandlerStage(int index, PaymentHandler<V> handler, int queueCapacity, int maxInFlight,
+                 Consumer<PipelineBatch<V>> downstream) {
+        this.index = index;
+        this.handler = handler;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.downstream = downstream;
+        this.dispatcher = new Thread(this::dispatch, "payment-stage-" + index);
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /** Queues the batch unless the queue is full (poll thread, which must not block). */
+    boolean offer(PipelineBatch<V> batch) {
+        return queue.offer(batch);
+    }
+
+    /** Queues the batch, waiting for space (previous stage's completing thread). */
+    void put(PipelineBatch<V> batch) throws InterruptedException {
+        queue.put(batch);
+    }
+
+    private void dispatch() {
+        while (!closed) {
+            PipelineBatch<V> batch;
+            try {
+                batch = queue.take();
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            CompletableFuture<Void> result;
+            try {
+                result = handler.handle(batch.records());
+                if (result == null) {
+                    result = CompletableFuture.failedFuture(
+                            new IllegalStateException("Handler of stage " + index + " returned no future"));
+                }
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            result.whenComplete((ignored, error) -> {
+                inFlight.release();
+                if (error != null) {
+                    batch.fail(index, error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+                downstream.accept(batch);
+            });
+        }
+    }
+
+    /** Stops taking batches and closes the handler; batches still queued are dropped. */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            handler.close();
+        } catch (Exception e) {
+            log.warn("Closing the handler of stage {} failed", index, e);
+        }
+    }
+}
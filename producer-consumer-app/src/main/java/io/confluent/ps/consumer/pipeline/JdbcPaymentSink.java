@@ -0,0 +1,133 @@
+package io.confluent.ps.consumer.pipeline;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes payments to a relational table over JDBC: the {@code jdbc} handler
+ * of {@code consumer.pipeline.handlers}, and a stand-in for the database
+ * writes of downstream teams.
+ *
+ * <pre>
+ * consumer.pipeline.jdbc.url=jdbc:h2:mem:payments;DB_CLOSE_DELAY=-1
+ * consumer.pipeline.jdbc.user=sa
+ * consumer.pipeline.jdbc.password=
+ * consumer.pipeline.jdbc.bulk=true    one JDBC batch and one transaction per batch; false = per record
+ * </pre>
+ * The default URL is an in-memory H2 database, so the sink runs without any
+ * infrastructure. Per-record mode is the usual forked-consumer pattern of one
+ * insert and one commit per payment, kept for comparison
+ * ({@code JdbcSinkBenchmark} measures both).
+ *
+ * <p>Writes run on a single thread of the sink's own, so the stage's
+ * dispatcher is free to queue the next batch; the returned future completes
+ * once the transaction has committed. Offsets are committed after that, so a
+ * crash in between writes a batch twice: real sinks should upsert on
+ * {@code (topic, kafka_partition, kafka_offset)}.
+ */
+public final class JdbcPaymentSink<V> implements PaymentHandler<V> {
+
+    private static final int MAX_PAYLOAD = 4096;
+    static final String TABLE_DDL = "CREATE TABLE IF NOT EXISTS payments ("
+            + "topic VARCHAR(255) NOT NULL, "
+            + "kafka_partition INT NOT NULL, "
+            + "kafka_offset BIGINT NOT NULL, "
+            + "txn_key VARCHAR(255), "
+            + "payload VARCHAR(" + MAX_PAYLOAD + "))";
+    static final String INSERT_SQL =
+            "INSERT INTO payments (topic, kafka_partition, kafka_offset, txn_key, payload) VALUES (?, ?, ?, ?, ?)";
+
+    private final boolean bulk;
+    private final Connection connection;
+    private final PreparedStatement insert;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "payment-jdbc-sink");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public JdbcPaymentSink(Properties props) {
+        this.bulk = Boolean.parseBoolean(props.getProperty("consumer.pipeline.jdbc.bulk", "true"));
+        String url = props.getProperty("consumer.pipeline.jdbc.url", "jdbc:h2:mem:payments;DB_CLOSE_DELAY=-1");
+        try {
+            this.connection = DriverManager.getConnection(url,
+                    props.getProperty("consumer.pipeline.jdbc.user", "sa"),
+                    props.getProperty("consumer.pipeline.jdbc.password", ""));
+            try (Statement ddl = connection.createStatement()) {
+                ddl.execute(TABLE_DDL);
+            }
+            connection.setAutoCommit(false);
+            this.insert = connection.prepareStatement(INSERT_SQL);
+        } catch (SQLException e) {
+            writer.shutdown();
+            throw new IllegalStateException("Cannot open payment sink at " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> handle(ConsumerRecords<String, V> batch) {
+        return CompletableFuture.runAsync(() -> write(batch), writer);
+    }
+
+    private void write(ConsumerRecords<String, V> batch) {
+        try {
+            for (ConsumerRecord<String, V> record : batch) {
+                bind(record);
+                if (bulk) {
+                    insert.addBatch();
+                } else {
+                    insert.executeUpdate();
+                    connection.commit();
+                }
+            }
+            if (bulk) {
+                insert.executeBatch();
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            try {
+                insert.clearBatch();
+                connection.rollback();
+            } catch (SQLException rollback) {
+                e.addSuppressed(rollback);
+            }
+            throw new IllegalStateException("Writing " + batch.count() + " payments failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void bind(ConsumerRecord<String, V> record) throws SQLException {
+        String payload = String.valueOf(record.value());
+        insert.setString(1, record.topic());
+        insert.setInt(2, record.partition());
+        insert.setLong(3, record.offset());
+        insert.setString(4, record.key());
+        insert.setString(5, payload.length() > MAX_PAYLOAD ? payload.substring(0, MAX_PAYLOAD) : payload);
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            insert.close();
+            connection.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Closing payment sink failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.confluent.ps.consumer.pipeline;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Business logic of one {@link PaymentPipeline} stage, called with a whole
+ * batch of payments so it can write them in bulk: one {@link ConsumerRecords}
+ * per poll, or per partition and poll ({@code consumer.pipeline.batching}).
+ *
+ * <p>The returned future completes once the batch's side effects are done
+ * (written, acknowledged); only then does the batch move to the next stage,
+ * and only after the last stage are its offsets committed. A handler that
+ * blocks simply returns a completed future; an asynchronous one returns
+ * right away and completes the future from its own threads. Completing it
+ * exceptionally (or throwing) fails the batch: it is logged, counted and
+ * skips the remaining stages.
+ *
+ * <p>A stage calls its handler from one thread, with at most
+ * {@code consumer.pipeline.max.in.flight} batches not yet completed.
+ *
+ * <p>Named in {@code consumer.pipeline.handlers}: {@code log} (the consumer's
+ * sampled per-record log), {@code jdbc} ({@link JdbcPaymentSink}) or the name
+ * of a class with a public {@code (Properties)} or no-arg constructor.
+ */
+@FunctionalInterface
+public interface PaymentHandler<V> extends AutoCloseable {
+
+    CompletableFuture<Void> handle(ConsumerRecords<String, V> batch);
+
+    /** Called once the pipeline has stopped. */
+    @Override
+    default void close() {
+    }
+
+    /** Runs {@code handler} for every record of the batch on the stage's thread. */
+    static <V> PaymentHandler<V> perRecord(java.util.function.Consumer<ConsumerRecord<String, V>> handler) {
+        return batch -> {
+            batch.forEach(handler);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    /**
+     * {@code handlers} one after the other on the same batch, each once the
+     * previous one completed; closing closes them all. For callers that need
+     * the whole pipeline as one handler (the retry tiers).
+     */
+    static <V> PaymentHandler<V> chain(List<PaymentHandler<V>> handlers) {
+        List<PaymentHandler<V>> stages = List.copyOf(handlers);
+        return new PaymentHandler<>() {
+            @Override
+            public CompletableFuture<Void> handle(ConsumerRecords<String, V> batch) {
+                CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+                for (PaymentHandler<V> stage : stages) {
+                    done = done.thenCompose(v -> stage.handle(batch));
+                }
+                return done;
+            }
+
+            @Override
+            public void close() {
+                stages.forEach(PaymentHandler::close);
+            }
+        };
+    }
+
+    /** {@code jdbc} or a class name; see the class comment. */
+    @SuppressWarnings("unchecked")
+    static <V> PaymentHandler<V> create(String name, Properties props) {
+        if ("jdbc".equals(name)) {
+            return new JdbcPaymentSink<>(props);
+        }
+        try {
+            Class<? extends PaymentHandler> type = Class.forName(name).asSubclass(PaymentHandler.class);
+            try {
+                return type.getConstructor(Properties.class).newInstance(props);
+            } catch (NoSuchMethodException e) {
+                return type.getConstructor().newInstance();
+            }
+        } catch (ClassNotFoundException | ClassCastException | NoSuchMethodException
+                 | InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot use '" + name + "' as a payment handler: " + e, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException("Creating " + name + " failed: " + e.getCause(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package io.confluent.ps.consumer.pipeline;
+
+import io.confluent.ps.consumer.commit.CommitStrategy;
+import io.confluent.ps.logging.LogLimiter;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Runs consumed payments through a chain of {@link PaymentHandler} stages,
+ * a batch at a time.
+ *
+ * <p>Threading model:
+ * <ul>
+ *   <li>The poll thread owns the {@link Consumer}: it polls, cuts each poll
+ *       into one batch (or one per partition), queues it in front of the
+ *       first stage, pauses/resumes partitions and commits.</li>
+ *   <li>Each stage has its own dispatcher thread and bounded queue (see
+ *       {@link HandlerStage}); handlers may complete their futures on threads
+ *       of their own.</li>
+ *   <li>Batches leaving the last stage are handed back to the poll thread,
+ *       which releases their offsets in the partition's {@link BatchOffsetTracker}.</li>
+ * </ul>
+ *
+ * <p>A batch's offsets become committable only once every stage's future for
+ * it has completed, and each partition's contiguous watermark is reported to
+ * a {@link CommitStrategy}, so a crash redelivers the batches still in the
+ * pipeline but never skips one (at-least-once; sinks should tolerate
+ * duplicates). A failed batch is logged, counted and skips the remaining
+ * stages, like a failed record in the other processing modes; with a
+ * recovery (retry topics) its payments are handed there first, off the poll
+ * thread, and its offsets are released once they are.
+ *
+ * <p>With more than {@code max.batches} batches in the pipeline every assigned
+ * partition is paused until it drains to half, which bounds memory while the
+ * poll loop keeps calling {@code poll()} (and so stays in the group).
+ */
+public final class PaymentPipeline<V> implements ConsumerRebalanceListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentPipeline.class);
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final LogLimiter BATCH_FAILED_LOG = LogLimiter.perSecond("consumer.batch-failed", 10);
+
+    private final Consumer<String, V> consumer;
+    private final PipelineSettings settings;
+    private final CommitStrategy commits;
+    private final List<HandlerStage<V>> stages;
+    private final BiFunction<ConsumerRecords<String, V>, Throwable, CompletableFuture<Void>> recovery;
+    private final Queue<PipelineBatch<V>> completed = new ConcurrentLinkedQueue<>();
+
+    // Poll-thread state
+    private final Map<TopicPartition, BatchOffsetTracker> trackers = new HashMap<>();
+    private final Map<TopicPartition, Long> reported = new HashMap<>();
+    private final ArrayDeque<PipelineBatch<V>> waiting = new ArrayDeque<>();
+    private final Set<TopicPartition> paused = new HashSet<>();
+    private int batchesInFlight;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /** {@code handlers} are the stages in order; the pipeline closes them. */
+    public PaymentPipeline(Consumer<String, V> consumer,
+                           List<PaymentHandler<V>> handlers,
+                           PipelineSettings settings,
+                           CommitStrategy commits) {
+        this(consumer, handlers, settings, commits, null);
+    }
+
+    /**
+     * @param recovery called with the records of a failed batch and the failure; once its future
+     *                 completes normally the batch counts as recovered instead of skipped.
+     *                 {@code null} = skip failed batches
+     */
+    public PaymentPipeline(Consumer<String, V> consumer,
+                           List<PaymentHandler<V>> handlers,
+                           PipelineSettings settings,
+                           CommitStrategy commits,
+                           BiFunction<ConsumerRecords<String, V>, Throwable, CompletableFuture<Void>> recovery) {
+        if (handlers.isEmpty()) {
+            throw new IllegalArgumentException("A payment pipeline needs at least one handler");
+        }
+        this.consumer = consumer;
+        this.settings = settings;
+        this.commits = commits;
+        this.recovery = recovery;
+
+        // Built back to front so each stage knows where its batches go next
+        HandlerStage<V>[] chain = newStageArray(handlers.size());
+        for (int i = handlers.size() - 1; i >= 0; i--) {
+            HandlerStage<V> next = i + 1 < chain.length ? chain[i + 1] : null;
+            chain[i] = new HandlerStage<>(i, handlers.get(i), settings.queueCapacity(), settings.maxInFlight(),
+                    batch -> forward(batch, next));
+        }
+        this.stages = List.of(chain);
+    }
+
+    /**
+     * Subscribes and runs the poll loop until {@code running} is cleared, then
+     * drains the pipeline and commits final offsets synchronously.
+     *
+     * @return number of records that went through the pipeline (including failed ones)
+     */
+    public long run(Collection<String> topics, AtomicBoolean running) {
+        consumer.subscribe(topics, this);
+        log.info("Pipeline processing started — stages={} batching={} queueCapacity={} maxInFlight={} maxBatches={}",
+                stages.size(), settings.perPartition() ? "partition" : "poll", settings.queueCapacity(),
+                settings.maxInFlight(), settings.maxBatches());
+
+        while (running.get()) {
+            ConsumerRecords<String, V> records = consumer.poll(POLL_TIMEOUT);
+            if (!records.isEmpty()) {
+                dispatch(records);
+            }
+            advance();
+            applyBackpressure();
+            reportProgress();
+            commits.maybeCommit(consumer);
+        }
+
+        drain(trackers.keySet());
+        reportProgress();
+        commits.commitAllSync(consumer);
+        log.info("Pipeline processing stopped — processed={} failed={} recovered={} batches={}",
+                processed.sum(), failed.sum(), recovered.sum(), batches.sum());
+        return processed.sum();
+    }
+
+    public long processedCount() {
+        return processed.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    /** Records of failed batches handed to the recovery. */
+    public long recoveredCount() {
+        return recovered.sum();
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    @Override
+    public void close() {
+        for (HandlerStage<V> stage : stages) {
+            stage.close();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Dispatch
+    // ------------------------------------------------------------------
+
+    private void dispatch(ConsumerRecords<String, V> records) {
+        if (settings.perPartition()) {
+            for (TopicPartition tp : records.partitions()) {
+                enqueue(PipelineBatch.dispatch(new ConsumerRecords<>(Map.of(tp, records.records(tp))), trackers));
+            }
+        } else {
+            enqueue(PipelineBatch.dispatch(records, trackers));
+        }
+    }
+
+    private void enqueue(PipelineBatch<V> batch) {
+        waiting.add(batch);
+        batchesInFlight++;
+        batches.increment();
+    }
+
+    /** Moves waiting batches into the first stage and retires the ones that left the last. */
+    private void advance() {
+        HandlerStage<V> first = stages.get(0);
+        while (!waiting.isEmpty() && first.offer(waiting.peek())) {
+            waiting.poll();
+        }
+
+        PipelineBatch<V> batch;
+        while ((batch = completed.poll()) != null) {
+            batch.release();
+            batchesInFlight--;
+            int count = batch.records().count();
+            processed.add(count);
+            if (batch.recovered()) {
+                recovered.add(count);
+            } else if (batch.failed()) {
+                failed.add(count);
+                if (BATCH_FAILED_LOG.permit()) {
+                    log.error("Stage {} failed for a batch of {} records in {} — batch skipped ({} more failures suppressed)",
+                            batch.failedStage(), count, batch.records().partitions(),
+                            BATCH_FAILED_LOG.drainSuppressed(), batch.failure());
+                }
+            }
+        }
+    }
+
+    /** Runs on the thread that completed the batch in the previous stage. */
+    private void forward(PipelineBatch<V> batch, HandlerStage<V> next) {
+        if (batch.failed() && recovery != null) {
+            recover(batch);
+            return;
+        }
+        if (next == null || batch.failed()) {
+            completed.add(batch);
+            return;
+        }
+        try {
+            next.put(batch);
+        } catch (InterruptedException e) {
+            // Only on close; the batch's offsets stay uncommitted and are redelivered
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recover(PipelineBatch<V> batch) {
+        CompletableFuture<Void> recovering;
+        try {
+            recovering = recovery.apply(batch.records(), batch.failure());
+        } catch (RuntimeException e) {
+            recovering = CompletableFuture.failedFuture(e);
+        }
+        recovering.whenComplete((ignored, e) -> {
+            if (e == null) {
+                batch.markRecovered();
+            }
+            completed.add(batch);
+        });
+    }
+
+    // ------------------------------------------------------------------
+    // Backpressure
+    // ------------------------------------------------------------------
+
+    private void applyBackpressure() {
+        int high = settings.maxBatches();
+        int low = Math.max(1, high / 2);
+        if (batchesInFlight >= high) {
+            Set<TopicPartition> toPause = new HashSet<>(consumer.assignment());
+            toPause.removeAll(paused);
+            if (!toPause.isEmpty()) {
+                consumer.pause(toPause);
+                paused.addAll(toPause);
+                log.debug("Paused {} ({} batches in the pipeline, limit {})", toPause, batchesInFlight, high);
+            }
+        } else if (batchesInFlight <= low && !paused.isEmpty()) {
+            consumer.resume(paused);
+            log.debug("Resumed {}", paused);
+            paused.clear();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Commits
+    // ------------------------------------------------------------------
+
+    /** Hands every advanced watermark to the commit strategy. */
+    private void reportProgress() {
+        trackers.forEach((tp, tracker) -> {
+            long watermark = tracker.watermark();
+            if (watermark < 0) {
+                return;
+            }
+            long previous = reported.getOrDefault(tp, tracker.firstOffset());
+            if (watermark > previous) {
+                commits.markProcessed(tp, watermark, watermark - previous);
+                reported.put(tp, watermark);
+            }
+        });
+    }
+
+    /** Keeps the pipeline moving until the given partitions have no batch in it (bounded). */
+    private void drain(Collection<TopicPartition> partitions) {
+        long deadline = System.currentTimeMillis() + settings.drainTimeoutMs();
+        while (true) {
+            advance();
+            int inFlight = 0;
+            for (TopicPartition tp : partitions) {
+                BatchOffsetTracker tracker = trackers.get(tp);
+                inFlight += tracker == null ? 0 : tracker.inFlight();
+            }
+            if (inFlight == 0) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                log.warn("Drain timeout — {} batches of {} still in the pipeline (will be redelivered)",
+                        inFlight, partitions);
+                return;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Rebalance
+    // ------------------------------------------------------------------
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        // Runs on the poll thread inside poll(): finish what we started, then hand over cleanly
+        drain(partitions);
+        reportProgress();
+        try {
+            commits.commitSync(consumer, partitions);
+        } finally {
+            forget(partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        // Ownership is already gone — committing would be rejected; just drop local state
+        forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        log.info("Assigned partitions: {}", partitions);
+    }
+
+    private void forget(Collection<TopicPartition> partitions) {
+        for (TopicPartition tp : partitions) {
+            trackers.remove(tp);
+            reported.remove(tp);
+            paused.remove(tp);
+        }
+        commits.forget(partitions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> HandlerStage<V>[] newStageArray(int length) {
+        return (HandlerStage<V>[]) new HandlerStage<?>[length];
+    }
+}
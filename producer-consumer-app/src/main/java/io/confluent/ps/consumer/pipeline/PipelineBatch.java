@@ -0,0 +1,87 @@
+package io.confluent.ps.consumer.pipeline;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One batch on its way through the stages: the records handed to every
+ * {@link PaymentHandler}, and for each partition they cover, the tracker and
+ * first offset to release once the batch is done.
+ *
+ * <p>Holding the tracker itself (rather than looking it up by partition on
+ * completion) means a batch that outlives a revoke cannot release offsets of
+ * the partition's next assignment.
+ */
+final class PipelineBatch<V> {
+
+    record Range(BatchOffsetTracker tracker, long first) {
+    }
+
+    private final ConsumerRecords<String, V> records;
+    private final List<Range> ranges;
+    private volatile Throwable failure;
+    private volatile int failedStage = -1;
+    private volatile boolean recovered;
+
+    private PipelineBatch(ConsumerRecords<String, V> records, List<Range> ranges) {
+        this.records = records;
+        this.ranges = ranges;
+    }
+
+    /** Registers the batch with the trackers of its partitions (poll thread). */
+    static <V> PipelineBatch<V> dispatch(ConsumerRecords<String, V> records,
+                                         Map<TopicPartition, BatchOffsetTracker> trackers) {
+        List<Range> ranges = new ArrayList<>(records.partitions().size());
+        for (TopicPartition tp : records.partitions()) {
+            List<ConsumerRecord<String, V>> partitionRecords = records.records(tp);
+            long first = partitionRecords.get(0).offset();
+            long next = partitionRecords.get(partitionRecords.size() - 1).offset() + 1;
+            BatchOffsetTracker tracker = trackers.computeIfAbsent(tp, p -> new BatchOffsetTracker());
+            tracker.dispatched(first, next);
+            ranges.add(new Range(tracker, first));
+        }
+        return new PipelineBatch<>(records, ranges);
+    }
+
+    ConsumerRecords<String, V> records() {
+        return records;
+    }
+
+    /** Releases the batch's offsets (poll thread). */
+    void release() {
+        for (Range range : ranges) {
+            range.tracker().completed(range.first());
+        }
+    }
+
+    void fail(int stage, Throwable cause) {
+        failure = cause;
+        failedStage = stage;
+    }
+
+    boolean failed() {
+        return failure != null;
+    }
+
+    Throwable failure() {
+        return failure;
+    }
+
+    int failedStage() {
+        return failedStage;
+    }
+
+    /** The failed batch's records were handed on (retry topics) rather than skipped. */
+    void markRecovered() {
+        recovered = true;
+    }
+
+    boolean recovered() {
+        return recovered;
+    }
+}
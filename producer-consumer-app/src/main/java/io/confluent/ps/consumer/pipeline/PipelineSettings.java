@@ -0,0 +1,58 @@
+package io.confluent.ps.consumer.pipeline;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Tuning for {@link PaymentPipeline}, read from {@code consumer.pipeline.*}.
+ *
+ * <pre>
+ * consumer.pipeline.handlers=log              comma-separated stages, in order (see {@link PaymentHandler})
+ * consumer.pipeline.batching=poll             poll (one batch per poll) | partition (one per partition and poll)
+ * consumer.pipeline.queue.capacity=4          batches waiting in front of each stage
+ * consumer.pipeline.max.in.flight=1           uncompleted batches per stage; above 1 a stage may finish them out of order
+ * consumer.pipeline.max.batches=16            pause all partitions above this many batches in the pipeline, resume at half
+ * consumer.pipeline.drain.timeout.ms=30000    max wait for in-flight batches on revoke/shutdown
+ * </pre>
+ *
+ * Commit cadence is set by {@code consumer.commit.*} (see
+ * {@link io.confluent.ps.consumer.commit.CommitStrategy}).
+ */
+public record PipelineSettings(
+        List<String> handlers,
+        boolean perPartition,
+        int queueCapacity,
+        int maxInFlight,
+        int maxBatches,
+        long drainTimeoutMs) {
+
+    public PipelineSettings {
+        handlers = List.copyOf(handlers);
+        if (handlers.isEmpty()) {
+            throw new IllegalArgumentException("consumer.pipeline.handlers must name at least one handler");
+        }
+        if (queueCapacity < 1 || maxInFlight < 1 || maxBatches < 1) {
+            throw new IllegalArgumentException("consumer.pipeline.* sizes must be >= 1");
+        }
+    }
+
+    public static PipelineSettings from(Properties props) {
+        String batching = props.getProperty("consumer.pipeline.batching", "poll").trim().toLowerCase(Locale.ROOT);
+        if (!batching.equals("poll") && !batching.equals("partition")) {
+            throw new IllegalArgumentException(
+                    "Unsupported consumer.pipeline.batching='" + batching + "' (expected poll or partition)");
+        }
+        return new PipelineSettings(
+                Arrays.stream(props.getProperty("consumer.pipeline.handlers", "log").split(","))
+                        .map(String::trim)
+                        .filter(name -> !name.isEmpty())
+                        .toList(),
+                batching.equals("partition"),
+                Integer.parseInt(props.getProperty("consumer.pipeline.queue.capacity", "4")),
+                Integer.parseInt(props.getProperty("consumer.pipeline.max.in.flight", "1")),
+                Integer.parseInt(props.getProperty("consumer.pipeline.max.batches", "16")),
+                Long.parseLong(props.getProperty("consumer.pipeline.drain.timeout.ms", "30000")));
+    }
+}
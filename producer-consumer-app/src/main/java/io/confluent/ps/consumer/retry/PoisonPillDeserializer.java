@@ -0,0 +1,73 @@
+package io.confluent.ps.consumer.retry;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+
+/**
+ * Value deserializer that turns a record its delegate rejects into one with a
+ * {@code null} value and the raw bytes and error in {@link RetryHeaders},
+ * instead of failing {@code poll()} at that offset forever. The processing
+ * modes then dead-letter it like any other failed payment
+ * ({@link RetryRouter#guard}), in every mode, without stopping the partition.
+ *
+ * <p>Configured in place of {@code value.deserializer}, with the real one in
+ * {@value #DELEGATE_CONFIG} ({@link #wrap} does both).
+ */
+public final class PoisonPillDeserializer<V> implements Deserializer<V> {
+
+    public static final String DELEGATE_CONFIG = "consumer.retry.value.deserializer";
+
+    private Deserializer<V> delegate;
+
+    /** Swaps {@code value.deserializer} in {@code configs} for this class, keeping the original as the delegate. */
+    public static void wrap(Map<Object, Object> configs) {
+        Object delegate = configs.get("value.deserializer");
+        if (delegate == null || PoisonPillDeserializer.class.getName().equals(delegate)) {
+            return;
+        }
+        configs.put(DELEGATE_CONFIG, delegate instanceof Class<?> type ? type.getName() : delegate);
+        configs.put("value.deserializer", PoisonPillDeserializer.class.getName());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object type = configs.get(DELEGATE_CONFIG);
+        if (type == null) {
+            throw new IllegalArgumentException(DELEGATE_CONFIG + " must name the value deserializer to wrap");
+        }
+        try {
+            delegate = Utils.newInstance(String.valueOf(type), Deserializer.class);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown " + DELEGATE_CONFIG + "='" + type + "'", e);
+        }
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public V deserialize(String topic, byte[] data) {
+        return delegate.deserialize(topic, data);
+    }
+
+    @Override
+    public V deserialize(String topic, Headers headers, byte[] data) {
+        try {
+            return delegate.deserialize(topic, headers, data);
+        } catch (SerializationException | IllegalArgumentException e) {
+            headers.add(RetryHeaders.POISON_VALUE, data == null ? new byte[0] : data);
+            RetryHeaders.put(headers, RetryHeaders.ERROR, RetryHeaders.error(e));
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.confluent.ps.consumer.retry;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Headers a retried or dead-lettered payment carries, all UTF-8 text except
+ * the raw value of a poison record.
+ *
+ * <pre>
+ * retry.attempt            failed attempts so far (1 = failed once, on the main topic)
+ * retry.not.before         epoch ms before which the tier must not re-deliver it
+ * retry.error              exception class and message of the last failure
+ * retry.origin.topic       topic, partition and offset the payment was first read from
+ * retry.origin.partition
+ * retry.origin.offset
+ * retry.poison.value       raw value a deserializer rejected (consumer side only, never produced)
+ * </pre>
+ */
+public final class RetryHeaders {
+
+    public static final String ATTEMPT = "retry.attempt";
+    public static final String NOT_BEFORE = "retry.not.before";
+    public static final String ERROR = "retry.error";
+    public static final String ORIGIN_TOPIC = "retry.origin.topic";
+    public static final String ORIGIN_PARTITION = "retry.origin.partition";
+    public static final String ORIGIN_OFFSET = "retry.origin.offset";
+    public static final String POISON_VALUE = "retry.poison.value";
+
+    /** Errors are cut here; the stack trace is in the log. */
+    static final int MAX_ERROR_CHARS = 512;
+
+    private RetryHeaders() {}
+
+    public static int attempt(Headers headers) {
+        String attempt = text(headers, ATTEMPT);
+        return attempt == null ? 0 : Integer.parseInt(attempt);
+    }
+
+    /** Epoch ms the payment is due, or 0 without {@link #NOT_BEFORE}. */
+    public static long notBefore(Headers headers) {
+        String notBefore = text(headers, NOT_BEFORE);
+        return notBefore == null ? 0L : Long.parseLong(notBefore);
+    }
+
+    public static boolean isPoison(Headers headers) {
+        return headers.lastHeader(POISON_VALUE) != null;
+    }
+
+    static String text(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    static void put(Headers headers, String key, String value) {
+        headers.remove(key);
+        headers.add(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String error(Throwable error) {
+        String message = error.getMessage();
+        String text = message == null ? error.getClass().getName() : error.getClass().getName() + ": " + message;
+        return text.length() > MAX_ERROR_CHARS ? text.substring(0, MAX_ERROR_CHARS) : text;
+    }
+}
@@ -0,0 +1,102 @@
+package io.confluent.ps.consumer.retry;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.KafkaMetricsContext;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.CumulativeCount;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.utils.Time;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error-path metrics, exported over JMX next to the commit metrics
+ * ({@code payment.consumer:type=retry-metrics}).
+ *
+ * <ul>
+ *   <li>{@code handler-error-rate}, {@code handler-error-total} — failed attempts, main topic and tiers</li>
+ *   <li>{@code retry-routed-total} — payments written to a retry tier</li>
+ *   <li>{@code dead-letter-total} — payments written to the dead-letter topic (poison records included)</li>
+ *   <li>{@code retry-recovered-total} — payments a retry tier processed successfully</li>
+ *   <li>{@code route-failed-total} — failures that could not be written anywhere (then skipped and logged)</li>
+ * </ul>
+ */
+public final class RetryMetrics implements AutoCloseable {
+
+    private static final String GROUP = "retry-metrics";
+
+    private final Metrics metrics;
+    private final Map<String, String> tags;
+    private final Sensor errors;
+    private final Sensor retried;
+    private final Sensor deadLettered;
+    private final Sensor recovered;
+    private final Sensor routeFailures;
+
+    public RetryMetrics(String clientId) {
+        this(new Metrics(new MetricConfig(), List.of(new JmxReporter()), Time.SYSTEM,
+                new KafkaMetricsContext("payment.consumer")), clientId);
+    }
+
+    RetryMetrics(Metrics metrics, String clientId) {
+        this.metrics = metrics;
+        this.tags = Map.of("client-id", clientId);
+
+        errors = metrics.sensor("handler-errors");
+        errors.add(name("handler-error-rate", "Failed processing attempts per second"), new Rate(TimeUnit.SECONDS));
+        errors.add(name("handler-error-total", "Failed processing attempts"), new CumulativeCount());
+
+        retried = metrics.sensor("retry-routed");
+        retried.add(name("retry-routed-total", "Payments written to a retry topic"), new CumulativeCount());
+
+        deadLettered = metrics.sensor("dead-lettered");
+        deadLettered.add(name("dead-letter-total", "Payments written to the dead-letter topic"), new CumulativeCount());
+
+        recovered = metrics.sensor("retry-recovered");
+        recovered.add(name("retry-recovered-total", "Payments processed successfully by a retry tier"),
+                new CumulativeCount());
+
+        routeFailures = metrics.sensor("route-failures");
+        routeFailures.add(name("route-failed-total", "Failed payments that could not be written to a retry "
+                + "or dead-letter topic"), new CumulativeCount());
+    }
+
+    public void recordError() {
+        errors.record();
+    }
+
+    void recordRouted(boolean deadLetter) {
+        (deadLetter ? deadLettered : retried).record();
+    }
+
+    void recordRecovered() {
+        recovered.record();
+    }
+
+    void recordRouteFailure() {
+        routeFailures.record();
+    }
+
+    /** Current value of a metric by name (tests, logging). */
+    public double value(String metricName) {
+        return metrics.metrics().entrySet().stream()
+                .filter(e -> e.getKey().name().equals(metricName))
+                .mapToDouble(e -> ((Number) e.getValue().metricValue()).doubleValue())
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+    }
+
+    private MetricName name(String name, String description) {
+        return metrics.metricName(name, GROUP, description, tags);
+    }
+}
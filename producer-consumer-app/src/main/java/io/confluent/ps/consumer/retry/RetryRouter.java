@@ -0,0 +1,221 @@
+package io.confluent.ps.consumer.retry;
+
+import io.confluent.ps.consumer.pipeline.PaymentHandler;
+import io.confluent.ps.logging.LogLimiter;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes a failed payment to its next retry tier, or to the dead-letter topic
+ * once the tiers are used up (or straight away for a poison record), with the
+ * {@link RetryHeaders} that tell the tier when it is due and where it came from.
+ *
+ * <p>Routing only waits for the producer, never for the delay, so the
+ * partition the payment failed on moves on at once. A failure that cannot be
+ * routed either completes the returned future exceptionally; callers then
+ * skip it as they did before retries existed, and it is counted in
+ * {@code route-failed-total}.
+ *
+ * <p>Thread-safe: workers, pipeline stages and tier threads route concurrently.
+ */
+public final class RetryRouter<V> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryRouter.class);
+    private static final LogLimiter ROUTED_LOG = LogLimiter.perSecond("consumer.retry-routed", 10);
+
+    private final Producer<String, byte[]> producer;
+    private final Serializer<V> serializer;
+    private final RetrySettings settings;
+    private final RetryMetrics metrics;
+    private final LongSupplier clock;
+
+    public RetryRouter(Producer<String, byte[]> producer, Serializer<V> serializer, RetrySettings settings,
+                       RetryMetrics metrics) {
+        this(producer, serializer, settings, metrics, System::currentTimeMillis);
+    }
+
+    RetryRouter(Producer<String, byte[]> producer, Serializer<V> serializer, RetrySettings settings,
+                RetryMetrics metrics, LongSupplier clock) {
+        this.producer = producer;
+        this.serializer = serializer;
+        this.settings = settings;
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    RetryMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Routes a payment whose processing failed with {@code error}
+     * ({@code null} for a poison record, which carries its own).
+     *
+     * @return completes once the payment is acknowledged by its new topic
+     */
+    public CompletableFuture<Void> route(ConsumerRecord<String, V> record, Throwable error) {
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        String origin = RetryHeaders.text(headers, RetryHeaders.ORIGIN_TOPIC);
+        if (origin == null) {
+            origin = record.topic();
+            RetryHeaders.put(headers, RetryHeaders.ORIGIN_TOPIC, origin);
+            RetryHeaders.put(headers, RetryHeaders.ORIGIN_PARTITION, Integer.toString(record.partition()));
+            RetryHeaders.put(headers, RetryHeaders.ORIGIN_OFFSET, Long.toString(record.offset()));
+        }
+        int attempt = RetryHeaders.attempt(headers) + 1;
+        RetryHeaders.put(headers, RetryHeaders.ATTEMPT, Integer.toString(attempt));
+
+        Header poison = headers.lastHeader(RetryHeaders.POISON_VALUE);
+        boolean deadLetter = poison != null || attempt > settings.tiers();
+        String target = deadLetter ? settings.dlqTopic(origin) : settings.retryTopic(origin, attempt);
+        if (deadLetter) {
+            headers.remove(RetryHeaders.NOT_BEFORE);
+        } else {
+            RetryHeaders.put(headers, RetryHeaders.NOT_BEFORE,
+                    Long.toString(clock.getAsLong() + settings.delayMs(attempt)));
+        }
+        if (error != null) {
+            RetryHeaders.put(headers, RetryHeaders.ERROR, RetryHeaders.error(error));
+        }
+
+        CompletableFuture<Void> routed = new CompletableFuture<>();
+        try {
+            byte[] value;
+            if (poison != null) {
+                headers.remove(RetryHeaders.POISON_VALUE);
+                value = poison.value();
+            } else {
+                value = serializer.serialize(target, headers, record.value());
+            }
+            producer.send(new ProducerRecord<>(target, null, record.key(), value, headers), (metadata, e) -> {
+                if (e == null) {
+                    metrics.recordRouted(deadLetter);
+                    routed.complete(null);
+                } else {
+                    metrics.recordRouteFailure();
+                    routed.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            metrics.recordRouteFailure();
+            routed.completeExceptionally(e);
+        }
+        if (ROUTED_LOG.permit()) {
+            log.warn("Payment {}-{}@{} (attempt {}) -> {}: {} ({} more suppressed)", record.topic(),
+                    record.partition(), record.offset(), attempt, target,
+                    RetryHeaders.text(headers, RetryHeaders.ERROR), ROUTED_LOG.drainSuppressed());
+        }
+        return routed;
+    }
+
+    /**
+     * {@code handler} with failures (and poison records) routed instead of
+     * thrown, for the inline and parallel modes. Waits for the route, so only
+     * a failure that cannot be routed still throws.
+     */
+    public java.util.function.Consumer<ConsumerRecord<String, V>> guard(
+            java.util.function.Consumer<ConsumerRecord<String, V>> handler) {
+        return record -> {
+            if (RetryHeaders.isPoison(record.headers())) {
+                metrics.recordError();
+                route(record, null).join();
+                return;
+            }
+            try {
+                handler.accept(record);
+            } catch (RuntimeException e) {
+                metrics.recordError();
+                route(record, e).join();
+            }
+        };
+    }
+
+    /** Routes every payment of a failed pipeline batch; completes once all are routed. */
+    public CompletableFuture<Void> recover(ConsumerRecords<String, V> batch, Throwable error) {
+        List<CompletableFuture<Void>> routed = new ArrayList<>(batch.count());
+        for (ConsumerRecord<String, V> record : batch) {
+            metrics.recordError();
+            routed.add(route(record, RetryHeaders.isPoison(record.headers()) ? null : error));
+        }
+        return CompletableFuture.allOf(routed.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * {@code handler} called without the batch's poison records. With
+     * {@code deadLetter} (the first stage) they are routed before the rest of
+     * the batch is handed on; later stages just leave them out.
+     */
+    public PaymentHandler<V> withoutPoison(PaymentHandler<V> handler, boolean deadLetter) {
+        return new PaymentHandler<>() {
+            @Override
+            public CompletableFuture<Void> handle(ConsumerRecords<String, V> batch) {
+                List<ConsumerRecord<String, V>> poison = null;
+                for (ConsumerRecord<String, V> record : batch) {
+                    if (RetryHeaders.isPoison(record.headers())) {
+                        if (poison == null) {
+                            poison = new ArrayList<>();
+                        }
+                        poison.add(record);
+                    }
+                }
+                if (poison == null) {
+                    return handler.handle(batch);
+                }
+
+                Map<TopicPartition, List<ConsumerRecord<String, V>>> clean = new HashMap<>();
+                for (TopicPartition tp : batch.partitions()) {
+                    List<ConsumerRecord<String, V>> records = new ArrayList<>();
+                    for (ConsumerRecord<String, V> record : batch.records(tp)) {
+                        if (!RetryHeaders.isPoison(record.headers())) {
+                            records.add(record);
+                        }
+                    }
+                    if (!records.isEmpty()) {
+                        clean.put(tp, records);
+                    }
+                }
+                CompletableFuture<Void> routed = CompletableFuture.completedFuture(null);
+                if (deadLetter) {
+                    List<CompletableFuture<Void>> sends = new ArrayList<>(poison.size());
+                    for (ConsumerRecord<String, V> record : poison) {
+                        metrics.recordError();
+                        sends.add(route(record, null));
+                    }
+                    routed = CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]));
+                }
+                return clean.isEmpty()
+                        ? routed
+                        : routed.thenCompose(v -> handler.handle(new ConsumerRecords<>(clean)));
+            }
+
+            @Override
+            public void close() {
+                handler.close();
+            }
+        };
+    }
+
+    /** Flushes and closes the producer. */
+    @Override
+    public void close() {
+        producer.close();
+    }
+}
@@ -0,0 +1,61 @@
+package io.confluent.ps.consumer.retry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Where failed payments go, read from {@code consumer.retry.*}.
+ *
+ * <pre>
+ * consumer.retry.enabled=false                      route failures to retry topics instead of skipping them
+ * consumer.retry.delays.ms=5000,30000,300000        one retry tier per delay: &lt;topic&gt;-retry-1, -retry-2, ...
+ * consumer.retry.dlq.topic=                         after the last tier; empty = &lt;topic&gt;-dlq
+ * </pre>
+ *
+ * A payment whose handler fails is written to the first tier's topic and
+ * the main partition moves on; the tier re-delivers it once its delay has
+ * passed, and a failure there moves it one tier up, until it ends in the
+ * dead-letter topic. Payments that cannot be deserialized go straight to the
+ * dead-letter topic. The retry and dead-letter topics must exist.
+ */
+public record RetrySettings(boolean enabled, List<Long> delaysMs, String dlqTopic) {
+
+    public RetrySettings {
+        delaysMs = List.copyOf(delaysMs);
+        for (long delay : delaysMs) {
+            if (delay < 0) {
+                throw new IllegalArgumentException("consumer.retry.delays.ms must be >= 0: " + delaysMs);
+            }
+        }
+    }
+
+    public static RetrySettings from(Properties props) {
+        return new RetrySettings(
+                Boolean.parseBoolean(props.getProperty("consumer.retry.enabled", "false").trim()),
+                Arrays.stream(props.getProperty("consumer.retry.delays.ms", "5000,30000,300000").split(","))
+                        .map(String::trim)
+                        .filter(delay -> !delay.isEmpty())
+                        .map(Long::parseLong)
+                        .toList(),
+                props.getProperty("consumer.retry.dlq.topic", "").trim());
+    }
+
+    public int tiers() {
+        return delaysMs.size();
+    }
+
+    /** Delay of tier {@code tier} (1-based). */
+    public long delayMs(int tier) {
+        return delaysMs.get(tier - 1);
+    }
+
+    /** Topic of tier {@code tier} (1-based) for payments read from {@code topic}. */
+    public String retryTopic(String topic, int tier) {
+        return topic + "-retry-" + tier;
+    }
+
+    public String dlqTopic(String topic) {
+        return dlqTopic.isEmpty() ? topic + "-dlq" : dlqTopic;
+    }
+}
@@ -0,0 +1,217 @@
+package io.confluent.ps.consumer.retry;
+
+import io.confluent.ps.consumer.commit.CommitStrategy;
+import io.confluent.ps.consumer.pipeline.PaymentHandler;
+import io.confluent.ps.logging.LogLimiter;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Re-delivers one retry tier: reads its topic on a thread and consumer of its
+ * own and runs each payment through the handler once its
+ * {@link RetryHeaders#NOT_BEFORE} has passed. A payment that fails again is
+ * routed one tier up (or to the dead-letter topic) by the {@link RetryRouter}.
+ *
+ * <p>Every payment in a tier waits the same delay, so they become due in
+ * offset order: when the head of a partition is not due yet, the partition is
+ * paused and rewound to it until then. The consumer keeps polling meanwhile,
+ * so waiting never counts against {@code max.poll.interval.ms}, and a waiting
+ * tier never holds back the main topic or another tier.
+ */
+public final class RetryTierConsumer<V> implements ConsumerRebalanceListener, Runnable, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryTierConsumer.class);
+    private static final Duration MAX_POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final LogLimiter ROUTE_FAILED_LOG = LogLimiter.perSecond("consumer.retry-route-failed", 10);
+
+    private final int tier;
+    private final String topic;
+    private final Consumer<String, V> consumer;
+    private final PaymentHandler<V> handler;
+    private final RetryRouter<V> router;
+    private final CommitStrategy commits;
+    private final LongSupplier clock;
+
+    // Poll-thread state: paused partitions and when their head record is due
+    private final Map<TopicPartition, Long> dueAt = new HashMap<>();
+
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final LongAdder processed = new LongAdder();
+    private volatile Thread thread;
+
+    /**
+     * @param handler every stage of the main path, called with one payment at a time
+     *                (and from every tier's thread); not closed here
+     */
+    public RetryTierConsumer(int tier, String topic, Consumer<String, V> consumer, PaymentHandler<V> handler,
+                             RetryRouter<V> router, CommitStrategy commits) {
+        this(tier, topic, consumer, handler, router, commits, System::currentTimeMillis);
+    }
+
+    RetryTierConsumer(int tier, String topic, Consumer<String, V> consumer, PaymentHandler<V> handler,
+                      RetryRouter<V> router, CommitStrategy commits, LongSupplier clock) {
+        this.tier = tier;
+        this.topic = topic;
+        this.consumer = consumer;
+        this.handler = handler;
+        this.router = router;
+        this.commits = commits;
+        this.clock = clock;
+    }
+
+    /** Runs the tier on a daemon thread of its own. */
+    public RetryTierConsumer<V> start() {
+        Thread t = new Thread(this, "payment-retry-" + tier);
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+        return this;
+    }
+
+    /** Polls until {@link #close}; commits and closes the consumer on the way out. */
+    @Override
+    public void run() {
+        consumer.subscribe(List.of(topic), this);
+        log.info("Retry tier {} started — topic '{}'", tier, topic);
+        try {
+            while (running.get()) {
+                resumeDue();
+                ConsumerRecords<String, V> records = consumer.poll(pollTimeout());
+                for (TopicPartition tp : records.partitions()) {
+                    process(tp, records.records(tp));
+                }
+                commits.maybeCommit(consumer);
+            }
+        } catch (WakeupException e) {
+            // close() while polling
+        } finally {
+            try {
+                commits.commitAllSync(consumer);
+            } finally {
+                consumer.close();
+            }
+            log.info("Retry tier {} stopped — processed={}", tier, processed.sum());
+        }
+    }
+
+    public long processedCount() {
+        return processed.sum();
+    }
+
+    @Override
+    public void close() {
+        running.set(false);
+        consumer.wakeup();
+        Thread t = thread;
+        if (t != null && t != Thread.currentThread()) {
+            try {
+                t.join(30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void process(TopicPartition tp, List<ConsumerRecord<String, V>> records) {
+        for (ConsumerRecord<String, V> record : records) {
+            long due = RetryHeaders.notBefore(record.headers());
+            if (due > clock.getAsLong()) {
+                // Everything behind it in this tier is due later still
+                consumer.pause(List.of(tp));
+                consumer.seek(tp, record.offset());
+                dueAt.put(tp, due);
+                return;
+            }
+            try {
+                handler.handle(new ConsumerRecords<>(Map.of(tp, List.of(record)))).join();
+                router.metrics().recordRecovered();
+            } catch (RuntimeException e) {
+                router.metrics().recordError();
+                reroute(record, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+            commits.markProcessed(tp, record.offset() + 1, 1);
+            processed.increment();
+        }
+    }
+
+    private void reroute(ConsumerRecord<String, V> record, Throwable error) {
+        try {
+            router.route(record, error).join();
+        } catch (CompletionException e) {
+            if (ROUTE_FAILED_LOG.permit()) {
+                log.error("Retry tier {} could not route partition={} offset={} — payment skipped "
+                                + "({} more failures suppressed)", tier, record.partition(), record.offset(),
+                        ROUTE_FAILED_LOG.drainSuppressed(), e.getCause());
+            }
+        }
+    }
+
+    private void resumeDue() {
+        long now = clock.getAsLong();
+        for (Iterator<Map.Entry<TopicPartition, Long>> it = dueAt.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<TopicPartition, Long> entry = it.next();
+            if (entry.getValue() <= now) {
+                consumer.resume(List.of(entry.getKey()));
+                it.remove();
+            }
+        }
+    }
+
+    /** Until the next paused partition is due, at most {@link #MAX_POLL_TIMEOUT}. */
+    private Duration pollTimeout() {
+        long wait = MAX_POLL_TIMEOUT.toMillis();
+        long now = clock.getAsLong();
+        for (long due : dueAt.values()) {
+            wait = Math.min(wait, due - now);
+        }
+        return Duration.ofMillis(Math.max(1, wait));
+    }
+
+    // ------------------------------------------------------------------
+    // Rebalance
+    // ------------------------------------------------------------------
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        try {
+            commits.commitSync(consumer, partitions);
+        } finally {
+            forget(partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        log.info("Retry tier {} assigned partitions: {}", tier, partitions);
+    }
+
+    private void forget(Collection<TopicPartition> partitions) {
+        // A reassigned partition starts unpaused, from its committed offset
+        dueAt.keySet().removeAll(partitions);
+        commits.forget(partitions);
+    }
+}
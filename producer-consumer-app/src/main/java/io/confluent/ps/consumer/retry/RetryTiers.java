@@ -0,0 +1,110 @@
+package io.confluent.ps.consumer.retry;
+
+import io.confluent.ps.consumer.commit.CommitMetrics;
+import io.confluent.ps.consumer.commit.CommitStrategy;
+import io.confluent.ps.consumer.pipeline.PaymentHandler;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The error path of one consumed topic: the {@link RetryRouter} the main
+ * processing routes failures through, and one {@link RetryTierConsumer} per
+ * configured delay, each in consumer group {@code <group.id>-retry-<tier>}.
+ * Closing stops the tiers (committing what they processed), closes their
+ * handler, then flushes the router.
+ */
+public final class RetryTiers<V> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryTiers.class);
+
+    private final RetryRouter<V> router;
+    private final RetryMetrics metrics;
+    private final PaymentHandler<V> handler;
+    private final List<RetryTierConsumer<V>> tiers = new ArrayList<>();
+    private final List<CommitStrategy> commits = new ArrayList<>();
+
+    private RetryTiers(RetryRouter<V> router, RetryMetrics metrics, PaymentHandler<V> handler) {
+        this.router = router;
+        this.metrics = metrics;
+        this.handler = handler;
+    }
+
+    /**
+     * Starts the tiers of {@code topic}.
+     *
+     * @param props      the main consumer's configuration
+     * @param serializer re-serializes payments for the retry and dead-letter topics (configured here)
+     * @param handler    the whole main-path processing of one payment, shared by the tiers;
+     *                   closed with them
+     */
+    public static <V> RetryTiers<V> start(Properties props, String topic, RetrySettings settings,
+                                          Serializer<V> serializer, PaymentHandler<V> handler) {
+        String clientId = props.getProperty(ConsumerConfig.CLIENT_ID_CONFIG, "payment-consumer");
+        serializer.configure(toMap(props), false);
+
+        Properties producerProps = new Properties();
+        producerProps.putAll(props);
+        producerProps.remove(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG); // the consumer's, not ours
+        producerProps.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-retry");
+        producerProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        RetryMetrics metrics = new RetryMetrics(clientId);
+        RetryTiers<V> retry = new RetryTiers<>(new RetryRouter<>(
+                new KafkaProducer<>(producerProps, new StringSerializer(), new ByteArraySerializer()),
+                serializer, settings, metrics), metrics, handler);
+
+        String group = props.getProperty(ConsumerConfig.GROUP_ID_CONFIG, "payment-consumer-group");
+        for (int tier = 1; tier <= settings.tiers(); tier++) {
+            Properties tierProps = new Properties();
+            tierProps.putAll(props);
+            tierProps.put(ConsumerConfig.GROUP_ID_CONFIG, group + "-retry-" + tier);
+            tierProps.put(ConsumerConfig.CLIENT_ID_CONFIG, clientId + "-retry-" + tier);
+            CommitStrategy tierCommits = CommitStrategy.create(tierProps, "sync",
+                    new CommitMetrics(clientId + "-retry-" + tier));
+            retry.commits.add(tierCommits);
+            retry.tiers.add(new RetryTierConsumer<>(tier, settings.retryTopic(topic, tier),
+                    new KafkaConsumer<String, V>(tierProps), handler, retry.router, tierCommits).start());
+        }
+        log.info("Retry tiers for '{}': delays={} ms, dead letters to '{}'", topic, settings.delaysMs(),
+                settings.dlqTopic(topic));
+        return retry;
+    }
+
+    public RetryRouter<V> router() {
+        return router;
+    }
+
+    public RetryMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        tiers.forEach(RetryTierConsumer::close);
+        commits.forEach(CommitStrategy::close);
+        handler.close();
+        router.close();
+        metrics.close();
+    }
+
+    private static Map<String, Object> toMap(Properties props) {
+        Map<String, Object> map = new HashMap<>();
+        props.forEach((k, v) -> map.put(String.valueOf(k), v));
+        return map;
+    }
+}
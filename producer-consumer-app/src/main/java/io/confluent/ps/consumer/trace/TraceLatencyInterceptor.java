@@ -0,0 +1,142 @@
+package io.confluent.ps.consumer.trace;
+
+import io.confluent.ps.tracing.Hop;
+import io.confluent.ps.tracing.HopLatencies;
+import io.confluent.ps.tracing.TraceHeaders;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Measures the payments' way from the producer to this consumer from their
+ * {@link TraceHeaders}, as each poll returns them: end to end, and, for
+ * records that came through the fraud detection topology, the ingest,
+ * topology and delivery hops in between. Untraced records are ignored.
+ *
+ * <pre>
+ * consumer.trace.enabled=true               measure (installed by {@link #install})
+ * consumer.trace.report.interval.ms=10000   log the hop percentiles this often
+ * </pre>
+ *
+ * Runs on the poll thread, so it measures every processing mode alike and
+ * never sees processing time, only how late a payment arrived. On close the
+ * end-to-end distribution is logged encoded ({@link HopLatencies#encode}),
+ * so the distributions of all consumers of a group can be merged.
+ */
+public final class TraceLatencyInterceptor<K, V> implements ConsumerInterceptor<K, V> {
+
+    public static final String ENABLED_CONFIG = "consumer.trace.enabled";
+    public static final String REPORT_INTERVAL_MS_CONFIG = "consumer.trace.report.interval.ms";
+
+    private static final Logger log = LoggerFactory.getLogger(TraceLatencyInterceptor.class);
+
+    private final HopLatencies latencies = new HopLatencies();
+    private String clientId = "";
+    private long reportIntervalMs = 10_000L;
+    private long nextReportMs;
+
+    /**
+     * Adds this class to {@code interceptor.classes} in {@code configs}, after
+     * any configured there, unless {@value #ENABLED_CONFIG} is false.
+     */
+    public static void install(Map<Object, Object> configs) {
+        if (!Boolean.parseBoolean(String.valueOf(configs.getOrDefault(ENABLED_CONFIG, "true")).trim())) {
+            return;
+        }
+        String name = TraceLatencyInterceptor.class.getName();
+        Object configured = configs.get(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG);
+        String classes = configured == null ? "" : String.valueOf(configured).trim();
+        if (classes.contains(name)) {
+            return;
+        }
+        configs.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, classes.isEmpty() ? name : classes + "," + name);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object id = configs.get(ConsumerConfig.CLIENT_ID_CONFIG);
+        clientId = id == null ? "" : String.valueOf(id);
+        Object interval = configs.get(REPORT_INTERVAL_MS_CONFIG);
+        if (interval != null) {
+            reportIntervalMs = Long.parseLong(String.valueOf(interval).trim());
+            if (reportIntervalMs <= 0) {
+                throw new IllegalArgumentException(REPORT_INTERVAL_MS_CONFIG + " must be > 0: " + reportIntervalMs);
+            }
+        }
+        nextReportMs = System.currentTimeMillis() + reportIntervalMs;
+    }
+
+    @Override
+    public ConsumerRecords<K, V> onConsume(ConsumerRecords<K, V> records) {
+        if (records.isEmpty()) {
+            maybeReport(System.currentTimeMillis());
+            return records;
+        }
+        long now = TraceHeaders.nowMicros();
+        for (ConsumerRecord<K, V> record : records) {
+            record(record.headers(), now);
+        }
+        maybeReport(now / 1_000);
+        return records;
+    }
+
+    /** Records the hops of one record that arrived at {@code nowMicros}. */
+    void record(Headers headers, long nowMicros) {
+        long created = TraceHeaders.micros(headers, TraceHeaders.CREATED_US);
+        if (created < 0) {
+            return;
+        }
+        long in = TraceHeaders.micros(headers, TraceHeaders.STREAMS_IN_US);
+        long out = TraceHeaders.micros(headers, TraceHeaders.STREAMS_OUT_US);
+        if (in >= 0) {
+            latencies.record(Hop.INGEST, in - created);
+            if (out >= 0) {
+                latencies.record(Hop.TOPOLOGY, out - in);
+            }
+        }
+        latencies.recordBetween(Hop.DELIVERY, out, nowMicros);
+        latencies.recordBetween(Hop.END_TO_END, created, nowMicros);
+    }
+
+    HopLatencies latencies() {
+        return latencies;
+    }
+
+    private void maybeReport(long nowMs) {
+        if (nowMs < nextReportMs) {
+            return;
+        }
+        nextReportMs = nowMs + reportIntervalMs;
+        String report = latencies.report();
+        if (!report.isEmpty()) {
+            log.info("Trace latencies of {} over the last {} ms: {}", clientId, reportIntervalMs, report);
+        }
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        // Commits are measured by CommitMetrics
+    }
+
+    @Override
+    public void close() {
+        String report = latencies.report();
+        if (!report.isEmpty()) {
+            log.info("Trace latencies of {} since the last report: {}", clientId, report);
+        }
+        if (latencies.total(Hop.END_TO_END).getTotalCount() > 0) {
+            log.info("End-to-end latency histogram of {} (HdrHistogram, compressed, Base64, microseconds): {}",
+                    clientId, HopLatencies.encode(latencies.total(Hop.END_TO_END)));
+        }
+    }
+}
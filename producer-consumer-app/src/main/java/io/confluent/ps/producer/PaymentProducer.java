@@ -1,12 +1,33 @@
 package io.confluent.ps.producer;
 
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
 import io.confluent.ps.config.ConfigLoader;
+import io.confluent.ps.config.PaymentFormat;
+import io.confluent.ps.config.ProducerProfile;
+import io.confluent.ps.logging.LogDrops;
+import io.confluent.ps.logging.LogLimiter;
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.model.PaymentStatus;
+import io.confluent.ps.producer.json.PaymentJsonSerializer;
+import io.confluent.ps.producer.loadgen.LoadGenSettings;
+import io.confluent.ps.producer.loadgen.LoadGenerator;
+import io.confluent.ps.producer.loadgen.MerchantMix;
+import io.confluent.ps.producer.loadgen.PayloadPool;
+import io.confluent.ps.producer.loadgen.ProfileComparison;
+import io.confluent.ps.producer.loadgen.ZipfSampler;
+import io.confluent.ps.producer.tuning.AdaptiveBatchTuner;
+import io.confluent.ps.producer.tuning.AdaptiveSettings;
+import io.confluent.ps.tracing.Hop;
+import io.confluent.ps.tracing.HopLatencies;
+import io.confluent.ps.tracing.TraceHeaders;
 
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 
 import org.slf4j.Logger;
@@ -15,10 +36,13 @@ import org.slf4j.LoggerFactory;
 import java.time.Instant;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
 
 /**
  * PCI-DSS compliant Kafka producer that publishes masked payment events
@@ -28,6 +52,21 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *   java -Dapp.env=dev  -jar producer-consumer-app.jar produce
  *   java -Dapp.env=qa   -jar producer-consumer-app.jar produce
  *   java -Dapp.env=prod -jar producer-consumer-app.jar produce
+ *   java -Dapp.env=dev -Dkafka.loadgen.rate=50000 -jar producer-consumer-app.jar loadgen
+ *   java -Dapp.env=dev -Dkafka.loadgen.records=500000 -jar producer-consumer-app.jar profiles
+ *
+ * Batching and compression come from a {@link ProducerProfile}
+ * ({@code producer.profile=latency|balanced|bulk}, env PRODUCER_PROFILE);
+ * {@code producer.adaptive.enabled=true} additionally retunes linger.ms and
+ * batch.size at runtime (see {@link AdaptiveBatchTuner}).
+ *
+ * Set PAYMENT_FORMAT=avro (or payment.format=avro) to publish binary Avro
+ * {@code Payment} records via Schema Registry instead of JSON.
+ *
+ * Every payment carries a trace id and its creation time in microseconds as
+ * record headers ({@link TraceHeaders}); the topology and the consumer stamp
+ * and measure the later hops from them. The producer itself logs the
+ * creation-to-ack latency when it stops.
  */
 public class PaymentProducer {
 
@@ -36,14 +75,26 @@ public class PaymentProducer {
     private static final AtomicBoolean running = new AtomicBoolean(true);
     private static final int DEFAULT_MAX_RECORDS = 250;
 
+    private static final String[] REGIONS = {"US-EAST", "US-WEST", "EU-WEST", "AP-SOUTH"};
+    private static final String[] MERCHANTS = {"MERCH-001", "MERCH-002", "MERCH-003", "MERCH-004"};
+    private static final String CURRENCY = "USD";
+    private static final String CARD_PREFIX = "****-****-****-";
+
+    // Per-ack logging: one line a second, and a burst of failures is summarised rather than replayed
+    private static final LogLimiter SENT_LOG = LogLimiter.perSecond("producer.sent", 1);
+    private static final LogLimiter SEND_FAILED_LOG = LogLimiter.perSecond("producer.send-failed", 10);
+
     public static void main(String[] args) {
+        LogDrops.registerMBean();
         String mode = (args.length > 0) ? args[0] : "produce";
 
         switch (mode) {
             case "produce" -> runProducer();
             case "consume" -> io.confluent.ps.consumer.PaymentConsumer.runConsumer();
+            case "loadgen" -> runLoadGenerator();
+            case "profiles" -> runProfileComparison();
             default -> {
-                System.err.println("Usage: java -jar producer-consumer-app.jar [produce|consume]");
+                System.err.println("Usage: java -jar producer-consumer-app.jar [produce|consume|loadgen|profiles]");
                 System.exit(1);
             }
         }
@@ -54,13 +105,33 @@ public class PaymentProducer {
         Properties props = ConfigLoader.load();
         props.putIfAbsent(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG,
                 StringSerializer.class.getName());
-        props.putIfAbsent(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-                StringSerializer.class.getName());
         props.putIfAbsent(ProducerConfig.ACKS_CONFIG, "all");
         props.putIfAbsent(ProducerConfig.RETRIES_CONFIG, "3");
         props.putIfAbsent(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
         props.putIfAbsent(ProducerConfig.CLIENT_ID_CONFIG, "payment-producer");
+        ProducerProfile.from(props).applyTo(props);
+
+        PaymentFormat format = PaymentFormat.from(props);
+        switch (format) {
+            case AVRO -> {
+                props.putIfAbsent(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                        KafkaAvroSerializer.class.getName());
+                produce(props, maxRecords, format, PaymentProducer::buildPayment);
+            }
+            case JSON -> {
+                props.putIfAbsent(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                        PaymentJsonSerializer.class.getName());
+                // One mutable payment, refilled per record: send() serializes before returning
+                Payment reusable = new Payment();
+                StringBuilder card = new StringBuilder(CARD_PREFIX.length() + 4);
+                produce(props, maxRecords, format, (txnId, sequence) ->
+                        fillPayment(reusable, card, txnId, sequence, System.currentTimeMillis()));
+            }
+        }
+    }
 
+    private static <V> void produce(Properties props, int maxRecords, PaymentFormat format,
+                                    BiFunction<String, Integer, V> paymentFactory) {
         CountDownLatch shutdownLatch = new CountDownLatch(1);
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Shutdown signal received");
@@ -68,37 +139,171 @@ public class PaymentProducer {
             shutdownLatch.countDown();
         }));
 
-        try (KafkaProducer<String, String> producer = new KafkaProducer<>(props)) {
-            log.info("PaymentProducer started — sending to topic '{}' (maxRecords={})", TOPIC, maxRecords);
+        AdaptiveSettings adaptive = AdaptiveSettings.from(props);
+        AdaptiveBatchTuner tuner = adaptive.enabled()
+                ? new AdaptiveBatchTuner(adaptive, AdaptiveBatchTuner.Batching.from(props), System.currentTimeMillis())
+                : null;
+        if (tuner != null) {
+            tuner.current().applyTo(props);
+        }
+
+        HopLatencies latencies = new HopLatencies();
+        KafkaProducer<String, V> producer = new KafkaProducer<>(props);
+        try {
+            log.info("PaymentProducer started — sending to topic '{}' (maxRecords={}, format={}, profile={}, adaptive={})",
+                    TOPIC, maxRecords, format, ProducerProfile.from(props), tuner != null);
 
             int count = 0;
             while (running.get() && count < maxRecords) {
                 String txnId = UUID.randomUUID().toString();
-                String payment = buildPaymentJson(txnId, count);
+                long createdMicros = TraceHeaders.nowMicros();
+                V payment = paymentFactory.apply(txnId, count);
 
                 int recordNumber = count + 1;
-                ProducerRecord<String, String> record =
-                        new ProducerRecord<>(TOPIC, txnId, payment);
+                ProducerRecord<String, V> record = new ProducerRecord<>(TOPIC, null, txnId, payment,
+                        TraceHeaders.stamp(new RecordHeaders(), TraceHeaders.newTraceId(), createdMicros));
 
                 producer.send(record, (RecordMetadata meta, Exception ex) -> {
                     if (ex != null) {
-                        log.error("Failed to send payment {}/{} txn_id={}", recordNumber, maxRecords, txnId, ex);
-                    } else {
-                        log.info("Sent payment {}/{} txn_id={} partition={} offset={}",
-                                recordNumber, maxRecords, txnId, meta.partition(), meta.offset());
+                        if (SEND_FAILED_LOG.permit()) {
+                            log.error("Failed to send payment {}/{} txn_id={} ({} more failures suppressed)",
+                                    recordNumber, maxRecords, txnId, SEND_FAILED_LOG.drainSuppressed(), ex);
+                        }
+                        return;
+                    }
+                    latencies.recordBetween(Hop.PRODUCE, createdMicros, TraceHeaders.nowMicros());
+                    if (SENT_LOG.permit()) {
+                        log.info("Sent payment {}/{} txn_id={} partition={} offset={} ({} more since last line)",
+                                recordNumber, maxRecords, txnId, meta.partition(), meta.offset(),
+                                SENT_LOG.drainSuppressed());
                     }
                 });
 
                 count++;
+                if (tuner != null) {
+                    AdaptiveBatchTuner.Batching next = tuner.poll(System.currentTimeMillis(), producer.metrics());
+                    if (next != null) {
+                        // linger.ms / batch.size are fixed per client: drain, then reconnect with the new values
+                        producer.flush();
+                        producer.close();
+                        next.applyTo(props);
+                        producer = new KafkaProducer<>(props);
+                    }
+                }
                 Thread.sleep(500); // simulate real-world event cadence
             }
 
             producer.flush();
-            log.info("PaymentProducer stopped after {} events", count);
+            log.info("PaymentProducer stopped after {} events (latency {})", count, latencies.report());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.warn("Producer interrupted");
+        } finally {
+            producer.close();
+        }
+    }
+
+    /**
+     * Benchmark mode for cluster sizing: multiple sender threads share one
+     * producer, payloads are pre-generated, and throughput plus send-to-ack
+     * latency percentiles are reported at the end. See {@link LoadGenSettings}.
+     * With {@code producer.adaptive.enabled=true} the batching is retuned while
+     * the load runs.
+     */
+    public static void runLoadGenerator() {
+        Properties props = ConfigLoader.load();
+        LoadGenSettings settings = LoadGenSettings.from(props);
+        PayloadPool pool = payloadPool(props, settings);
+        loadGenProducerDefaults(props);
+        ProducerProfile.from(props).applyTo(props);
+        AdaptiveSettings adaptive = AdaptiveSettings.from(props);
+        AdaptiveBatchTuner tuner = adaptive.enabled()
+                ? new AdaptiveBatchTuner(adaptive, AdaptiveBatchTuner.Batching.from(props), System.currentTimeMillis())
+                : null;
+        if (tuner != null) {
+            tuner.current().applyTo(props);
+        }
+
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(props)) {
+            int merchants = MerchantMix.from(props).publishReferenceData(producer);
+            if (merchants > 0) {
+                log.info("Published reference data of {} merchants", merchants);
+            }
+            LoadGenerator generator = new LoadGenerator(producer, pool, settings, tuner, next -> {
+                next.applyTo(props);
+                return new KafkaProducer<>(props);
+            });
+            Runtime.getRuntime().addShutdownHook(new Thread(generator::stop));
+            generator.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Load generation interrupted");
+        }
+    }
+
+    /**
+     * Comparison harness: runs the {@code loadgen} workload once per producer
+     * profile ({@code loadgen.profiles}) and logs throughput and p50/p99 ack
+     * latency per profile. See {@link ProfileComparison}.
+     */
+    public static void runProfileComparison() {
+        Properties props = ConfigLoader.load();
+        LoadGenSettings settings = LoadGenSettings.from(props);
+        PayloadPool pool = payloadPool(props, settings);
+        loadGenProducerDefaults(props);
+
+        try {
+            new ProfileComparison(props, pool, settings, KafkaProducer::new)
+                    .run(ProfileComparison.profiles(props));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Profile comparison interrupted");
+        }
+    }
+
+    private static PayloadPool payloadPool(Properties props, LoadGenSettings settings) {
+        BiFunction<String, Integer, Payment> factory = paymentFactory(MerchantMix.from(props));
+        return switch (PaymentFormat.from(props)) {
+            case AVRO -> {
+                try (KafkaAvroSerializer serializer = new KafkaAvroSerializer()) {
+                    serializer.configure(toMap(props), false);
+                    yield PayloadPool.generate(settings.poolSize(), settings.topic(),
+                            factory, (topic, p) -> serializer.serialize(topic, p));
+                }
+            }
+            case JSON -> {
+                try (PaymentJsonSerializer serializer = new PaymentJsonSerializer()) {
+                    yield PayloadPool.generate(settings.poolSize(), settings.topic(), factory, serializer);
+                }
+            }
+        };
+    }
+
+    /** {@link #buildPayment}, with merchants drawn from {@code mix} when it is enabled. */
+    static BiFunction<String, Integer, Payment> paymentFactory(MerchantMix mix) {
+        if (!mix.enabled()) {
+            return PaymentProducer::buildPayment;
         }
+        ZipfSampler merchants = mix.sampler();
+        return (txnId, sequence) -> {
+            Payment payment = buildPayment(txnId, sequence);
+            payment.setMerchantId(MerchantMix.merchantId(merchants.next()));
+            return payment;
+        };
+    }
+
+    private static void loadGenProducerDefaults(Properties props) {
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        props.putIfAbsent(ProducerConfig.ACKS_CONFIG, "all");
+        props.putIfAbsent(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        props.putIfAbsent(ProducerConfig.CLIENT_ID_CONFIG, "payment-loadgen");
+    }
+
+    private static Map<String, Object> toMap(Properties props) {
+        Map<String, Object> map = new HashMap<>();
+        props.stringPropertyNames().forEach(k -> map.put(k, props.getProperty(k)));
+        return map;
     }
 
     private static int resolveMaxRecords() {
@@ -117,8 +322,17 @@ public class PaymentProducer {
     /**
      * Builds a JSON payment event with masked card number (PCI-DSS).
      * In production, use Avro + Schema Registry instead of raw JSON.
+     *
+     * <p>Reference implementation of the JSON format. The producer itself fills
+     * a reused {@link Payment} ({@link #fillPayment}) and encodes it with
+     * {@link PaymentJsonSerializer}, which yields the same bytes without the
+     * per-record formatting garbage.
      */
     static String buildPaymentJson(String txnId, int sequence) {
+        return buildPaymentJson(txnId, sequence, Instant.now().toEpochMilli());
+    }
+
+    static String buildPaymentJson(String txnId, int sequence, long epochMillis) {
         String[] regions = {"US-EAST", "US-WEST", "EU-WEST", "AP-SOUTH"};
         String[] merchants = {"MERCH-001", "MERCH-002", "MERCH-003", "MERCH-004"};
         BigDecimal amount = BigDecimal.valueOf(10.00)
@@ -139,8 +353,52 @@ public class PaymentProducer {
                 maskedCard,
                 amount.toPlainString(),
                 merchants[sequence % merchants.length],
-                Instant.now().getEpochSecond(),
+                epochMillis,
                 regions[sequence % regions.length]
         );
     }
+
+    /**
+     * Builds the same payment as {@link #buildPaymentJson} as a binary Avro record.
+     * The timestamp is in epoch milliseconds, as declared by the schema.
+     */
+    static Payment buildPayment(String txnId, int sequence) {
+        return buildPayment(txnId, sequence, Instant.now().toEpochMilli());
+    }
+
+    static Payment buildPayment(String txnId, int sequence, long epochMillis) {
+        StringBuilder card = new StringBuilder(CARD_PREFIX.length() + 4);
+        Payment payment = fillPayment(new Payment(), card, txnId, sequence, epochMillis);
+        payment.setCardNumberMasked(card.toString());
+        return payment;
+    }
+
+    /**
+     * Fills {@code payment} in place without allocating: the amount is computed
+     * in integer cents (10.00 + (sequence % 500) × 1.37), text fields are
+     * constants, and the masked card is written into {@code card}, which the
+     * payment then references. Only valid until the next call with the same buffers.
+     */
+    static Payment fillPayment(Payment payment, StringBuilder card, String txnId, int sequence, long epochMillis) {
+        long cents = 1_000L + (sequence % 500L) * 137L;
+        int lastFour = (sequence % 9999) + 1;
+
+        card.setLength(0);
+        card.append(CARD_PREFIX)
+                .append((char) ('0' + lastFour / 1000))
+                .append((char) ('0' + lastFour / 100 % 10))
+                .append((char) ('0' + lastFour / 10 % 10))
+                .append((char) ('0' + lastFour % 10));
+
+        payment.setTransactionId(txnId);
+        payment.setCardNumberMasked(card);
+        payment.setAmount(cents / 100.0);
+        payment.setCurrency(CURRENCY);
+        payment.setMerchantId(MERCHANTS[sequence % MERCHANTS.length]);
+        payment.setTimestamp(epochMillis);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setRegion(REGIONS[sequence % REGIONS.length]);
+        payment.setRiskScore(null);
+        return payment;
+    }
 }
@@ -0,0 +1,40 @@
+package io.confluent.ps.producer.json;
+
+import io.confluent.ps.model.Payment;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializes {@link Payment} records to the JSON wire format of the
+ * {@code payments} topic, byte-identical to the former
+ * {@code buildPaymentJson} + {@code StringSerializer} path (see {@link PaymentJsonWriter}).
+ *
+ * <p>Each sending thread encodes into its own reusable buffer; the only
+ * allocation per record is the exact-size array the {@link Serializer}
+ * contract requires. Safe to share across threads, as a producer's value
+ * serializer is.
+ */
+public class PaymentJsonSerializer implements Serializer<Payment> {
+
+    private final ThreadLocal<PaymentJsonWriter> writers = ThreadLocal.withInitial(PaymentJsonWriter::new);
+
+    @Override
+    public byte[] serialize(String topic, Payment payment) {
+        if (payment == null) {
+            return null;
+        }
+        PaymentJsonWriter writer = writers.get();
+        try {
+            writer.write(payment);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Cannot encode payment for topic " + topic + ": " + e.getMessage(), e);
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        writers.remove();
+    }
+}
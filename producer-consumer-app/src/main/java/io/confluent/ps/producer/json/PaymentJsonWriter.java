@@ -0,0 +1,213 @@
+package io.confluent.ps.producer.json;
+
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.model.PaymentStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Writes a {@link Payment} as the producer's JSON wire format into a reusable
+ * byte buffer. Not thread-safe; {@link PaymentJsonSerializer} keeps one per thread.
+ *
+ * <p>The format is the one {@code PaymentProducer.buildPaymentJson} has always
+ * produced, byte for byte:
+ * <pre>
+ * {"transaction_id":"..","card_number_masked":"..","amount":147.00,"currency":"USD",
+ *  "merchant_id":"..","timestamp":&lt;epoch millis&gt;,"status":"PENDING","region":".."}
+ * </pre>
+ * The amount is written from integer cents (two decimals, half-up), the
+ * timestamp in epoch milliseconds as the Avro schema declares, and a
+ * {@code risk_score} is appended only if set. Text is UTF-8 with JSON escaping.
+ *
+ * <p>Nothing is allocated per payment once the buffer has grown to size:
+ * status names are precomputed, and the UTF-8 bytes of recurring
+ * currency / merchant / region {@code String} instances are cached by identity.
+ */
+final class PaymentJsonWriter {
+
+    private static final byte[] TRANSACTION_ID = ascii("{\"transaction_id\":\"");
+    private static final byte[] CARD_NUMBER_MASKED = ascii("\",\"card_number_masked\":\"");
+    private static final byte[] AMOUNT = ascii("\",\"amount\":");
+    private static final byte[] CURRENCY = ascii(",\"currency\":\"");
+    private static final byte[] MERCHANT_ID = ascii("\",\"merchant_id\":\"");
+    private static final byte[] TIMESTAMP = ascii("\",\"timestamp\":");
+    private static final byte[] STATUS = ascii(",\"status\":\"");
+    private static final byte[] REGION = ascii("\",\"region\":\"");
+    private static final byte[] RISK_SCORE = ascii("\",\"risk_score\":");
+    private static final byte[] END = ascii("\"}");
+
+    private static final byte[][] STATUS_NAMES = new byte[PaymentStatus.values().length][];
+
+    static {
+        for (PaymentStatus status : PaymentStatus.values()) {
+            STATUS_NAMES[status.ordinal()] = ascii(status.name());
+        }
+    }
+
+    /** Distinct String instances cached per writer; further values are encoded each time. */
+    private static final int MAX_CACHED_CONSTANTS = 256;
+
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private final Map<CharSequence, byte[]> constants = new IdentityHashMap<>();
+    private byte[] buf = new byte[256];
+    private int len;
+
+    /** Encodes {@code payment}; the result is {@code buffer()[0 .. length())}. */
+    void write(Payment payment) {
+        len = 0;
+        put(TRANSACTION_ID);
+        text(payment.getTransactionId());
+        put(CARD_NUMBER_MASKED);
+        text(payment.getCardNumberMasked());
+        put(AMOUNT);
+        cents(payment.getAmount());
+        put(CURRENCY);
+        constant(payment.getCurrency());
+        put(MERCHANT_ID);
+        constant(payment.getMerchantId());
+        put(TIMESTAMP);
+        number(payment.getTimestamp());
+        put(STATUS);
+        if (payment.getStatus() != null) {
+            put(STATUS_NAMES[payment.getStatus().ordinal()]);
+        }
+        put(REGION);
+        constant(payment.getRegion());
+        if (payment.getRiskScore() != null) {
+            put(RISK_SCORE);
+            put(ascii(Double.toString(payment.getRiskScore())));
+            ensure(1);
+            buf[len++] = '}';
+        } else {
+            put(END);
+        }
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    int length() {
+        return len;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    private void cents(double amount) {
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Payment amount must be finite: " + amount);
+        }
+        long cents = Math.round(amount * 100.0);
+        if (cents < 0) {
+            ensure(1);
+            buf[len++] = '-';
+            cents = -cents;
+        }
+        number(cents / 100);
+        long fraction = cents % 100;
+        ensure(3);
+        buf[len++] = '.';
+        buf[len++] = (byte) ('0' + fraction / 10);
+        buf[len++] = (byte) ('0' + fraction % 10);
+    }
+
+    private void number(long value) {
+        if (value < 0) {
+            ensure(1);
+            buf[len++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        for (int i = len + digits - 1; i >= len; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        len += digits;
+    }
+
+    private void constant(CharSequence value) {
+        if (!(value instanceof String)) {
+            text(value);
+            return;
+        }
+        byte[] bytes = constants.get(value);
+        if (bytes == null) {
+            int start = len;
+            text(value);
+            if (constants.size() < MAX_CACHED_CONSTANTS) {
+                constants.put(value, Arrays.copyOfRange(buf, start, len));
+            }
+            return;
+        }
+        put(bytes);
+    }
+
+    /** Writes {@code value} as JSON string content (no quotes), UTF-8 encoded. */
+    private void text(CharSequence value) {
+        if (value == null) {
+            return; // unset field: empty string, document stays parseable
+        }
+        int n = value.length();
+        ensure(n);
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buf[len++] = (byte) c;
+                continue;
+            }
+            ensure(6 + (n - i));
+            if (c == '"' || c == '\\') {
+                buf[len++] = '\\';
+                buf[len++] = (byte) c;
+            } else if (c < 0x20) {
+                buf[len++] = '\\';
+                buf[len++] = 'u';
+                buf[len++] = '0';
+                buf[len++] = '0';
+                buf[len++] = HEX[c >> 4];
+                buf[len++] = HEX[c & 0xF];
+            } else if (c < 0x800) {
+                buf[len++] = (byte) (0xC0 | (c >> 6));
+                buf[len++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buf[len++] = (byte) (0xF0 | (cp >> 18));
+                buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[len++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[len++] = '?'; // unpaired surrogate, as String.getBytes(UTF_8) does
+            } else {
+                buf[len++] = (byte) (0xE0 | (c >> 12));
+                buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[len++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void put(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
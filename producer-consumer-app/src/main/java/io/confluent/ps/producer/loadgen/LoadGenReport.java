@@ -0,0 +1,40 @@
+package io.confluent.ps.producer.loadgen;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+/**
+ * Outcome of a load-generation run: sustained throughput and the
+ * send-to-ack latency distribution (recorded in microseconds).
+ */
+public record LoadGenReport(
+        long sent,
+        long acked,
+        long failed,
+        long ackedBytes,
+        long elapsedNanos,
+        Histogram ackLatencyMicros) {
+
+    public double recordsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : acked * 1e9 / elapsedNanos;
+    }
+
+    public double megabytesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : ackedBytes * 1e9 / elapsedNanos / (1024.0 * 1024.0);
+    }
+
+    public double latencyMillisAt(double percentile) {
+        return ackLatencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "sent=%d acked=%d failed=%d elapsed=%.1fs | %.0f records/s, %.2f MB/s | "
+                        + "ack latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f",
+                sent, acked, failed, elapsedNanos / 1e9,
+                recordsPerSecond(), megabytesPerSecond(),
+                latencyMillisAt(50), latencyMillisAt(90), latencyMillisAt(99), latencyMillisAt(99.9),
+                ackLatencyMicros.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,54 @@
+package io.confluent.ps.producer.loadgen;
+
+import java.util.Properties;
+
+/**
+ * Load-generation parameters, read from {@code loadgen.*} properties
+ * (or {@code -Dkafka.loadgen.*} system properties via {@code ConfigLoader}).
+ *
+ * <pre>
+ * loadgen.topic=payments          target topic
+ * loadgen.rate=0                  records/s across all threads; 0 = unthrottled
+ * loadgen.burst=1000              permits credited after idle time
+ * loadgen.threads=4               sender threads sharing one producer
+ * loadgen.records=1000000         stop after this many records (0 = no limit)
+ * loadgen.duration.ms=0           stop after this long (0 = no limit)
+ * loadgen.pool.size=10000         pre-generated payloads, reused round-robin
+ * </pre>
+ */
+public record LoadGenSettings(
+        String topic,
+        double rate,
+        int burst,
+        int threads,
+        long records,
+        long durationMs,
+        int poolSize) {
+
+    public LoadGenSettings {
+        if (threads < 1) {
+            throw new IllegalArgumentException("loadgen.threads must be >= 1");
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("loadgen.pool.size must be >= 1");
+        }
+        if (records <= 0 && durationMs <= 0) {
+            throw new IllegalArgumentException("Set loadgen.records and/or loadgen.duration.ms");
+        }
+    }
+
+    public static LoadGenSettings from(Properties props) {
+        return new LoadGenSettings(
+                props.getProperty("loadgen.topic", "payments"),
+                Double.parseDouble(props.getProperty("loadgen.rate", "0")),
+                Integer.parseInt(props.getProperty("loadgen.burst", "1000")),
+                Integer.parseInt(props.getProperty("loadgen.threads", "4")),
+                Long.parseLong(props.getProperty("loadgen.records", "1000000")),
+                Long.parseLong(props.getProperty("loadgen.duration.ms", "0")),
+                Integer.parseInt(props.getProperty("loadgen.pool.size", "10000")));
+    }
+
+    public boolean throttled() {
+        return rate > 0;
+    }
+}
@@ -0,0 +1,202 @@
+package io.confluent.ps.producer.loadgen;
+
+import io.confluent.ps.producer.tuning.AdaptiveBatchTuner;
+import io.confluent.ps.tracing.TraceHeaders;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Drives a shared {@link Producer} from several sender threads for cluster sizing.
+ *
+ * <p>Payloads come from a pre-built {@link PayloadPool}; pacing (if any) comes
+ * from a shared {@link TokenBucket}. Each send records its send-to-ack latency
+ * in a concurrent HdrHistogram {@link Recorder}. Per-record logging is
+ * deliberately absent — only failures are counted and the first one is logged.
+ *
+ * <p>Pooled payloads carry the time the pool was built, so each record is
+ * stamped with its {@link TraceHeaders trace headers} at send time instead;
+ * the topology and consumer latencies then reflect the generated load.
+ *
+ * <p>With an {@link AdaptiveBatchTuner}, the calling thread polls it while
+ * the senders run. A retune drains and closes the producer and swaps in the
+ * one {@code reconnect} builds with the new batching, holding sends back
+ * meanwhile. The last producer built that way is closed when {@link #run()}
+ * returns; closing the one passed in again stays with the caller.
+ *
+ * <p>Works with any {@link Producer}: a real {@code KafkaProducer} against a
+ * broker, or an in-process {@code MockProducer} for dry runs and tests.
+ */
+public final class LoadGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+
+    /** How often the calling thread checks the tuner while the senders run. */
+    private static final long TUNER_CHECK_MS = 100;
+
+    private final PayloadPool pool;
+    private final LoadGenSettings settings;
+    private final AdaptiveBatchTuner tuner;
+    private final Function<AdaptiveBatchTuner.Batching, Producer<String, byte[]>> reconnect;
+    private final ReadWriteLock swap = new ReentrantReadWriteLock();
+    private volatile Producer<String, byte[]> producer;
+
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder ackedBytes = new LongAdder();
+    private final AtomicBoolean failureLogged = new AtomicBoolean();
+    private final Recorder ackLatencyMicros = new Recorder(3);
+
+    public LoadGenerator(Producer<String, byte[]> producer, PayloadPool pool, LoadGenSettings settings) {
+        this(producer, pool, settings, null, null);
+    }
+
+    /**
+     * @param tuner     {@code null} to keep the producer's batching fixed
+     * @param reconnect builds a producer with the tuner's new batching
+     */
+    public LoadGenerator(Producer<String, byte[]> producer, PayloadPool pool, LoadGenSettings settings,
+                         AdaptiveBatchTuner tuner,
+                         Function<AdaptiveBatchTuner.Batching, Producer<String, byte[]>> reconnect) {
+        if (tuner != null && reconnect == null) {
+            throw new IllegalArgumentException("An adaptive load generator needs a way to reconnect");
+        }
+        this.producer = producer;
+        this.pool = pool;
+        this.settings = settings;
+        this.tuner = tuner;
+        this.reconnect = reconnect;
+    }
+
+    /** Requests an early stop; {@link #run()} returns after in-flight sends complete. */
+    public void stop() {
+        running.set(false);
+    }
+
+    public LoadGenReport run() throws InterruptedException {
+        TokenBucket bucket = settings.throttled()
+                ? new TokenBucket(settings.rate(), settings.burst())
+                : null;
+        long deadline = settings.durationMs() > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.durationMs())
+                : Long.MAX_VALUE;
+
+        log.info("Load generation started — topic='{}' threads={} rate={} records={} durationMs={} "
+                        + "pool={} avgValueBytes={} adaptive={}",
+                settings.topic(), settings.threads(),
+                settings.throttled() ? settings.rate() + "/s" : "unthrottled",
+                settings.records(), settings.durationMs(), pool.size(),
+                String.format("%.0f", pool.averageValueBytes()), tuner != null);
+
+        Producer<String, byte[]> initial = producer;
+
+        long start = System.nanoTime();
+        List<Thread> senders = new ArrayList<>(settings.threads());
+        for (int i = 0; i < settings.threads(); i++) {
+            Thread t = new Thread(() -> sendLoop(bucket, deadline), "loadgen-sender-" + i);
+            t.setDaemon(true);
+            senders.add(t);
+            t.start();
+        }
+        for (Thread t : senders) {
+            while (t.isAlive()) {
+                t.join(TUNER_CHECK_MS);
+                if (tuner != null) {
+                    maybeRetune();
+                }
+            }
+        }
+        producer.flush();
+        long elapsed = System.nanoTime() - start;
+        if (producer != initial) {
+            producer.close();
+        }
+
+        long sent = Math.min(sequence.get(), settings.records() > 0 ? settings.records() : Long.MAX_VALUE);
+        LoadGenReport report = new LoadGenReport(
+                sent, acked.sum(), failed.sum(), ackedBytes.sum(), elapsed,
+                ackLatencyMicros.getIntervalHistogram());
+        log.info("Load generation finished — {}", report.summary());
+        return report;
+    }
+
+    private void sendLoop(TokenBucket bucket, long deadline) {
+        long limit = settings.records() > 0 ? settings.records() : Long.MAX_VALUE;
+        String topic = settings.topic();
+
+        while (running.get() && System.nanoTime() < deadline) {
+            long seq = sequence.getAndIncrement();
+            if (seq >= limit) {
+                return;
+            }
+            if (bucket != null) {
+                bucket.acquire();
+            }
+            byte[] value = pool.value(seq);
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, null, pool.key(seq), value,
+                    TraceHeaders.stamp(new RecordHeaders(), TraceHeaders.newTraceId(), TraceHeaders.nowMicros()));
+            long sentAt = System.nanoTime();
+            if (tuner != null) {
+                swap.readLock().lock();
+            }
+            try {
+                producer.send(record, (meta, ex) -> {
+                    if (ex == null) {
+                        ackLatencyMicros.recordValue((System.nanoTime() - sentAt) / 1_000);
+                        acked.increment();
+                        ackedBytes.add(value.length);
+                    } else {
+                        onFailure(ex);
+                    }
+                });
+            } catch (RuntimeException e) {
+                onFailure(e);
+            } finally {
+                if (tuner != null) {
+                    swap.readLock().unlock();
+                }
+            }
+        }
+    }
+
+    /** Applies a retune, if the tuner has one: drain, close, reconnect. */
+    private void maybeRetune() {
+        AdaptiveBatchTuner.Batching next = tuner.poll(System.currentTimeMillis(), producer.metrics());
+        if (next == null) {
+            return;
+        }
+        swap.writeLock().lock();
+        try {
+            // linger.ms / batch.size are fixed per client; the drain completes the pending acks
+            producer.flush();
+            producer.close();
+            producer = reconnect.apply(next);
+        } finally {
+            swap.writeLock().unlock();
+        }
+    }
+
+    private void onFailure(Exception ex) {
+        failed.increment();
+        if (failureLogged.compareAndSet(false, true)) {
+            log.error("Send failed (further failures are only counted)", ex);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.confluent.ps.producer.loadgen;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Merchant population of a load-generation run, read from
+ * {@code loadgen.merchants.*} properties.
+ *
+ * <pre>
+ * loadgen.merchants=0                   distinct merchant ids (MERCH-000001..); 0 = the four fixed ones
+ * loadgen.merchants.zipf.exponent=1.0   popularity skew ({@link ZipfSampler}); 0 = uniform
+ * loadgen.merchants.seed=42
+ * loadgen.merchants.topic=              if set, one reference record per merchant is written there first
+ * </pre>
+ * The skew is what the merchant near cache of the fraud detection app is
+ * sized against: with the default exponent and 100,000 merchants, the 4,096
+ * most popular ones receive about three quarters of the payments. The pool
+ * holds {@code loadgen.pool.size} payments, so make it larger than the number
+ * of merchants for the tail to show up at all.
+ *
+ * <p>Reference records are JSON, keyed by merchant id, e.g.
+ * {@code {"merchant_id":"MERCH-000001","risk_tier":"low","mcc":"5411","country":"US"}};
+ * about one merchant in sixteen is high risk and three in sixteen are medium.
+ */
+public record MerchantMix(int merchants, double zipfExponent, long seed, String topic) {
+
+    private static final String[] MCCS = {"5411", "5812", "5999", "4829", "7995", "5732"};
+    private static final String[] COUNTRIES = {"US", "GB", "DE", "IN", "SG", "MT", "BR"};
+
+    public MerchantMix {
+        if (merchants < 0) {
+            throw new IllegalArgumentException("loadgen.merchants must be >= 0");
+        }
+        if (!(zipfExponent >= 0.0)) {
+            throw new IllegalArgumentException("loadgen.merchants.zipf.exponent must be >= 0");
+        }
+    }
+
+    public static MerchantMix from(Properties props) {
+        return new MerchantMix(
+                Integer.parseInt(props.getProperty("loadgen.merchants", "0")),
+                Double.parseDouble(props.getProperty("loadgen.merchants.zipf.exponent", "1.0")),
+                Long.parseLong(props.getProperty("loadgen.merchants.seed", "42")),
+                props.getProperty("loadgen.merchants.topic", "").trim());
+    }
+
+    /** {@code false} keeps the payments' fixed merchant rotation. */
+    public boolean enabled() {
+        return merchants > 0;
+    }
+
+    public ZipfSampler sampler() {
+        return new ZipfSampler(merchants, zipfExponent, seed);
+    }
+
+    /** Merchant id of a rank, 0 being the most popular. */
+    public static String merchantId(int rank) {
+        return String.format("MERCH-%06d", rank + 1);
+    }
+
+    /** Reference record of a rank; deterministic, so every run describes the same merchants. */
+    public static String referenceJson(int rank) {
+        int h = (rank + 1) * 0x9E3779B1;
+        int bucket = h >>> 28;
+        String tier = bucket == 0 ? "high" : bucket <= 3 ? "medium" : "low";
+        return "{\"merchant_id\":\"" + merchantId(rank) + "\","
+                + "\"risk_tier\":\"" + tier + "\","
+                + "\"mcc\":\"" + MCCS[((h >>> 8) & 0xFFFF) % MCCS.length] + "\","
+                + "\"country\":\"" + COUNTRIES[(h & 0xFF) % COUNTRIES.length] + "\"}";
+    }
+
+    /**
+     * Writes every merchant's reference record to {@link #topic} and flushes.
+     * Does nothing without a topic or without {@link #enabled()}.
+     *
+     * @return records written
+     */
+    public int publishReferenceData(Producer<String, byte[]> producer) {
+        if (!enabled() || topic.isEmpty()) {
+            return 0;
+        }
+        for (int rank = 0; rank < merchants; rank++) {
+            producer.send(new ProducerRecord<>(topic, merchantId(rank),
+                    referenceJson(rank).getBytes(StandardCharsets.UTF_8)));
+        }
+        producer.flush();
+        return merchants;
+    }
+}
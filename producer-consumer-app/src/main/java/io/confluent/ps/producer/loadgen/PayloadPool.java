@@ -0,0 +1,59 @@
+package io.confluent.ps.producer.loadgen;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * Pre-serialized keys and values, generated once before a run so that payload
+ * construction and serialization cost stay out of the measurement.
+ */
+public final class PayloadPool {
+
+    private final String[] keys;
+    private final byte[][] values;
+    private final long totalValueBytes;
+
+    private PayloadPool(String[] keys, byte[][] values) {
+        this.keys = keys;
+        this.values = values;
+        long bytes = 0;
+        for (byte[] v : values) {
+            bytes += v.length;
+        }
+        this.totalValueBytes = bytes;
+    }
+
+    /**
+     * Builds {@code size} payloads with {@code factory(txnId, sequence)} and
+     * serializes them with {@code serializer} (e.g. String or Avro).
+     */
+    public static <V> PayloadPool generate(int size, String topic,
+                                           BiFunction<String, Integer, V> factory,
+                                           Serializer<V> serializer) {
+        String[] keys = new String[size];
+        byte[][] values = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            keys[i] = UUID.randomUUID().toString();
+            values[i] = serializer.serialize(topic, factory.apply(keys[i], i));
+        }
+        return new PayloadPool(keys, values);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public String key(long sequence) {
+        return keys[(int) (sequence % keys.length)];
+    }
+
+    public byte[] value(long sequence) {
+        return values[(int) (sequence % values.length)];
+    }
+
+    public double averageValueBytes() {
+        return (double) totalValueBytes / values.length;
+    }
+}
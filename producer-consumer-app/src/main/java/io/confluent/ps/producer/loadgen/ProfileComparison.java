@@ -0,0 +1,92 @@
+package io.confluent.ps.producer.loadgen;
+
+import io.confluent.ps.config.ProducerProfile;
+
+import org.apache.kafka.clients.producer.Producer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * Runs the same load once per {@link ProducerProfile} and reports throughput
+ * and ack latency side by side.
+ *
+ * <p>Each run gets a fresh producer built from the base configuration with the
+ * profile's settings forced in, and the same {@link PayloadPool} and
+ * {@link LoadGenSettings}. Profiles run one after another against the same
+ * cluster; use {@code loadgen.records} or {@code loadgen.duration.ms} to size each run.
+ *
+ * <pre>
+ * loadgen.profiles=latency,balanced,bulk   profiles to compare, in run order
+ * </pre>
+ */
+public final class ProfileComparison {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileComparison.class);
+
+    private final Properties baseProps;
+    private final PayloadPool pool;
+    private final LoadGenSettings settings;
+    private final Function<Properties, Producer<String, byte[]>> producerFactory;
+
+    public ProfileComparison(Properties baseProps, PayloadPool pool, LoadGenSettings settings,
+                             Function<Properties, Producer<String, byte[]>> producerFactory) {
+        this.baseProps = baseProps;
+        this.pool = pool;
+        this.settings = settings;
+        this.producerFactory = producerFactory;
+    }
+
+    /** Profiles listed in {@code loadgen.profiles} (default: all). */
+    public static List<ProducerProfile> profiles(Properties props) {
+        List<ProducerProfile> profiles = new ArrayList<>();
+        for (String name : props.getProperty("loadgen.profiles", "latency,balanced,bulk").split(",")) {
+            if (!name.isBlank()) {
+                Properties single = new Properties();
+                single.setProperty(ProducerProfile.CONFIG, name.trim());
+                profiles.add(ProducerProfile.from(single));
+            }
+        }
+        if (profiles.isEmpty()) {
+            throw new IllegalArgumentException("loadgen.profiles must name at least one profile");
+        }
+        return profiles;
+    }
+
+    public Map<ProducerProfile, LoadGenReport> run(List<ProducerProfile> profiles) throws InterruptedException {
+        Map<ProducerProfile, LoadGenReport> reports = new LinkedHashMap<>();
+        for (ProducerProfile profile : profiles) {
+            Properties props = new Properties();
+            props.putAll(baseProps);
+            profile.overrideIn(props);
+            props.setProperty(ProducerProfile.CONFIG, profile.name().toLowerCase(Locale.ROOT));
+
+            log.info("Profile {}: {}", profile, profile.settings());
+            try (Producer<String, byte[]> producer = producerFactory.apply(props)) {
+                reports.put(profile, new LoadGenerator(producer, pool, settings).run());
+            }
+        }
+        log.info("Producer profile comparison:\n{}", table(reports));
+        return reports;
+    }
+
+    static String table(Map<ProducerProfile, LoadGenReport> reports) {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "%-9s %12s %9s %10s %10s %10s %8s%n",
+                "profile", "records/s", "MB/s", "p50 ms", "p99 ms", "max ms", "failed"));
+        reports.forEach((profile, r) -> sb.append(String.format(Locale.ROOT,
+                "%-9s %12.0f %9.2f %10.2f %10.2f %10.2f %8d%n",
+                profile.name().toLowerCase(Locale.ROOT), r.recordsPerSecond(), r.megabytesPerSecond(),
+                r.latencyMillisAt(50), r.latencyMillisAt(99),
+                r.ackLatencyMicros().getMaxValue() / 1000.0, r.failed())));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package io.confluent.ps.producer.loadgen;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free token bucket shared by all sender threads.
+ *
+ * <p>Instead of counting tokens, the bucket hands out consecutive time slots
+ * ({@code 1/rate} apart) from a single atomic cursor. A thread that claims a
+ * slot in the future parks until it is due. Idle time is credited up to
+ * {@code burst} permits, so a stalled sender can catch up briefly without the
+ * long-run rate exceeding the target.
+ */
+public final class TokenBucket {
+
+    private final long nanosPerPermit;
+    private final long maxCreditNanos;
+    private final AtomicLong nextSlot;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0");
+        }
+        this.nanosPerPermit = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.maxCreditNanos = nanosPerPermit * Math.max(1, burst);
+        this.nextSlot = new AtomicLong(System.nanoTime());
+    }
+
+    /** Blocks until a permit is available. */
+    public void acquire() {
+        long now = System.nanoTime();
+        long slot;
+        while (true) {
+            long next = nextSlot.get();
+            slot = Math.max(next, now - maxCreditNanos);
+            if (nextSlot.compareAndSet(next, slot + nanosPerPermit)) {
+                break;
+            }
+        }
+        long wait = slot - now;
+        while (wait > 0) {
+            LockSupport.parkNanos(wait);
+            wait = slot - System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.confluent.ps.producer.loadgen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks {@code 0..n-1} with probability proportional to
+ * {@code 1 / (rank + 1)^exponent}: a few ranks take most of the draws and a
+ * long tail shares the rest, like merchant popularity in real payment
+ * traffic. {@code exponent = 0} is uniform.
+ *
+ * <p>Inverts a precomputed cumulative distribution ({@code n} doubles) by
+ * binary search. Seeded, so a pool generated twice is the same. Not
+ * thread-safe.
+ */
+public final class ZipfSampler {
+
+    private final double[] cdf;
+    private final SplittableRandom random;
+
+    public ZipfSampler(int n, double exponent, long seed) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Zipf sampler needs at least one rank: " + n);
+        }
+        if (!(exponent >= 0.0) || Double.isInfinite(exponent)) {
+            throw new IllegalArgumentException("Zipf exponent must be >= 0: " + exponent);
+        }
+        cdf = new double[n];
+        double sum = 0.0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+        cdf[n - 1] = 1.0;
+        random = new SplittableRandom(seed);
+    }
+
+    public int next() {
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        // Not found (the usual case): the insertion point is the first rank whose CDF exceeds u
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /** Probability of drawing {@code rank}. */
+    public double probability(int rank) {
+        return rank == 0 ? cdf[0] : cdf[rank] - cdf[rank - 1];
+    }
+
+    public int ranks() {
+        return cdf.length;
+    }
+}
@@ -0,0 +1,149 @@
+package io.confluent.ps.producer.tuning;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Adjusts {@code linger.ms} and {@code batch.size} within {@link AdaptiveSettings}
+ * bounds from the producer's own metrics.
+ *
+ * <p>Every {@code interval.ms} it reads {@code batch-size-avg},
+ * {@code record-queue-time-avg} and {@code request-latency-avg} and makes at most one move:
+ * <ul>
+ *   <li>batches at least 90% full: double {@code batch.size} (throughput-bound; fewer requests)</li>
+ *   <li>over the latency budget with partial batches: halve {@code linger.ms}</li>
+ *   <li>well under budget with batches under half full: double {@code linger.ms} (min +1)
+ *       to fill them, and once linger is at its maximum, halve an oversized {@code batch.size}</li>
+ * </ul>
+ * Fill is measured against bytes sent, i.e. after compression, so it errs on the low side.
+ *
+ * <p>A {@code KafkaProducer} reads both settings once, at construction, so the
+ * caller applies a new {@link Batching} by flushing and recreating the producer.
+ */
+public final class AdaptiveBatchTuner {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBatchTuner.class);
+
+    private static final String GROUP = "producer-metrics";
+    static final double FULL = 0.9;
+    static final double SPARSE = 0.5;
+    static final double OVERSIZED = 0.25;
+
+    private final AdaptiveSettings settings;
+    private Batching current;
+    private long nextCheckMs;
+
+    public AdaptiveBatchTuner(AdaptiveSettings settings, Batching initial, long nowMs) {
+        this.settings = settings;
+        this.current = new Batching(
+                clamp(initial.lingerMs(), settings.minLingerMs(), settings.maxLingerMs()),
+                clamp(initial.batchSize(), settings.minBatchSize(), settings.maxBatchSize()));
+        this.nextCheckMs = nowMs + settings.intervalMs();
+    }
+
+    /** Linger and batch size as currently chosen (initially clamped into bounds). */
+    public Batching current() {
+        return current;
+    }
+
+    /**
+     * Evaluates {@code metrics} if the interval has elapsed.
+     *
+     * @return the new settings to apply, or {@code null} to keep the current ones
+     */
+    public Batching poll(long nowMs, Map<MetricName, ? extends Metric> metrics) {
+        if (nowMs < nextCheckMs) {
+            return null;
+        }
+        nextCheckMs = nowMs + settings.intervalMs();
+        Batching next = evaluate(Sample.from(metrics));
+        if (next != null) {
+            log.info("Producer retuned: linger.ms {} -> {}, batch.size {} -> {}",
+                    current.lingerMs(), next.lingerMs(), current.batchSize(), next.batchSize());
+            current = next;
+        }
+        return next;
+    }
+
+    /** One tuning decision for {@code sample}; {@code null} if nothing should change. */
+    Batching evaluate(Sample sample) {
+        if (!sample.valid()) {
+            return null; // idle interval: no batches, averages are NaN
+        }
+        int linger = current.lingerMs();
+        int batch = current.batchSize();
+        double fill = sample.batchSizeAvg() / batch;
+        double latency = sample.recordQueueTimeAvg() + sample.requestLatencyAvg();
+
+        if (fill >= FULL) {
+            batch = clamp((long) batch * 2, settings.minBatchSize(), settings.maxBatchSize());
+        } else if (latency > settings.targetLatencyMs()) {
+            linger = clamp(linger / 2, settings.minLingerMs(), settings.maxLingerMs());
+        } else if (fill < SPARSE && latency < settings.targetLatencyMs() / 2) {
+            if (linger < settings.maxLingerMs()) {
+                linger = clamp(Math.max((long) linger * 2, linger + 1), settings.minLingerMs(), settings.maxLingerMs());
+            } else if (fill < OVERSIZED) {
+                batch = clamp(batch / 2, settings.minBatchSize(), settings.maxBatchSize());
+            }
+        }
+
+        if (linger == current.lingerMs() && batch == current.batchSize()) {
+            return null;
+        }
+        return new Batching(linger, batch);
+    }
+
+    private static int clamp(long value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, value));
+    }
+
+    /** The two settings the tuner controls. */
+    public record Batching(int lingerMs, int batchSize) {
+
+        /** Current values in {@code props}, falling back to the Kafka client defaults. */
+        public static Batching from(Properties props) {
+            return new Batching(
+                    Integer.parseInt(props.getProperty("linger.ms", "0").trim()),
+                    Integer.parseInt(props.getProperty("batch.size", "16384").trim()));
+        }
+
+        public void applyTo(Properties props) {
+            props.setProperty("linger.ms", Integer.toString(lingerMs));
+            props.setProperty("batch.size", Integer.toString(batchSize));
+        }
+    }
+
+    /** The producer metrics one decision is based on (bytes, milliseconds, milliseconds). */
+    record Sample(double batchSizeAvg, double recordQueueTimeAvg, double requestLatencyAvg) {
+
+        static Sample from(Map<MetricName, ? extends Metric> metrics) {
+            double batchSize = Double.NaN;
+            double queueTime = Double.NaN;
+            double requestLatency = Double.NaN;
+            for (Map.Entry<MetricName, ? extends Metric> e : metrics.entrySet()) {
+                MetricName name = e.getKey();
+                if (!GROUP.equals(name.group()) || !(e.getValue().metricValue() instanceof Number n)) {
+                    continue;
+                }
+                switch (name.name()) {
+                    case "batch-size-avg" -> batchSize = n.doubleValue();
+                    case "record-queue-time-avg" -> queueTime = n.doubleValue();
+                    case "request-latency-avg" -> requestLatency = n.doubleValue();
+                    default -> { }
+                }
+            }
+            return new Sample(batchSize, queueTime, requestLatency);
+        }
+
+        boolean valid() {
+            return Double.isFinite(batchSizeAvg) && batchSizeAvg > 0
+                    && Double.isFinite(recordQueueTimeAvg) && Double.isFinite(requestLatencyAvg);
+        }
+    }
+}
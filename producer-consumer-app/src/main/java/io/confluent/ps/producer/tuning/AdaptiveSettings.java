@@ -0,0 +1,49 @@
+package io.confluent.ps.producer.tuning;
+
+import java.util.Properties;
+
+/**
+ * Bounds for {@link AdaptiveBatchTuner}, read from {@code producer.adaptive.*}.
+ *
+ * <pre>
+ * producer.adaptive.enabled=false              retune linger.ms / batch.size at runtime
+ * producer.adaptive.interval.ms=10000          how often producer metrics are evaluated
+ * producer.adaptive.target.latency.ms=50       budget for record-queue-time-avg + request-latency-avg
+ * producer.adaptive.linger.ms.min=0
+ * producer.adaptive.linger.ms.max=100
+ * producer.adaptive.batch.size.min=16384
+ * producer.adaptive.batch.size.max=1048576
+ * </pre>
+ */
+public record AdaptiveSettings(
+        boolean enabled,
+        long intervalMs,
+        double targetLatencyMs,
+        int minLingerMs,
+        int maxLingerMs,
+        int minBatchSize,
+        int maxBatchSize) {
+
+    public AdaptiveSettings {
+        if (intervalMs < 1 || targetLatencyMs <= 0) {
+            throw new IllegalArgumentException("producer.adaptive.interval.ms and target.latency.ms must be > 0");
+        }
+        if (minLingerMs < 0 || maxLingerMs < minLingerMs) {
+            throw new IllegalArgumentException("producer.adaptive.linger.ms bounds must satisfy 0 <= min <= max");
+        }
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("producer.adaptive.batch.size bounds must satisfy 1 <= min <= max");
+        }
+    }
+
+    public static AdaptiveSettings from(Properties props) {
+        return new AdaptiveSettings(
+                Boolean.parseBoolean(props.getProperty("producer.adaptive.enabled", "false")),
+                Long.parseLong(props.getProperty("producer.adaptive.interval.ms", "10000")),
+                Double.parseDouble(props.getProperty("producer.adaptive.target.latency.ms", "50")),
+                Integer.parseInt(props.getProperty("producer.adaptive.linger.ms.min", "0")),
+                Integer.parseInt(props.getProperty("producer.adaptive.linger.ms.max", "100")),
+                Integer.parseInt(props.getProperty("producer.adaptive.batch.size.min", "16384")),
+                Integer.parseInt(props.getProperty("producer.adaptive.batch.size.max", "1048576")));
+    }
+}
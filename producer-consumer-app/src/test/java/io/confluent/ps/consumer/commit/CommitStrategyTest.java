@@ -0,0 +1,107 @@
+package io.confluent.ps.consumer.commit;
+
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.metrics.Metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommitStrategyTest {
+
+    private static final TopicPartition TP0 = new TopicPartition("payments", 0);
+    private static final TopicPartition TP1 = new TopicPartition("payments", 1);
+
+    private MockConsumer<String, String> consumer;
+    private CommitMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(TP0, TP1));
+        metrics = new CommitMetrics(new Metrics(), "test");
+    }
+
+    @Test
+    void tracker_shouldReportDirtyPartitionsAndLag() {
+        DirtyOffsetTracker tracker = new DirtyOffsetTracker();
+        assertEquals(5, tracker.markProcessed(TP0, 105, 5), "First sighting counts the batch");
+        assertEquals(3, tracker.markProcessed(TP0, 108, 3));
+        assertEquals(0, tracker.markProcessed(TP0, 107, 1), "Going backwards is ignored");
+        assertEquals(8, tracker.lag());
+
+        var dirty = tracker.dirty(null);
+        assertEquals(108, dirty.get(TP0).offset());
+
+        tracker.requested(dirty);
+        assertTrue(tracker.dirty(null).isEmpty(), "Requested offsets are no longer dirty");
+        assertEquals(8, tracker.lag(), "Lag drops only on acknowledgement");
+
+        tracker.failed(dirty);
+        assertEquals(108, tracker.dirty(null).get(TP0).offset(), "Failed commit makes the partition dirty again");
+
+        tracker.requested(dirty);
+        tracker.committed(dirty);
+        assertEquals(0, tracker.lag());
+    }
+
+    @Test
+    void batchedAsync_shouldCommitOnlyWhenRecordThresholdIsReached() {
+        CommitStrategy strategy = new BatchedAsyncCommitStrategy(metrics, 100, 60_000);
+
+        strategy.markProcessed(TP0, 60, 60);
+        strategy.maybeCommit(consumer);
+        assertNull(consumer.committed(Set.of(TP0)).get(TP0), "Below threshold — nothing committed");
+
+        strategy.markProcessed(TP0, 90, 30);
+        strategy.markProcessed(TP1, 10, 10);
+        strategy.maybeCommit(consumer);
+        assertEquals(90, consumer.committed(Set.of(TP0)).get(TP0).offset());
+        assertEquals(10, consumer.committed(Set.of(TP1)).get(TP1).offset());
+        assertEquals(1.0, metrics.value("commit-total"));
+        assertEquals(0.0, metrics.value("commit-lag-records"));
+    }
+
+    @Test
+    void batchedAsync_shouldCommitWhenIntervalElapses() throws InterruptedException {
+        CommitStrategy strategy = new BatchedAsyncCommitStrategy(metrics, 1_000_000, 20);
+
+        strategy.markProcessed(TP0, 5, 5);
+        Thread.sleep(30);
+        strategy.maybeCommit(consumer);
+        assertEquals(5, consumer.committed(Set.of(TP0)).get(TP0).offset());
+    }
+
+    @Test
+    void revokeListener_shouldFlushPendingOffsetsOfRevokedPartitions() {
+        CommitStrategy strategy = new BatchedAsyncCommitStrategy(metrics, 1_000_000, 60_000);
+        CommitOnRevokeListener listener = new CommitOnRevokeListener(consumer, strategy);
+
+        strategy.markProcessed(TP0, 42, 42);
+        strategy.markProcessed(TP1, 7, 7);
+        listener.onPartitionsRevoked(List.of(TP0));
+
+        assertEquals(42, consumer.committed(Set.of(TP0)).get(TP0).offset());
+        assertNull(consumer.committed(Set.of(TP1)).get(TP1), "Only revoked partitions are flushed");
+        assertEquals(7.0, metrics.value("commit-lag-records"));
+    }
+
+    @Test
+    void create_shouldSelectStrategyFromConfig() {
+        Properties props = new Properties();
+        assertInstanceOf(SyncCommitStrategy.class, CommitStrategy.create(props, "sync", metrics));
+
+        props.setProperty(CommitStrategy.CONFIG, "async-batched");
+        assertInstanceOf(BatchedAsyncCommitStrategy.class, CommitStrategy.create(props, "sync", metrics));
+
+        props.setProperty(CommitStrategy.CONFIG, "eventually");
+        assertThrows(IllegalArgumentException.class, () -> CommitStrategy.create(props, "sync", metrics));
+    }
+}
@@ -0,0 +1,111 @@
+package io.confluent.ps.consumer.parallel;
+
+import io.confluent.ps.consumer.commit.CommitMetrics;
+import io.confluent.ps.consumer.commit.CommitStrategy;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelProcessingEngineTest {
+
+    private static final String TOPIC = "payments";
+
+    @Test
+    void tracker_watermarkShouldStopAtLowestInFlightOffset() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+        assertEquals(-1, tracker.watermark(), "Nothing dispatched yet");
+
+        for (long offset = 10; offset < 15; offset++) {
+            tracker.dispatched(offset);
+        }
+        tracker.completed(11);
+        tracker.completed(12);
+        assertEquals(10, tracker.watermark(), "Offset 10 still in flight");
+
+        tracker.completed(10);
+        assertEquals(13, tracker.watermark());
+
+        tracker.completed(13);
+        tracker.completed(14);
+        assertEquals(15, tracker.watermark(), "All done -> next offset to read");
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    void run_shouldKeepPerKeyOrderAndCommitContiguousWatermark() throws InterruptedException {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        TopicPartition tp = new TopicPartition(TOPIC, 0);
+        int total = 2_000;
+
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(tp));
+            consumer.updateBeginningOffsets(Map.of(tp, 0L));
+            for (int i = 0; i < total; i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "card-" + (i % 50), "payment-" + i));
+            }
+        });
+
+        Map<String, List<Long>> offsetsByKey = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(total);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ParallelSettings settings = new ParallelSettings(4, 4, 10_000, 5_000);
+        Properties commitProps = new Properties();
+        commitProps.setProperty("consumer.commit.interval.ms", "10");
+
+        try (CommitStrategy commits = CommitStrategy.create(commitProps, "async-batched",
+                     new CommitMetrics("parallel-engine-test"));
+             ParallelProcessingEngine<String, String> engine = new ParallelProcessingEngine<>(consumer, record -> {
+            if (ThreadLocalRandom.current().nextInt(100) == 0) {
+                sleepQuietly(1); // occasional slow record
+            }
+            offsetsByKey.computeIfAbsent(record.key(), k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(record.offset());
+            done.countDown();
+        }, settings, commits)) {
+            Thread poller = new Thread(() -> engine.run(List.of(TOPIC), running));
+            poller.start();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS), "All records should be processed");
+            running.set(false);
+            poller.join(10_000);
+
+            assertEquals(total, engine.processedCount());
+            assertEquals(0, engine.failedCount());
+        }
+
+        assertEquals(50, offsetsByKey.size());
+        offsetsByKey.forEach((key, offsets) -> {
+            List<Long> sorted = new ArrayList<>(offsets);
+            Collections.sort(sorted);
+            assertEquals(sorted, offsets, "Records of " + key + " must be processed in offset order");
+        });
+        assertEquals(total, consumer.committed(Set.of(tp)).get(tp).offset(),
+                "Final commit should cover every processed record");
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
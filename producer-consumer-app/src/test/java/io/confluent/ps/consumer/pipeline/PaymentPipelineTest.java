@@ -0,0 +1,279 @@
+package io.confluent.ps.consumer.pipeline;
+
+import io.confluent.ps.consumer.commit.CommitMetrics;
+import io.confluent.ps.consumer.commit.CommitStrategy;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentPipelineTest {
+
+    private static final String TOPIC = "payments";
+
+    @Test
+    void tracker_watermarkShouldStopAtOldestBatchInFlight() {
+        BatchOffsetTracker tracker = new BatchOffsetTracker();
+        assertEquals(-1, tracker.watermark(), "Nothing dispatched yet");
+
+        tracker.dispatched(10, 20);
+        tracker.dispatched(20, 25);
+        tracker.dispatched(25, 40);
+        tracker.completed(20);
+        assertEquals(10, tracker.watermark(), "Batch at 10 still in flight");
+
+        tracker.completed(10);
+        assertEquals(25, tracker.watermark());
+
+        tracker.completed(25);
+        assertEquals(40, tracker.watermark(), "All done -> next offset to read");
+        assertEquals(0, tracker.inFlight());
+        assertEquals(10, tracker.firstOffset());
+    }
+
+    @Test
+    void settings_shouldParseStagesAndRejectBadValues() {
+        Properties props = new Properties();
+        props.setProperty("consumer.pipeline.handlers", " log, jdbc ,");
+        props.setProperty("consumer.pipeline.batching", "partition");
+        PipelineSettings settings = PipelineSettings.from(props);
+        assertEquals(List.of("log", "jdbc"), settings.handlers());
+        assertTrue(settings.perPartition());
+        assertFalse(PipelineSettings.from(new Properties()).perPartition());
+
+        props.setProperty("consumer.pipeline.batching", "record");
+        assertThrows(IllegalArgumentException.class, () -> PipelineSettings.from(props));
+        assertThrows(IllegalArgumentException.class, () -> new PipelineSettings(List.of(), false, 4, 1, 16, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> new PipelineSettings(List.of("log"), false, 0, 1, 16, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> PaymentHandler.create("no.such.Handler", new Properties()));
+    }
+
+    @Test
+    void run_shouldPassBatchesThroughAsyncStagesAndCommitWhenAllCompleted() throws InterruptedException {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        List<TopicPartition> partitions = List.of(new TopicPartition(TOPIC, 0), new TopicPartition(TOPIC, 1));
+        int perPartition = 1_000;
+        scheduleRecords(consumer, partitions, perPartition);
+
+        // Stage 1 completes on a scheduler, out of order; stage 2 counts what made it through
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        Map<Long, Boolean> seenByBoth = new ConcurrentHashMap<>();
+        AtomicInteger secondStageRecords = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(perPartition * partitions.size());
+        PaymentHandler<String> enrich = batch -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                batch.forEach(r -> seenByBoth.put(r.partition() * 1_000_000L + r.offset(), false));
+                future.complete(null);
+            }, ThreadLocalRandom.current().nextInt(3), TimeUnit.MILLISECONDS);
+            return future;
+        };
+        PaymentHandler<String> store = batch -> {
+            for (ConsumerRecord<String, String> r : batch) {
+                assertNotNull(seenByBoth.replace(r.partition() * 1_000_000L + r.offset(), true),
+                        "Second stage must only see batches the first completed");
+                secondStageRecords.incrementAndGet();
+                done.countDown();
+            }
+            return CompletableFuture.completedFuture(null);
+        };
+
+        PipelineSettings settings = new PipelineSettings(List.of("enrich", "store"), true, 2, 4, 8, 5_000);
+        try (CommitStrategy commits = CommitStrategy.create(fastCommits(), "async-batched",
+                     new CommitMetrics("pipeline-test"));
+             PaymentPipeline<String> pipeline = new PaymentPipeline<>(consumer, List.of(enrich, store), settings, commits)) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread poller = new Thread(() -> pipeline.run(List.of(TOPIC), running));
+            poller.start();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS), "All records should reach the last stage");
+            running.set(false);
+            poller.join(10_000);
+
+            assertEquals(perPartition * partitions.size(), pipeline.processedCount());
+            assertEquals(0, pipeline.failedCount());
+            assertTrue(pipeline.batchCount() >= partitions.size(), "One batch per partition and poll");
+        } finally {
+            scheduler.shutdownNow();
+        }
+
+        assertEquals(perPartition * partitions.size(), secondStageRecords.get());
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.copyOf(partitions));
+        for (TopicPartition tp : partitions) {
+            assertEquals(perPartition, committed.get(tp).offset(), "Final commit should cover every record of " + tp);
+        }
+    }
+
+    @Test
+    void run_shouldNotCommitPastABatchWhoseFutureIsPending() throws InterruptedException {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        TopicPartition tp = new TopicPartition(TOPIC, 0);
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(tp));
+            consumer.updateBeginningOffsets(Map.of(tp, 0L));
+            for (int i = 0; i < 10; i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "card-" + i, "payment-" + i));
+            }
+        });
+        consumer.schedulePollTask(() -> {
+            for (int i = 10; i < 20; i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "card-" + i, "payment-" + i));
+            }
+        });
+
+        // The first batch is held back; the second completes at once
+        CompletableFuture<Void> held = new CompletableFuture<>();
+        CountDownLatch secondDone = new CountDownLatch(1);
+        PaymentHandler<String> handler = batch -> {
+            long first = batch.iterator().next().offset();
+            if (first == 0) {
+                return held;
+            }
+            secondDone.countDown();
+            return CompletableFuture.completedFuture(null);
+        };
+
+        PipelineSettings settings = new PipelineSettings(List.of("held"), false, 4, 2, 16, 5_000);
+        try (CommitStrategy commits = CommitStrategy.create(fastCommits(), "async-batched",
+                     new CommitMetrics("pipeline-test"));
+             PaymentPipeline<String> pipeline = new PaymentPipeline<>(consumer, List.of(handler), settings, commits)) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread poller = new Thread(() -> pipeline.run(List.of(TOPIC), running));
+            poller.start();
+
+            assertTrue(secondDone.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100); // several poll loops and commit intervals
+            OffsetAndMetadata early = consumer.committed(Set.of(tp)).get(tp);
+            assertTrue(early == null || early.offset() == 0, "Nothing is committable while offset 0 is pending");
+
+            held.completeExceptionally(new IllegalStateException("sink unavailable"));
+            running.set(false);
+            poller.join(10_000);
+
+            assertEquals(20, pipeline.processedCount());
+            assertEquals(10, pipeline.failedCount(), "A failed batch is counted and skipped");
+        }
+        assertEquals(20, consumer.committed(Set.of(tp)).get(tp).offset());
+    }
+
+    @Test
+    void run_withRecovery_shouldHandFailedBatchesOnAndSkipLaterStages() throws InterruptedException {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        TopicPartition tp = new TopicPartition(TOPIC, 0);
+        scheduleRecords(consumer, List.of(tp), 10);
+
+        AtomicInteger lastStage = new AtomicInteger();
+        List<Long> recovered = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        PaymentHandler<String> failing = batch -> CompletableFuture.failedFuture(new IllegalStateException("down"));
+        PaymentHandler<String> store = batch -> {
+            lastStage.addAndGet(batch.count());
+            return CompletableFuture.completedFuture(null);
+        };
+
+        PipelineSettings settings = new PipelineSettings(List.of("failing", "store"), false, 4, 1, 16, 5_000);
+        try (CommitStrategy commits = CommitStrategy.create(fastCommits(), "async-batched",
+                     new CommitMetrics("pipeline-test"));
+             PaymentPipeline<String> pipeline = new PaymentPipeline<>(consumer, List.of(failing, store), settings,
+                     commits, (batch, error) -> {
+                         assertEquals("down", error.getMessage());
+                         batch.forEach(r -> recovered.add(r.offset()));
+                         done.countDown();
+                         return CompletableFuture.completedFuture(null);
+                     })) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread poller = new Thread(() -> pipeline.run(List.of(TOPIC), running));
+            poller.start();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            running.set(false);
+            poller.join(10_000);
+
+            assertEquals(10, pipeline.recoveredCount());
+            assertEquals(0, pipeline.failedCount(), "Recovered batches are not failures");
+        }
+        assertEquals(10, recovered.size());
+        assertEquals(0, lastStage.get(), "A failed batch still skips the remaining stages");
+        assertEquals(10, consumer.committed(Set.of(tp)).get(tp).offset());
+    }
+
+    @Test
+    void jdbcSink_shouldWriteBatchesInBulkAndPerRecord() throws SQLException {
+        for (String bulk : List.of("true", "false")) {
+            Properties props = new Properties();
+            String url = "jdbc:h2:mem:pipeline-test-" + bulk + ";DB_CLOSE_DELAY=-1";
+            props.setProperty("consumer.pipeline.jdbc.url", url);
+            props.setProperty("consumer.pipeline.jdbc.bulk", bulk);
+            TopicPartition tp = new TopicPartition(TOPIC, 3);
+            List<ConsumerRecord<String, String>> records = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                records.add(new ConsumerRecord<>(TOPIC, 3, 100 + i, "txn-" + i, "{\"amount\":" + i + "}"));
+            }
+            Map<TopicPartition, List<ConsumerRecord<String, String>>> byPartition = new HashMap<>();
+            byPartition.put(tp, records);
+
+            try (PaymentHandler<String> sink = PaymentHandler.create("jdbc", props)) {
+                sink.handle(new ConsumerRecords<>(byPartition)).join();
+            }
+
+            try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                 Statement query = connection.createStatement();
+                 ResultSet rs = query.executeQuery(
+                         "SELECT COUNT(*), MIN(kafka_offset), MAX(kafka_offset) FROM payments WHERE kafka_partition = 3")) {
+                assertTrue(rs.next());
+                assertEquals(50, rs.getInt(1), "bulk=" + bulk);
+                assertEquals(100, rs.getLong(2));
+                assertEquals(149, rs.getLong(3));
+            }
+        }
+    }
+
+    private static void scheduleRecords(MockConsumer<String, String> consumer, List<TopicPartition> partitions,
+                                        int perPartition) {
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(partitions);
+            Map<TopicPartition, Long> beginning = new HashMap<>();
+            partitions.forEach(tp -> beginning.put(tp, 0L));
+            consumer.updateBeginningOffsets(beginning);
+            for (int i = 0; i < perPartition; i++) {
+                for (TopicPartition tp : partitions) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, tp.partition(), i, "card-" + (i % 50), "payment-" + i));
+                }
+            }
+        });
+    }
+
+    private static Properties fastCommits() {
+        Properties props = new Properties();
+        props.setProperty("consumer.commit.interval.ms", "10");
+        return props;
+    }
+}
@@ -0,0 +1,227 @@
+package io.confluent.ps.consumer.retry;
+
+import io.confluent.ps.consumer.commit.CommitMetrics;
+import io.confluent.ps.consumer.commit.CommitStrategy;
+import io.confluent.ps.consumer.pipeline.PaymentHandler;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryRouterTest {
+
+    private static final String TOPIC = "payments";
+    private static final RetrySettings TWO_TIERS = new RetrySettings(true, List.of(1_000L, 5_000L), "");
+
+    private final MockProducer<String, byte[]> producer = new MockProducer<>(true, new StringSerializer(),
+            new ByteArraySerializer());
+    private final RetryMetrics metrics = new RetryMetrics(new Metrics(), "test");
+    private final AtomicLong now = new AtomicLong(100_000);
+    private final RetryRouter<String> router = new RetryRouter<>(producer, new StringSerializer(), TWO_TIERS,
+            metrics, now::get);
+
+    @Test
+    void settings_shouldParseTiersAndNameTopics() {
+        Properties props = new Properties();
+        props.setProperty("consumer.retry.enabled", "true");
+        props.setProperty("consumer.retry.delays.ms", " 1000, 60000 ,");
+        RetrySettings settings = RetrySettings.from(props);
+        assertTrue(settings.enabled());
+        assertEquals(2, settings.tiers());
+        assertEquals(60_000, settings.delayMs(2));
+        assertEquals("payments-retry-1", settings.retryTopic(TOPIC, 1));
+        assertEquals("payments-dlq", settings.dlqTopic(TOPIC));
+        assertFalse(RetrySettings.from(new Properties()).enabled());
+
+        props.setProperty("consumer.retry.dlq.topic", "payments-parked");
+        assertEquals("payments-parked", RetrySettings.from(props).dlqTopic(TOPIC));
+        props.setProperty("consumer.retry.delays.ms", "-1");
+        assertThrows(IllegalArgumentException.class, () -> RetrySettings.from(props));
+    }
+
+    @Test
+    void route_shouldWalkTheTiersThenDeadLetter() {
+        ConsumerRecord<String, String> failed = new ConsumerRecord<>(TOPIC, 2, 40, "txn-1", "{\"amount\":10}");
+
+        router.route(failed, new IllegalStateException("ledger unavailable")).join();
+        ProducerRecord<String, byte[]> first = producer.history().get(0);
+        assertEquals("payments-retry-1", first.topic());
+        assertEquals("txn-1", first.key(), "Same key, so a card's retries stay in order");
+        assertEquals("{\"amount\":10}", new String(first.value(), StandardCharsets.UTF_8));
+        assertEquals(1, RetryHeaders.attempt(first.headers()));
+        assertEquals(101_000, RetryHeaders.notBefore(first.headers()));
+        assertEquals(TOPIC, RetryHeaders.text(first.headers(), RetryHeaders.ORIGIN_TOPIC));
+        assertEquals("40", RetryHeaders.text(first.headers(), RetryHeaders.ORIGIN_OFFSET));
+        assertEquals("java.lang.IllegalStateException: ledger unavailable",
+                RetryHeaders.text(first.headers(), RetryHeaders.ERROR));
+        assertEquals(0, failed.headers().toArray().length, "The consumed record is not modified");
+
+        ProducerRecord<String, byte[]> second = reconsumeAndFail(first, 0);
+        assertEquals("payments-retry-2", second.topic());
+        assertEquals(105_000, RetryHeaders.notBefore(second.headers()));
+        assertEquals("2", RetryHeaders.text(second.headers(), RetryHeaders.ORIGIN_PARTITION),
+                "The origin is the main topic, not the tier");
+
+        ProducerRecord<String, byte[]> last = reconsumeAndFail(second, 0);
+        assertEquals("payments-dlq", last.topic());
+        assertEquals(3, RetryHeaders.attempt(last.headers()));
+        assertNull(last.headers().lastHeader(RetryHeaders.NOT_BEFORE), "Dead letters are not due again");
+
+        assertEquals(2, metrics.value("retry-routed-total"));
+        assertEquals(1, metrics.value("dead-letter-total"));
+    }
+
+    @Test
+    void route_shouldFailTheFutureWhenTheProducerDoes() {
+        MockProducer<String, byte[]> failing = new MockProducer<>(false, new StringSerializer(),
+                new ByteArraySerializer());
+        RetryRouter<String> router = new RetryRouter<>(failing, new StringSerializer(), TWO_TIERS, metrics, now::get);
+
+        CompletableFuture<Void> routed = router.route(new ConsumerRecord<>(TOPIC, 0, 1, "txn-1", "{}"),
+                new IllegalStateException("boom"));
+        assertFalse(routed.isDone(), "Waits for the acknowledgement");
+        failing.errorNext(new IllegalStateException("topic missing"));
+        assertTrue(routed.isCompletedExceptionally());
+        assertEquals(1, metrics.value("route-failed-total"));
+    }
+
+    @Test
+    void poisonPill_shouldBeDeadLetteredWithItsRawBytes() {
+        Map<Object, Object> configs = new HashMap<>();
+        configs.put("value.deserializer", DigitsOnly.class.getName());
+        PoisonPillDeserializer.wrap(configs);
+        assertEquals(PoisonPillDeserializer.class.getName(), configs.get("value.deserializer"));
+        assertEquals(DigitsOnly.class.getName(), configs.get(PoisonPillDeserializer.DELEGATE_CONFIG));
+
+        Map<String, Object> stringKeys = new HashMap<>();
+        configs.forEach((k, v) -> stringKeys.put(String.valueOf(k), v));
+        List<String> handled = new CopyOnWriteArrayList<>();
+        try (PoisonPillDeserializer<String> deserializer = new PoisonPillDeserializer<>()) {
+            deserializer.configure(stringKeys, false);
+            ConsumerRecord<String, String> poison = new ConsumerRecord<>(TOPIC, 0, 7, "txn-7", null);
+            ConsumerRecord<String, String> good = new ConsumerRecord<>(TOPIC, 0, 8, "txn-8", "42");
+            assertNull(deserializer.deserialize(TOPIC, poison.headers(), utf8("forty-two")));
+            assertEquals("42", deserializer.deserialize(TOPIC, good.headers(), utf8("42")));
+            assertTrue(RetryHeaders.isPoison(poison.headers()));
+            assertFalse(RetryHeaders.isPoison(good.headers()));
+
+            java.util.function.Consumer<ConsumerRecord<String, String>> guarded = router.guard(r -> handled.add(r.value()));
+            guarded.accept(poison);
+            guarded.accept(good);
+        }
+
+        assertEquals(List.of("42"), handled, "The handler never sees the poison record");
+        ProducerRecord<String, byte[]> dead = producer.history().get(0);
+        assertEquals("payments-dlq", dead.topic(), "Poison skips the retry tiers");
+        assertArrayEquals(utf8("forty-two"), dead.value());
+        assertNull(dead.headers().lastHeader(RetryHeaders.POISON_VALUE));
+        assertTrue(RetryHeaders.text(dead.headers(), RetryHeaders.ERROR).contains("not a number"));
+        assertEquals(1, metrics.value("handler-error-total"));
+    }
+
+    @Test
+    void tier_shouldWaitUntilDueThenRetryAndRerouteFailures() throws InterruptedException {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        TopicPartition tp = new TopicPartition("payments-retry-1", 0);
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(tp));
+            consumer.updateBeginningOffsets(Map.of(tp, 0L));
+            consumer.addRecord(tierRecord(0, "ok", 101_000));
+            consumer.addRecord(tierRecord(1, "bad", 101_000));
+        });
+        List<String> handled = new CopyOnWriteArrayList<>();
+        PaymentHandler<String> handler = PaymentHandler.perRecord(r -> {
+            handled.add(r.value());
+            if (r.value().equals("bad")) {
+                throw new IllegalStateException("still failing");
+            }
+        });
+
+        try (CommitStrategy commits = CommitStrategy.create(new Properties(), "sync", new CommitMetrics("tier-test"));
+             RetryTierConsumer<String> tier = new RetryTierConsumer<>(1, tp.topic(), consumer, handler, router,
+                     commits, now::get).start()) {
+            awaitTrue(() -> consumer.paused().contains(tp), "Not due yet: the partition waits paused");
+            assertTrue(handled.isEmpty());
+
+            now.set(101_000);
+            awaitTrue(() -> tier.processedCount() == 2, "Both payments are retried once due");
+            assertEquals(List.of("ok", "bad"), handled);
+            assertFalse(consumer.paused().contains(tp));
+        }
+
+        assertEquals(1, metrics.value("retry-recovered-total"));
+        assertEquals(1, metrics.value("handler-error-total"));
+        assertEquals("payments-retry-2", producer.history().get(0).topic(), "A failure moves one tier up");
+        OffsetAndMetadata committed = consumer.committed(Set.of(tp)).get(tp);
+        assertEquals(2, committed.offset());
+    }
+
+    /** Delegate for the poison-pill test: rejects anything but digits. */
+    public static final class DigitsOnly implements Deserializer<String> {
+
+        private final StringDeserializer strings = new StringDeserializer();
+
+        @Override
+        public String deserialize(String topic, byte[] data) {
+            String value = strings.deserialize(topic, data);
+            if (value == null || !value.chars().allMatch(Character::isDigit)) {
+                throw new SerializationException("not a number: " + value);
+            }
+            return value;
+        }
+    }
+
+    private ProducerRecord<String, byte[]> reconsumeAndFail(ProducerRecord<String, byte[]> routed, long offset) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(routed.topic(), 0, offset, routed.key(),
+                new String(routed.value(), StandardCharsets.UTF_8));
+        routed.headers().forEach(h -> record.headers().add(h));
+        int before = producer.history().size();
+        router.route(record, new IllegalStateException("still failing")).join();
+        return producer.history().get(before);
+    }
+
+    private static ConsumerRecord<String, String> tierRecord(long offset, String value, long notBefore) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("payments-retry-1", 0, offset, "txn-" + offset, value);
+        RetryHeaders.put(record.headers(), RetryHeaders.ORIGIN_TOPIC, TOPIC);
+        RetryHeaders.put(record.headers(), RetryHeaders.ATTEMPT, "1");
+        RetryHeaders.put(record.headers(), RetryHeaders.NOT_BEFORE, Long.toString(notBefore));
+        return record;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, message);
+            Thread.sleep(5);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+package io.confluent.ps.consumer.trace;
+
+import io.confluent.ps.tracing.Hop;
+import io.confluent.ps.tracing.TraceHeaders;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceLatencyInterceptorTest {
+
+    @Test
+    void record_shouldSplitTheWayThroughTheTopologyIntoHops() {
+        TraceLatencyInterceptor<String, String> interceptor = new TraceLatencyInterceptor<>();
+        interceptor.configure(Map.of(ConsumerConfig.CLIENT_ID_CONFIG, "payment-consumer"));
+
+        Headers viaTopology = TraceHeaders.stamp(new RecordHeaders(), "00000000000000aa", 1_000_000L);
+        TraceHeaders.put(viaTopology, TraceHeaders.STREAMS_IN_US, 1_020_000L);
+        TraceHeaders.put(viaTopology, TraceHeaders.STREAMS_OUT_US, 1_050_000L);
+        interceptor.record(viaTopology, 1_150_000L);
+
+        // Read straight from the payments topic: only the end-to-end hop
+        interceptor.record(TraceHeaders.stamp(new RecordHeaders(), "00000000000000bb", 1_000_000L), 1_005_000L);
+        interceptor.record(new RecordHeaders(), 1_005_000L);
+        interceptor.latencies().report();
+
+        assertEquals(1, interceptor.latencies().total(Hop.INGEST).getTotalCount());
+        assertEquals(20_000, interceptor.latencies().total(Hop.INGEST).getMaxValue(), 20);
+        assertEquals(30_000, interceptor.latencies().total(Hop.TOPOLOGY).getMaxValue(), 30);
+        assertEquals(100_000, interceptor.latencies().total(Hop.DELIVERY).getMaxValue(), 100);
+        assertEquals(2, interceptor.latencies().total(Hop.END_TO_END).getTotalCount(), "Untraced records are ignored");
+        assertEquals(150_000, interceptor.latencies().total(Hop.END_TO_END).getMaxValue(), 150);
+        assertEquals(0, interceptor.latencies().total(Hop.PRODUCE).getTotalCount());
+    }
+
+    @Test
+    void onConsume_shouldPassRecordsThroughUnchanged() {
+        TraceLatencyInterceptor<String, String> interceptor = new TraceLatencyInterceptor<>();
+        interceptor.configure(Map.of(TraceLatencyInterceptor.REPORT_INTERVAL_MS_CONFIG, "1"));
+
+        TopicPartition tp = new TopicPartition("fraud-alerts", 0);
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(tp.topic(), tp.partition(), 0, "txn-1", "{}");
+        TraceHeaders.stamp(record.headers(), TraceHeaders.newTraceId(), TraceHeaders.nowMicros() - 2_000);
+        ConsumerRecords<String, String> records = new ConsumerRecords<>(Map.of(tp, List.of(record)));
+
+        assertSame(records, interceptor.onConsume(records));
+        interceptor.latencies().report();
+        assertTrue(interceptor.latencies().total(Hop.END_TO_END).getMaxValue() >= 1_000);
+        interceptor.close();
+    }
+
+    @Test
+    void install_shouldAppendToConfiguredInterceptorsOnce() {
+        String name = TraceLatencyInterceptor.class.getName();
+        Properties props = new Properties();
+        props.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, "com.example.AuditInterceptor");
+        TraceLatencyInterceptor.install(props);
+        TraceLatencyInterceptor.install(props);
+        assertEquals("com.example.AuditInterceptor," + name, props.get(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG));
+
+        Properties disabled = new Properties();
+        disabled.put(TraceLatencyInterceptor.ENABLED_CONFIG, "false");
+        TraceLatencyInterceptor.install(disabled);
+        assertNull(disabled.get(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG));
+
+        assertThrows(IllegalArgumentException.class, () -> new TraceLatencyInterceptor<String, String>()
+                .configure(Map.of(TraceLatencyInterceptor.REPORT_INTERVAL_MS_CONFIG, "0")));
+    }
+}
@@ -1,7 +1,20 @@
 package io.confluent.ps.producer;
 
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import io.confluent.ps.model.Payment;
+import io.confluent.ps.model.PaymentStatus;
+import io.confluent.ps.producer.json.PaymentJsonSerializer;
+
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class PaymentProducerTest {
@@ -52,4 +65,66 @@ class PaymentProducerTest {
         assertTrue(json2.contains("EU-WEST"), "Sequence 2 -> EU-WEST");
         assertTrue(json3.contains("AP-SOUTH"), "Sequence 3 -> AP-SOUTH");
     }
+
+    @Test
+    void buildPayment_shouldMirrorJsonFields() {
+        Payment payment = PaymentProducer.buildPayment("txn-avro", 103);
+
+        assertEquals("txn-avro", payment.getTransactionId().toString());
+        assertEquals(151.11, payment.getAmount(), 0.001);
+        assertEquals("AP-SOUTH", payment.getRegion().toString());
+        assertEquals("MERCH-004", payment.getMerchantId().toString());
+        assertEquals(PaymentStatus.PENDING, payment.getStatus());
+        assertTrue(payment.getCardNumberMasked().toString().startsWith("****-****-****-"),
+                "Card number must be masked (PCI-DSS)");
+        assertNull(payment.getRiskScore(), "Producer must not set a risk score");
+    }
+
+    @Test
+    void buildPayment_avroRoundTrip_shouldBeSmallerThanJson() {
+        String scope = "payment-producer-test";
+        Map<String, Object> config = Map.of(
+                AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, "mock://" + scope,
+                KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, true);
+
+        try (KafkaAvroSerializer serializer = new KafkaAvroSerializer();
+             KafkaAvroDeserializer deserializer = new KafkaAvroDeserializer()) {
+            serializer.configure(config, false);
+            deserializer.configure(config, false);
+
+            Payment payment = PaymentProducer.buildPayment("txn-avro", 100);
+            byte[] avro = serializer.serialize("payments", payment);
+            Payment decoded = (Payment) deserializer.deserialize("payments", avro);
+
+            assertEquals(payment, decoded);
+            byte[] json = PaymentProducer.buildPaymentJson("txn-avro", 100).getBytes(StandardCharsets.UTF_8);
+            assertTrue(avro.length < json.length,
+                    "Avro payload (" + avro.length + " B) should be smaller than JSON (" + json.length + " B)");
+        } finally {
+            MockSchemaRegistry.dropScope(scope);
+        }
+    }
+
+    @Test
+    void jsonSerializer_shouldBeByteIdenticalToBuildPaymentJson() {
+        long epochMillis = Instant.parse("2024-03-01T12:34:56.789Z").toEpochMilli();
+        Payment reusable = new Payment();
+        StringBuilder card = new StringBuilder();
+
+        try (PaymentJsonSerializer serializer = new PaymentJsonSerializer()) {
+            // Covers every amount (sequence % 500), card suffix wrap-around at 9999 and all merchants/regions
+            for (int sequence = 0; sequence < 20_000; sequence++) {
+                String txnId = "txn-" + sequence;
+                byte[] expected = PaymentProducer.buildPaymentJson(txnId, sequence, epochMillis)
+                        .getBytes(StandardCharsets.UTF_8);
+
+                Payment payment = PaymentProducer.fillPayment(reusable, card, txnId, sequence, epochMillis);
+                assertArrayEquals(expected, serializer.serialize("payments", payment),
+                        "sequence " + sequence);
+            }
+            assertArrayEquals(
+                    PaymentProducer.buildPaymentJson("txn-x", 103, epochMillis).getBytes(StandardCharsets.UTF_8),
+                    serializer.serialize("payments", PaymentProducer.buildPayment("txn-x", 103, epochMillis)));
+        }
+    }
 }
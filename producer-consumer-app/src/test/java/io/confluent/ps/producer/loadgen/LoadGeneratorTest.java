@@ -0,0 +1,107 @@
+package io.confluent.ps.producer.loadgen;
+
+import io.confluent.ps.producer.tuning.AdaptiveBatchTuner;
+import io.confluent.ps.producer.tuning.AdaptiveBatchTuner.Batching;
+import io.confluent.ps.producer.tuning.AdaptiveSettings;
+import io.confluent.ps.tracing.TraceHeaders;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    private static PayloadPool pool(int size) {
+        return PayloadPool.generate(size, "payments",
+                (txnId, seq) -> "{\"transaction_id\":\"" + txnId + "\",\"seq\":" + seq + "}",
+                new StringSerializer());
+    }
+
+    @Test
+    void unthrottledRun_shouldSendRequestedRecordsFromAllThreads() throws InterruptedException {
+        MockProducer<String, byte[]> producer =
+                new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        LoadGenSettings settings = new LoadGenSettings("payments", 0, 1, 4, 10_000, 0, 128);
+
+        LoadGenReport report = new LoadGenerator(producer, pool(128), settings).run();
+
+        assertEquals(10_000, report.sent());
+        assertEquals(10_000, report.acked());
+        assertEquals(0, report.failed());
+        assertEquals(10_000, producer.history().size());
+        assertEquals(10_000, report.ackLatencyMicros().getTotalCount());
+        assertTrue(report.recordsPerSecond() > 0);
+        assertTrue(report.megabytesPerSecond() > 0);
+
+        // Stamped at send time, not when the pool was built
+        long created = TraceHeaders.micros(producer.history().get(0).headers(), TraceHeaders.CREATED_US);
+        assertTrue(created > 0, "Records carry their creation time");
+        assertNotEquals(TraceHeaders.traceId(producer.history().get(0).headers()),
+                TraceHeaders.traceId(producer.history().get(1).headers()));
+    }
+
+    @Test
+    void throttledRun_shouldNotExceedTargetRate() throws InterruptedException {
+        MockProducer<String, byte[]> producer =
+                new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        // 500 records at 1000/s with a burst of 1 -> at least ~0.5 s
+        LoadGenSettings settings = new LoadGenSettings("payments", 1000, 1, 2, 500, 0, 16);
+
+        LoadGenReport report = new LoadGenerator(producer, pool(16), settings).run();
+
+        assertEquals(500, report.acked());
+        assertTrue(report.elapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(450),
+                "Run finished too fast for the target rate: " + report.summary());
+    }
+
+    @Test
+    void adaptiveRun_shouldSwapInTheRetunedProducer() throws InterruptedException {
+        MockProducer<String, byte[]> first =
+                new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        List<Batching> retunes = new ArrayList<>();
+        List<MockProducer<String, byte[]>> reconnected = new ArrayList<>();
+
+        try (Metrics metrics = new Metrics()) {
+            // Full batches well within the latency budget: the tuner doubles batch.size once
+            Map<String, String> tags = Map.of("client-id", "loadgen");
+            metrics.addMetric(metrics.metricName("batch-size-avg", "producer-metrics", "", tags),
+                    (Measurable) (config, now) -> 16_000);
+            metrics.addMetric(metrics.metricName("record-queue-time-avg", "producer-metrics", "", tags),
+                    (Measurable) (config, now) -> 4);
+            metrics.addMetric(metrics.metricName("request-latency-avg", "producer-metrics", "", tags),
+                    (Measurable) (config, now) -> 6);
+            metrics.metrics().forEach(first::setMockMetrics);
+
+            AdaptiveBatchTuner tuner = new AdaptiveBatchTuner(
+                    new AdaptiveSettings(true, 1, 50, 0, 100, 16_384, 1_048_576), new Batching(5, 16_384), 0);
+            // 600 records at 2000/s -> ~0.3 s, a few tuner checks
+            LoadGenSettings settings = new LoadGenSettings("payments", 2000, 1, 2, 600, 0, 16);
+
+            LoadGenReport report = new LoadGenerator(first, pool(16), settings, tuner, next -> {
+                retunes.add(next);
+                MockProducer<String, byte[]> producer =
+                        new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+                reconnected.add(producer);
+                return producer;
+            }).run();
+
+            // The new producer reports no batches yet, so there is no second retune
+            assertEquals(List.of(new Batching(5, 32_768)), retunes);
+            assertEquals(600, report.acked());
+            assertEquals(600, first.history().size() + reconnected.get(0).history().size());
+            assertTrue(first.closed(), "Drained and closed on the retune");
+            assertTrue(reconnected.get(0).closed(), "Closed when the run returns");
+        }
+    }
+}
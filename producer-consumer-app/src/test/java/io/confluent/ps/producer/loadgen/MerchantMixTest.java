@@ -0,0 +1,72 @@
+package io.confluent.ps.producer.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerchantMixTest {
+
+    @Test
+    void zipfSampler_shouldFavourTheTopRanks() {
+        ZipfSampler sampler = new ZipfSampler(1_000, 1.0, 7);
+        int[] counts = new int[sampler.ranks()];
+        int draws = 200_000;
+        for (int i = 0; i < draws; i++) {
+            counts[sampler.next()]++;
+        }
+
+        // P(rank 0) = 1 / H(1000) ~ 0.1336, twice P(rank 1)
+        assertEquals(sampler.probability(0), (double) counts[0] / draws, 0.005);
+        assertEquals(2.0, sampler.probability(0) / sampler.probability(1), 1e-9);
+        int top10 = 0;
+        for (int k = 0; k < 10; k++) {
+            top10 += counts[k];
+        }
+        assertTrue(top10 > draws * 0.35, "top 10 of 1000 ranks drew " + top10);
+    }
+
+    @Test
+    void zipfSampler_shouldBeUniformWithExponentZeroAndRepeatableBySeed() {
+        ZipfSampler uniform = new ZipfSampler(4, 0.0, 1);
+        for (int k = 0; k < 4; k++) {
+            assertEquals(0.25, uniform.probability(k), 1e-12);
+        }
+
+        ZipfSampler a = new ZipfSampler(100, 1.2, 99);
+        ZipfSampler b = new ZipfSampler(100, 1.2, 99);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(a.next(), b.next());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(0, 1.0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(10, -1.0, 1));
+    }
+
+    @Test
+    void referenceData_shouldBeDeterministicAndMostlyLowRisk() {
+        assertEquals("MERCH-000001", MerchantMix.merchantId(0));
+        assertEquals(MerchantMix.referenceJson(41), MerchantMix.referenceJson(41));
+
+        int high = 0;
+        for (int rank = 0; rank < 16_000; rank++) {
+            String json = MerchantMix.referenceJson(rank);
+            assertTrue(json.startsWith("{\"merchant_id\":\"" + MerchantMix.merchantId(rank) + "\""), json);
+            if (json.contains("\"risk_tier\":\"high\"")) {
+                high++;
+            }
+        }
+        assertEquals(1_000, high, 100);
+    }
+
+    @Test
+    void from_shouldDefaultToTheFixedMerchants() {
+        MerchantMix mix = MerchantMix.from(new Properties());
+        assertFalse(mix.enabled());
+        assertEquals(0, mix.publishReferenceData(null));
+
+        Properties props = new Properties();
+        props.put("loadgen.merchants", "-1");
+        assertThrows(IllegalArgumentException.class, () -> MerchantMix.from(props));
+    }
+}
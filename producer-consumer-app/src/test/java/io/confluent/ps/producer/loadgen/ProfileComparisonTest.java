@@ -0,0 +1,66 @@
+package io.confluent.ps.producer.loadgen;
+
+import io.confluent.ps.config.ProducerProfile;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileComparisonTest {
+
+    @Test
+    void profile_shouldNotOverrideExplicitSettings() {
+        Properties props = props("producer.profile", "bulk");
+        props.setProperty("linger.ms", "20");
+
+        ProducerProfile.from(props).applyTo(props);
+
+        assertEquals("20", props.getProperty("linger.ms"));
+        assertEquals("262144", props.getProperty("batch.size"));
+        assertEquals("zstd", props.getProperty("compression.type"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProducerProfile.from(props("producer.profile", "fastest")));
+    }
+
+    @Test
+    void run_shouldReportEveryProfileWithItsOwnProducerSettings() throws InterruptedException {
+        Properties base = props("linger.ms", "999");
+        PayloadPool pool = PayloadPool.generate(16, "payments",
+                (txnId, seq) -> "{\"transaction_id\":\"" + txnId + "\"}", new StringSerializer());
+        LoadGenSettings settings = new LoadGenSettings("payments", 0, 1, 2, 1_000, 0, 16);
+        List<Properties> seen = new ArrayList<>();
+
+        Map<ProducerProfile, LoadGenReport> reports = new ProfileComparison(base, pool, settings, props -> {
+            seen.add(props);
+            return new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        }).run(ProfileComparison.profiles(new Properties()));
+
+        assertEquals(List.of(ProducerProfile.LATENCY, ProducerProfile.BALANCED, ProducerProfile.BULK),
+                List.copyOf(reports.keySet()));
+        reports.values().forEach(r -> assertEquals(1_000, r.acked()));
+        assertEquals(List.of("0", "5", "50"), seen.stream().map(p -> p.getProperty("linger.ms")).toList());
+        assertEquals("999", base.getProperty("linger.ms"), "base configuration must stay untouched");
+        assertTrue(ProfileComparison.table(reports).contains("bulk"));
+    }
+
+    @Test
+    void profiles_shouldFollowConfiguredOrder() {
+        assertEquals(List.of(ProducerProfile.BULK, ProducerProfile.LATENCY),
+                ProfileComparison.profiles(props("loadgen.profiles", "bulk, latency")));
+    }
+
+    private static Properties props(String key, String value) {
+        Properties props = new Properties();
+        props.setProperty(key, value);
+        return props;
+    }
+}
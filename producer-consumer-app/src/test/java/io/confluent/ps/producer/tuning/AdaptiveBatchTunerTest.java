@@ -0,0 +1,81 @@
+package io.confluent.ps.producer.tuning;
+
+import io.confluent.ps.producer.tuning.AdaptiveBatchTuner.Batching;
+import io.confluent.ps.producer.tuning.AdaptiveBatchTuner.Sample;
+
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.Metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBatchTunerTest {
+
+    // interval 1 s, 50 ms budget, linger 0..100 ms, batch 16 KiB..1 MiB
+    private static final AdaptiveSettings SETTINGS =
+            new AdaptiveSettings(true, 1_000, 50, 0, 100, 16_384, 1_048_576);
+
+    private static AdaptiveBatchTuner tuner(int lingerMs, int batchSize) {
+        return new AdaptiveBatchTuner(SETTINGS, new Batching(lingerMs, batchSize), 0);
+    }
+
+    @Test
+    void fullBatches_shouldGrowBatchSize() {
+        Batching next = tuner(5, 65_536).evaluate(new Sample(62_000, 10, 5));
+
+        assertEquals(new Batching(5, 131_072), next);
+    }
+
+    @Test
+    void overLatencyBudgetWithPartialBatches_shouldHalveLinger() {
+        Batching next = tuner(40, 65_536).evaluate(new Sample(20_000, 60, 15));
+
+        assertEquals(new Batching(20, 65_536), next);
+    }
+
+    @Test
+    void sparseBatchesWellUnderBudget_shouldRaiseLingerThenShrinkBatch() {
+        assertEquals(new Batching(1, 65_536), tuner(0, 65_536).evaluate(new Sample(8_000, 2, 3)));
+        assertEquals(new Batching(20, 65_536), tuner(10, 65_536).evaluate(new Sample(8_000, 2, 3)));
+        // linger already at its maximum: halve the oversized batch instead
+        assertEquals(new Batching(100, 32_768), tuner(100, 65_536).evaluate(new Sample(8_000, 2, 3)));
+    }
+
+    @Test
+    void steadyStateOrIdle_shouldKeepSettings() {
+        assertNull(tuner(5, 65_536).evaluate(new Sample(45_000, 10, 5)));
+        assertNull(tuner(5, 65_536).evaluate(new Sample(Double.NaN, Double.NaN, Double.NaN)));
+    }
+
+    @Test
+    void decisions_shouldStayWithinBounds() {
+        AdaptiveBatchTuner atMax = tuner(5, 1_048_576);
+        assertNull(atMax.evaluate(new Sample(1_000_000, 10, 5)));
+
+        AdaptiveBatchTuner outOfBounds = tuner(500, 1_000);
+        assertEquals(new Batching(100, 16_384), outOfBounds.current());
+    }
+
+    @Test
+    void poll_shouldReadProducerMetricsOncePerInterval() {
+        try (Metrics metrics = new Metrics()) {
+            Map<String, String> tags = Map.of("client-id", "test");
+            metrics.addMetric(metrics.metricName("batch-size-avg", "producer-metrics", "", tags),
+                    (Measurable) (config, now) -> 16_000);
+            metrics.addMetric(metrics.metricName("record-queue-time-avg", "producer-metrics", "", tags),
+                    (Measurable) (config, now) -> 4);
+            metrics.addMetric(metrics.metricName("request-latency-avg", "producer-metrics", "", tags),
+                    (Measurable) (config, now) -> 6);
+
+            AdaptiveBatchTuner tuner = tuner(5, 16_384);
+
+            assertNull(tuner.poll(999, metrics.metrics()), "interval not yet elapsed");
+            assertEquals(new Batching(5, 32_768), tuner.poll(1_000, metrics.metrics()));
+            assertEquals(new Batching(5, 32_768), tuner.current());
+            assertNull(tuner.poll(1_500, metrics.metrics()), "next check only after another interval");
+        }
+    }
+}
@@ -129,7 +129,7 @@ print_acl_table() {
     "${cmd[@]}"
     echo ""
 }
-for topic in payments fraud-alerts approved-payments; do
+for topic in payments fraud-alerts approved-payments payments-dlq payments-retry-1 payments-retry-2 payments-retry-3; do
     print_acl_table confluent kafka acl create --allow --service-account "$SA_ID" \
         --operations read,write,describe,create,delete,alter,describe-configs,alter-configs \
         --topic "$topic"
@@ -229,7 +229,7 @@ fi
 
 # 6. Create topics
 echo "--- Creating topics..."
-for topic in payments fraud-alerts approved-payments; do
+for topic in payments fraud-alerts approved-payments payments-dlq payments-retry-1 payments-retry-2 payments-retry-3; do
     confluent kafka topic create "$topic" --partitions 6 --if-not-exists
     echo "  [OK] $topic"
 done
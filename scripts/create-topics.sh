@@ -17,6 +17,14 @@ TOPICS=(
     "payments:6:3"
     "fraud-alerts:6:3"
     "approved-payments:6:3"
+    "fraud-fast-lane:6:3"
+    # Dead letters: the topology's invalid payments and failed records
+    # (fraud.errors.dlq.topic), and the consumer's last retry tier
+    "payments-dlq:6:3"
+    # Consumer retry tiers, one per consumer.retry.delays.ms entry
+    "payments-retry-1:6:3"
+    "payments-retry-2:6:3"
+    "payments-retry-3:6:3"
 )
 
 case "$MODE" in